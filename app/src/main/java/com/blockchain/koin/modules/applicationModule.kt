@@ -160,7 +160,8 @@ val applicationModule = module {
             context = get(),
             payloadManager = get(),
             accessState = get(),
-            prefs = get()
+            prefs = get(),
+            walletFiles = get()
         )
     }
 
@@ -231,6 +232,7 @@ val applicationModule = module {
                 blockExplorer = get(),
                 defaultLabels = get(),
                 metadataManager = get(),
+                transactionStore = get(),
                 rxBus = get()
             )
         }
@@ -280,7 +282,8 @@ val applicationModule = module {
                 paxAccount = get(paxAccount),
                 usdtAccount = get(usdtAccount),
                 accessState = get(),
-                appUtil = get()
+                appUtil = get(),
+                walletFiles = get()
             )
         }
 
@@ -521,6 +524,7 @@ val applicationModule = module {
             DashboardInteractor(
                 coincore = get(),
                 payloadManager = get(),
+                payloadDataManager = get(),
                 exchangeRates = get(),
                 currencyPrefs = get(),
                 custodialWalletManager = get(),
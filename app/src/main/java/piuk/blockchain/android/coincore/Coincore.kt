@@ -4,14 +4,17 @@ import com.blockchain.logging.CrashLogger
 import com.blockchain.wallet.DefaultLabels
 import info.blockchain.balance.CryptoCurrency
 import io.reactivex.Completable
+import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
 import io.reactivex.rxkotlin.zipWith
+import io.reactivex.schedulers.Schedulers
 import piuk.blockchain.android.coincore.alg.AlgoCryptoWalletAccount
 import piuk.blockchain.android.coincore.impl.AllWalletsAccount
 import piuk.blockchain.android.coincore.impl.TxProcessorFactory
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
 import timber.log.Timber
+import java.util.concurrent.TimeUnit
 
 private class CoincoreInitFailure(msg: String, e: Throwable) : Exception(msg, e)
 
@@ -30,19 +33,51 @@ class Coincore internal constructor(
             "Unknown CryptoCurrency ${ccy.networkTicker}"
         )
 
-    fun init(): Completable =
-        Completable.concat(
-            assetMap.values.map { asset ->
-                Completable.defer { asset.init() }
-                    .doOnError {
-                        crashLogger.logException(
-                            CoincoreInitFailure("Failed init: ${asset.asset.networkTicker}", it)
-                        )
-                    }
-            }.toList()
+    // Assets are initialised side by side, so startup waits for the slowest asset rather than
+    // for all of them in turn. A failing asset doesn't stop the others, but still fails init once
+    // they are done. An asset that takes longer than ASSET_INIT_TIMEOUT_SECONDS is left to finish
+    // in the background, and its accounts appear once it has.
+    fun init(): Completable {
+        val ether = assetMap[CryptoCurrency.ETHER]
+        val etherInit = ether?.let { loadAsset(it) }
+
+        return Flowable.fromIterable(assetMap.values)
+            .flatMapCompletable({ asset ->
+                when {
+                    etherInit != null && asset === ether -> etherInit
+                    // ERC-20 tokens read their address from the ether wallet
+                    etherInit != null && asset.asset.hasFeature(CryptoCurrency.IS_ERC20) ->
+                        loadAsset(asset, after = etherInit.onErrorComplete())
+                    else -> loadAsset(asset)
+                }.timeout(ASSET_INIT_TIMEOUT_SECONDS, TimeUnit.SECONDS, Completable.fromAction {
+                    Timber.w("Coincore: ${asset.asset.networkTicker} still initialising, continuing without it")
+                    crashLogger.logState(initStateKey(asset), "timeout")
+                })
+            }, true, MAX_CONCURRENT_INITS)
+            .doOnError {
+                Timber.e("Coincore initialisation failed! $it")
+            }
+    }
+
+    // Cached, so that timing out only stops waiting for the asset and doesn't cancel it
+    private fun loadAsset(asset: CryptoAsset, after: Completable = Completable.complete()): Completable =
+        after.andThen(
+            Completable.defer {
+                val startedAt = System.currentTimeMillis()
+                asset.init().doOnComplete {
+                    val elapsed = System.currentTimeMillis() - startedAt
+                    Timber.d("Coincore: ${asset.asset.networkTicker} initialised in ${elapsed}ms")
+                    crashLogger.logState(initStateKey(asset), "${elapsed}ms")
+                }
+            }
         ).doOnError {
-            Timber.e("Coincore initialisation failed! $it")
-        }
+            crashLogger.logException(
+                CoincoreInitFailure("Failed init: ${asset.asset.networkTicker}", it)
+            )
+        }.subscribeOn(Schedulers.io())
+            .cache()
+
+    private fun initStateKey(asset: CryptoAsset) = "coincore_init_${asset.asset.networkTicker}"
 
     val fiatAssets: Asset
         get() = fiatAsset
@@ -61,10 +96,10 @@ class Coincore internal constructor(
             allAssets.map {
                 it.accountGroup().map { grp -> grp.accounts }
             }
-        ).reduce { a, l -> a + l }
-            .map { list ->
-                AllWalletsAccount(list, defaultLabels) as AccountGroup
-            }.toSingle()
+        ).toList()
+            .map { lists ->
+                AllWalletsAccount(lists.flatten(), defaultLabels) as AccountGroup
+            }
 
     fun getTransactionTargets(
         sourceAccount: CryptoAccount,
@@ -163,4 +198,9 @@ class Coincore internal constructor(
             target,
             action
         )
+
+    companion object {
+        private const val MAX_CONCURRENT_INITS = 4
+        private const val ASSET_INIT_TIMEOUT_SECONDS = 20L
+    }
 }
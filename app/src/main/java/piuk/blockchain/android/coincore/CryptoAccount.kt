@@ -6,6 +6,7 @@ import info.blockchain.balance.CryptoValue
 import info.blockchain.balance.ExchangeRates
 import info.blockchain.balance.FiatValue
 import info.blockchain.balance.Money
+import io.reactivex.Maybe
 import io.reactivex.Single
 import piuk.blockchain.android.coincore.impl.CustodialTradingAccount
 
@@ -19,6 +20,10 @@ interface BlockchainAccount {
 
     val activity: Single<ActivitySummaryList>
 
+    // Activity kept on the device as of the last sync, shown until [activity] returns
+    val cachedActivity: Maybe<ActivitySummaryList>
+        get() = Maybe.empty()
+
     val actions: AvailableActions
 
     val isFunded: Boolean
@@ -64,6 +64,10 @@ class BchOnChainTxEngine(
         require(asset == CryptoCurrency.BCH)
     }
 
+    private val utxoSnapshot = sessionSnapshot { getUnspentApiResponse(bchSource.internalAccount.xpub) }
+
+    private val feeSnapshot = sessionSnapshot { feeDataManager.bchFeeOptions.singleOrError() }
+
     override fun doInitialiseTx(): Single<PendingTx> =
         Single.just(
             PendingTx(
@@ -73,14 +77,14 @@ class BchOnChainTxEngine(
                 feeLevel = mapSavedFeeToFeeLevel(getFeeType(CryptoCurrency.BCH)),
                 selectedFiat = userFiat
             )
-        )
+        ).doOnSuccess { prefetchSnapshots() }
 
     override fun doUpdateAmount(amount: Money, pendingTx: PendingTx): Single<PendingTx> {
         require(amount is CryptoValue)
         require(amount.currency == CryptoCurrency.BCH)
 
         return Singles.zip(
-            getUnspentApiResponse(bchSource.internalAccount.xpub),
+            utxoSnapshot.get(),
             getDynamicFeePerKb(pendingTx)
         ) { coins, feePerKb ->
             updatePendingTx(amount, pendingTx, feePerKb, coins)
@@ -138,7 +142,7 @@ class BchOnChainTxEngine(
     }
 
     private fun getDynamicFeePerKb(pendingTx: PendingTx): Single<CryptoValue> =
-        feeDataManager.bchFeeOptions
+        feeSnapshot.get()
             .map { feeOptions ->
                 when (pendingTx.feeLevel) {
                     FeeLevel.Regular -> feeToCrypto(feeOptions.regularFee)
@@ -146,7 +150,7 @@ class BchOnChainTxEngine(
                     FeeLevel.Priority -> feeToCrypto(feeOptions.priorityFee)
                     FeeLevel.Custom -> TODO()
                 }
-            }.singleOrError()
+            }
 
     private fun feeToCrypto(feePerKb: Long): CryptoValue =
         CryptoValue.fromMinor(CryptoCurrency.BCH, (feePerKb * 1000).toBigInteger())
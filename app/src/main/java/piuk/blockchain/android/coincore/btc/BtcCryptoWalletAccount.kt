@@ -8,6 +8,7 @@ import info.blockchain.balance.CryptoValue
 import info.blockchain.balance.Money
 import info.blockchain.wallet.payload.data.Account
 import info.blockchain.wallet.payload.data.LegacyAddress
+import io.reactivex.Maybe
 import io.reactivex.Single
 import org.bitcoinj.core.NetworkParameters
 import piuk.blockchain.android.coincore.ActivitySummaryItem
@@ -96,6 +97,21 @@ internal class BtcCryptoWalletAccount(
                 setHasTransactions(it.isNotEmpty())
             }
 
+    override val cachedActivity: Maybe<ActivitySummaryList>
+        get() = payloadDataManager.getCachedAccountTransactions(
+            address,
+            transactionFetchCount
+        ).map { list ->
+            list.map {
+                BtcActivitySummaryItem(
+                    it,
+                    payloadDataManager,
+                    exchangeRates,
+                    this
+                ) as ActivitySummaryItem
+            }
+        }
+
     override fun createTxEngine(): TxEngine =
         BtcOnChainTxEngine(
             btcDataManager = payloadDataManager,
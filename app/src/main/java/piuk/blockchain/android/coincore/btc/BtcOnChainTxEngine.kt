@@ -95,6 +95,10 @@ class BtcOnChainTxEngine(
         }
     }
 
+    private val utxoSnapshot = sessionSnapshot { getUnspentApiResponse(sourceAddress) }
+
+    private val feeSnapshot = sessionSnapshot { feeDataManager.btcFeeOptions.singleOrError() }
+
     override fun doInitialiseTx(): Single<PendingTx> =
         Single.just(
             PendingTx(
@@ -104,12 +108,12 @@ class BtcOnChainTxEngine(
                 feeLevel = mapSavedFeeToFeeLevel(getFeeType(CryptoCurrency.BTC)),
                 selectedFiat = userFiat
             )
-        )
+        ).doOnSuccess { prefetchSnapshots() }
 
     override fun doUpdateAmount(amount: Money, pendingTx: PendingTx): Single<PendingTx> =
         Singles.zip(
             getDynamicFeePerKb(pendingTx),
-            getUnspentApiResponse(sourceAddress)
+            utxoSnapshot.get()
         ).map { (optionsAndFeePerKb, coins) ->
             updatePendingTxFromAmount(
                 amount as CryptoValue,
@@ -142,7 +146,7 @@ class BtcOnChainTxEngine(
         }
 
     private fun getDynamicFeePerKb(pendingTx: PendingTx): Single<Pair<FeeOptions, CryptoValue>> =
-        feeDataManager.btcFeeOptions
+        feeSnapshot.get()
             .map { feeOptions ->
                 when (pendingTx.feeLevel) {
                     FeeLevel.None -> Pair(feeOptions, CryptoValue.ZeroBtc)
@@ -150,7 +154,7 @@ class BtcOnChainTxEngine(
                     FeeLevel.Priority -> Pair(feeOptions, feeToCrypto(feeOptions.priorityFee))
                     FeeLevel.Custom -> Pair(feeOptions, feeToCrypto(pendingTx.customFeeAmount))
                 }
-            }.singleOrError()
+            }
 
     private fun feeToCrypto(feePerKb: Long): CryptoValue =
         CryptoValue.fromMinor(CryptoCurrency.BTC, (feePerKb * 1000).toBigInteger())
@@ -48,7 +48,7 @@ open class Erc20OnChainTxEngine(
                 feeLevel = mapSavedFeeToFeeLevel(getFeeType(erc20Account.cryptoCurrency)),
                 selectedFiat = userFiat
             )
-        )
+        ).doOnSuccess { prefetchSnapshots() }
 
     override fun doBuildConfirmations(pendingTx: PendingTx): Single<PendingTx> =
         Single.just(
@@ -93,8 +93,10 @@ open class Erc20OnChainTxEngine(
             asset = CryptoCurrency.ETHER
         )
 
+    private val feeSnapshot = sessionSnapshot { feeManager.ethFeeOptions.singleOrError() }
+
     private fun feeOptions(): Single<FeeOptions> =
-        feeManager.ethFeeOptions.singleOrError()
+        feeSnapshot.get()
 
     override fun doUpdateAmount(amount: Money, pendingTx: PendingTx): Single<PendingTx> {
         require(amount is CryptoValue)
@@ -51,7 +51,7 @@ open class EthOnChainTxEngine(
                 feeLevel = mapSavedFeeToFeeLevel(getFeeType(CryptoCurrency.ETHER)),
                 selectedFiat = userFiat
             )
-        )
+        ).doOnSuccess { prefetchSnapshots() }
 
     override fun doBuildConfirmations(pendingTx: PendingTx): Single<PendingTx> =
         Single.just(
@@ -96,8 +96,10 @@ open class EthOnChainTxEngine(
             asset = sourceAccount.asset
         )
 
+    private val feeSnapshot = sessionSnapshot { feeManager.ethFeeOptions.singleOrError() }
+
     private fun feeOptions(): Single<FeeOptions> =
-        feeManager.ethFeeOptions.singleOrError()
+        feeSnapshot.get()
 
     override fun doUpdateAmount(amount: Money, pendingTx: PendingTx): Single<PendingTx> {
         require(amount is CryptoValue)
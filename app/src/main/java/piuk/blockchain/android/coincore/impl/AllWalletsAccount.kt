@@ -4,6 +4,7 @@ import com.blockchain.wallet.DefaultLabels
 import info.blockchain.balance.ExchangeRates
 import info.blockchain.balance.FiatValue
 import info.blockchain.balance.Money
+import io.reactivex.Maybe
 import io.reactivex.Single
 import piuk.blockchain.android.coincore.AccountGroup
 import piuk.blockchain.android.coincore.ActivitySummaryList
@@ -28,6 +29,15 @@ class AllWalletsAccount(
     override val activity: Single<ActivitySummaryList>
         get() = allActivities()
 
+    override val cachedActivity: Maybe<ActivitySummaryList>
+        get() = allAccounts().flattenAsObservable { it }
+            .flatMapMaybe { account ->
+                account.cachedActivity
+                    .onErrorComplete()
+            }
+            .reduce { a, l -> a + l }
+            .map { it.sorted() }
+
     override val actions: AvailableActions
         get() = setOf(AssetAction.ViewActivity)
 
@@ -47,7 +47,10 @@ internal abstract class CryptoAssetBase(
     private val eligibilityProvider: EligibilityProvider
 ) : CryptoAsset {
 
-    private val accounts = mutableListOf<SingleAccount>()
+    // Replaced rather than modified, as it may be read while the asset is still initialising
+    @Volatile
+    private var accounts: List<SingleAccount> = emptyList()
+
     override val isEnabled: Boolean
         get() = !asset.hasFeature(CryptoCurrency.STUB_ASSET)
 
@@ -62,22 +65,15 @@ internal abstract class CryptoAssetBase(
             .doOnError { Timber.d("Coincore: Init $asset Failed") }
 
     private fun loadAccounts(): Completable =
-        Completable.fromCallable { accounts.clear() }
-            .then {
-                loadNonCustodialAccounts(labels)
-                    .doOnSuccess { accounts.addAll(it) }
-                    .ignoreElement()
-            }
-            .then {
-                loadCustodialAccount()
-                    .doOnSuccess { accounts.addAll(it) }
-                    .ignoreElement()
+        loadNonCustodialAccounts(labels)
+            .flatMap { nonCustodial ->
+                loadCustodialAccount().map { nonCustodial + it }
             }
-            .then {
-                loadInterestAccounts(labels)
-                    .doOnSuccess { accounts.addAll(it) }
-                    .ignoreElement()
+            .flatMap { loaded ->
+                loadInterestAccounts(labels).map { loaded + it }
             }
+            .doOnSuccess { accounts = it }
+            .ignoreElement()
             .doOnError { Timber.e("Error loading accounts for ${asset.networkTicker}: $it") }
 
     abstract fun initToken(): Completable
@@ -11,6 +11,7 @@ import info.blockchain.balance.FiatValue
 import info.blockchain.balance.Money
 import info.blockchain.balance.total
 import info.blockchain.wallet.multiaddress.TransactionSummary
+import io.reactivex.Maybe
 import io.reactivex.Single
 import piuk.blockchain.android.coincore.AccountGroup
 import piuk.blockchain.android.coincore.ActivitySummaryItem
@@ -292,6 +293,10 @@ class CryptoAccountNonCustodialGroup(
             }
         }
 
+    override val cachedActivity: Maybe<ActivitySummaryList>
+        get() = Maybe.merge(accounts.map { it.cachedActivity })
+            .reduce { a, l -> a + l }
+
     // The intersection of the actions for each account
     override val actions: AvailableActions
         get() = if (accounts.isEmpty()) {
@@ -7,43 +7,50 @@ import info.blockchain.balance.Money
 import java.math.BigDecimal
 import java.math.RoundingMode
 
+/**
+ * Prices amounts from a quote's price tiers. The tiers are sorted by volume once, so each
+ * [getRate] finds its tier with a binary search and interpolates a single segment.
+ */
 class PricesInterpolator(
     private val interpolator: Interpolator = LinearInterpolator(),
     private val pair: CurrencyPair.CryptoCurrencyPair,
     list: List<PriceTier>
 ) {
-    private val prices: List<PriceTier>
+    private val prices: List<PriceTier> =
+        listOf(PriceTier(CryptoValue.zero(pair.source), CryptoValue.zero(pair.source))) +
+            list.sortedBy { it.volume.toBigDecimal() }
 
-    init {
-        prices = list.toMutableList().apply {
-            this.add(0, PriceTier(CryptoValue.zero(pair.source), CryptoValue.zero(pair.source)))
-        }.toList()
-    }
-
-    fun getRate(amount: Money): Money {
-        prices.forEachIndexed { index, priceTier ->
-            if (index == prices.size - 1) return priceTier.price
+    private val volumes: Array<BigDecimal> = Array(prices.size) { prices[it].volume.toBigDecimal() }
 
-            val nextTier = prices[index + 1]
-            val thisVol = priceTier.volume
-            val nextVol = nextTier.volume
+    private val rates: Array<BigDecimal> = Array(prices.size) { prices[it].price.toBigDecimal() }
 
-            if (thisVol < amount && amount <= nextVol) {
-                if (index == 0) {
-                    return nextTier.price
-                }
+    fun getRate(amount: Money): Money {
+        val value = amount.toBigDecimal()
+        // The first tier whose volume is at least the amount, prices the segment ending at it
+        val index = upperTierOf(value)
+        return when {
+            index <= 0 || index == prices.size -> prices.last().price
+            index == 1 -> prices[1].price
+            else -> CryptoValue.fromMajor(
+                pair.destination,
+                interpolator.interpolate(
+                    listOf(volumes[index - 1], volumes[index]),
+                    listOf(rates[index - 1], rates[index]),
+                    value,
+                    pair.destination.dp
+                )
+            )
+        }
+    }
 
-                return CryptoValue.fromMajor(
-                    pair.destination,
-                    interpolator.interpolate(
-                        listOf(priceTier.volume.toBigDecimal(), nextTier.volume.toBigDecimal()),
-                        listOf(priceTier.price.toBigDecimal(), nextTier.price.toBigDecimal()),
-                        amount.toBigDecimal(),
-                        pair.destination.dp
-                    ))
-            }
+    private fun upperTierOf(value: BigDecimal): Int {
+        var low = 0
+        var high = volumes.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (volumes[mid] < value) low = mid + 1 else high = mid
         }
-        return CryptoValue.zero(pair.destination)
+        return low
     }
 }
 
@@ -4,7 +4,6 @@ import com.blockchain.notifications.analytics.Analytics
 import com.blockchain.preferences.WalletStatus
 import com.blockchain.swap.nabu.datamanagers.CustodialWalletManager
 import com.blockchain.swap.nabu.datamanagers.SwapDirection
-import com.blockchain.swap.nabu.datamanagers.repositories.QuotesProvider
 import com.blockchain.swap.nabu.service.TierService
 import io.reactivex.Single
 import piuk.blockchain.android.coincore.AssetAction
@@ -19,6 +18,7 @@ import piuk.blockchain.android.coincore.impl.txEngine.BtcBitpayTxEngine
 import piuk.blockchain.android.coincore.impl.txEngine.CustodialSellTxEngine
 import piuk.blockchain.android.coincore.impl.txEngine.InterestDepositTxEngine
 import piuk.blockchain.android.coincore.impl.txEngine.OnChainTxEngineBase
+import piuk.blockchain.android.coincore.impl.txEngine.SwapQuoteScheduler
 import piuk.blockchain.android.coincore.impl.txEngine.TradingToOnChainTxEngine
 import piuk.blockchain.android.coincore.impl.txEngine.swap.OnChainSwapEngine
 import piuk.blockchain.android.coincore.impl.txEngine.swap.TradingToTradingSwapTxEngine
@@ -31,7 +31,7 @@ class TxProcessorFactory(
     private val exchangeRates: ExchangeRateDataManager,
     private val walletManager: CustodialWalletManager,
     private val walletPrefs: WalletStatus,
-    private val quotesProvider: QuotesProvider,
+    private val quoteScheduler: SwapQuoteScheduler,
     private val analytics: Analytics,
     private val kycTierService: TierService,
     private val environmentConfig: EnvironmentConfig
@@ -99,7 +99,7 @@ class TxProcessorFactory(
                     sourceAccount = source,
                     txTarget = target,
                     engine = OnChainSwapEngine(
-                        quotesProvider = quotesProvider,
+                        quoteScheduler = quoteScheduler,
                         walletManager = walletManager,
                         tiersService = kycTierService,
                         engine = engine,
@@ -140,7 +140,7 @@ class TxProcessorFactory(
                     txTarget = target,
                     engine = TradingToTradingSwapTxEngine(
                         walletManager = walletManager,
-                        quotesProvider = quotesProvider,
+                        quoteScheduler = quoteScheduler,
                         kycTierService = kycTierService
                     )
                 )
@@ -80,6 +80,11 @@ class BtcBitpayTxEngine(
         assetEngine.start(sourceAccount, txTarget, exchangeRates, refreshTrigger)
     }
 
+    override fun stop(pendingTx: PendingTx) {
+        super.stop(pendingTx)
+        assetEngine.stop(pendingTx)
+    }
+
     override fun doInitialiseTx(): Single<PendingTx> =
         assetEngine.doInitialiseTx()
             .map { tx ->
@@ -32,6 +32,11 @@ class InterestDepositTxEngine(
         onChainTxEngine.start(sourceAccount, txTarget, exchangeRates, refreshTrigger)
     }
 
+    override fun stop(pendingTx: PendingTx) {
+        super.stop(pendingTx)
+        onChainTxEngine.stop(pendingTx)
+    }
+
     override fun doInitialiseTx(): Single<PendingTx> =
         onChainTxEngine.doInitialiseTx()
             .flatMap { pendingTx ->
@@ -4,7 +4,11 @@ import com.blockchain.preferences.WalletStatus
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.wallet.api.data.FeeOptions
 import io.reactivex.Completable
+import io.reactivex.Observable
 import io.reactivex.Single
+import io.reactivex.disposables.Disposable
+import org.koin.core.inject
+import piuk.blockchain.android.coincore.CryptoAccount
 import piuk.blockchain.android.coincore.CryptoAddress
 import piuk.blockchain.android.coincore.FeeDetails
 import piuk.blockchain.android.coincore.FeeLevel
@@ -15,14 +19,70 @@ import piuk.blockchain.android.coincore.FeeUnderRecommended
 import piuk.blockchain.android.coincore.PendingTx
 import piuk.blockchain.android.coincore.TxConfirmationValue
 import piuk.blockchain.android.coincore.TxEngine
+import piuk.blockchain.android.coincore.TransactionTarget
 import piuk.blockchain.android.coincore.TxResult
 import piuk.blockchain.android.coincore.ValidCustomFee
+import piuk.blockchain.androidcore.data.events.ActionEvent
+import piuk.blockchain.androidcore.data.events.WalletAndTransactionsUpdatedEvent
+import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
+import piuk.blockchain.androidcore.data.rxjava.RxBus
+import piuk.blockchain.androidcore.utils.extensions.emptySubscribe
 
 abstract class OnChainTxEngineBase(
     override val requireSecondPassword: Boolean,
     private val walletPreferences: WalletStatus
 ) : TxEngine() {
 
+    private val rxBus: RxBus by inject()
+
+    private val snapshots = mutableListOf<TxSessionSnapshot<*>>()
+    private var walletEvents: Observable<ActionEvent>? = null
+    private var walletEventsDisposable: Disposable? = null
+
+    override fun start(
+        sourceAccount: CryptoAccount,
+        txTarget: TransactionTarget,
+        exchangeRates: ExchangeRateDataManager,
+        refreshTrigger: RefreshTrigger
+    ) {
+        super.start(sourceAccount, txTarget, exchangeRates, refreshTrigger)
+        invalidateSnapshots()
+        if (snapshots.isNotEmpty() && walletEvents == null) {
+            // The websocket posts this whenever a balance or the transaction list changes
+            val events = rxBus.register(ActionEvent::class.java)
+            walletEvents = events
+            walletEventsDisposable = events
+                .filter { it is WalletAndTransactionsUpdatedEvent }
+                .subscribe { invalidateSnapshots() }
+        }
+    }
+
+    override fun stop(pendingTx: PendingTx) {
+        super.stop(pendingTx)
+        walletEventsDisposable?.dispose()
+        walletEventsDisposable = null
+        walletEvents?.let { rxBus.unregister(ActionEvent::class.java, it) }
+        walletEvents = null
+        invalidateSnapshots()
+    }
+
+    // Coins and fee options that are fetched once per transaction, and shared by every amount
+    // and fee level update until they expire or the wallet changes
+    protected fun <T : Any> sessionSnapshot(fetch: () -> Single<T>): TxSessionSnapshot<T> =
+        TxSessionSnapshot(SNAPSHOT_TTL_MILLIS, fetch = fetch).also { snapshots += it }
+
+    // Starts loading the snapshots while the user is still entering an amount
+    protected fun prefetchSnapshots() =
+        snapshots.forEach { snapshot ->
+            snapshot.get()
+                .ignoreElement()
+                .onErrorComplete()
+                .emptySubscribe()
+        }
+
+    private fun invalidateSnapshots() =
+        snapshots.forEach { it.invalidate() }
+
     override fun assertInputsValid() {
         val tgt = txTarget
         require(tgt is CryptoAddress)
@@ -90,6 +150,7 @@ abstract class OnChainTxEngineBase(
 
     companion object {
         const val MINIMUM_CUSTOM_FEE = 1L
+        const val SNAPSHOT_TTL_MILLIS = 60_000L
         const val maxBTCAmount = 2_100_000_000_000_000L
         const val maxBCHAmount = 2_100_000_000_000_000L
     }
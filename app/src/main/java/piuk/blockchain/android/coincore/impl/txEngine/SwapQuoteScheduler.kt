@@ -0,0 +1,78 @@
+package piuk.blockchain.android.coincore.impl.txEngine
+
+import com.blockchain.swap.nabu.datamanagers.CurrencyPair
+import com.blockchain.swap.nabu.datamanagers.SwapDirection
+import com.blockchain.swap.nabu.datamanagers.SwapQuote
+import com.blockchain.swap.nabu.datamanagers.repositories.QuotesProvider
+import io.reactivex.Flowable
+import io.reactivex.Observable
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import kotlin.math.absoluteValue
+import kotlin.math.max
+import kotlin.random.Random
+
+/**
+ * Keeps swap quotes fresh. Each direction and pair has one shared stream, so every engine quoting
+ * the same pair shares a single fetch, and the stream stops once no one is subscribed.
+ *
+ * A quote is refreshed at [REFRESH_AT] of its lifetime, less a random jitter of up to
+ * [JITTER] of it so clients don't refresh in step. A failed fetch is retried up to [MAX_RETRIES]
+ * times, backing off from [RETRY_DELAY_MILLIS], before the stream fails.
+ */
+class SwapQuoteScheduler(
+    private val quotesProvider: QuotesProvider,
+    private val scheduler: Scheduler = Schedulers.computation(),
+    private val random: Random = Random.Default
+) {
+    private data class QuoteKey(val direction: SwapDirection, val pair: CurrencyPair.CryptoCurrencyPair)
+
+    private val quotes = ConcurrentHashMap<QuoteKey, Observable<SwapQuote>>()
+
+    fun quotes(direction: SwapDirection, pair: CurrencyPair.CryptoCurrencyPair): Observable<SwapQuote> =
+        quotes.getOrPut(QuoteKey(direction, pair)) {
+            refreshing(direction, pair).replay(1).refCount()
+        }
+
+    private fun refreshing(direction: SwapDirection, pair: CurrencyPair.CryptoCurrencyPair) =
+        Observable.defer {
+            var delayMillis = 0L
+            Observable.defer {
+                fetchWithRetries(direction, pair)
+                    .delaySubscription(delayMillis, TimeUnit.MILLISECONDS, scheduler)
+                    .toObservable()
+            }.doOnNext { quote ->
+                delayMillis = refreshDelayMillis(quote)
+            }.repeat()
+        }
+
+    private fun fetchWithRetries(direction: SwapDirection, pair: CurrencyPair.CryptoCurrencyPair): Single<SwapQuote> =
+        quotesProvider.fetchQuote(direction = direction, pair = pair)
+            .retryWhen { errors ->
+                var attempt = 0
+                errors.flatMap { error ->
+                    if (++attempt > MAX_RETRIES) {
+                        Flowable.error<Long>(error)
+                    } else {
+                        Flowable.timer(RETRY_DELAY_MILLIS shl (attempt - 1), TimeUnit.MILLISECONDS, scheduler)
+                    }
+                }
+            }
+
+    internal fun refreshDelayMillis(quote: SwapQuote): Long {
+        val lifetime = (quote.expirationDate.time - quote.creationDate.time).absoluteValue
+        val jitter = (lifetime * JITTER * random.nextDouble()).toLong()
+        return max(MIN_REFRESH_MILLIS, (lifetime * REFRESH_AT).toLong() - jitter)
+    }
+
+    companion object {
+        const val REFRESH_AT = 0.9
+        const val JITTER = 0.05
+        const val MIN_REFRESH_MILLIS = 5_000L
+        const val MAX_RETRIES = 3
+        const val RETRY_DELAY_MILLIS = 1_000L
+    }
+}
@@ -3,7 +3,6 @@ package piuk.blockchain.android.coincore.impl.txEngine
 import com.blockchain.swap.nabu.datamanagers.SwapDirection
 import com.blockchain.swap.nabu.datamanagers.CurrencyPair
 import com.blockchain.swap.nabu.datamanagers.SwapQuote
-import com.blockchain.swap.nabu.datamanagers.repositories.QuotesProvider
 import info.blockchain.balance.CryptoValue
 import info.blockchain.balance.Money
 import io.reactivex.Observable
@@ -11,12 +10,9 @@ import io.reactivex.rxkotlin.Observables
 import io.reactivex.subjects.BehaviorSubject
 import io.reactivex.subjects.PublishSubject
 import piuk.blockchain.android.coincore.impl.PricesInterpolator
-import java.util.Date
-import java.util.concurrent.TimeUnit
-import kotlin.math.absoluteValue
 
 class SwapQuotesEngine(
-    private val quotesProvider: QuotesProvider,
+    private val quoteScheduler: SwapQuoteScheduler,
     private val direction: SwapDirection,
     private val pair: CurrencyPair.CryptoCurrencyPair
 ) {
@@ -26,22 +22,14 @@ class SwapQuotesEngine(
 
     private val amount = BehaviorSubject.createDefault<Money>(CryptoValue.zero(pair.source))
 
-    private val quote: Observable<SwapQuote> =
-        quotesProvider.fetchQuote(direction = direction, pair = pair).flatMapObservable { quote ->
-            Observable.interval(
-                quote.creationDate.diffInSeconds(quote.expirationDate),
-                quote.creationDate.diffInSeconds(quote.expirationDate),
-                TimeUnit.SECONDS
-            ).flatMapSingle {
-                quotesProvider.fetchQuote(direction = direction, pair = pair)
-            }.startWith(quote)
+    // Each quote's tiers are compiled once, not on every amount change
+    private val quote: Observable<Pair<SwapQuote, PricesInterpolator>> =
+        quoteScheduler.quotes(direction = direction, pair = pair).map { quote ->
+            quote to PricesInterpolator(list = quote.prices, pair = pair)
         }.takeUntil(stop)
 
     val pricedQuote: Observable<PricedQuote> = Observables.combineLatest(quote, amount).map { (quote, amount) ->
-        PricedQuote(PricesInterpolator(
-            list = quote.prices,
-            pair = pair
-        ).getRate(amount), quote)
+        PricedQuote(quote.second.getRate(amount), quote.first)
     }.doOnNext {
         latestQuote = it
     }.share().replay(1).refCount()
@@ -56,5 +44,3 @@ class SwapQuotesEngine(
 }
 
 data class PricedQuote(val price: Money, val swapQuote: SwapQuote)
-
-private fun Date.diffInSeconds(other: Date): Long = (this.time - other.time).absoluteValue / 100
\ No newline at end of file
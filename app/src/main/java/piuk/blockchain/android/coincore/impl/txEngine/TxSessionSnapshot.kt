@@ -0,0 +1,53 @@
+package piuk.blockchain.android.coincore.impl.txEngine
+
+import io.reactivex.Single
+
+/**
+ * Holds the result of [fetch] for the length of a transaction session, so that amount, fee level
+ * and max spendable updates all work from the same coins and fee options instead of going back to
+ * the network each time. The value is fetched again once it is older than [ttlMillis], after a
+ * failed fetch, or after [invalidate].
+ *
+ * Concurrent callers share a single in-flight request.
+ */
+class TxSessionSnapshot<T : Any>(
+    private val ttlMillis: Long,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val fetch: () -> Single<T>
+) {
+    private var cached: Single<T>? = null
+    private var fetchedAt = 0L
+
+    fun get(): Single<T> = Single.defer { current() }
+
+    @Synchronized
+    fun invalidate() {
+        cached = null
+    }
+
+    @Synchronized
+    private fun current(): Single<T> {
+        val now = clock()
+        cached?.let {
+            if (now - fetchedAt < ttlMillis) {
+                return it
+            }
+        }
+
+        lateinit var request: Single<T>
+        request = Single.defer(fetch)
+            .doOnError { drop(request) }
+            .cache()
+        cached = request
+        fetchedAt = now
+        return request
+    }
+
+    @Synchronized
+    private fun drop(request: Single<T>) {
+        // A newer request may already have replaced the failed one
+        if (cached === request) {
+            cached = null
+        }
+    }
+}
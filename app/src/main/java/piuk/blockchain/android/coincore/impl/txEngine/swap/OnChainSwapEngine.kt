@@ -2,7 +2,6 @@ package piuk.blockchain.android.coincore.impl.txEngine.swap
 
 import com.blockchain.swap.nabu.datamanagers.CustodialWalletManager
 import com.blockchain.swap.nabu.datamanagers.SwapDirection
-import com.blockchain.swap.nabu.datamanagers.repositories.QuotesProvider
 import com.blockchain.swap.nabu.service.TierService
 import info.blockchain.balance.CryptoValue
 import info.blockchain.balance.Money
@@ -15,12 +14,13 @@ import piuk.blockchain.android.coincore.ValidationState
 import piuk.blockchain.android.coincore.impl.makeExternalAssetAddress
 import piuk.blockchain.android.coincore.impl.txEngine.OnChainTxEngineBase
 import piuk.blockchain.android.coincore.impl.txEngine.PricedQuote
+import piuk.blockchain.android.coincore.impl.txEngine.SwapQuoteScheduler
 import piuk.blockchain.android.coincore.updateTxValidity
 import piuk.blockchain.androidcore.data.api.EnvironmentConfig
 import piuk.blockchain.androidcore.utils.extensions.thenSingle
 
 class OnChainSwapEngine(
-    private val quotesProvider: QuotesProvider,
+    quoteScheduler: SwapQuoteScheduler,
     walletManager: CustodialWalletManager,
     tiersService: TierService,
     override val direction: SwapDirection,
@@ -28,7 +28,7 @@ class OnChainSwapEngine(
     private val environmentConfig: EnvironmentConfig,
     private val custodialWalletManager: CustodialWalletManager
 ) : SwapEngineBase(
-    quotesProvider, walletManager, tiersService
+    quoteScheduler, walletManager, tiersService
 ) {
 
     override fun doInitialiseTx(): Single<PendingTx> {
@@ -63,6 +63,11 @@ class OnChainSwapEngine(
         )
     }
 
+    override fun stop(pendingTx: PendingTx) {
+        super.stop(pendingTx)
+        engine.stop(pendingTx)
+    }
+
     override fun doUpdateAmount(amount: Money, pendingTx: PendingTx): Single<PendingTx> {
         return engine.doUpdateAmount(amount, pendingTx).updateQuotePrice().clearConfirmations()
     }
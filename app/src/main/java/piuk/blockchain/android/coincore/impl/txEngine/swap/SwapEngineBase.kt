@@ -4,7 +4,6 @@ import com.blockchain.swap.nabu.datamanagers.CurrencyPair
 import com.blockchain.swap.nabu.datamanagers.CustodialWalletManager
 import com.blockchain.swap.nabu.datamanagers.SwapDirection
 import com.blockchain.swap.nabu.datamanagers.SwapOrder
-import com.blockchain.swap.nabu.datamanagers.repositories.QuotesProvider
 import com.blockchain.swap.nabu.models.nabu.KycTierLevel
 import com.blockchain.swap.nabu.models.nabu.KycTiers
 import com.blockchain.swap.nabu.models.nabu.NabuApiException
@@ -27,6 +26,7 @@ import piuk.blockchain.android.coincore.TxValidationFailure
 import piuk.blockchain.android.coincore.ValidationState
 import piuk.blockchain.android.coincore.copyAndPut
 import piuk.blockchain.android.coincore.impl.txEngine.PricedQuote
+import piuk.blockchain.android.coincore.impl.txEngine.SwapQuoteScheduler
 import piuk.blockchain.android.coincore.impl.txEngine.SwapQuotesEngine
 import piuk.blockchain.android.coincore.updateTxValidity
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
@@ -45,7 +45,7 @@ private val PendingTx.quoteSub: Disposable?
     get() = (this.engineState[QUOTE_SUB] as? Disposable)
 
 abstract class SwapEngineBase(
-    private val quotesProvider: QuotesProvider,
+    private val quoteScheduler: SwapQuoteScheduler,
     private val walletManager: CustodialWalletManager,
     private val kycTierService: TierService
 ) : TxEngine() {
@@ -62,7 +62,7 @@ abstract class SwapEngineBase(
         refreshTrigger: RefreshTrigger
     ) {
         super.start(sourceAccount, txTarget, exchangeRates, refreshTrigger)
-        quotesEngine = SwapQuotesEngine(quotesProvider, direction, pair)
+        quotesEngine = SwapQuotesEngine(quoteScheduler, direction, pair)
     }
 
     val target: CryptoAccount
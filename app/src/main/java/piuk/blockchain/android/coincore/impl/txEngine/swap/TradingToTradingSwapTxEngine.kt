@@ -2,7 +2,6 @@ package piuk.blockchain.android.coincore.impl.txEngine.swap
 
 import com.blockchain.swap.nabu.datamanagers.CustodialWalletManager
 import com.blockchain.swap.nabu.datamanagers.SwapDirection
-import com.blockchain.swap.nabu.datamanagers.repositories.QuotesProvider
 import com.blockchain.swap.nabu.service.TierService
 import info.blockchain.balance.CryptoValue
 import info.blockchain.balance.Money
@@ -11,12 +10,13 @@ import piuk.blockchain.android.coincore.FeeLevel
 import piuk.blockchain.android.coincore.PendingTx
 import piuk.blockchain.android.coincore.TxResult
 import piuk.blockchain.android.coincore.impl.CustodialTradingAccount
+import piuk.blockchain.android.coincore.impl.txEngine.SwapQuoteScheduler
 
 class TradingToTradingSwapTxEngine(
     walletManager: CustodialWalletManager,
-    quotesProvider: QuotesProvider,
+    quoteScheduler: SwapQuoteScheduler,
     kycTierService: TierService
-) : SwapEngineBase(quotesProvider, walletManager, kycTierService) {
+) : SwapEngineBase(quoteScheduler, walletManager, kycTierService) {
 
     override fun assertInputsValid() {
         require(txTarget is CustodialTradingAccount)
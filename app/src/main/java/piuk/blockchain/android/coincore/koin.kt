@@ -17,6 +17,7 @@ import piuk.blockchain.android.coincore.erc20.usdt.UsdtAsset
 import piuk.blockchain.android.coincore.eth.EthAsset
 import piuk.blockchain.android.coincore.fiat.FiatAsset
 import piuk.blockchain.android.coincore.impl.TxProcessorFactory
+import piuk.blockchain.android.coincore.impl.txEngine.SwapQuoteScheduler
 import piuk.blockchain.android.coincore.stx.StxAsset
 import piuk.blockchain.android.coincore.xlm.XlmAsset
 import piuk.blockchain.android.repositories.AssetActivityRepository
@@ -232,13 +233,19 @@ val coincoreModule = module {
                 exchangeRates = get(),
                 walletManager = get(),
                 walletPrefs = get(),
-                quotesProvider = get(),
+                quoteScheduler = get(),
                 analytics = get(),
                 kycTierService = get(),
                 environmentConfig = get()
             )
         }
 
+        scoped {
+            SwapQuoteScheduler(
+                quotesProvider = get()
+            )
+        }
+
         scoped {
             AssetActivityRepository(
                 coincore = get(),
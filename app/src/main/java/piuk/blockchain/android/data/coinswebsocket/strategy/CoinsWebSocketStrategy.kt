@@ -3,6 +3,9 @@ package piuk.blockchain.android.data.coinswebsocket.strategy
 import com.blockchain.network.websocket.ConnectionEvent
 import com.blockchain.network.websocket.WebSocket
 import com.google.gson.Gson
+import com.google.gson.JsonObject
+import com.google.gson.JsonParseException
+import com.google.gson.JsonParser
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.balance.CryptoValue
 import info.blockchain.wallet.ethereum.Erc20TokenData
@@ -11,9 +14,12 @@ import io.reactivex.Completable
 import io.reactivex.Observable
 import io.reactivex.disposables.CompositeDisposable
 import io.reactivex.rxkotlin.plusAssign
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.subjects.PublishSubject
 import org.web3j.utils.Convert
 import piuk.blockchain.android.R
 import piuk.blockchain.android.data.coinswebsocket.models.BtcBchResponse
+import piuk.blockchain.android.data.coinswebsocket.models.BtcTransaction
 import piuk.blockchain.android.data.coinswebsocket.models.Coin
 import piuk.blockchain.android.data.coinswebsocket.models.CoinWebSocketInput
 import piuk.blockchain.android.data.coinswebsocket.models.Entity
@@ -35,6 +41,7 @@ import piuk.blockchain.android.util.StringUtils
 import piuk.blockchain.androidcore.data.access.AccessState
 import piuk.blockchain.androidcore.data.bitcoincash.BchDataManager
 import piuk.blockchain.androidcore.data.erc20.Erc20Account
+import piuk.blockchain.androidcore.data.erc20.Erc20Transfer
 import piuk.blockchain.androidcore.data.ethereum.EthDataManager
 import piuk.blockchain.androidcore.data.ethereum.models.CombinedEthModel
 import piuk.blockchain.androidcore.data.events.ActionEvent
@@ -45,10 +52,10 @@ import piuk.blockchain.androidcore.data.rxjava.RxBus
 import piuk.blockchain.androidcore.data.websockets.WebSocketReceiveEvent
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import piuk.blockchain.androidcore.utils.extensions.applySchedulers
-import piuk.blockchain.androidcore.utils.extensions.emptySubscribe
 import timber.log.Timber
 import java.math.BigDecimal
 import java.util.Locale
+import java.util.concurrent.TimeUnit
 
 class CoinsWebSocketStrategy(
     private val coinsWebSocket: WebSocket<String, String>,
@@ -70,6 +77,10 @@ class CoinsWebSocketStrategy(
     private var coinWebSocketInput: CoinWebSocketInput? = null
     private val compositeDisposable = CompositeDisposable()
     private var messagesSocketHandler: MessagesSocketHandler? = null
+    private val jsonParser = JsonParser()
+    private val refreshRequests = PublishSubject.create<RefreshTarget>().toSerialized()
+    // Subscriptions made by open(), replaced if it's called again
+    private val eventsDisposable = CompositeDisposable()
 
     fun setMessagesHandler(messagesSocketHandler: MessagesSocketHandler) {
         this.messagesSocketHandler = messagesSocketHandler
@@ -82,7 +93,9 @@ class CoinsWebSocketStrategy(
     }
 
     private fun subscribeToEvents() {
-        compositeDisposable += coinsWebSocket.connectionEvents.subscribe {
+        eventsDisposable.clear()
+
+        eventsDisposable += coinsWebSocket.connectionEvents.subscribe {
             when (it) {
                 is ConnectionEvent.Connected -> run {
                     ping()
@@ -91,19 +104,88 @@ class CoinsWebSocketStrategy(
             }
         }
 
-        compositeDisposable += coinsWebSocket.responses.distinctUntilChanged()
+        eventsDisposable += coinsWebSocket.responses.distinctUntilChanged()
             .subscribe { response ->
-                val socketResponse = gson.fromJson(response, SocketResponse::class.java)
+                val frame = parseFrame(response) ?: return@subscribe
+                val socketResponse = gson.fromJson(frame, SocketResponse::class.java)
                 if (socketResponse.op == "on_change") checkForWalletChange(socketResponse.checksum)
                 when (socketResponse.coin) {
-                    Coin.ETH -> handleEthTransaction(response)
-                    Coin.BTC -> handleBtcTransaction(response)
-                    Coin.BCH -> handleBchTransaction(response)
+                    Coin.ETH -> handleEthTransaction(gson.fromJson(frame, EthResponse::class.java))
+                    Coin.BTC -> handleBtcTransaction(gson.fromJson(frame, BtcBchResponse::class.java))
+                    Coin.BCH -> handleBchTransaction(gson.fromJson(frame, BtcBchResponse::class.java))
                     else -> {
                     }
                 }
             }
-    }
+
+        // The first event refreshes straight away. The rest of a burst, such as a batched payout,
+        // refreshes each asset at most once more per window
+        eventsDisposable += refreshRequests
+            .groupBy { it }
+            .flatMapCompletable { requests ->
+                requests.throttleLatest(REFRESH_WINDOW_MILLIS, TimeUnit.MILLISECONDS)
+                    .concatMapCompletable { refresh(it) }
+            }.subscribe()
+    }
+
+    // The frame is only parsed once. Each handler binds the parts it needs from the parsed tree
+    private fun parseFrame(response: String): JsonObject? =
+        try {
+            jsonParser.parse(response).asJsonObject
+        } catch (e: JsonParseException) {
+            Timber.e(e, "Unreadable websocket message")
+            null
+        } catch (e: IllegalStateException) {
+            Timber.e(e, "Unexpected websocket message")
+            null
+        }
+
+    private fun requestRefresh(target: RefreshTarget) = refreshRequests.onNext(target)
+
+    private fun refresh(target: RefreshTarget): Completable =
+        when (target) {
+            RefreshTarget.BTC ->
+                payloadDataManager.updateAllBalances()
+                    .andThen(payloadDataManager.updateAllTransactions())
+                    .doOnComplete {
+                        rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent())
+                    }
+            RefreshTarget.BCH ->
+                bchDataManager.updateAllBalances()
+                    .andThen(bchDataManager.getWalletTransactions(50, 0).ignoreElements())
+                    .doOnComplete {
+                        rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent())
+                    }
+            RefreshTarget.ETH -> downloadEthTransactions().ignoreElements().broadcastOnComplete()
+            RefreshTarget.PAX -> paxAccount.fetchAddressCompletable().broadcastOnComplete()
+            RefreshTarget.USDT -> usdtAccount.fetchAddressCompletable().broadcastOnComplete()
+            RefreshTarget.DGLD -> dgldAccount.fetchAddressCompletable().broadcastOnComplete()
+        }.subscribeOn(Schedulers.io())
+            .doOnError { Timber.e(it, "Refreshing $target after websocket event failed") }
+            .onErrorComplete()
+
+    private fun Completable.broadcastOnComplete(): Completable =
+        doOnComplete { messagesSocketHandler?.sendBroadcast(TransactionsUpdatedEvent()) }
+
+    // The event carries the whole transfer, so it's added to the stored ones rather than fetching them all
+    private fun addTransfer(account: Erc20Account, target: RefreshTarget, transfer: TokenTransfer) {
+        val erc20Transfer = transfer.toErc20Transfer() ?: return requestRefresh(target)
+        compositeDisposable += account.addTransfer(erc20Transfer)
+            .broadcastOnComplete()
+            .subscribe({}, {
+                Timber.e(it, "Adding $target transfer failed")
+                requestRefresh(target)
+            })
+    }
+
+    private fun TokenTransfer.toErc20Transfer(): Erc20Transfer? =
+        try {
+            Erc20Transfer(logIndex, transactionHash, value, from, to, blockNumber.toBigInteger(), timeStamp)
+        } catch (e: RuntimeException) {
+            // Gson leaves missing fields null
+            Timber.e(e, "Incomplete token transfer")
+            null
+        }
 
     private fun checkForWalletChange(checksum: String?) {
         if (checksum == null) return
@@ -123,7 +205,7 @@ class CoinsWebSocketStrategy(
             payloadDataManager.wallet!!.guid,
             payloadDataManager.tempPassword!!
         ).compose(RxUtil.applySchedulersToCompletable())
-            .doOnComplete { this.updateBtcBalancesAndTransactions() }
+            .doOnComplete { requestRefresh(RefreshTarget.BTC) }
             .doOnError { throwable ->
                 if (throwable is DecryptionException) {
                     messagesSocketHandler?.showToast(R.string.wallet_updated)
@@ -179,8 +261,11 @@ class CoinsWebSocketStrategy(
         return inAddr to totalValue
     }
 
-    private fun handleBtcTransaction(response: String) {
-        val btcResponse = gson.fromJson(response, BtcBchResponse::class.java)
+    // The refresh would skip imported addresses whose balance was unchanged, so make it check these
+    private fun BtcTransaction.addresses(): Set<String> =
+        (inputs.mapNotNull { it.prevOut?.addr } + outputs.mapNotNull { it.addr }).toSet()
+
+    private fun handleBtcTransaction(btcResponse: BtcBchResponse) {
         val transaction = btcResponse.transaction ?: return
 
         handleTransactionInputsAndOutputs(transaction.inputs,
@@ -189,11 +274,11 @@ class CoinsWebSocketStrategy(
             payloadDataManager.wallet?.containsLegacyAddress(x)
         }
 
-        updateBtcBalancesAndTransactions()
+        payloadDataManager.invalidateAddressBalances(transaction.addresses())
+        requestRefresh(RefreshTarget.BTC)
     }
 
-    private fun handleBchTransaction(response: String) {
-        val bchResponse = gson.fromJson(response, BtcBchResponse::class.java)
+    private fun handleBchTransaction(bchResponse: BtcBchResponse) {
         val transaction = bchResponse.transaction ?: return
 
         val (inAddr, totalValue) =
@@ -202,7 +287,8 @@ class CoinsWebSocketStrategy(
                 bchDataManager.getLegacyAddressStringList().contains(x)
             }
 
-        updateBchBalancesAndTransactions()
+        bchDataManager.invalidateAddressBalances(transaction.addresses())
+        requestRefresh(RefreshTarget.BCH)
 
         val title = stringUtils.getString(R.string.app_name)
 
@@ -219,25 +305,7 @@ class CoinsWebSocketStrategy(
         }
     }
 
-    private fun updateBtcBalancesAndTransactions() {
-        payloadDataManager.updateAllBalances()
-            .andThen(payloadDataManager.updateAllTransactions())
-            .doOnComplete {
-                rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent())
-            }.emptySubscribe()
-    }
-
-    private fun updateBchBalancesAndTransactions() {
-        bchDataManager.updateAllBalances()
-            .andThen(bchDataManager.getWalletTransactions(50, 0))
-            .doOnComplete {
-                rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent())
-            }
-            .emptySubscribe()
-    }
-
-    private fun handleEthTransaction(response: String) {
-        val ethResponse = gson.fromJson(response, EthResponse::class.java)
+    private fun handleEthTransaction(ethResponse: EthResponse) {
         val title = stringUtils.getString(R.string.app_name)
 
         if (ethResponse.transaction != null && ethResponse.getTokenType() == CryptoCurrency.ETHER) {
@@ -254,7 +322,7 @@ class CoinsWebSocketStrategy(
                     title, marquee, text
                 )
             }
-            updateEthTransactions()
+            requestRefresh(RefreshTarget.ETH)
         }
 
         if (ethResponse.entity == Entity.TokenAccount &&
@@ -286,7 +354,7 @@ class CoinsWebSocketStrategy(
             title, marquee, text
         )
 
-        updateUsdtTransactions()
+        addTransfer(usdtAccount, RefreshTarget.USDT, tokenTransaction)
     }
 
     private fun triggerDgldNotificationAndUpdate(
@@ -304,7 +372,7 @@ class CoinsWebSocketStrategy(
             title, marquee, text
         )
 
-        updateDgldTransactions()
+        addTransfer(dgldAccount, RefreshTarget.DGLD, tokenTransaction)
     }
 
     private fun triggerPaxNotificationAndUpdate(
@@ -322,14 +390,7 @@ class CoinsWebSocketStrategy(
             title, marquee, text
         )
 
-        updatePaxTransactions()
-    }
-
-    private fun updateEthTransactions() {
-        compositeDisposable += downloadEthTransactions()
-            .subscribe(
-                { messagesSocketHandler?.sendBroadcast(TransactionsUpdatedEvent()) },
-                { throwable -> Timber.e(throwable, "downloadEthTransactions failed") })
+        addTransfer(paxAccount, RefreshTarget.PAX, tokenTransaction)
     }
 
     fun subscribeToXpubBtc(xpub: String) {
@@ -350,30 +411,10 @@ class CoinsWebSocketStrategy(
             ))))
     }
 
-    private fun updatePaxTransactions() {
-        compositeDisposable += paxAccount.fetchAddressCompletable()
-            .subscribe(
-                { messagesSocketHandler?.sendBroadcast(TransactionsUpdatedEvent()) },
-                { throwable -> Timber.e(throwable, "downloadPaxTransactions failed") })
-    }
-
-    private fun updateUsdtTransactions() {
-        compositeDisposable += usdtAccount.fetchAddressCompletable()
-            .subscribe(
-                { messagesSocketHandler?.sendBroadcast(TransactionsUpdatedEvent()) },
-                { throwable -> Timber.e(throwable, "downloadUsdtTransactions failed") })
-    }
-
-    private fun updateDgldTransactions() {
-        compositeDisposable += dgldAccount.fetchAddressCompletable()
-            .subscribe(
-                { messagesSocketHandler?.sendBroadcast(TransactionsUpdatedEvent()) },
-                { throwable -> Timber.e(throwable, "downloadDgldTransactions failed") })
-    }
-
     fun close() {
         unsubscribeFromAddresses()
         coinsWebSocket.close()
+        eventsDisposable.clear()
         compositeDisposable.clear()
     }
 
@@ -650,4 +691,10 @@ class CoinsWebSocketStrategy(
 
     private fun PayloadDataManager.totalAccounts(): Int =
         wallet?.hdWallets?.get(0)?.accounts?.size ?: 0
+
+    private enum class RefreshTarget { BTC, BCH, ETH, PAX, USDT, DGLD }
+
+    companion object {
+        private const val REFRESH_WINDOW_MILLIS = 500L
+    }
 }
\ No newline at end of file
@@ -112,7 +112,10 @@ class AssetActivityRepository(
         return if (transactionCache.isNotEmpty()) {
             Maybe.just(transactionCache)
         } else {
-            Maybe.empty()
+            // Nothing fetched since launch, start with what the wallets kept on the device
+            coincore.allWallets()
+                .flatMapMaybe { it.cachedActivity }
+                .onErrorComplete()
         }
     }
 
@@ -11,6 +11,7 @@ import piuk.blockchain.android.data.coinswebsocket.service.CoinsWebSocketService
 import piuk.blockchain.android.util.OSUtil
 import piuk.blockchain.androidcore.data.access.AccessState
 import piuk.blockchain.androidcore.data.bitcoincash.BchDataManager
+import piuk.blockchain.androidcore.data.datastores.persistentstore.WalletFiles
 import piuk.blockchain.androidcore.data.erc20.Erc20Account
 import piuk.blockchain.androidcore.data.ethereum.EthDataManager
 import piuk.blockchain.androidcore.data.walletoptions.WalletOptionsState
@@ -28,6 +29,7 @@ class LogoutActivity : AppCompatActivity() {
     private val osUtil: OSUtil by inject()
     private val loginState: AccessState by inject()
     private val prefs: PersistentPrefs by inject()
+    private val walletFiles: WalletFiles by inject()
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
@@ -57,6 +59,7 @@ class LogoutActivity : AppCompatActivity() {
         nabuDataManager.clearAccessToken()
 
         walletOptionsState.wipe()
+        walletFiles.clear()
 
         loginState.isLoggedIn = false
         finishAffinity()
@@ -0,0 +1,90 @@
+package piuk.blockchain.android.ui.base.mvi
+
+import java.util.ArrayDeque
+
+/**
+ * What happens to intents that arrive while the queue is full. Only [KEEP_ALL] is lossless. The
+ * others are for models whose intents are all idempotent refreshes, where a later intent makes
+ * any waiting one redundant.
+ */
+enum class IntentOverflow {
+    // Never discard an intent, the queue grows past its capacity instead
+    KEEP_ALL,
+    // Discard the intent that has been waiting longest
+    DROP_OLDEST,
+    // Replace a waiting intent of the same type, so only the latest of each type is processed.
+    // If the queue is still full, discard the intent that has been waiting longest
+    CONFLATE_BY_TYPE
+}
+
+data class MviMetrics(
+    val intentsProcessed: Long = 0,
+    val intentsDropped: Long = 0,
+    val queueDepth: Int = 0,
+    val maxQueueDepth: Int = 0,
+    val lastReduceNanos: Long = 0,
+    val maxReduceNanos: Long = 0,
+    val totalReduceNanos: Long = 0
+)
+
+/**
+ * Intents waiting to be reduced, held only until they are processed. Unless [overflow] is
+ * [IntentOverflow.KEEP_ALL], holds at most [capacity] intents.
+ */
+internal class IntentQueue<I : Any>(
+    private val capacity: Int,
+    private val overflow: IntentOverflow
+) {
+    init {
+        require(capacity > 0) { "Intent queue capacity must be positive" }
+    }
+
+    private val queue = ArrayDeque<I>(capacity)
+    private var metrics = MviMetrics()
+
+    @Synchronized
+    fun offer(intent: I) {
+        var dropped = 0
+        if (overflow == IntentOverflow.CONFLATE_BY_TYPE) {
+            val iterator = queue.iterator()
+            while (iterator.hasNext()) {
+                if (iterator.next().javaClass == intent.javaClass) {
+                    iterator.remove()
+                    dropped++
+                }
+            }
+        }
+        if (queue.size == capacity && overflow != IntentOverflow.KEEP_ALL) {
+            queue.removeFirst()
+            dropped++
+        }
+        queue.addLast(intent)
+
+        metrics = metrics.copy(
+            intentsDropped = metrics.intentsDropped + dropped,
+            queueDepth = queue.size,
+            maxQueueDepth = maxOf(metrics.maxQueueDepth, queue.size)
+        )
+    }
+
+    @Synchronized
+    fun drain(): List<I> {
+        val intents = queue.toList()
+        queue.clear()
+        metrics = metrics.copy(queueDepth = 0)
+        return intents
+    }
+
+    @Synchronized
+    fun onReduced(nanos: Long) {
+        metrics = metrics.copy(
+            intentsProcessed = metrics.intentsProcessed + 1,
+            lastReduceNanos = nanos,
+            maxReduceNanos = maxOf(metrics.maxReduceNanos, nanos),
+            totalReduceNanos = metrics.totalReduceNanos + nanos
+        )
+    }
+
+    @Synchronized
+    fun metrics(): MviMetrics = metrics
+}
@@ -1,6 +1,7 @@
 package piuk.blockchain.android.ui.base.mvi
 
 import com.jakewharton.rxrelay2.BehaviorRelay
+import io.reactivex.BackpressureStrategy
 import io.reactivex.Observable
 import io.reactivex.Scheduler
 import io.reactivex.disposables.CompositeDisposable
@@ -9,7 +10,7 @@ import io.reactivex.disposables.Disposable
 import io.reactivex.rxkotlin.plusAssign
 import io.reactivex.rxkotlin.subscribeBy
 import io.reactivex.schedulers.Schedulers
-import io.reactivex.subjects.ReplaySubject
+import io.reactivex.subjects.BehaviorSubject
 import timber.log.Timber
 
 interface MviState
@@ -21,7 +22,9 @@ interface MviIntent<S : MviState> {
 
 abstract class MviModel<S : MviState, I : MviIntent<S>>(
     initialState: S,
-    observeScheduler: Scheduler
+    observeScheduler: Scheduler,
+    intentCapacity: Int = DEFAULT_INTENT_CAPACITY,
+    intentOverflow: IntentOverflow = IntentOverflow.KEEP_ALL
 ) {
 
     private val _state: BehaviorRelay<S> = BehaviorRelay.createDefault(initialState)
@@ -30,21 +33,30 @@ abstract class MviModel<S : MviState, I : MviIntent<S>>(
     }.observeOn(observeScheduler)
 
     protected val disposables = CompositeDisposable()
-    private val intents = ReplaySubject.create<I>()
+
+    // Intents are held only until they are reduced. The subject just signals that there are
+    // intents waiting, and remembers it if that happens before the loop below has subscribed.
+    private val intents = IntentQueue<I>(intentCapacity, intentOverflow)
+    private val intentsWaiting = BehaviorSubject.create<Unit>().toSerialized()
 
     init {
         disposables +=
-            intents.distinctUntilChanged(::distinctIntentFilter)
-                .observeOn(Schedulers.computation())
+            intentsWaiting.toFlowable(BackpressureStrategy.LATEST)
+                .observeOn(Schedulers.computation(), false, 1)
+                .concatMapIterable { intents.drain() }
+                .distinctUntilChanged(::distinctIntentFilter)
                 .scan(initialState) { previousState, intent ->
-                    Timber.d("***> Model: ProcessIntent: ${intent.javaClass.simpleName}")
-                    if (intent.isValidFor(previousState)) {
+                    log { "***> Model: ProcessIntent: ${intent.javaClass.simpleName}" }
+                    val start = System.nanoTime()
+                    val newState = if (intent.isValidFor(previousState)) {
                         performAction(previousState, intent)?.let { disposables += it }
                         intent.reduce(previousState)
                     } else {
-                        Timber.d("***> Model: Dropping invalid Intent: ${intent.javaClass.simpleName}")
+                        log { "***> Model: Dropping invalid Intent: ${intent.javaClass.simpleName}" }
                         previousState
                     }
+                    intents.onReduced(System.nanoTime() - start)
+                    newState
                 }
                 .subscribeOn(Schedulers.computation())
                 .subscribeBy(
@@ -55,8 +67,19 @@ abstract class MviModel<S : MviState, I : MviIntent<S>>(
                 )
     }
 
-    fun process(intent: I) = intents.onNext(intent)
-    fun destroy() { disposables.clear() }
+    fun process(intent: I) {
+        intents.offer(intent)
+        intentsWaiting.onNext(Unit)
+    }
+
+    fun destroy() {
+        log { "***> Model: ${javaClass.simpleName} destroyed, ${intents.metrics()}" }
+        disposables.clear()
+    }
+
+    // Intents processed and dropped, queue depth and time spent in performAction and reduce
+    val metrics: MviMetrics
+        get() = intents.metrics()
 
     protected open fun distinctIntentFilter(previousIntent: I, nextIntent: I): Boolean {
         return previousIntent == nextIntent
@@ -66,4 +89,15 @@ abstract class MviModel<S : MviState, I : MviIntent<S>>(
     protected open fun onStateUpdate(s: S) {}
 
     protected abstract fun performAction(previousState: S, intent: I): Disposable?
+
+    companion object {
+        const val DEFAULT_INTENT_CAPACITY = 256
+    }
+}
+
+// Skip building the message when nothing is logging
+private inline fun log(message: () -> String) {
+    if (Timber.treeCount() > 0) {
+        Timber.d(message())
+    }
 }
@@ -307,7 +307,7 @@ class DashboardFragment : HomeScreenMviFragment<DashboardModel, DashboardIntent,
 
     private fun setupSwipeRefresh() {
 
-        swipe.setOnRefreshListener { model.process(RefreshAllIntent) }
+        swipe.setOnRefreshListener { model.process(PullToRefreshIntent) }
 
         // Configure the refreshing colors
         swipe.setColorSchemeResources(
@@ -55,6 +55,11 @@ object RefreshAllIntent : DashboardIntent() {
     }
 }
 
+// The user pulled to refresh, so every address is fetched before the balances are refreshed
+object PullToRefreshIntent : DashboardIntent() {
+    override fun reduce(oldState: DashboardState): DashboardState = oldState
+}
+
 class BalanceUpdate(
     val cryptoCurrency: CryptoCurrency,
     private val newBalance: Money
@@ -31,6 +31,7 @@ import piuk.blockchain.android.coincore.SingleAccount
 import piuk.blockchain.android.ui.dashboard.assetdetails.AssetDetailsFlow
 import piuk.blockchain.android.ui.transactionflow.TransactionFlow
 import piuk.blockchain.androidcore.data.exchangerate.TimeSpan
+import piuk.blockchain.androidcore.data.payload.PayloadDataManager
 import piuk.blockchain.androidcore.utils.extensions.emptySubscribe
 import timber.log.Timber
 import java.util.concurrent.TimeUnit
@@ -41,6 +42,7 @@ private class DashboardBalanceLoadFailure(msg: String, e: Throwable) : Exception
 class DashboardInteractor(
     private val coincore: Coincore,
     private val payloadManager: PayloadManager,
+    private val payloadDataManager: PayloadDataManager,
     private val exchangeRates: ExchangeRates,
     private val currencyPrefs: CurrencyPrefs,
     private val custodialWalletManager: CustodialWalletManager,
@@ -73,6 +75,15 @@ class DashboardInteractor(
         return cd
     }
 
+    // Background refreshes skip imported addresses that were unchanged recently, this one is asked for
+    fun refreshAllAddresses(model: DashboardModel): Disposable =
+        payloadDataManager.refreshAllBalances()
+            .doOnError { Timber.e(it, "Refreshing BTC balances failed") }
+            .onErrorComplete()
+            .subscribeBy(
+                onComplete = { model.process(RefreshAllIntent) }
+            )
+
     fun getAvailableAssets(model: DashboardModel): Disposable =
         assetOrdering.getAssetOrdering().subscribeBy(
             onSuccess = { assetOrder ->
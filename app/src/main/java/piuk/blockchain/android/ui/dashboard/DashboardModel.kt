@@ -217,6 +217,7 @@ class DashboardModel(
             is RefreshAllIntent -> {
                 interactor.refreshBalances(this, AssetFilter.All, previousState)
             }
+            is PullToRefreshIntent -> interactor.refreshAllAddresses(this)
             is BalanceUpdate -> {
                 process(CheckForCustodialBalanceIntent(intent.cryptoCurrency))
                 null
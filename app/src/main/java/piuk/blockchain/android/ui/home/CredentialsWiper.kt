@@ -4,6 +4,7 @@ import info.blockchain.wallet.payload.PayloadManagerWiper
 import piuk.blockchain.android.ui.launcher.LauncherActivity
 import piuk.blockchain.android.util.AppUtil
 import piuk.blockchain.androidcore.data.access.AccessState
+import piuk.blockchain.androidcore.data.datastores.persistentstore.WalletFiles
 import piuk.blockchain.androidcore.data.erc20.Erc20Account
 
 class CredentialsWiper(
@@ -11,10 +12,12 @@ class CredentialsWiper(
     private val paxAccount: Erc20Account,
     private val usdtAccount: Erc20Account,
     private val accessState: AccessState,
-    private val appUtil: AppUtil
+    private val appUtil: AppUtil,
+    private val walletFiles: WalletFiles
 ) {
     fun unload() {
         payloadManagerWiper.wipe()
+        walletFiles.clear()
         accessState.logout()
         accessState.unpairWallet()
         appUtil.restartApp(LauncherActivity::class.java)
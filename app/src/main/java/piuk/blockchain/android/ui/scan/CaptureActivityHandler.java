@@ -88,6 +88,10 @@ public final class CaptureActivityHandler extends Handler {
       restartPreviewAndDecode();
 
     } else if (message.what == R.id.decode_succeeded) {
+      if (state != State.PREVIEW) {
+        // Another decode worker already found it
+        return;
+      }
       Timber.d("Got decode succeeded message");
       state = State.SUCCESS;
       Bundle bundle = message.getData();
@@ -95,9 +99,12 @@ public final class CaptureActivityHandler extends Handler {
               (Bitmap) bundle.getParcelable(DecodeThread.BARCODE_BITMAP);
       activity.handleDecode((Result) message.obj);
 
-    } else if (message.what == R.id.decode_failed) {// We're decoding as fast as possible, so when one decode fails, start another.
-      state = State.PREVIEW;
-      cameraManager.requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
+    } else if (message.what == R.id.decode_failed || message.what == R.id.decode_next) {
+      // We're decoding as fast as possible, so when one decode fails or a decode worker is
+      // free, start another. Workers still busy after a success are ignored.
+      if (state == State.PREVIEW) {
+        cameraManager.requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
+      }
 
     } else if (message.what == R.id.return_scan_result) {
       Timber.d("Got return scan result message");
@@ -151,6 +158,7 @@ public final class CaptureActivityHandler extends Handler {
     // Be absolutely sure we don't send any queued up messages
     removeMessages(R.id.decode_succeeded);
     removeMessages(R.id.decode_failed);
+    removeMessages(R.id.decode_next);
   }
 
   private void restartPreviewAndDecode() {
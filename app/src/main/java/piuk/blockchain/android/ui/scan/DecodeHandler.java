@@ -16,14 +16,10 @@
 
 package piuk.blockchain.android.ui.scan;
 
-import com.google.zxing.BinaryBitmap;
 import com.google.zxing.DecodeHintType;
-import com.google.zxing.MultiFormatReader;
-import com.google.zxing.PlanarYUVLuminanceSource;
-import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
-import com.google.zxing.common.HybridBinarizer;
 
+import android.graphics.Rect;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
@@ -38,15 +34,18 @@ final class DecodeHandler extends Handler {
 
     private static final String TAG = DecodeHandler.class.getSimpleName();
 
+    // Enough to keep a frame decoding while the next is being captured, without competing with
+    // the camera and UI for cores
+    private static final int DECODE_WORKERS = 2;
+
     private final QrScanActivity activity;
-    private final MultiFormatReader multiFormatReader;
-    private boolean running = true;
+    private final DecodeWorkerPool workerPool;
+    private volatile boolean running = true;
     private RotationUtil _rotationHelper;
 
     DecodeHandler(QrScanActivity activity, Map<DecodeHintType, Object> hints) {
         _rotationHelper = new RotationUtil(activity);
-        multiFormatReader = new MultiFormatReader();
-        multiFormatReader.setHints(hints);
+        workerPool = new DecodeWorkerPool(DECODE_WORKERS, hints, new DecodeListener());
         this.activity = activity;
     }
 
@@ -56,27 +55,19 @@ final class DecodeHandler extends Handler {
             return;
         }
         if (message.what == R.id.decode) {
-            try {
-                decode((byte[]) message.obj, message.arg1, message.arg2);
-            } catch (IllegalArgumentException e) {
-                // Fix for https://github.com/journeyapps/zxing-android-embedded/issues/314
-                Timber.e(e);
-                // Quit process
-                running = false;
-                Looper.myLooper().quit();
-            }
+            decode((byte[]) message.obj, message.arg1, message.arg2);
 
         } else if (message.what == R.id.quit) {
             running = false;
+            workerPool.shutdown();
             Looper.myLooper().quit();
 
         }
     }
 
     /**
-     * Decode the data within the viewfinder rectangle, and time how long it
-     * took. For efficiency, reuse the same reader objects from one decode to the
-     * next.
+     * Hand the data within the viewfinder rectangle to the decode workers. If a worker is still
+     * free, ask for another frame straight away rather than waiting for this one to finish.
      *
      * @param data
      *           The YUV preview frame.
@@ -86,43 +77,57 @@ final class DecodeHandler extends Handler {
      *           The height of the preview frame.
      */
     private void decode(byte[] data, int width, int height) {
-        long start = System.currentTimeMillis();
-        byte[] rotatedData = _rotationHelper.rotateImageData(data, width, height);
-        if (_rotationHelper.flipWidthAndHeight()) {
-            int tmp = width;
-            width = height;
-            height = tmp;
+        Rect rect = activity.getCameraManager().getTargetRectInPreview();
+        if (rect == null) {
+            sendToActivity(R.id.decode_failed, null);
+            return;
         }
-        Result rawResult = null;
-        PlanarYUVLuminanceSource source = activity.getCameraManager().buildLuminanceSource(rotatedData, width, height);
-        if (source != null) {
-            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-            try {
-                rawResult = multiFormatReader.decodeWithState(bitmap);
-            } catch (ReaderException re) {
-                // continue
-            } finally {
-                multiFormatReader.reset();
-            }
+
+        workerPool.submit(new DecodeWorkerPool.Frame(
+                data,
+                width,
+                height,
+                _rotationHelper.getDisplayOrientationForCameraParameters(),
+                rect.left,
+                rect.top,
+                rect.width(),
+                rect.height()
+        ));
+        if (workerPool.hasIdleWorker()) {
+            sendToActivity(R.id.decode_next, null);
         }
+    }
 
+    private void sendToActivity(int what, Object obj) {
         Handler handler = activity.getHandler();
-        if (rawResult != null) {
-            // Don't log the barcode contents for security.
-            long end = System.currentTimeMillis();
-            Log.d(TAG, "Found barcode in " + (end - start) + " ms");
-            if (handler != null) {
-                Message message = Message.obtain(handler, R.id.decode_succeeded, rawResult);
-                // AP: we do not want a thumbnail of the captured private key flying
-                // around
-                message.sendToTarget();
-            }
-        } else {
-            if (handler != null) {
-                Message message = Message.obtain(handler, R.id.decode_failed);
-                message.sendToTarget();
-            }
+        if (running && handler != null) {
+            Message.obtain(handler, what, obj).sendToTarget();
         }
     }
 
-}
\ No newline at end of file
+    private final class DecodeListener implements DecodeWorkerPool.Listener {
+
+        @Override
+        public void onDecoded(Result result, long decodeMillis) {
+            // Don't log the barcode contents for security.
+            Log.d(TAG, "Found barcode in " + decodeMillis + " ms, "
+                    + workerPool.getDroppedFrames() + " stale frames skipped");
+            // AP: we do not want a thumbnail of the captured private key flying
+            // around
+            sendToActivity(R.id.decode_succeeded, result);
+        }
+
+        @Override
+        public void onNotFound() {
+            sendToActivity(R.id.decode_failed, null);
+        }
+
+        @Override
+        public void onFailure(RuntimeException e) {
+            // Fix for https://github.com/journeyapps/zxing-android-embedded/issues/314
+            Timber.e(e);
+            // Quit process
+            sendEmptyMessage(R.id.quit);
+        }
+    }
+}
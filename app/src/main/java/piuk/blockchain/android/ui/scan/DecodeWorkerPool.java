@@ -0,0 +1,181 @@
+package piuk.blockchain.android.ui.scan;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decodes preview frames on a small pool of worker threads.
+ *
+ * Only the newest frame is ever waiting to be decoded. A frame that arrives while every worker is
+ * busy replaces the one waiting, if any, since by the time a worker is free the older frame no
+ * longer shows what the camera is pointing at. Each worker keeps its own reader and crop buffer, so
+ * nothing is shared between decodes in flight.
+ */
+final class DecodeWorkerPool {
+
+    interface Listener {
+        void onDecoded(Result result, long decodeMillis);
+
+        void onNotFound();
+
+        /**
+         * The frame could not be decoded at all, eg. the scan region does not fit in the frame.
+         */
+        void onFailure(RuntimeException e);
+    }
+
+    static final class Frame {
+        final byte[] data;
+        final int width;
+        final int height;
+        final int rotation;
+        final int left;
+        final int top;
+        final int cropWidth;
+        final int cropHeight;
+
+        Frame(byte[] data,
+              int width,
+              int height,
+              int rotation,
+              int left,
+              int top,
+              int cropWidth,
+              int cropHeight) {
+            this.data = data;
+            this.width = width;
+            this.height = height;
+            this.rotation = rotation;
+            this.left = left;
+            this.top = top;
+            this.cropWidth = cropWidth;
+            this.cropHeight = cropHeight;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final ThreadLocal<Worker> workers;
+    private final Listener listener;
+    private final int workerCount;
+    private final AtomicReference<Frame> waiting = new AtomicReference<>();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    DecodeWorkerPool(int workerCount, final Map<DecodeHintType, Object> hints, Listener listener) {
+        this.workerCount = workerCount;
+        this.listener = listener;
+        this.workers = new ThreadLocal<Worker>() {
+            @Override
+            protected Worker initialValue() {
+                return new Worker(hints);
+            }
+        };
+        this.executor = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "QrDecode-" + count.incrementAndGet());
+            }
+        });
+    }
+
+    /**
+     * Queues the frame for decoding, replacing any frame still waiting for a worker.
+     */
+    void submit(Frame frame) {
+        if (waiting.getAndSet(frame) != null) {
+            dropped.incrementAndGet();
+        }
+        // Each submit queues one task and each task decodes at most one frame, so every frame is
+        // either decoded or replaced
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                decodeWaiting();
+            }
+        });
+    }
+
+    /**
+     * True if a newly submitted frame would start decoding straight away.
+     */
+    boolean hasIdleWorker() {
+        return busy.get() < workerCount && waiting.get() == null;
+    }
+
+    /**
+     * The number of frames replaced by a newer one before any worker got to them.
+     */
+    int getDroppedFrames() {
+        return dropped.get();
+    }
+
+    void shutdown() {
+        waiting.set(null);
+        executor.shutdownNow();
+    }
+
+    private void decodeWaiting() {
+        Frame frame = waiting.getAndSet(null);
+        if (frame == null) {
+            return;
+        }
+        busy.incrementAndGet();
+        try {
+            long start = System.currentTimeMillis();
+            Result result = workers.get().decode(frame);
+            if (result != null) {
+                listener.onDecoded(result, System.currentTimeMillis() - start);
+            } else {
+                listener.onNotFound();
+            }
+        } catch (IllegalArgumentException e) {
+            listener.onFailure(e);
+        } finally {
+            busy.decrementAndGet();
+        }
+    }
+
+    private static final class Worker {
+        private final MultiFormatReader reader = new MultiFormatReader();
+        private final FrameCropper cropper = new FrameCropper();
+
+        Worker(Map<DecodeHintType, Object> hints) {
+            reader.setHints(hints);
+        }
+
+        Result decode(Frame frame) {
+            PlanarYUVLuminanceSource source = cropper.crop(
+                    frame.data,
+                    frame.width,
+                    frame.height,
+                    frame.rotation,
+                    frame.left,
+                    frame.top,
+                    frame.cropWidth,
+                    frame.cropHeight
+            );
+            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
+            try {
+                return reader.decodeWithState(bitmap);
+            } catch (ReaderException re) {
+                return null;
+            } finally {
+                reader.reset();
+            }
+        }
+    }
+}
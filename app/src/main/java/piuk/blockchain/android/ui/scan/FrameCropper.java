@@ -0,0 +1,115 @@
+package piuk.blockchain.android.ui.scan;
+
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+/**
+ * Cuts the scan region out of a camera preview frame, turned to match the display.
+ *
+ * Only the luminance inside the scan region is ever read, so rather than rotating the whole
+ * frame and then cropping it, the region is copied straight out of the camera frame in rotated
+ * order. The copy goes into a buffer owned by the cropper, which is reused from one frame to the
+ * next while the region stays the same size. Frames that don't need turning aren't copied at
+ * all.
+ *
+ * Not thread safe, each decode worker has its own.
+ */
+final class FrameCropper {
+
+    private byte[] buffer;
+
+    /**
+     * @param frame    The YUV preview frame, as delivered by the camera.
+     * @param width    The width of the preview frame.
+     * @param height   The height of the preview frame.
+     * @param rotation Clockwise rotation needed to display the frame: 0, 90, 180 or 270.
+     * @param left     Left edge of the scan region, in the rotated frame.
+     * @param top      Top edge of the scan region, in the rotated frame.
+     * @param cropWidth  Width of the scan region, in the rotated frame.
+     * @param cropHeight Height of the scan region, in the rotated frame.
+     * @throws IllegalArgumentException if the region does not fit within the rotated frame.
+     */
+    PlanarYUVLuminanceSource crop(byte[] frame,
+                                  int width,
+                                  int height,
+                                  int rotation,
+                                  int left,
+                                  int top,
+                                  int cropWidth,
+                                  int cropHeight) {
+        if (rotation == 0) {
+            return new PlanarYUVLuminanceSource(
+                    frame, width, height, left, top, cropWidth, cropHeight, false);
+        }
+        byte[] region = cropAndRotate(frame, width, height, rotation, left, top, cropWidth, cropHeight);
+        return new PlanarYUVLuminanceSource(
+                region, cropWidth, cropHeight, 0, 0, cropWidth, cropHeight, false);
+    }
+
+    /**
+     * Copies the scan region out of the frame in rotated order. The result is only valid until the
+     * next call.
+     */
+    byte[] cropAndRotate(byte[] frame,
+                         int width,
+                         int height,
+                         int rotation,
+                         int left,
+                         int top,
+                         int cropWidth,
+                         int cropHeight) {
+        boolean flip = rotation == 90 || rotation == 270;
+        int rotatedWidth = flip ? height : width;
+        int rotatedHeight = flip ? width : height;
+        if (left < 0 || top < 0 || cropWidth <= 0 || cropHeight <= 0
+                || left + cropWidth > rotatedWidth || top + cropHeight > rotatedHeight) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+
+        // Index of the camera pixel that ends up at the top left of the region, and how far the
+        // index moves for each step right (column) or down (row) in the region.
+        int start;
+        int column;
+        int row;
+        switch (rotation) {
+            case 0:
+                start = top * width + left;
+                column = 1;
+                row = width;
+                break;
+            case 90:
+                start = (height - 1 - left) * width + top;
+                column = -width;
+                row = 1;
+                break;
+            case 180:
+                start = (height - 1 - top) * width + (width - 1 - left);
+                column = -1;
+                row = -width;
+                break;
+            case 270:
+                start = left * width + (width - 1 - top);
+                column = width;
+                row = -1;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported rotation " + rotation);
+        }
+
+        int size = cropWidth * cropHeight;
+        byte[] region = buffer;
+        if (region == null || region.length != size) {
+            region = new byte[size];
+            buffer = region;
+        }
+
+        int out = 0;
+        for (int y = 0; y < cropHeight; y++) {
+            int in = start + y * row;
+            for (int x = 0; x < cropWidth; x++) {
+                region[out++] = frame[in];
+                in += column;
+            }
+        }
+        return region;
+    }
+}
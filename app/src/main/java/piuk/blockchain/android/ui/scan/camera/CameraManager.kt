@@ -24,7 +24,6 @@ import android.os.Handler
 import android.view.Surface
 import android.view.SurfaceHolder
 import androidx.appcompat.app.AppCompatActivity
-import com.google.zxing.PlanarYUVLuminanceSource
 import piuk.blockchain.android.ui.scan.camera.open.OpenCameraManager
 import timber.log.Timber
 import java.io.IOException
@@ -183,10 +182,10 @@ class CameraManager(private val context: Context) {
 
     /**
      * Like [.getTargetRect] but coordinates are in terms of the preview frame,
-     * not UI / screen.
+     * not UI / screen. The frame is taken as already turned to match the display.
      */
     @get:Synchronized
-    private val targetRectInPreview: Rect?
+    val targetRectInPreview: Rect?
         get() {
             if (framingRectInPreview == null) {
                 val framingRect = targetRect
@@ -216,28 +215,6 @@ class CameraManager(private val context: Context) {
             return framingRectInPreview
         }
 
-    /**
-     * A factory method to build the appropriate LuminanceSource object based on the format
-     * of the preview buffers, as described by Camera.Parameters.
-     *
-     * @param data A preview frame.
-     * @param width The width of the image.
-     * @param height The height of the image.
-     * @return A PlanarYUVLuminanceSource instance.
-     */
-    fun buildLuminanceSource(
-        data: ByteArray?,
-        width: Int,
-        height: Int
-    ): PlanarYUVLuminanceSource? {
-        val rect = targetRectInPreview ?: return null
-        // Go ahead and assume it's YUV rather than die.
-        return PlanarYUVLuminanceSource(
-            data, width, height, rect.left, rect.top,
-            rect.width(), rect.height(), false
-        )
-    }
-
     companion object {
         fun setCameraDisplayOrientation(
             activity: AppCompatActivity,
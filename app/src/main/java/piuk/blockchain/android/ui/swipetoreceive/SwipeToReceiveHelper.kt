@@ -37,6 +37,7 @@ class SwipeToReceiveHelper(
     }.then {
         Completable.merge(
             listOf(
+                payloadDataManager.prefillAddressCache().onErrorComplete(),
                 updateAndStoreBitcoinAddresses(),
                 updateAndStoreBitcoinCashAddresses(),
                 storeEthAddress(),
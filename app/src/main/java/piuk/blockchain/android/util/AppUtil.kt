@@ -5,6 +5,7 @@ import android.content.Intent
 import com.blockchain.ui.ActivityIndicator
 import info.blockchain.wallet.payload.PayloadManagerWiper
 import piuk.blockchain.androidcore.data.access.AccessState
+import piuk.blockchain.androidcore.data.datastores.persistentstore.WalletFiles
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import piuk.blockchain.androidcore.utils.extensions.isValidGuid
 
@@ -12,7 +13,8 @@ class AppUtil(
     private val context: Context,
     private var payloadManager: PayloadManagerWiper,
     private var accessState: AccessState,
-    private val prefs: PersistentPrefs
+    private val prefs: PersistentPrefs,
+    private val walletFiles: WalletFiles
 ) {
     val isSane: Boolean
         get() {
@@ -32,6 +34,7 @@ class AppUtil(
 
     fun clearCredentials() {
         payloadManager.wipe()
+        walletFiles.clear()
         prefs.clear()
         accessState.forgetWallet()
     }
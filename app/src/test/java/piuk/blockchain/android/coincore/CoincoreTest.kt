@@ -0,0 +1,99 @@
+package piuk.blockchain.android.coincore
+
+import com.blockchain.android.testutils.rxInit
+import com.blockchain.logging.CrashLogger
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.verify
+import info.blockchain.balance.CryptoCurrency
+import io.reactivex.Completable
+import io.reactivex.schedulers.TestScheduler
+import io.reactivex.subjects.CompletableSubject
+import org.amshove.kluent.itReturns
+import org.junit.Rule
+import org.junit.Test
+import java.util.concurrent.TimeUnit
+
+class CoincoreTest {
+
+    private val testScheduler = TestScheduler()
+
+    @get:Rule
+    val rx = rxInit {
+        ioTrampoline()
+        computation(testScheduler)
+    }
+
+    private val crashLogger: CrashLogger = mock()
+
+    private fun asset(currency: CryptoCurrency, init: Completable): CryptoAsset = mock {
+        on { asset } itReturns currency
+        on { init() } itReturns init
+    }
+
+    private fun coincore(vararg assets: CryptoAsset) =
+        Coincore(
+            payloadManager = mock(),
+            assetMap = assets.associateBy { it.asset },
+            txProcessorFactory = mock(),
+            defaultLabels = mock(),
+            fiatAsset = mock(),
+            crashLogger = crashLogger
+        )
+
+    @Test
+    fun `all assets are initialised`() {
+        val btc = asset(CryptoCurrency.BTC, Completable.complete())
+        val xlm = asset(CryptoCurrency.XLM, Completable.complete())
+
+        coincore(btc, xlm).init()
+            .test()
+            .assertComplete()
+
+        verify(btc).init()
+        verify(xlm).init()
+    }
+
+    @Test
+    fun `a failing asset does not stop the others`() {
+        val error = Exception()
+        val bch = asset(CryptoCurrency.BCH, Completable.error(error))
+        val xlm = asset(CryptoCurrency.XLM, Completable.complete())
+
+        coincore(bch, xlm).init()
+            .test()
+            .assertError(error)
+
+        verify(xlm).init()
+        verify(crashLogger).logException(any(), any())
+    }
+
+    @Test
+    fun `erc20 tokens wait for ether`() {
+        val etherInit = CompletableSubject.create()
+        val eth = asset(CryptoCurrency.ETHER, etherInit)
+        val pax = asset(CryptoCurrency.PAX, Completable.complete())
+
+        val test = coincore(pax, eth).init().test()
+
+        verify(pax, never()).init()
+
+        etherInit.onComplete()
+
+        verify(pax).init()
+        test.assertComplete()
+    }
+
+    @Test
+    fun `init does not wait for a slow asset`() {
+        val btc = asset(CryptoCurrency.BTC, Completable.complete())
+        val xlm = asset(CryptoCurrency.XLM, Completable.never())
+
+        val test = coincore(btc, xlm).init().test()
+
+        test.assertNotComplete()
+        testScheduler.advanceTimeBy(20, TimeUnit.SECONDS)
+        test.assertComplete()
+    }
+}
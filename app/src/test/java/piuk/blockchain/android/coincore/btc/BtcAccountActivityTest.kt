@@ -9,12 +9,14 @@ import com.blockchain.swap.nabu.datamanagers.SwapOrderState
 import com.blockchain.swap.nabu.datamanagers.repositories.swap.SwapTransactionItem
 import com.nhaarman.mockito_kotlin.any
 import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.never
 import com.nhaarman.mockito_kotlin.verify
 import com.nhaarman.mockito_kotlin.whenever
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.balance.CryptoValue
 import info.blockchain.balance.FiatValue
 import info.blockchain.wallet.multiaddress.TransactionSummary
+import io.reactivex.Maybe
 import io.reactivex.Single
 import org.bitcoinj.core.NetworkParameters
 import org.junit.Before
@@ -246,6 +248,33 @@ class BtcAccountActivityTest {
         verify(payloadDataManager).getAccountTransactions(any(), any(), any())
     }
 
+    @Test
+    fun cachedActivityIsServedWithoutSwaps() {
+        val summary = TransactionSummary().apply {
+            confirmations = 3
+            transactionType = TransactionSummary.TransactionType.RECEIVED
+            fee = BigInteger.ONE
+            total = BigInteger.TEN
+            hash = TX_HASH_RECEIVE
+            inputsMap = HashMap()
+            outputsMap = HashMap()
+            time = 1000000L
+        }
+
+        whenever(payloadDataManager.getCachedAccountTransactions(any(), any()))
+            .thenReturn(Maybe.just(listOf(summary)))
+
+        subject.cachedActivity
+            .test()
+            .assertValueCount(1)
+            .assertComplete()
+            .assertValueAt(0) {
+                it.size == 1 && (it[0] as BtcActivitySummaryItem).txId == summary.hash
+            }
+
+        verify(custodialWalletManager, never()).getSwapActivityForAsset(any(), any())
+    }
+
     companion object {
         private const val TX_HASH_SEND_MATCH = "0x12345678890"
         private const val TX_HASH_SEND_NO_MATCH = "0x0987654321"
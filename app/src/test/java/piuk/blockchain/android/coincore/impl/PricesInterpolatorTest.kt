@@ -0,0 +1,70 @@
+package piuk.blockchain.android.coincore.impl
+
+import com.blockchain.swap.nabu.datamanagers.CurrencyPair
+import com.blockchain.swap.nabu.datamanagers.PriceTier
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.balance.CryptoValue
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class PricesInterpolatorTest {
+
+    private val pair = CurrencyPair.CryptoCurrencyPair(CryptoCurrency.BTC, CryptoCurrency.ETHER)
+
+    private fun tier(volume: String, price: String) = PriceTier(
+        volume = CryptoValue.fromMajor(CryptoCurrency.BTC, volume.toBigDecimal()),
+        price = CryptoValue.fromMajor(CryptoCurrency.ETHER, price.toBigDecimal())
+    )
+
+    private fun btc(amount: String) = CryptoValue.fromMajor(CryptoCurrency.BTC, amount.toBigDecimal())
+
+    private fun eth(amount: String) = CryptoValue.fromMajor(CryptoCurrency.ETHER, amount.toBigDecimal())
+
+    private val interpolator = PricesInterpolator(
+        pair = pair,
+        list = listOf(
+            tier("1", "30"),
+            tier("2", "32"),
+            tier("4", "36")
+        )
+    )
+
+    @Test
+    fun `amounts up to the first tier get its price`() {
+        interpolator.getRate(btc("0.5")) `should equal` eth("30")
+        interpolator.getRate(btc("1")) `should equal` eth("30")
+    }
+
+    @Test
+    fun `amounts between tiers are interpolated`() {
+        interpolator.getRate(btc("1.5")) `should equal` eth("31")
+        interpolator.getRate(btc("2")) `should equal` eth("32")
+        interpolator.getRate(btc("3")) `should equal` eth("34")
+    }
+
+    @Test
+    fun `amounts beyond the last tier and zero get the last price`() {
+        interpolator.getRate(btc("5")) `should equal` eth("36")
+        interpolator.getRate(btc("0")) `should equal` eth("36")
+    }
+
+    @Test
+    fun `tiers are priced in volume order`() {
+        val unsorted = PricesInterpolator(
+            pair = pair,
+            list = listOf(
+                tier("4", "36"),
+                tier("1", "30"),
+                tier("2", "32")
+            )
+        )
+
+        unsorted.getRate(btc("3")) `should equal` eth("34")
+    }
+
+    @Test
+    fun `no tiers price at zero`() {
+        PricesInterpolator(pair = pair, list = emptyList()).getRate(btc("1")) `should equal`
+            CryptoValue.zero(CryptoCurrency.BTC)
+    }
+}
@@ -0,0 +1,121 @@
+package piuk.blockchain.android.coincore.impl.txEngine
+
+import com.blockchain.swap.nabu.datamanagers.CurrencyPair
+import com.blockchain.swap.nabu.datamanagers.SwapDirection
+import com.blockchain.swap.nabu.datamanagers.SwapQuote
+import com.blockchain.swap.nabu.datamanagers.repositories.QuotesProvider
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.mock
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.balance.CryptoValue
+import io.reactivex.Single
+import io.reactivex.schedulers.TestScheduler
+import org.amshove.kluent.`should equal`
+import org.amshove.kluent.itReturns
+import org.junit.Test
+import java.util.Date
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+class SwapQuoteSchedulerTest {
+
+    private val testScheduler = TestScheduler()
+
+    private val pair = CurrencyPair.CryptoCurrencyPair(CryptoCurrency.BTC, CryptoCurrency.ETHER)
+
+    private var fetches = 0
+
+    private val failures = mutableListOf<Boolean>()
+
+    private val quotesProvider: QuotesProvider = mock {
+        on { fetchQuote(any(), any(), any()) } itReturns Single.fromCallable {
+            fetches++
+            if (failures.isNotEmpty() && failures.removeAt(0)) {
+                throw RuntimeException("Quote failed")
+            }
+            quote("quote$fetches")
+        }
+    }
+
+    // No jitter, so quotes are refreshed after exactly 90% of their 30 second lifetime
+    private val scheduler = SwapQuoteScheduler(
+        quotesProvider = quotesProvider,
+        scheduler = testScheduler,
+        random = object : Random() {
+            override fun nextBits(bitCount: Int) = 0
+        }
+    )
+
+    private fun quote(id: String) = SwapQuote(
+        id = id,
+        creationDate = Date(0),
+        expirationDate = Date(30_000),
+        networkFee = CryptoValue.zero(CryptoCurrency.ETHER),
+        staticFee = CryptoValue.zero(CryptoCurrency.BTC),
+        sampleDepositAddress = ""
+    )
+
+    @Test
+    fun `quotes are refreshed just before they expire`() {
+        val test = scheduler.quotes(SwapDirection.INTERNAL, pair).map { it.id }.test()
+        testScheduler.triggerActions()
+        test.assertValues("quote1")
+
+        testScheduler.advanceTimeBy(26_999, TimeUnit.MILLISECONDS)
+        test.assertValues("quote1")
+
+        testScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+        test.assertValues("quote1", "quote2")
+
+        testScheduler.advanceTimeBy(27_000, TimeUnit.MILLISECONDS)
+        test.assertValues("quote1", "quote2", "quote3")
+    }
+
+    @Test
+    fun `engines quoting the same pair share one fetch`() {
+        val first = scheduler.quotes(SwapDirection.INTERNAL, pair).test()
+        testScheduler.triggerActions()
+        val second = scheduler.quotes(SwapDirection.INTERNAL, pair).test()
+        testScheduler.triggerActions()
+
+        first.assertValueCount(1)
+        second.assertValueCount(1)
+        fetches `should equal` 1
+    }
+
+    @Test
+    fun `failed fetches are retried within the retry budget`() {
+        failures += listOf(true, true)
+
+        val test = scheduler.quotes(SwapDirection.INTERNAL, pair).map { it.id }.test()
+        testScheduler.advanceTimeBy(3_000, TimeUnit.MILLISECONDS)
+
+        test.assertValues("quote3")
+        test.assertNoErrors()
+    }
+
+    @Test
+    fun `fetches failing beyond the retry budget fail the quotes`() {
+        failures += List(SwapQuoteScheduler.MAX_RETRIES + 1) { true }
+
+        val test = scheduler.quotes(SwapDirection.INTERNAL, pair).test()
+        testScheduler.advanceTimeBy(1, TimeUnit.MINUTES)
+
+        test.assertErrorMessage("Quote failed")
+        fetches `should equal` SwapQuoteScheduler.MAX_RETRIES + 1
+    }
+
+    @Test
+    fun `refresh delays are jittered and never too short`() {
+        val jittered = SwapQuoteScheduler(
+            quotesProvider = quotesProvider,
+            random = object : Random() {
+                override fun nextBits(bitCount: Int) = -1 ushr (32 - bitCount)
+            }
+        )
+
+        jittered.refreshDelayMillis(quote("quote")) `should equal` 25_501L
+        jittered.refreshDelayMillis(quote("quote").copy(expirationDate = Date(0))) `should equal`
+            SwapQuoteScheduler.MIN_REFRESH_MILLIS
+    }
+}
@@ -0,0 +1,86 @@
+package piuk.blockchain.android.coincore.impl.txEngine
+
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class TxSessionSnapshotTest {
+
+    private var now = 0L
+    private var fetches = 0
+
+    private fun snapshot(fetch: () -> Single<Int> = { Single.just(++fetches) }) =
+        TxSessionSnapshot(ttlMillis = 1000, clock = { now }, fetch = fetch)
+
+    @Test
+    fun `value is fetched once and shared`() {
+        val subject = snapshot()
+
+        subject.get().test().assertValue(1)
+        subject.get().test().assertValue(1)
+        subject.get().test().assertValue(1)
+
+        fetches `should equal` 1
+    }
+
+    @Test
+    fun `nothing is fetched until first requested`() {
+        val subject = snapshot()
+
+        val request = subject.get()
+
+        fetches `should equal` 0
+        request.test().assertValue(1)
+    }
+
+    @Test
+    fun `concurrent requests share one fetch`() {
+        val response = SingleSubject.create<Int>()
+        val subject = snapshot { fetches++; response }
+
+        val first = subject.get().test()
+        val second = subject.get().test()
+        response.onSuccess(7)
+
+        first.assertValue(7)
+        second.assertValue(7)
+        fetches `should equal` 1
+    }
+
+    @Test
+    fun `value is fetched again once expired`() {
+        val subject = snapshot()
+        subject.get().test().assertValue(1)
+
+        now = 999
+        subject.get().test().assertValue(1)
+
+        now = 1000
+        subject.get().test().assertValue(2)
+        subject.get().test().assertValue(2)
+    }
+
+    @Test
+    fun `invalidate fetches again on next request`() {
+        val subject = snapshot()
+        subject.get().test().assertValue(1)
+
+        subject.invalidate()
+
+        subject.get().test().assertValue(2)
+        fetches `should equal` 2
+    }
+
+    @Test
+    fun `failed fetch is not kept`() {
+        val error = IllegalStateException()
+        val subject = snapshot {
+            if (fetches++ == 0) Single.error(error) else Single.just(fetches)
+        }
+
+        subject.get().test().assertError(error)
+        subject.get().test().assertValue(2)
+        subject.get().test().assertValue(2)
+    }
+}
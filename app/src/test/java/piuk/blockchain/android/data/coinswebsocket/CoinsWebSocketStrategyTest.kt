@@ -5,8 +5,10 @@ import com.blockchain.network.websocket.ConnectionEvent
 import com.blockchain.network.websocket.WebSocket
 import com.google.gson.Gson
 import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.eq
 import com.nhaarman.mockito_kotlin.mock
 import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.times
 import com.nhaarman.mockito_kotlin.verify
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.wallet.ethereum.Erc20TokenData
@@ -15,6 +17,7 @@ import info.blockchain.wallet.ethereum.data.EthAddressResponseMap
 import info.blockchain.wallet.payload.data.Wallet
 import io.reactivex.Completable
 import io.reactivex.Observable
+import io.reactivex.schedulers.TestScheduler
 import io.reactivex.subjects.PublishSubject
 import org.amshove.kluent.`it returns`
 import org.amshove.kluent.mock
@@ -28,18 +31,25 @@ import piuk.blockchain.android.ui.swipetoreceive.SwipeToReceiveHelper
 import piuk.blockchain.android.util.StringUtils
 import piuk.blockchain.androidcore.data.bitcoincash.BchDataManager
 import piuk.blockchain.androidcore.data.erc20.Erc20Account
+import piuk.blockchain.androidcore.data.erc20.Erc20Transfer
+import piuk.blockchain.androidcore.data.events.ActionEvent
 import piuk.blockchain.androidcore.data.ethereum.EthDataManager
 import piuk.blockchain.androidcore.data.ethereum.models.CombinedEthModel
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
 import piuk.blockchain.androidcore.data.rxjava.RxBus
 import piuk.blockchain.androidcore.utils.PersistentPrefs
+import java.math.BigInteger
+import java.util.concurrent.TimeUnit
 
 class CoinsWebSocketStrategyTest {
 
+    private val testScheduler = TestScheduler()
+
     @get:Rule
     val rxSchedulers = rxInit {
         mainTrampoline()
         ioTrampoline()
+        computation(testScheduler)
     }
 
     private val messagesSocketHandler: MessagesSocketHandler = mock()
@@ -77,14 +87,17 @@ class CoinsWebSocketStrategyTest {
 
     private val paxAccount: Erc20Account = mock {
         on { fetchAddressCompletable() } `it returns` Completable.complete()
+        on { addTransfer(any()) } `it returns` Completable.complete()
     }
 
     private val usdtAccount: Erc20Account = mock {
         on { fetchAddressCompletable() } `it returns` Completable.complete()
+        on { addTransfer(any()) } `it returns` Completable.complete()
     }
 
     private val dgldAccount: Erc20Account = mock {
         on { fetchAddressCompletable() } `it returns` Completable.complete()
+        on { addTransfer(any()) } `it returns` Completable.complete()
     }
 
     private val rxBus: RxBus = mock()
@@ -160,6 +173,7 @@ class CoinsWebSocketStrategyTest {
     @Test
     fun `eth transaction should be update eth transactions and broadcasted`() {
         webSocket.send(pendingEthTransaction)
+        waitForRefresh()
 
         verify(mockWebSocket).open()
         verify(ethDataManager).fetchEthAddress()
@@ -168,13 +182,26 @@ class CoinsWebSocketStrategyTest {
         verify(messagesSocketHandler).sendBroadcast(any())
     }
 
+    private fun tokenTransfer(value: BigInteger) =
+        Erc20Transfer(
+            logIndex = "67",
+            transactionHash = "0x3cd2e95358c58af6e9ecd2f0af6739c3db945e2259bf2a4bc91fb5e2f397ad89",
+            value = value,
+            from = "0x4058a004dd718babab47e14dd0d744742e5b9903",
+            to = "0x4058a004dd718babab47e14dd0d744742e5b9903",
+            blockNumber = 8362036.toBigInteger(),
+            timestamp = 0
+        )
+
     @Test
     fun `pax transaction should be update pax transactions and broadcasted`() {
         webSocket.send(paxTransaction)
+        waitForRefresh()
 
         verify(mockWebSocket).open()
         verify(ethDataManager, never()).fetchEthAddress()
-        verify(paxAccount).fetchAddressCompletable()
+        verify(paxAccount).addTransfer(tokenTransfer(1210000000000000000.toBigInteger()))
+        verify(paxAccount, never()).fetchAddressCompletable()
         verify(messagesSocketHandler).triggerNotification("Blockchain",
             "Received USD Digital 1.21 USD-D",
             "Received USD Digital 1.21 USD-D from 0x4058a004dd718babab47e14dd0d744742e5b9903")
@@ -184,10 +211,12 @@ class CoinsWebSocketStrategyTest {
     @Test
     fun `usdt transaction should be update usdt transactions and broadcasted`() {
         webSocket.send(usdtTransaction)
+        waitForRefresh()
 
         verify(mockWebSocket).open()
         verify(ethDataManager, never()).fetchEthAddress()
-        verify(usdtAccount).fetchAddressCompletable()
+        verify(usdtAccount).addTransfer(tokenTransfer(1210000.toBigInteger()))
+        verify(usdtAccount, never()).fetchAddressCompletable()
         verify(messagesSocketHandler).triggerNotification("Blockchain",
             "Received Tether 1.21 USDT",
             "Received Tether 1.21 USDT from 0x4058a004dd718babab47e14dd0d744742e5b9903")
@@ -197,7 +226,13 @@ class CoinsWebSocketStrategyTest {
     @Test
     fun `btc transaction should be update btc balance and transactions`() {
         webSocket.send(btcTransaction)
+        waitForRefresh()
         verify(mockWebSocket).open()
+        verify(payloadDataManager).invalidateAddressBalances(setOf(
+            "1Cox48WAm4NKTYbSjQ8DEswpaBNCfFwo9x",
+            "1At9jiwzVsRJAtN9hkqpgHsaCTJZSfgWAm",
+            "1F9HAVJWKS86z4VmoAJpRfRJR2wd4b2NAV"
+        ))
         verify(payloadDataManager).updateAllBalances()
         verify(payloadDataManager).updateAllTransactions()
     }
@@ -205,7 +240,9 @@ class CoinsWebSocketStrategyTest {
     @Test
     fun `bch transaction should be update bch balance and transactions`() {
         webSocket.send(bchTransaction)
+        waitForRefresh()
         verify(mockWebSocket).open()
+        verify(bchDataManager).invalidateAddressBalances(any())
         verify(bchDataManager).updateAllBalances()
         verify(bchDataManager).getWalletTransactions(50, 0)
     }
@@ -213,13 +250,65 @@ class CoinsWebSocketStrategyTest {
     @Test
     fun `test changed payload`() {
         webSocket.send(changedPayloadMessage)
+        waitForRefresh()
         verify(mockWebSocket).open()
         verify(payloadDataManager).updateAllBalances()
         verify(payloadDataManager).updateAllTransactions()
-        verify(rxBus).emitEvent(any(), any())
+        verify(rxBus).emitEvent(eq(ActionEvent::class.java), any())
         verify(messagesSocketHandler).showToast(R.string.wallet_updated)
     }
 
+    @Test
+    fun `a burst of events refreshes straight away and once more at the end`() {
+        webSocket.send(btcTransaction)
+        webSocket.send(bchTransaction)
+        webSocket.send(btcTransaction)
+        webSocket.send(bchTransaction)
+        webSocket.send(btcTransaction)
+
+        verify(payloadDataManager).updateAllBalances()
+        verify(bchDataManager).updateAllBalances()
+        waitForRefresh()
+
+        verify(payloadDataManager, times(2)).updateAllBalances()
+        verify(payloadDataManager, times(2)).updateAllTransactions()
+        verify(bchDataManager, times(2)).updateAllBalances()
+        verify(bchDataManager, times(2)).getWalletTransactions(50, 0)
+    }
+
+    @Test
+    fun `opening the socket again doesn't handle events twice`() {
+        strategy.open()
+
+        webSocket.send(btcTransaction)
+        waitForRefresh()
+
+        verify(payloadDataManager).updateAllBalances()
+    }
+
+    @Test
+    fun `events after a refresh refresh again`() {
+        webSocket.send(btcTransaction)
+        waitForRefresh()
+        webSocket.send(bchTransaction)
+        webSocket.send(btcTransaction)
+        waitForRefresh()
+
+        verify(payloadDataManager, times(2)).updateAllBalances()
+        verify(payloadDataManager, times(2)).updateAllTransactions()
+    }
+
+    @Test
+    fun `unreadable messages are ignored`() {
+        webSocket.send("pong")
+        webSocket.send(btcTransaction)
+        waitForRefresh()
+
+        verify(payloadDataManager).updateAllBalances()
+    }
+
+    private fun waitForRefresh() = testScheduler.advanceTimeBy(1, TimeUnit.SECONDS)
+
     private class FakeWebSocket(mock: WebSocket<String, String>) : WebSocket<String, String> by mock {
         private val _sendSubject = PublishSubject.create<String>()
 
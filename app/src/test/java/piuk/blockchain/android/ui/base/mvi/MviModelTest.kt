@@ -0,0 +1,115 @@
+package piuk.blockchain.android.ui.base.mvi
+
+import com.blockchain.android.testutils.rxInit
+import io.reactivex.Scheduler
+import io.reactivex.disposables.Disposable
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.schedulers.TestScheduler
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+
+class MviModelTest {
+
+    private val computation = TestScheduler()
+
+    @get:Rule
+    val rx = rxInit {
+        computation(computation)
+    }
+
+    @Test
+    fun `intents are reduced in order`() {
+        val model = TestModel()
+        val test = model.state.test()
+
+        model.process(TestIntent.Add("a"))
+        model.process(TestIntent.Remove)
+        model.process(TestIntent.Add("b"))
+        computation.triggerActions()
+
+        test.values().last() `should equal` TestState(listOf("b"))
+        model.metrics.intentsProcessed `should equal` 3L
+    }
+
+    @Test
+    fun `no intents are dropped by default`() {
+        val model = TestModel(capacity = 3)
+        val test = model.state.test()
+
+        (1..5).forEach { model.process(TestIntent.Add("$it")) }
+        model.metrics.queueDepth `should equal` 5
+        computation.triggerActions()
+
+        test.values().last() `should equal` TestState(listOf("1", "2", "3", "4", "5"))
+        model.metrics.intentsDropped `should equal` 0L
+    }
+
+    @Test
+    fun `oldest intents are dropped when the queue is full`() {
+        val model = TestModel(capacity = 3, overflow = IntentOverflow.DROP_OLDEST)
+        val test = model.state.test()
+
+        (1..5).forEach { model.process(TestIntent.Add("$it")) }
+        model.metrics.queueDepth `should equal` 3
+        computation.triggerActions()
+
+        test.values().last() `should equal` TestState(listOf("3", "4", "5"))
+        model.metrics `should equal` model.metrics.copy(
+            intentsProcessed = 3,
+            intentsDropped = 2,
+            queueDepth = 0,
+            maxQueueDepth = 3
+        )
+    }
+
+    @Test
+    fun `waiting intents of the same type are conflated`() {
+        val model = TestModel(overflow = IntentOverflow.CONFLATE_BY_TYPE)
+        val test = model.state.test()
+
+        model.process(TestIntent.Add("a"))
+        model.process(TestIntent.Remove)
+        model.process(TestIntent.Add("b"))
+        computation.triggerActions()
+
+        test.values().last() `should equal` TestState(listOf("b"))
+        model.metrics.intentsProcessed `should equal` 2L
+        model.metrics.intentsDropped `should equal` 1L
+    }
+
+    @Test
+    fun `intents sent after processing are not conflated`() {
+        val model = TestModel(overflow = IntentOverflow.CONFLATE_BY_TYPE)
+        val test = model.state.test()
+
+        model.process(TestIntent.Add("a"))
+        computation.triggerActions()
+        model.process(TestIntent.Add("b"))
+        computation.triggerActions()
+
+        test.values().last() `should equal` TestState(listOf("a", "b"))
+    }
+
+    private data class TestState(val items: List<String> = emptyList()) : MviState
+
+    private sealed class TestIntent : MviIntent<TestState> {
+        data class Add(val item: String) : TestIntent() {
+            override fun reduce(oldState: TestState): TestState =
+                oldState.copy(items = oldState.items + item)
+        }
+
+        object Remove : TestIntent() {
+            override fun reduce(oldState: TestState): TestState =
+                oldState.copy(items = oldState.items.dropLast(1))
+        }
+    }
+
+    private class TestModel(
+        capacity: Int = DEFAULT_INTENT_CAPACITY,
+        overflow: IntentOverflow = IntentOverflow.KEEP_ALL,
+        observeScheduler: Scheduler = Schedulers.trampoline()
+    ) : MviModel<TestState, TestIntent>(TestState(), observeScheduler, capacity, overflow) {
+        override fun performAction(previousState: TestState, intent: TestIntent): Disposable? = null
+    }
+}
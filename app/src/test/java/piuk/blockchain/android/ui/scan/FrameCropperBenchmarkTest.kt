@@ -0,0 +1,127 @@
+package piuk.blockchain.android.ui.scan
+
+import com.google.zxing.BinaryBitmap
+import com.google.zxing.LuminanceSource
+import com.google.zxing.MultiFormatReader
+import com.google.zxing.PlanarYUVLuminanceSource
+import com.google.zxing.common.HybridBinarizer
+import org.amshove.kluent.`should be less than`
+import org.amshove.kluent.`should equal`
+import org.junit.Assume
+import org.junit.Test
+import java.lang.management.ManagementFactory
+import java.util.zip.GZIPInputStream
+
+/**
+ * Compares the decoder's frame preparation before and after [FrameCropper], on the sample frames
+ * in resources/scan. Before, the whole frame was rotated into a new array, as RotationUtil used
+ * to, and then cropped to the scan region. Now only the scan region is copied, in rotated order,
+ * into a reused buffer.
+ *
+ * The sample frames are NV21 camera frames in the sensor's landscape orientation, showing a QR
+ * code for [PAYLOAD] under uneven light. They are turned 90 degrees, as for a phone held upright,
+ * and cropped to a centred square like the scan overlay's.
+ *
+ * Each path's average time and allocation per frame are printed, both for preparing the
+ * luminance the binarizer reads and for a full decode. Only the allocations and the decoded text
+ * are checked, timings vary too much between machines.
+ */
+class FrameCropperBenchmarkTest {
+
+    private class Sample(val name: String, val width: Int, val height: Int) {
+        val data: ByteArray = javaClass.getResourceAsStream("/scan/$name")!!
+            .let { GZIPInputStream(it) }
+            .use { it.readBytes() }
+
+        // Portrait, so the region is measured in the rotated frame
+        val side = width.coerceAtMost(height) * 3 / 4
+        val left = (height - side) / 2
+        val top = (width - side) / 2
+    }
+
+    private class Measurement(val nanos: Long, val bytes: Long)
+
+    private val samples = listOf(
+        Sample("qr_1280x720.nv21.gz", 1280, 720),
+        Sample("qr_1920x1080.nv21.gz", 1920, 1080)
+    )
+
+    private val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+
+    @Test
+    fun `cropping before rotating decodes the same and allocates a fraction per frame`() {
+        Assume.assumeTrue(threads?.isThreadAllocatedMemorySupported == true)
+
+        samples.forEach { sample ->
+            val cropper = FrameCropper()
+            val rotateThenCrop = measure(PREPARE_ITERATIONS) { rotateThenCrop(sample).matrix }
+            val cropThenRotate = measure(PREPARE_ITERATIONS) { cropThenRotate(cropper, sample).matrix }
+            val rotateThenCropDecode = measure(DECODE_ITERATIONS) { decode(rotateThenCrop(sample)) }
+            val cropThenRotateDecode = measure(DECODE_ITERATIONS) { decode(cropThenRotate(cropper, sample)) }
+
+            report(sample, "rotate then crop", rotateThenCrop, rotateThenCropDecode)
+            report(sample, "crop then rotate", cropThenRotate, cropThenRotateDecode)
+
+            decode(rotateThenCrop(sample)) `should equal` PAYLOAD
+            decode(cropThenRotate(cropper, sample)) `should equal` PAYLOAD
+            // The old path allocated the whole frame again, the new one only the source object
+            sample.data.size.toLong() `should be less than` rotateThenCrop.bytes
+            cropThenRotate.bytes `should be less than` 1024L
+        }
+    }
+
+    // What DecodeHandler did before FrameCropper
+    private fun rotateThenCrop(sample: Sample): PlanarYUVLuminanceSource {
+        val rotated = ByteArray(sample.data.size)
+        for (y in 0 until sample.height) {
+            for (x in 0 until sample.width) {
+                rotated[x * sample.height + sample.height - y - 1] = sample.data[x + y * sample.width]
+            }
+        }
+        return PlanarYUVLuminanceSource(
+            rotated, sample.height, sample.width, sample.left, sample.top, sample.side, sample.side, false
+        )
+    }
+
+    private fun cropThenRotate(cropper: FrameCropper, sample: Sample): PlanarYUVLuminanceSource =
+        cropper.crop(sample.data, sample.width, sample.height, 90, sample.left, sample.top, sample.side, sample.side)
+
+    private fun decode(source: LuminanceSource): String? {
+        val reader = MultiFormatReader()
+        return try {
+            reader.decode(BinaryBitmap(HybridBinarizer(source))).text
+        } catch (e: Exception) {
+            null
+        }
+    }
+
+    private fun measure(iterations: Int, block: () -> Any?): Measurement {
+        repeat(WARMUP_ITERATIONS) { block() }
+        val thread = Thread.currentThread().id
+        val bytesBefore = threads!!.getThreadAllocatedBytes(thread)
+        val start = System.nanoTime()
+        repeat(iterations) { block() }
+        val nanos = System.nanoTime() - start
+        val bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore
+        return Measurement(nanos / iterations, bytes / iterations)
+    }
+
+    private fun report(sample: Sample, path: String, prepare: Measurement, decode: Measurement) {
+        println(
+            String.format(
+                "%-22s %-16s prepare %7.3f ms %10d B/frame, decode %7.3f ms %10d B/frame",
+                sample.name, path,
+                prepare.nanos / 1e6, prepare.bytes,
+                decode.nanos / 1e6, decode.bytes
+            )
+        )
+    }
+
+    companion object {
+        private const val PAYLOAD = "bitcoin:1JXmD5gPTTnR7EjbDEhd6xLbTwLNvhH2EU?amount=0.0015"
+
+        private const val WARMUP_ITERATIONS = 10
+        private const val PREPARE_ITERATIONS = 50
+        private const val DECODE_ITERATIONS = 10
+    }
+}
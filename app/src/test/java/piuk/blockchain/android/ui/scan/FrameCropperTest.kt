@@ -0,0 +1,78 @@
+package piuk.blockchain.android.ui.scan
+
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class FrameCropperTest {
+
+    private val width = 12
+    private val height = 8
+    private val frame = ByteArray(width * height) { it.toByte() }
+
+    @Test
+    fun `region matches cropping the fully rotated frame`() {
+        val cropper = FrameCropper()
+        for (rotation in listOf(0, 90, 180, 270)) {
+            val rotatedWidth = if (rotation % 180 == 0) width else height
+            val rotatedHeight = if (rotation % 180 == 0) height else width
+            for (region in listOf(
+                Region(0, 0, rotatedWidth, rotatedHeight),
+                Region(1, 2, 3, 4),
+                Region(rotatedWidth - 2, rotatedHeight - 3, 2, 3)
+            )) {
+                val cropped = cropper.cropAndRotate(
+                    frame, width, height, rotation, region.left, region.top, region.width, region.height
+                )
+
+                cropped.toList() `should equal` expected(rotation, region).toList()
+            }
+        }
+    }
+
+    @Test
+    fun `buffer is reused while the region size is unchanged`() {
+        val cropper = FrameCropper()
+
+        val first = cropper.cropAndRotate(frame, width, height, 90, 0, 0, 4, 4)
+        val second = cropper.cropAndRotate(frame, width, height, 90, 2, 2, 4, 4)
+        val third = cropper.cropAndRotate(frame, width, height, 90, 2, 2, 5, 4)
+
+        (first === second) `should equal` true
+        (second === third) `should equal` false
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `region outside the rotated frame is rejected`() {
+        // Fits the camera frame, but not once it's turned on its side
+        FrameCropper().cropAndRotate(frame, width, height, 90, 0, 0, 10, 4)
+    }
+
+    private data class Region(val left: Int, val top: Int, val width: Int, val height: Int)
+
+    private fun expected(rotation: Int, region: Region): ByteArray {
+        val rotated = rotate(rotation)
+        val rotatedWidth = if (rotation % 180 == 0) width else height
+        return ByteArray(region.width * region.height) {
+            val x = region.left + it % region.width
+            val y = region.top + it / region.width
+            rotated[y * rotatedWidth + x]
+        }
+    }
+
+    // The full frame rotation the decoder used to do before cropping
+    private fun rotate(rotation: Int): ByteArray {
+        val rotated = ByteArray(frame.size)
+        for (y in 0 until height) {
+            for (x in 0 until width) {
+                val index = when (rotation) {
+                    90 -> x * height + height - y - 1
+                    180 -> (width - x - 1) + width * (height - y - 1)
+                    270 -> (width - x - 1) * height + y
+                    else -> x + y * width
+                }
+                rotated[index] = frame[x + y * width]
+            }
+        }
+        return rotated
+    }
+}
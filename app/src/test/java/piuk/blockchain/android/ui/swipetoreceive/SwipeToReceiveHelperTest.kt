@@ -247,6 +247,7 @@ class SwipeToReceiveHelperTest {
         whenever(bchDataManager.getReceiveAddressAtPosition(eq(0), anyInt()))
             .thenReturn("1BpEi6DfDAUFd7GtittLSdBeYJvcoaVggu")
         whenever(payloadDataManager.updateAllTransactions()).thenReturn(Completable.complete())
+        whenever(payloadDataManager.prefillAddressCache()).thenReturn(Completable.complete())
         whenever(bchDataManager.getWalletTransactions(anyInt(), anyInt())).thenReturn(Observable.just(emptyList()))
         // Act
         val testObserver = subject.generateAddresses().test()
@@ -255,6 +256,7 @@ class SwipeToReceiveHelperTest {
         testObserver.assertNoErrors()
         verify(xlmDataManager).defaultAccount()
         verify(ethDataManager, atLeastOnce()).getEthWallet()
+        verify(payloadDataManager).prefillAddressCache()
         verify(payloadDataManager, times(5)).getReceiveAddressAtPosition(eq(btcAccount), anyInt())
         verify(bchDataManager, times(5)).getReceiveAddressAtPosition(eq(0), anyInt())
     }
@@ -1,12 +1,8 @@
 package info.blockchain.balance
 
-import java.math.BigDecimal
-import java.math.RoundingMode
-import java.text.DecimalFormat
-import java.text.NumberFormat
+import java.math.BigInteger
 import java.util.Locale
 import java.util.concurrent.ConcurrentHashMap
-import kotlin.math.max
 
 enum class FormatPrecision {
     /**
@@ -36,71 +32,63 @@ private val formatterMap: MutableMap<Locale, CryptoCurrencyFormatter> = Concurre
 private fun getFormatter(locale: Locale) =
     formatterMap.getOrPut(locale) { CryptoCurrencyFormatter(locale) }
 
+/**
+ * Formats crypto amounts from their minor units, so even 18 decimal place amounts are exact.
+ * Formatters never change once built and can be used from any thread.
+ */
 internal class CryptoCurrencyFormatter(locale: Locale) {
-    private val btcFormat = createCryptoDecimalFormat(locale, CryptoCurrency.BTC.dp)
-    private val bchFormat = createCryptoDecimalFormat(locale, CryptoCurrency.BCH.dp)
-    private val ethFormat = createCryptoDecimalFormat(locale, CryptoCurrency.ETHER.dp)
-    private val ethShortFormat = createCryptoDecimalFormat(locale, CryptoCurrency.ETHER.userDp)
-    private val xlmFormat = createCryptoDecimalFormat(locale, CryptoCurrency.XLM.dp)
-    private val paxShortFormat = createCryptoDecimalFormat(locale, CryptoCurrency.PAX.userDp)
-    private val paxFormat = createCryptoDecimalFormat(locale, CryptoCurrency.PAX.dp)
-    private val stxFormat = createCryptoDecimalFormat(locale, CryptoCurrency.STX.dp)
-    private val algFormat = createCryptoDecimalFormat(locale, CryptoCurrency.ALGO.dp)
-    private val usdtFormat = createCryptoDecimalFormat(locale, CryptoCurrency.USDT.dp)
-    private val dgldFormat = createCryptoDecimalFormat(locale, CryptoCurrency.DGLD.dp)
+    private val formatter = DecimalFormatter[locale]
+
+    /**
+     * Replace 0.0 with 0 to match web
+     */
+    private val zero = formatter.append(StringBuilder(), BigInteger.ZERO, 0, 1, 1)
+        .toString()
+        .let { if (it == "0.0" || it == "0,0") "0" else it }
 
     fun format(
         cryptoValue: CryptoValue,
         precision: FormatPrecision = FormatPrecision.Short
     ): String =
-        cryptoValue.currency.decimalFormat(precision).formatWithoutUnit(cryptoValue.toBigDecimal())
+        StringBuilder().appendAmount(cryptoValue, precision).toString()
 
     fun formatWithUnit(
         cryptoValue: CryptoValue,
         precision: FormatPrecision = FormatPrecision.Short
-    ) =
-        cryptoValue.currency.decimalFormat(precision).formatWithUnit(
-            cryptoValue.toBigDecimal(),
-            cryptoValue.currency.displayTicker
-        )
-
-    private fun CryptoCurrency.decimalFormat(displayMode: FormatPrecision) = when (this) {
-        CryptoCurrency.BTC -> btcFormat
-        CryptoCurrency.BCH -> bchFormat
-        CryptoCurrency.ETHER -> when (displayMode) {
-            FormatPrecision.Short -> ethShortFormat
-            FormatPrecision.Full -> ethFormat
-        }
-        CryptoCurrency.XLM -> xlmFormat
-        CryptoCurrency.PAX -> when (displayMode) {
-            FormatPrecision.Short -> paxShortFormat
-            FormatPrecision.Full -> paxFormat
+    ): String =
+        StringBuilder()
+            .appendAmount(cryptoValue, precision)
+            .append(' ')
+            .append(cryptoValue.currency.displayTicker)
+            .toString()
+
+    private fun StringBuilder.appendAmount(cryptoValue: CryptoValue, precision: FormatPrecision): StringBuilder {
+        val currency = cryptoValue.currency
+        val maxDigits = currency.maxDigits(precision)
+        val minor = cryptoValue.toBigInteger()
+        return if (minor.isShownAsZero(currency.dp - maxDigits)) {
+            append(zero)
+        } else {
+            formatter.append(this, minor, currency.dp, 1, maxDigits)
         }
-        CryptoCurrency.STX -> stxFormat
-        CryptoCurrency.ALGO -> algFormat
-        CryptoCurrency.USDT -> usdtFormat
-        CryptoCurrency.DGLD -> dgldFormat
     }
 
-    private fun DecimalFormat.formatWithUnit(value: BigDecimal, symbol: String) =
-        "${formatWithoutUnit(value)} $symbol"
+    private fun CryptoCurrency.maxDigits(precision: FormatPrecision) = when (this) {
+        CryptoCurrency.ETHER,
+        CryptoCurrency.PAX -> when (precision) {
+            FormatPrecision.Short -> userDp
+            FormatPrecision.Full -> dp
+        }
+        CryptoCurrency.BTC,
+        CryptoCurrency.BCH,
+        CryptoCurrency.XLM,
+        CryptoCurrency.STX,
+        CryptoCurrency.ALGO,
+        CryptoCurrency.USDT,
+        CryptoCurrency.DGLD -> dp
+    }
 
-    private fun DecimalFormat.formatWithoutUnit(value: BigDecimal) =
-        format(value.toPositiveDouble()).toWebZero()
+    // Negative amounts are shown as zero
+    private fun BigInteger.isShownAsZero(droppedDigits: Int) =
+        signum() <= 0 || (droppedDigits > 0 && this < DecimalFormatter.powerOfTen(droppedDigits))
 }
-
-private fun BigDecimal.toPositiveDouble() = this.toDouble().toPositiveDouble()
-
-private fun Double.toPositiveDouble() = max(this, 0.0)
-
-/**
- * Replace 0.0 with 0 to match web
- */
-private fun String.toWebZero() = if (this == "0.0" || this == "0,0" || this == "0.00") "0" else this
-
-private fun createCryptoDecimalFormat(locale: Locale, maxDigits: Int) =
-    (NumberFormat.getInstance(locale) as DecimalFormat).apply {
-        minimumFractionDigits = 1
-        maximumFractionDigits = maxDigits
-        roundingMode = RoundingMode.DOWN
-    }
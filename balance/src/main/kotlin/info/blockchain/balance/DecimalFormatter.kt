@@ -0,0 +1,131 @@
+package info.blockchain.balance
+
+import java.math.BigDecimal
+import java.math.BigInteger
+import java.text.DecimalFormat
+import java.text.NumberFormat
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Formats non-negative amounts straight from their digits, with the digits, separators and
+ * grouping of a locale taken from a [DecimalFormat] once, up front. Digits beyond the maximum
+ * fraction digits are dropped, as [java.math.RoundingMode.DOWN] does.
+ *
+ * Unlike [DecimalFormat] this never changes once built, so one instance can be shared by every
+ * thread, and amounts are never converted to a double, so every digit is exact at any precision.
+ */
+internal class DecimalFormatter(
+    private val zeroDigit: Char,
+    val decimalSeparator: Char,
+    private val groupingSeparator: Char,
+    // 0 when digits aren't grouped
+    private val groupingSize: Int,
+    private val decimalSeparatorAlwaysShown: Boolean = false
+) {
+    /**
+     * Appends [unscaled] * 10^-[scale] to [builder]. [unscaled] must not be negative.
+     */
+    fun append(
+        builder: StringBuilder,
+        unscaled: BigInteger,
+        scale: Int,
+        minFractionDigits: Int,
+        maxFractionDigits: Int
+    ): StringBuilder {
+        var fractionDigits = scale
+        var digits = unscaled
+        if (fractionDigits < 0) {
+            digits *= powerOfTen(-fractionDigits)
+            fractionDigits = 0
+        } else if (fractionDigits > maxFractionDigits) {
+            digits /= powerOfTen(fractionDigits - maxFractionDigits)
+            fractionDigits = maxFractionDigits
+        }
+        val text = digits.toString()
+
+        // Read [text] as if it was padded with zeros to have at least one integer digit
+        val leadingZeros = maxOf(fractionDigits + 1 - text.length, 0)
+        val integerDigits = leadingZeros + text.length - fractionDigits
+
+        for (i in 0 until integerDigits) {
+            builder.append(localDigit(text.digitAt(i, leadingZeros)))
+            val remaining = integerDigits - 1 - i
+            if (groupingSize > 0 && remaining > 0 && remaining % groupingSize == 0) {
+                builder.append(groupingSeparator)
+            }
+        }
+
+        var shownFractionDigits = fractionDigits
+        while (shownFractionDigits > minFractionDigits &&
+            text.digitAt(integerDigits + shownFractionDigits - 1, leadingZeros) == '0'
+        ) {
+            shownFractionDigits--
+        }
+        if (decimalSeparatorAlwaysShown || maxOf(shownFractionDigits, minFractionDigits) > 0) {
+            builder.append(decimalSeparator)
+        }
+        for (i in 0 until shownFractionDigits) {
+            builder.append(localDigit(text.digitAt(integerDigits + i, leadingZeros)))
+        }
+        repeat(minFractionDigits - shownFractionDigits) { builder.append(zeroDigit) }
+        return builder
+    }
+
+    fun format(value: BigDecimal, minFractionDigits: Int, maxFractionDigits: Int): String =
+        append(
+            StringBuilder(),
+            value.unscaledValue().abs(),
+            value.scale(),
+            minFractionDigits,
+            maxFractionDigits
+        ).toString()
+
+    private fun localDigit(digit: Char) = zeroDigit + (digit - '0')
+
+    private fun String.digitAt(index: Int, leadingZeros: Int) =
+        if (index < leadingZeros) '0' else this[index - leadingZeros]
+
+    companion object {
+
+        private val numberFormatters: MutableMap<Locale, DecimalFormatter> = ConcurrentHashMap()
+
+        private val powersOfTen = Array<BigInteger>(CryptoCurrency.values().map { it.dp }.max()!! + 1) {
+            BigInteger.TEN.pow(it)
+        }
+
+        /**
+         * The formatter for plain numbers in [locale].
+         */
+        operator fun get(locale: Locale): DecimalFormatter = numberFormatters.getOrPut(locale) {
+            of(NumberFormat.getInstance(locale) as DecimalFormat)
+        }
+
+        /**
+         * A formatter for the digits of [format], without its prefixes and suffixes.
+         */
+        fun of(format: DecimalFormat): DecimalFormatter {
+            val groupingSize = if (format.isGroupingUsed) format.groupingSize else 0
+            // Which separators a format uses depends on its pattern and the JDK, eg. currency
+            // formats use monetary separators where they exist, so read them back from a sample
+            val sample = (format.clone() as DecimalFormat).apply {
+                minimumIntegerDigits = 1
+                minimumFractionDigits = 1
+                maximumFractionDigits = 1
+            }
+            val digits = sample.format(BigDecimal.ONE.movePointRight(groupingSize))
+                .removePrefix(sample.positivePrefix)
+                .removeSuffix(sample.positiveSuffix)
+            return DecimalFormatter(
+                zeroDigit = format.decimalFormatSymbols.zeroDigit,
+                decimalSeparator = digits[digits.length - 2],
+                groupingSeparator = if (groupingSize > 0) digits[1] else ' ',
+                groupingSize = groupingSize,
+                decimalSeparatorAlwaysShown = format.isDecimalSeparatorAlwaysShown
+            )
+        }
+
+        fun powerOfTen(exponent: Int): BigInteger =
+            if (exponent < powersOfTen.size) powersOfTen[exponent] else BigInteger.TEN.pow(exponent)
+    }
+}
@@ -12,24 +12,48 @@ import java.util.concurrent.ConcurrentHashMap
 
 private data class Key(val locale: Locale, val currencyCode: String, val includeSymbol: Boolean)
 
-private object FiatFormat {
-
-    private val cache: MutableMap<Key, NumberFormat> = ConcurrentHashMap()
-
-    operator fun get(key: Key) = cache.getOrPut(key) {
-        val currencyInstance = Currency.getInstance(key.currencyCode)
-        val fmt = NumberFormat.getCurrencyInstance(key.locale) as DecimalFormat
-        fmt.apply {
-            decimalFormatSymbols =
-                decimalFormatSymbols.apply {
-                    currency = currencyInstance
-                    if (!key.includeSymbol) {
-                        currencySymbol = ""
+/**
+ * Formats fiat amounts the way [NumberFormat.getCurrencyInstance] would for [Key], from an
+ * immutable copy of its symbols, prefixes and suffixes. Safe to use from any thread.
+ */
+private class FiatFormat private constructor(
+    private val formatter: DecimalFormatter,
+    private val fractionDigits: Int,
+    private val positivePrefix: String,
+    private val positiveSuffix: String,
+    private val negativePrefix: String,
+    private val negativeSuffix: String
+) {
+    fun format(amount: BigDecimal): String {
+        val negative = amount.signum() < 0
+        val builder = StringBuilder(if (negative) negativePrefix else positivePrefix)
+        formatter.append(builder, amount.unscaledValue().abs(), amount.scale(), fractionDigits, fractionDigits)
+        return builder.append(if (negative) negativeSuffix else positiveSuffix).toString()
+    }
+
+    companion object {
+
+        private val cache: MutableMap<Key, FiatFormat> = ConcurrentHashMap()
+
+        operator fun get(key: Key) = cache.getOrPut(key) {
+            val currencyInstance = Currency.getInstance(key.currencyCode)
+            val fmt = (NumberFormat.getCurrencyInstance(key.locale) as DecimalFormat).apply {
+                decimalFormatSymbols =
+                    decimalFormatSymbols.apply {
+                        currency = currencyInstance
+                        if (!key.includeSymbol) {
+                            currencySymbol = ""
+                        }
                     }
-                }
-            minimumFractionDigits = currencyInstance.defaultFractionDigits
-            maximumFractionDigits = currencyInstance.defaultFractionDigits
-            roundingMode = RoundingMode.DOWN
+            }
+            FiatFormat(
+                formatter = DecimalFormatter.of(fmt),
+                fractionDigits = maxOf(currencyInstance.defaultFractionDigits, 0),
+                positivePrefix = fmt.positivePrefix,
+                positiveSuffix = fmt.positiveSuffix,
+                negativePrefix = fmt.negativePrefix,
+                negativeSuffix = fmt.negativeSuffix
+            )
         }
     }
 }
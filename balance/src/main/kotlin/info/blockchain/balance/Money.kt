@@ -47,7 +47,7 @@ abstract class Money : Serializable {
      */
     fun toStringParts() =
         toStringWithoutSymbol().let {
-            val index = it.lastIndexOf(LocaleDecimalFormat[Locale.getDefault()].decimalFormatSymbols.decimalSeparator)
+            val index = it.lastIndexOf(DecimalFormatter[Locale.getDefault()].decimalSeparator)
             if (index != -1) {
                 Parts(
                     symbol = symbol,
@@ -172,6 +172,28 @@ class CryptoCurrencyFormatterTest {
         170_000_000_000L.formatWeiWithUnit() `should equal` "0.00000017 ETH"
     }
 
+    @Test
+    fun `formatWithUnit ETH full precision keeps every digit of large amounts`() {
+        CryptoValue(
+            CryptoCurrency.ETHER,
+            "123456789123456789012345678".toBigInteger()
+        ).formatWithUnit(locale, FormatPrecision.Full) `should equal` "123,456,789.123456789012345678 ETH"
+    }
+
+    @Test
+    fun `formatWithUnit ETH short precision drops digits rather than rounding`() {
+        CryptoValue(
+            CryptoCurrency.ETHER,
+            "123456789123456789999999999".toBigInteger()
+        ).formatWithUnit(locale) `should equal` "123,456,789.12345678 ETH"
+    }
+
+    @Test
+    fun `format negative amounts as zero`() {
+        (-1L).satoshi().format(locale) `should equal` "0"
+        (-1).ether().formatWithUnit(locale) `should equal` "0 ETH"
+    }
+
     @Test
     fun `format in another locale`() {
         CryptoValue.ZeroEth.format(Locale.FRANCE) `should equal` "0"
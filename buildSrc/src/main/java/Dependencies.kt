@@ -119,6 +119,9 @@ object Versions {
     const val json = "20140107"
     const val espresso = "3.2.0"
     const val jacoco = "0.8.1"
+
+    // Benchmarking
+    const val jmh = "1.23"
     const val androidxTesting = "1.1.1"
 }
 
@@ -263,4 +266,8 @@ object Libraries {
     const val okHttpMock = "com.squareup.okhttp3:mockwebserver:${Versions.okHttp}"
     const val mockWebServer = "com.github.fabric8io:mockwebserver:${Versions.mockWebServer}"
     const val jacoco = "org.jacoco:org.jacoco.core:${Versions.jacoco}"
+
+    // Benchmarking
+    const val jmhCore = "org.openjdk.jmh:jmh-core:${Versions.jmh}"
+    const val jmhAnnotationProcessor = "org.openjdk.jmh:jmh-generator-annprocess:${Versions.jmh}"
 }
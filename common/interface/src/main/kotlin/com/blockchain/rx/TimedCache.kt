@@ -0,0 +1,149 @@
+package com.blockchain.rx
+
+import io.reactivex.Single
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A keyed, size bounded cache of the values loaded by [loader].
+ *
+ * A value is served for [lifetimeMillis] after it was loaded. For a further [staleMillis] it's
+ * still served, straight away, while a fresh one is loaded in the background. After that callers
+ * wait for a new load. Callers asking for the same key while it's loading all share that load,
+ * and a failed load isn't cached, so the next caller tries again.
+ *
+ * Keys are spread over [shards], each with its own lock, holding at most [maxEntries] values
+ * between them. Each shard drops its least recently used values first. Ages are measured with
+ * [clock], which by default is monotonic so changes to the wall clock don't affect them.
+ */
+class TimedCache<K : Any, V : Any>(
+    private val lifetimeMillis: Long,
+    private val staleMillis: Long = 0,
+    maxEntries: Int = DEFAULT_MAX_ENTRIES,
+    shards: Int = DEFAULT_SHARDS,
+    private val clock: () -> Long = { System.nanoTime() / NANOS_PER_MILLI },
+    private val loader: (K) -> Single<V>
+) {
+    private class CacheEntry<V> {
+        var value: V? = null
+        var loadedAt = 0L
+        var load: Single<V>? = null
+    }
+
+    private class Shard<K, V>(private val maxEntries: Int) :
+        LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, CacheEntry<V>>?) =
+            size > maxEntries
+    }
+
+    private val shards = Array(shards) { Shard<K, V>((maxEntries + shards - 1) / shards) }
+
+    private val hits = AtomicLong()
+    private val staleHits = AtomicLong()
+    private val misses = AtomicLong()
+    private val loads = AtomicLong()
+    private val loadFailures = AtomicLong()
+
+    fun get(key: K): Single<V> =
+        Single.defer {
+            val shard = shardFor(key)
+            var refresh: Single<V>? = null
+            val result = synchronized(shard) {
+                val entry = shard.getOrPut(key) { CacheEntry() }
+                val value = entry.value
+                val age = clock() - entry.loadedAt
+                when {
+                    value != null && age < lifetimeMillis -> {
+                        hits.incrementAndGet()
+                        Single.just(value)
+                    }
+                    value != null && age < lifetimeMillis + staleMillis -> {
+                        staleHits.incrementAndGet()
+                        if (entry.load == null) {
+                            refresh = load(shard, key, entry)
+                        }
+                        Single.just(value)
+                    }
+                    else -> {
+                        misses.incrementAndGet()
+                        entry.load ?: load(shard, key, entry)
+                    }
+                }
+            }
+            // A failed refresh leaves the stale value in place until it expires
+            refresh?.subscribe({}, {})
+            result
+        }
+
+    /**
+     * Drops the value for [key], so the next caller waits for a fresh one. A load already
+     * running for [key] doesn't store its value.
+     */
+    fun invalidate(key: K) {
+        val shard = shardFor(key)
+        synchronized(shard) { shard.remove(key) }
+    }
+
+    fun invalidateAll() {
+        shards.forEach { shard -> synchronized(shard) { shard.clear() } }
+    }
+
+    fun stats(): CacheStats =
+        CacheStats(
+            hits = hits.get(),
+            staleHits = staleHits.get(),
+            misses = misses.get(),
+            loads = loads.get(),
+            loadFailures = loadFailures.get(),
+            size = shards.sumBy { shard -> synchronized(shard) { shard.size } }
+        )
+
+    // Called with the shard locked
+    private fun load(shard: Shard<K, V>, key: K, entry: CacheEntry<V>): Single<V> {
+        loads.incrementAndGet()
+        val load = Single.defer { loader(key) }
+            .doOnSuccess { value ->
+                synchronized(shard) {
+                    entry.load = null
+                    // Unless it was invalidated or evicted while loading
+                    if (shard[key] === entry) {
+                        entry.value = value
+                        entry.loadedAt = clock()
+                    }
+                }
+            }
+            .doOnError {
+                loadFailures.incrementAndGet()
+                synchronized(shard) {
+                    entry.load = null
+                    if (entry.value == null && shard[key] === entry) {
+                        shard.remove(key)
+                    }
+                }
+            }
+            .cache()
+        entry.load = load
+        return load
+    }
+
+    private fun shardFor(key: K): Shard<K, V> {
+        val hash = key.hashCode()
+        return shards[((hash xor (hash ushr 16)) and Int.MAX_VALUE) % shards.size]
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 256
+        const val DEFAULT_SHARDS = 4
+
+        private const val NANOS_PER_MILLI = 1_000_000L
+    }
+}
+
+data class CacheStats(
+    val hits: Long,
+    val staleHits: Long,
+    val misses: Long,
+    val loads: Long,
+    val loadFailures: Long,
+    val size: Int
+)
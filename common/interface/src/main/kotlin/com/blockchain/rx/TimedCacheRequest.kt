@@ -1,46 +1,51 @@
 package com.blockchain.rx
 
 import io.reactivex.Single
-import io.reactivex.rxkotlin.subscribeBy
 import java.util.concurrent.TimeUnit
-import java.util.concurrent.atomic.AtomicBoolean
 
-class TimedCacheRequest<T>(
-    private val cacheLifetimeSeconds: Long,
-    private val refreshFn: () -> Single<T>
+/**
+ * Caches the result of [refreshFn] for [cacheLifetimeSeconds], then for a further
+ * [staleLifetimeSeconds] while it's refreshed in the background. See [TimedCache].
+ */
+class TimedCacheRequest<T : Any>(
+    cacheLifetimeSeconds: Long,
+    staleLifetimeSeconds: Long = 0,
+    refreshFn: () -> Single<T>
 ) {
-    val expired = AtomicBoolean(true)
-    var current = refreshFn.invoke()
-
-    fun getCachedSingle(): Single<T> =
-        Single.defer {
-            if (expired.compareAndSet(true, false)) {
-                current = refreshFn.invoke().cache()
-
-                Single.timer(cacheLifetimeSeconds, TimeUnit.SECONDS)
-                    .subscribeBy(onSuccess = { expired.set(true) })
-            }
-            current
-        }
+    private val cache = TimedCache<Unit, T>(
+        lifetimeMillis = TimeUnit.SECONDS.toMillis(cacheLifetimeSeconds),
+        staleMillis = TimeUnit.SECONDS.toMillis(staleLifetimeSeconds),
+        maxEntries = 1,
+        shards = 1
+    ) { refreshFn() }
+
+    fun getCachedSingle(): Single<T> = cache.get(Unit)
+
+    fun invalidate() = cache.invalidate(Unit)
+
+    fun stats(): CacheStats = cache.stats()
 }
 
-class ParameteredTimedCacheRequest<INPUT, OUTPUT>(
-    private val cacheLifetimeSeconds: Long,
-    private val refreshFn: (INPUT) -> Single<OUTPUT>
+/**
+ * Caches the result of [refreshFn] for each input for [cacheLifetimeSeconds], then for a further
+ * [staleLifetimeSeconds] while it's refreshed in the background. See [TimedCache].
+ */
+class ParameteredTimedCacheRequest<INPUT : Any, OUTPUT : Any>(
+    cacheLifetimeSeconds: Long,
+    staleLifetimeSeconds: Long = 0,
+    maxEntries: Int = TimedCache.DEFAULT_MAX_ENTRIES,
+    refreshFn: (INPUT) -> Single<OUTPUT>
 ) {
-    val expired = hashMapOf<INPUT, Boolean>()
-    lateinit var current: Single<OUTPUT>
-
-    fun getCachedSingle(input: INPUT): Single<OUTPUT> =
-        Single.defer {
-            if (expired[input] != false) {
-                current = refreshFn.invoke(input).cache().doOnSuccess {
-                    expired[input] = false
-                }
-
-                Single.timer(cacheLifetimeSeconds, TimeUnit.SECONDS)
-                    .subscribeBy(onSuccess = { expired[input] = true })
-            }
-            current
-        }
+    private val cache = TimedCache(
+        lifetimeMillis = TimeUnit.SECONDS.toMillis(cacheLifetimeSeconds),
+        staleMillis = TimeUnit.SECONDS.toMillis(staleLifetimeSeconds),
+        maxEntries = maxEntries,
+        loader = refreshFn
+    )
+
+    fun getCachedSingle(input: INPUT): Single<OUTPUT> = cache.get(input)
+
+    fun invalidate(input: INPUT) = cache.invalidate(input)
+
+    fun stats(): CacheStats = cache.stats()
 }
@@ -0,0 +1,159 @@
+package com.blockchain.rx
+
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class TimedCacheTest {
+
+    private var now = 0L
+
+    private val loads = mutableMapOf<String, Int>()
+
+    private fun cache(
+        staleMillis: Long = 0,
+        maxEntries: Int = TimedCache.DEFAULT_MAX_ENTRIES,
+        loader: (String) -> Single<String> = { key ->
+            Single.fromCallable {
+                val count = (loads[key] ?: 0) + 1
+                loads[key] = count
+                "$key$count"
+            }
+        }
+    ) = TimedCache(
+        lifetimeMillis = 1000,
+        staleMillis = staleMillis,
+        maxEntries = maxEntries,
+        shards = 2,
+        clock = { now },
+        loader = loader
+    )
+
+    @Test
+    fun `values are kept for their lifetime`() {
+        val cache = cache()
+
+        cache.get("a").test().assertValue("a1")
+        now = 999
+        cache.get("a").test().assertValue("a1")
+        now = 1000
+        cache.get("a").test().assertValue("a2")
+
+        cache.stats() `should equal` CacheStats(
+            hits = 1,
+            staleHits = 0,
+            misses = 2,
+            loads = 2,
+            loadFailures = 0,
+            size = 1
+        )
+    }
+
+    @Test
+    fun `each key has its own value`() {
+        val cache = cache()
+
+        cache.get("a").test().assertValue("a1")
+        cache.get("b").test().assertValue("b1")
+        cache.get("a").test().assertValue("a1")
+        cache.get("b").test().assertValue("b1")
+    }
+
+    @Test
+    fun `callers share a load in progress`() {
+        val subject = SingleSubject.create<String>()
+        var subscriptions = 0
+        val cache = cache { subject.doOnSubscribe { subscriptions++ } }
+
+        val first = cache.get("a").test()
+        val second = cache.get("a").test()
+        subject.onSuccess("value")
+
+        first.assertValue("value")
+        second.assertValue("value")
+        subscriptions `should equal` 1
+        cache.stats().loads `should equal` 1L
+    }
+
+    @Test
+    fun `failed loads are not cached`() {
+        var fail = true
+        val cache = cache { key ->
+            if (fail) Single.error(RuntimeException("failed")) else Single.just(key)
+        }
+
+        cache.get("a").test().assertErrorMessage("failed")
+        fail = false
+        cache.get("a").test().assertValue("a")
+
+        cache.stats().loadFailures `should equal` 1L
+    }
+
+    @Test
+    fun `stale values are served while they are refreshed`() {
+        val subject = SingleSubject.create<String>()
+        var refreshing = false
+        val cache = cache(staleMillis = 500) { key ->
+            if (refreshing) subject else Single.just(key)
+        }
+        cache.get("a").test().assertValue("a")
+
+        now = 1200
+        refreshing = true
+        cache.get("a").test().assertValue("a")
+        cache.get("a").test().assertValue("a")
+        subject.hasObservers() `should equal` true
+
+        subject.onSuccess("fresh")
+        cache.get("a").test().assertValue("fresh")
+        cache.stats().loads `should equal` 2L
+        cache.stats().staleHits `should equal` 2L
+    }
+
+    @Test
+    fun `values past their stale lifetime are loaded again`() {
+        val cache = cache(staleMillis = 500)
+        cache.get("a").test().assertValue("a1")
+
+        now = 1500
+        cache.get("a").test().assertValue("a2")
+    }
+
+    @Test
+    fun `least recently used values are dropped first`() {
+        val cache = cache(maxEntries = 2)
+        // Two shards hold one value each, so at most one of these keys per shard is kept
+        val keys = (0 until 20).map { "key$it" }
+        keys.forEach { cache.get(it).test() }
+
+        cache.stats().size `should equal` 2
+        cache.get(keys.last()).test().assertValue("${keys.last()}1")
+    }
+
+    @Test
+    fun `invalidated values are loaded again`() {
+        val cache = cache()
+        cache.get("a").test().assertValue("a1")
+
+        cache.invalidate("a")
+
+        cache.get("a").test().assertValue("a2")
+    }
+
+    @Test
+    fun `a load started before invalidating does not store its value`() {
+        val subject = SingleSubject.create<String>()
+        var first = true
+        val cache = cache { key ->
+            if (first) subject.also { first = false } else Single.just(key)
+        }
+        val inFlight = cache.get("a").test()
+
+        cache.invalidate("a")
+        subject.onSuccess("old")
+
+        inFlight.assertValue("old")
+        cache.get("a").test().assertValue("a")
+    }
+}
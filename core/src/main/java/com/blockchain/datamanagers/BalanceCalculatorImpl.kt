@@ -11,7 +11,8 @@ class BalanceCalculatorImpl(val ethDataManager: EthDataManager) : BalanceCalcula
         when (cryptoCurrency) {
             CryptoCurrency.ETHER -> ethDataManager.getEthResponseModel()?.let {
                 Observable.just(CryptoValue(CryptoCurrency.ETHER, it.getTotalBalance()))
-            } ?: ethDataManager.fetchEthAddress().map { CryptoValue(CryptoCurrency.ETHER, it.getTotalBalance()) }
+            } ?: ethDataManager.fetchEthAddressCacheThenNetwork()
+                .map { CryptoValue(CryptoCurrency.ETHER, it.getTotalBalance()) }
             else -> Observable.empty()
         }
 }
\ No newline at end of file
@@ -27,7 +27,7 @@ internal class SelfFeeCalculatingTransactionExecutor(
         return if (!amount.currency.hasFeature(IS_ERC20)) {
             return Single.just(true)
         } else {
-            balanceCalculator.balance(CryptoCurrency.ETHER).singleOrError()
+            balanceCalculator.balance(CryptoCurrency.ETHER).lastOrError()
                 .zipWith(getFeeForTransaction(amount, sendingAccount)) { balance, fee ->
                     balance >= fee
                 }
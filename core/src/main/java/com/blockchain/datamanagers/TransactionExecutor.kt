@@ -52,6 +52,10 @@ interface MaximumSpendableCalculator {
 }
 
 interface BalanceCalculator {
+    /**
+     * Emits the balance, which can be a kept one followed by a fresh one, so use the last value
+     * where it has to be current.
+     */
     fun balance(cryptoCurrency: CryptoCurrency): Observable<CryptoValue>
 }
 
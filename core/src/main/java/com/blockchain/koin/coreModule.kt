@@ -2,6 +2,7 @@
 
 package com.blockchain.koin
 
+import android.content.Context
 import android.preference.PreferenceManager
 import com.blockchain.datamanagers.AccountLookup
 import com.blockchain.datamanagers.AddressResolver
@@ -33,6 +34,8 @@ import com.blockchain.wallet.SeedAccessWithoutPrompt
 import info.blockchain.api.blockexplorer.BlockExplorer
 import info.blockchain.balance.ExchangeRates
 import info.blockchain.wallet.metadata.MetadataDerivation
+import info.blockchain.wallet.multiaddress.FileTransactionStore
+import info.blockchain.wallet.multiaddress.TransactionStore
 import info.blockchain.wallet.util.PrivateKeyFactory
 import org.bitcoinj.params.BitcoinMainNetParams
 import org.koin.dsl.bind
@@ -46,10 +49,17 @@ import piuk.blockchain.androidcore.data.auth.AuthService
 import piuk.blockchain.androidcore.data.bitcoincash.BchDataStore
 import piuk.blockchain.androidcore.data.erc20.datastores.Erc20DataStore
 import piuk.blockchain.androidcore.data.ethereum.EthereumAccountWrapper
+import piuk.blockchain.androidcore.data.datastores.persistentstore.DiskCacheKey
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedPersistentStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.PrefsPersistentStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.WalletFiles
 import piuk.blockchain.androidcore.data.ethereum.datastores.EthDataStore
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
 import piuk.blockchain.androidcore.data.exchangerate.datastore.ExchangeRateDataStore
+import piuk.blockchain.androidcore.data.exchangerate.datastore.FileHistoricPriceStore
+import piuk.blockchain.androidcore.data.exchangerate.datastore.HistoricPriceStore
 import piuk.blockchain.androidcore.data.fees.FeeDataManager
 import piuk.blockchain.androidcore.data.metadata.MetadataManager
 import piuk.blockchain.androidcore.data.metadata.MoshiMetadataRepositoryAdapter
@@ -60,6 +70,7 @@ import piuk.blockchain.androidcore.data.payload.PromptingSeedAccessAdapter
 import piuk.blockchain.androidcore.data.payments.PaymentService
 import piuk.blockchain.androidcore.data.payments.SendDataManager
 import piuk.blockchain.androidcore.data.rxjava.RxBus
+import piuk.blockchain.androidcore.data.rxjava.RxPinning
 import piuk.blockchain.androidcore.data.settings.EmailSyncUpdater
 import piuk.blockchain.androidcore.data.settings.PhoneNumberUpdater
 import piuk.blockchain.androidcore.data.settings.SettingsDataManager
@@ -80,6 +91,7 @@ import piuk.blockchain.androidcore.utils.EncryptedPrefs
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import piuk.blockchain.androidcore.utils.PrefsUtil
 import piuk.blockchain.androidcore.utils.UUIDGenerator
+import java.io.File
 import java.util.UUID
 
 val coreModule = module {
@@ -160,9 +172,33 @@ val coreModule = module {
             get<TransactionExecutorWithoutFees>(priorityFee) as MaximumSpendableCalculator
         }
 
-        scoped { EthDataStore() }
+        scoped { DiskCacheKey(prefs = get(), wallet = { get<PayloadDataManager>().wallet }) }
 
-        scoped { Erc20DataStore() }
+        scoped {
+            EncryptedDiskCache(
+                directory = get<WalletFiles>().store,
+                encryptionKey = get<DiskCacheKey>()::get
+            )
+        }
+
+        scoped {
+            FileTransactionStore(
+                directory = get<WalletFiles>().transactions,
+                encryptionKey = { get<DiskCacheKey>().get(wait = true) }
+            ) as TransactionStore
+        }
+
+        scoped {
+            EthDataStore(
+                diskCache = get(),
+                historyCache = EncryptedDiskCache(
+                    directory = get<WalletFiles>().ethTransactions,
+                    encryptionKey = get<DiskCacheKey>()::get
+                )
+            )
+        }
+
+        scoped { Erc20DataStore(get()) }
 
         scoped { BchDataStore() }
 
@@ -173,15 +209,39 @@ val coreModule = module {
         scoped { SettingsService(get()) }
 
         scoped {
-            SettingsDataStore(SettingsMemoryStore(), get<SettingsService>().getSettingsObservable())
+            SettingsDataStore(
+                memoryStore = SettingsMemoryStore(),
+                webSource = get<SettingsService>().getSettingsObservable(),
+                diskStore = EncryptedPersistentStore(
+                    diskCache = get(),
+                    key = SettingsDataStore.DISK_KEY,
+                    serialiser = SettingsDataStore.Serialiser,
+                    maxAgeMillis = SettingsDataStore.MAX_AGE_MILLIS
+                ),
+                rxPinning = RxPinning(get())
+            )
         }
 
-        factory { WalletOptionsDataManager(get(), get(), get(), get(explorerUrl)) }
+        factory {
+            WalletOptionsDataManager(
+                authService = get(),
+                walletOptionsState = get(),
+                settingsDataManager = get(),
+                explorerUrl = get(explorerUrl),
+                walletOptionsStore = PrefsPersistentStore(
+                    prefs = get(),
+                    key = WalletOptionsDataManager.DISK_KEY,
+                    serialize = { json: String -> json },
+                    deserialize = { json: String -> json },
+                    maxAgeMillis = WalletOptionsDataManager.MAX_AGE_MILLIS
+                )
+            )
+        }
             .bind(XlmTransactionTimeoutFetcher::class).bind(XlmHorizonUrlFetcher::class)
 
         factory { ExchangeRateDataManager(get(), get()) }.bind(ExchangeRates::class)
 
-        scoped { ExchangeRateDataStore(get(), get()) }
+        scoped { ExchangeRateDataStore(get(), get(), get()) }
 
         scoped { FeeDataManager(get(), get(), get()) }
 
@@ -218,7 +278,8 @@ val coreModule = module {
     factory {
         ExchangeRateService(
             priceApi = get(),
-            rxBus = get()
+            rxBus = get(),
+            historicPriceStore = get()
         )
     }
 
@@ -261,6 +322,12 @@ val coreModule = module {
         )
     }
 
+    single { WalletFiles(get<Context>().filesDir, historicPriceStore = get()) }
+
+    single {
+        FileHistoricPriceStore(File(get<Context>().filesDir, "prices")) as HistoricPriceStore
+    }
+
     single {
         if (BuildConfig.DEBUG)
             TimberLogger()
@@ -23,6 +23,13 @@ class AuthService(private val walletApi: WalletApi, rxBus: RxBus) {
     fun getWalletOptions(): Observable<WalletOptions> =
         rxPinning.call<WalletOptions> { walletApi.walletOptions }
 
+    /**
+     * Returns the raw wallet-options.json, or a 304 Not Modified response if it hasn't changed
+     * since the copy with the given validators was fetched.
+     */
+    fun getWalletOptionsIfChanged(eTag: String?, lastModified: String?): Observable<Response<ResponseBody>> =
+        rxPinning.call<Response<ResponseBody>> { walletApi.getWalletOptionsIfChanged(eTag, lastModified) }
+
     /**
      * Get encrypted copy of Payload
      *
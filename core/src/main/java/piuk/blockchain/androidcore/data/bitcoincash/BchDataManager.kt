@@ -9,6 +9,7 @@ import info.blockchain.wallet.BitcoinCashWallet
 import info.blockchain.wallet.coin.GenericMetadataAccount
 import info.blockchain.wallet.coin.GenericMetadataWallet
 import info.blockchain.wallet.crypto.DeterministicAccount
+import info.blockchain.wallet.multiaddress.TransactionStore
 import info.blockchain.wallet.multiaddress.TransactionSummary
 import info.blockchain.wallet.payload.data.isArchived
 import io.reactivex.Completable
@@ -35,6 +36,7 @@ class BchDataManager(
     private val blockExplorer: BlockExplorer,
     private val defaultLabels: DefaultLabels,
     private val metadataManager: MetadataManager,
+    private val transactionStore: TransactionStore,
     rxBus: RxBus
 ) {
 
@@ -170,7 +172,7 @@ class BchDataManager(
                 BitcoinCashWallet.BITCOIN_COIN_PATH,
                 payloadDataManager.mnemonic,
                 ""
-            )
+            ).apply { setTransactionStore(transactionStore) }
 
             // BCH Metadata does not store xpub - get from btc wallet since PATH is the same
             payloadDataManager.accounts.forEachIndexed { i, account ->
@@ -182,7 +184,7 @@ class BchDataManager(
             bchDataStore.bchWallet = BitcoinCashWallet.createWatchOnly(
                 blockExplorer,
                 environmentSettings.bitcoinCashNetworkParameters
-            )
+            ).apply { setTransactionStore(transactionStore) }
 
             // NB! A watch-only account xpub != account xpub, they do however derive the same addresses.
             // Only use this [DeterministicAccount] to derive receive/change addresses. Don't use xpub as multiaddr etc parameter.
@@ -236,7 +238,7 @@ class BchDataManager(
             BitcoinCashWallet.BITCOIN_COIN_PATH,
             mnemonic,
             ""
-        )
+        ).apply { setTransactionStore(transactionStore) }
 
         payloadDataManager.accounts.forEachIndexed { i, account ->
             bchDataStore.bchWallet?.addAccount()
@@ -288,6 +290,13 @@ class BchDataManager(
         }
     }
 
+    /**
+     * Makes the next [updateAllBalances] fetch these addresses, eg. ones seen in a new transaction.
+     */
+    fun invalidateAddressBalances(addresses: Collection<String>) {
+        bchDataStore.bchWallet?.invalidateAddressBalances(addresses)
+    }
+
     fun getAddressBalance(address: String): BigInteger =
         bchDataStore.bchBalances[address] ?: BigInteger.ZERO
 
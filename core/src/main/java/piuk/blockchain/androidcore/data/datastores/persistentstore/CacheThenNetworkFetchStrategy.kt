@@ -0,0 +1,32 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import com.blockchain.data.datastores.PersistentStore
+import com.blockchain.utils.Optional
+import io.reactivex.Observable
+import timber.log.Timber
+
+/**
+ * Emits the cached value, if there is one, and then the value from the web, which is stored.
+ * Screens can show the last known data at once and update when the fresh data arrives. If the
+ * web call fails after a cached value was emitted, the stream completes with the cached value.
+ */
+class CacheThenNetworkFetchStrategy<T>(
+    private val webSource: Observable<T>,
+    private val cachedSource: Observable<Optional<T>>,
+    private val store: PersistentStore<T>
+) : FetchStrategy<T>() {
+
+    override fun fetch(): Observable<T> = cachedSource.flatMap { optional ->
+        when (optional) {
+            is Optional.Some -> Observable.just(optional.element)
+                .concatWith(
+                    webSource.flatMap(store::store)
+                        .onErrorResumeNext { e: Throwable ->
+                            Timber.e(e, "Refresh failed, keeping the cached value")
+                            Observable.empty()
+                        }
+                )
+            else -> webSource.flatMap(store::store)
+        }
+    }
+}
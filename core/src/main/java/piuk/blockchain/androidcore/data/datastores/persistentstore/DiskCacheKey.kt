@@ -0,0 +1,86 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import info.blockchain.wallet.crypto.AESUtil
+import info.blockchain.wallet.payload.data.Wallet
+import io.reactivex.schedulers.Schedulers
+import org.spongycastle.util.encoders.Hex
+import piuk.blockchain.androidcore.utils.PersistentPrefs
+import timber.log.Timber
+import java.security.SecureRandom
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * The key [EncryptedDiskCache] encrypts its entries with. It's derived from the loaded wallet's
+ * guid, shared key and HD seed, with a random salt that is generated once per install. The guid,
+ * shared key and salt are all kept in prefs next to the cache, so on their own they would only
+ * obfuscate it; the seed is what keeps the cache unreadable, as it is only ever in memory once the
+ * wallet has been decrypted. It is still encrypted with the second password, if there is one, which
+ * is fine as that form is just as stable. Wallets without an HD seed get no key, so nothing is
+ * cached for them.
+ *
+ * Derivation is slow, so it happens once per wallet and never on a thread that can't wait for it.
+ */
+class DiskCacheKey(
+    private val prefs: PersistentPrefs,
+    private val wallet: () -> Wallet?
+) {
+    private class Derived(val guid: String, val salt: String, val key: ByteArray)
+
+    @Volatile
+    private var derived: Derived? = null
+    private val deriving = AtomicBoolean(false)
+
+    /**
+     * Returns the key, or null if no wallet with an HD seed is loaded. If [wait] is false and the
+     * key hasn't been derived yet, it's derived on the io scheduler and this returns null, which
+     * callers treat as a cache miss. Only pass true off the main thread.
+     */
+    fun get(wait: Boolean): ByteArray? {
+        val wallet = wallet()?.takeIf { it.seedHex() != null } ?: return null
+        val salt = prefs.getValue(SALT_PREF)
+        derived?.takeIf { it.guid == wallet.guid && it.salt == salt }?.let { return it.key }
+
+        return if (wait) {
+            derive(wallet)
+        } else {
+            if (deriving.compareAndSet(false, true)) {
+                Schedulers.io().scheduleDirect {
+                    try {
+                        derive(wallet)
+                    } finally {
+                        deriving.set(false)
+                    }
+                }
+            }
+            null
+        }
+    }
+
+    @Synchronized
+    private fun derive(wallet: Wallet): ByteArray? {
+        val salt = prefs.getValue(SALT_PREF)
+            ?: Hex.toHexString(ByteArray(SALT_LENGTH).also { SecureRandom().nextBytes(it) })
+                .also { prefs.setValue(SALT_PREF, it) }
+        derived?.takeIf { it.guid == wallet.guid && it.salt == salt }?.let { return it.key }
+
+        return try {
+            AESUtil.deriveKey(
+                wallet.sharedKey + wallet.guid + wallet.seedHex(),
+                Hex.decode(salt),
+                AESUtil.PIN_PBKDF2_ITERATIONS
+            )
+                .key
+                .also { derived = Derived(wallet.guid, salt, it) }
+        } catch (e: Exception) {
+            Timber.e(e, "Unable to derive the disk cache key")
+            null
+        }
+    }
+
+    private fun Wallet.seedHex(): String? = hdWallets?.firstOrNull()?.seedHex
+
+    companion object {
+        private const val SALT_PREF = "disk_cache_salt"
+        private const val SALT_LENGTH = 32
+    }
+}
@@ -0,0 +1,149 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import info.blockchain.wallet.crypto.AESUtil
+import org.spongycastle.util.encoders.Hex
+import timber.log.Timber
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.security.MessageDigest
+
+/**
+ * Keeps one encrypted file per key in [directory]. File names are hashes of the key and contents
+ * are encrypted with the key from [encryptionKey], so neither can be read off the device storage.
+ * Entries that don't decrypt, eg. because they were written for another wallet, are dropped.
+ *
+ * [encryptionKey] returns null while there is no key, eg. before the wallet is loaded. Reads are
+ * then misses and writes are skipped, but nothing is dropped. With `wait` set, reads and writes
+ * block until the key is ready instead, so they must not be made on the main thread.
+ *
+ * The files are kept under [maxBytes] between them. When a write goes over, the least recently
+ * used entries are evicted.
+ */
+class EncryptedDiskCache(
+    private val directory: File,
+    private val encryptionKey: (wait: Boolean) -> ByteArray?,
+    private val maxBytes: Long = DEFAULT_MAX_BYTES,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    class Entry(
+        val version: Int,
+        val storedAt: Long,
+        val data: String
+    )
+
+    // The key is fetched before taking the lock, so waiting for it doesn't hold up other callers
+    fun read(key: String, wait: Boolean = false): Entry? =
+        encryptionKey(wait)?.let { read(key, it) }
+
+    fun write(key: String, version: Int, data: String, wait: Boolean = false) {
+        encryptionKey(wait)?.let { write(key, version, data, it) }
+    }
+
+    /**
+     * True if the key is ready, so reads and writes go to disk.
+     */
+    fun isReady(wait: Boolean = false): Boolean = encryptionKey(wait) != null
+
+    @Synchronized
+    private fun read(key: String, secret: ByteArray): Entry? {
+        val file = fileFor(key)
+        if (!file.exists()) return null
+
+        return try {
+            DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                if (input.readInt() != FORMAT_VERSION) {
+                    throw IOException("Unknown format")
+                }
+                val version = input.readInt()
+                val storedAt = input.readLong()
+                val encrypted = ByteArray(input.readInt()).also { input.readFully(it) }
+                val plain = AESUtil.decryptWithKey(secret, String(encrypted, Charsets.UTF_8))
+                // The key is stored with the value, which catches a wrong encryption key
+                if (!plain.startsWith(key + SEPARATOR)) {
+                    throw IOException("Entry doesn't match its key")
+                }
+                file.setLastModified(clock())
+                Entry(version, storedAt, plain.substring(key.length + 1))
+            }
+        } catch (e: Exception) {
+            // Unreadable, from an older format or from another wallet, it will be fetched again
+            Timber.w(e, "Dropping unreadable cache entry")
+            file.delete()
+            null
+        }
+    }
+
+    @Synchronized
+    private fun write(key: String, version: Int, data: String, secret: ByteArray) {
+        val file = fileFor(key)
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw IOException("Unable to create $directory")
+            }
+            val encrypted = AESUtil.encryptWithKey(secret, key + SEPARATOR + data)
+            if (encrypted.size > maxBytes) {
+                throw IOException("Entry is larger than the cache")
+            }
+            // Write to a temporary file first so a crash can't leave a truncated entry behind
+            val temp = File(directory, "${file.name}.tmp")
+            DataOutputStream(BufferedOutputStream(FileOutputStream(temp))).use { output ->
+                output.writeInt(FORMAT_VERSION)
+                output.writeInt(version)
+                output.writeLong(clock())
+                output.writeInt(encrypted.size)
+                output.write(encrypted)
+            }
+            if (!temp.renameTo(file)) {
+                file.delete()
+                temp.renameTo(file)
+            }
+            file.setLastModified(clock())
+            evict(keep = file)
+        } catch (e: Exception) {
+            // The cache is only an optimisation, the value will be fetched again next time
+            Timber.w(e, "Unable to store cache entry")
+            file.delete()
+        }
+    }
+
+    @Synchronized
+    fun remove(key: String) {
+        fileFor(key).delete()
+    }
+
+    @Synchronized
+    fun clear() {
+        directory.listFiles()?.forEach { it.delete() }
+    }
+
+    private fun evict(keep: File) {
+        val files = directory.listFiles { file -> file.name.endsWith(EXTENSION) } ?: return
+        var size = files.map { it.length() }.sum()
+        files.filter { it != keep }
+            .sortedBy { it.lastModified() }
+            .forEach { file ->
+                if (size <= maxBytes) return
+                size -= file.length()
+                file.delete()
+            }
+    }
+
+    private fun fileFor(key: String): File {
+        val digest = MessageDigest.getInstance("SHA-256").digest(key.toByteArray(Charsets.UTF_8))
+        return File(directory, Hex.toHexString(digest) + EXTENSION)
+    }
+
+    companion object {
+        const val DEFAULT_MAX_BYTES = 4L * 1024 * 1024
+
+        private const val FORMAT_VERSION = 1
+        private const val EXTENSION = ".entry"
+        private const val SEPARATOR = '\n'
+    }
+}
@@ -0,0 +1,58 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import com.blockchain.data.datastores.PersistentStore
+import com.blockchain.utils.Optional
+import io.reactivex.Observable
+import timber.log.Timber
+
+/**
+ * Keeps the last value in an [EncryptedDiskCache], so it is available straight away after a process
+ * restart but can't be read off the device storage, along with when it was stored. A value is stale
+ * once it is older than [maxAgeMillis].
+ *
+ * [read] waits for the cache's key, so only call it off the main thread. Values stored before the
+ * key is ready aren't kept.
+ */
+class EncryptedPersistentStore<T : Any>(
+    private val diskCache: EncryptedDiskCache,
+    private val key: String,
+    private val serialiser: VersionedSerialiser<T>,
+    private val maxAgeMillis: Long,
+    private val clock: () -> Long = System::currentTimeMillis
+) : PersistentStore<T> {
+
+    fun read(): Optional<CachedValue<T>> {
+        val entry = diskCache.read(key, wait = true)
+            ?.takeIf { it.version == serialiser.version }
+            ?: return Optional.None
+        val value = try {
+            serialiser.deserialise(entry.data)
+        } catch (e: Exception) {
+            Timber.w(e, "Dropping unreadable $key")
+            invalidate()
+            return Optional.None
+        }
+        return Optional.Some(
+            CachedValue(
+                value = value,
+                storedAt = entry.storedAt,
+                validators = Validators.NONE,
+                isStale = clock() - entry.storedAt > maxAgeMillis
+            )
+        )
+    }
+
+    override fun store(data: T): Observable<T> {
+        try {
+            diskCache.write(key, serialiser.version, serialiser.serialise(data))
+        } catch (e: Exception) {
+            Timber.w(e, "Unable to serialise $key")
+            invalidate()
+        }
+        return Observable.just(data)
+    }
+
+    override fun invalidate() {
+        diskCache.remove(key)
+    }
+}
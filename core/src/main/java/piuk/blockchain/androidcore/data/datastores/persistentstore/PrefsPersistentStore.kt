@@ -0,0 +1,97 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import com.blockchain.data.datastores.PersistentStore
+import com.blockchain.utils.Optional
+import io.reactivex.Observable
+import piuk.blockchain.androidcore.utils.PersistentPrefs
+import timber.log.Timber
+
+/**
+ * HTTP validators a response was served with, sent back as If-None-Match and If-Modified-Since
+ * so the server can answer 304 Not Modified when nothing changed.
+ */
+data class Validators(
+    val eTag: String? = null,
+    val lastModified: String? = null
+) {
+    companion object {
+        val NONE = Validators()
+    }
+}
+
+data class CachedValue<T>(
+    val value: T,
+    val storedAt: Long,
+    val validators: Validators,
+    val isStale: Boolean
+)
+
+/**
+ * Keeps the last value in [PersistentPrefs], so it is available straight away after a process
+ * restart, along with when it was stored or last revalidated and its [Validators]. A value is
+ * stale once it is older than [maxAgeMillis]. Like everything else in prefs it is cleared on
+ * logout.
+ */
+class PrefsPersistentStore<T>(
+    private val prefs: PersistentPrefs,
+    private val key: String,
+    private val serialize: (T) -> String,
+    private val deserialize: (String) -> T,
+    private val maxAgeMillis: Long,
+    private val clock: () -> Long = System::currentTimeMillis
+) : PersistentStore<T> {
+
+    fun read(): Optional<CachedValue<T>> {
+        val json = prefs.getValue(key) ?: return Optional.None
+        val value = try {
+            deserialize(json)
+        } catch (e: Exception) {
+            Timber.e(e, "Discarding unreadable $key")
+            invalidate()
+            return Optional.None
+        }
+        val storedAt = prefs.getValue(key + STORED_AT, 0L)
+        return Optional.Some(
+            CachedValue(
+                value = value,
+                storedAt = storedAt,
+                validators = Validators(
+                    eTag = prefs.getValue(key + ETAG),
+                    lastModified = prefs.getValue(key + LAST_MODIFIED)
+                ),
+                isStale = clock() - storedAt > maxAgeMillis
+            )
+        )
+    }
+
+    override fun store(data: T): Observable<T> = store(data, Validators.NONE)
+
+    fun store(data: T, validators: Validators): Observable<T> {
+        prefs.setValue(key, serialize(data))
+        setOrRemove(key + ETAG, validators.eTag)
+        setOrRemove(key + LAST_MODIFIED, validators.lastModified)
+        touch()
+        return Observable.just(data)
+    }
+
+    /**
+     * Marks the stored value as fresh, eg. after the server answered 304 Not Modified.
+     */
+    fun touch() {
+        prefs.setValue(key + STORED_AT, clock())
+    }
+
+    override fun invalidate() {
+        listOf(key, key + STORED_AT, key + ETAG, key + LAST_MODIFIED).forEach { prefs.removeValue(it) }
+    }
+
+    private fun setOrRemove(name: String, value: String?) {
+        if (value != null) prefs.setValue(name, value) else prefs.removeValue(name)
+    }
+
+    companion object {
+        private const val STORED_AT = "_stored_at"
+        private const val ETAG = "_etag"
+        private const val LAST_MODIFIED = "_last_modified"
+    }
+}
@@ -0,0 +1,56 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import com.blockchain.data.datastores.PersistentStore
+import com.blockchain.utils.Optional
+import io.reactivex.Completable
+import io.reactivex.Observable
+import io.reactivex.Observer
+import io.reactivex.disposables.Disposable
+import io.reactivex.schedulers.Schedulers
+import timber.log.Timber
+
+/**
+ * Returns the copy on disk if there is one and starts [refresh] in the background, otherwise
+ * waits for the web. Either way a single value is emitted. [staleness] is told whether the value
+ * returned is stale.
+ *
+ * [webSource] is expected to store what it fetches, on disk as well as in memory.
+ */
+class RevalidatingFetchStrategy<T>(
+    private val webSource: Observable<T>,
+    private val diskSource: Observable<Optional<CachedValue<T>>>,
+    private val memoryStore: PersistentStore<T>,
+    private val staleness: Observer<Boolean>,
+    private val refresh: BackgroundRefresh
+) : FetchStrategy<T>() {
+
+    override fun fetch(): Observable<T> = diskSource.flatMap { optional ->
+        when (optional) {
+            is Optional.Some -> {
+                staleness.onNext(optional.element.isStale)
+                memoryStore.store(optional.element.value)
+                    .doOnComplete { refresh.start() }
+            }
+            else -> webSource.doOnNext { staleness.onNext(false) }
+        }
+    }
+}
+
+/**
+ * Runs [source] on the io scheduler, one run at a time: starting it again while a run is still
+ * going doesn't send another request. Errors are logged, the stored copy is kept.
+ */
+class BackgroundRefresh(private val source: Completable) {
+
+    private var running: Disposable? = null
+
+    @Synchronized
+    fun start() {
+        if (running?.isDisposed == false) return
+        running = source.subscribeOn(Schedulers.io())
+            .subscribe(
+                {},
+                { Timber.e(it, "Revalidation failed, keeping the stored copy") }
+            )
+    }
+}
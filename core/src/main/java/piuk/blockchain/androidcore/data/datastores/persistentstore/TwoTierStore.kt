@@ -0,0 +1,89 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import com.blockchain.data.datastores.PersistentStore
+import com.blockchain.utils.Optional
+import io.reactivex.Observable
+import io.reactivex.schedulers.Schedulers
+import timber.log.Timber
+import kotlin.properties.ReadWriteProperty
+import kotlin.reflect.KProperty
+
+/**
+ * A [PersistentStore] that keeps its value in memory over an [EncryptedDiskCache], so it survives
+ * process death. The disk copy is only read by [getCached], on the io scheduler, which also loads
+ * it into memory; [get] never touches the disk. The disk copy is written whenever the value
+ * changes. Until the cache's key is ready the store acts as if the disk were empty, unless
+ * [waitForKey] is set, in which case [getCached] waits for it.
+ *
+ * It can also back a property, `var model: Model? by TwoTierStore(...)`, so a memory only data
+ * store can adopt it without changing its callers. Setting the property to null invalidates it.
+ */
+class TwoTierStore<T : Any>(
+    private val diskCache: EncryptedDiskCache,
+    private val key: String,
+    private val serialiser: VersionedSerialiser<T>,
+    private val waitForKey: Boolean = false
+) : PersistentStore<T>, ReadWriteProperty<Any?, T?> {
+
+    private var loaded = false
+    private var value: T? = null
+
+    /**
+     * Returns the value in memory, which is null until it is stored or loaded by [getCached].
+     */
+    @Synchronized
+    fun get(): T? = value
+
+    /**
+     * Emits the value, reading it from disk on the io scheduler if it isn't in memory yet.
+     */
+    fun getCached(): Observable<Optional<T>> =
+        Observable.fromCallable { load()?.let { Optional.Some(it) } ?: Optional.None }
+            .subscribeOn(Schedulers.io())
+
+    @Synchronized
+    override fun store(data: T): Observable<T> {
+        value = data
+        loaded = true
+        try {
+            diskCache.write(key, serialiser.version, serialiser.serialise(data), waitForKey)
+        } catch (e: Exception) {
+            Timber.w(e, "Unable to serialise $key")
+            diskCache.remove(key)
+        }
+        return Observable.just(data)
+    }
+
+    @Synchronized
+    override fun invalidate() {
+        value = null
+        loaded = true
+        diskCache.remove(key)
+    }
+
+    override fun getValue(thisRef: Any?, property: KProperty<*>): T? = get()
+
+    override fun setValue(thisRef: Any?, property: KProperty<*>, value: T?) {
+        if (value != null) store(value) else invalidate()
+    }
+
+    @Synchronized
+    private fun load(): T? {
+        if (!loaded && diskCache.isReady(waitForKey)) {
+            value = readFromDisk()
+            loaded = true
+        }
+        return value
+    }
+
+    private fun readFromDisk(): T? {
+        val entry = diskCache.read(key, waitForKey)?.takeIf { it.version == serialiser.version } ?: return null
+        return try {
+            serialiser.deserialise(entry.data)
+        } catch (e: Exception) {
+            Timber.w(e, "Dropping unreadable $key")
+            diskCache.remove(key)
+            null
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+/**
+ * Converts values to and from the text kept on disk. Bump [version] whenever the format changes;
+ * entries written with any other version are dropped rather than misread.
+ */
+interface VersionedSerialiser<T> {
+
+    val version: Int
+
+    fun serialise(value: T): String
+
+    fun deserialise(serialised: String): T
+}
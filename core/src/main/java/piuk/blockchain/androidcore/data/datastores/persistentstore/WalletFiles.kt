@@ -0,0 +1,40 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import piuk.blockchain.androidcore.data.exchangerate.datastore.HistoricPriceStore
+import timber.log.Timber
+import java.io.File
+
+/**
+ * The directories under [filesDir] that wallet data is kept in. [clear] deletes them on logout or
+ * when the wallet is wiped, whether or not the wallet is loaded at the time, along with the
+ * [historicPriceStore], which keeps prices in memory as well as on disk.
+ */
+class WalletFiles(
+    private val filesDir: File,
+    private val historicPriceStore: HistoricPriceStore
+) {
+
+    /**
+     * Shared by the stores that keep a single value per key, eg. settings and the ETH balance.
+     */
+    val store: File
+        get() = File(filesDir, "store")
+
+    /**
+     * The BTC and BCH multiaddress history.
+     */
+    val transactions: File
+        get() = File(filesDir, "transactions")
+
+    val ethTransactions: File
+        get() = File(filesDir, "eth_transactions")
+
+    fun clear() {
+        listOf(store, transactions, ethTransactions).forEach { directory ->
+            if (!directory.deleteRecursively()) {
+                Timber.w("Unable to delete $directory")
+            }
+        }
+        historicPriceStore.clear()
+    }
+}
@@ -33,6 +33,12 @@ interface Erc20Account {
 
     fun getTransactions(): Observable<List<Erc20Transfer>>
 
+    /**
+     * Adds a transfer that is already known, eg. from a websocket event, to the stored transfers
+     * without fetching them all again.
+     */
+    fun addTransfer(transfer: Erc20Transfer): Completable
+
     fun getAccountHash(): Single<String>
 
     fun getErc20Model(): Erc20DataModel?
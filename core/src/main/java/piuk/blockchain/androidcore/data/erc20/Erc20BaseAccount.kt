@@ -28,11 +28,26 @@ abstract class Erc20BaseAccount(
             ethDataManager.getErc20Address(cryptoCurrency)
                 .map {
                     Erc20DataModel(it, cryptoCurrency)
+                }.flatMapSingle { model ->
+                    // Keeps the transfers seen before, which the response may no longer include
+                    dataStore.transferHistory(cryptoCurrency).load()
+                        .map { model.copy(transfers = it.merge(model.transfers)) }
                 }.doOnNext {
                     dataStore.erc20DataModel = it
                 }.subscribeOn(Schedulers.io())
         }
 
+    override fun addTransfer(transfer: Erc20Transfer): Completable =
+        dataStore.transferHistory(cryptoCurrency).load()
+            .doOnSuccess { history ->
+                val transfers = history.merge(listOf(transfer))
+                dataStore.erc20DataModel?.takeIf { it.totalBalance.currency == cryptoCurrency }?.let {
+                    dataStore.erc20DataModel = it.copy(transfers = transfers)
+                }
+            }
+            .ignoreElement()
+            .subscribeOn(Schedulers.io())
+
     override fun getTransactions(): Observable<List<Erc20Transfer>> =
         dataStore.erc20DataModel?.let { model ->
             Observable.just(model.transfers)
@@ -1,6 +1,8 @@
 package piuk.blockchain.androidcore.data.erc20
 
+import com.fasterxml.jackson.databind.ObjectMapper
 import info.blockchain.wallet.ethereum.data.Erc20TransferResponse
+import piuk.blockchain.androidcore.data.datastores.persistentstore.VersionedSerialiser
 import java.math.BigInteger
 
 data class Erc20Transfer(
@@ -30,4 +32,30 @@ data class Erc20Transfer(
                 erc20TransferResponse.timestamp
             )
     }
+
+    /**
+     * Stores transfers in the same form the API returns them.
+     */
+    object ListSerialiser : VersionedSerialiser<List<Erc20Transfer>> {
+
+        private val mapper = ObjectMapper()
+
+        override val version = 1
+
+        override fun serialise(value: List<Erc20Transfer>): String =
+            mapper.writeValueAsString(value.map { transfer ->
+                Erc20TransferResponse().apply {
+                    logIndex = transfer.logIndex
+                    transactionHash = transfer.transactionHash
+                    this.value = transfer.value
+                    from = transfer.from
+                    to = transfer.to
+                    blockNumber = transfer.blockNumber
+                    timestamp = transfer.timestamp
+                }
+            })
+
+        override fun deserialise(serialised: String): List<Erc20Transfer> =
+            mapper.readValue(serialised, Array<Erc20TransferResponse>::class.java).map { Erc20Transfer(it) }
+    }
 }
\ No newline at end of file
@@ -1,13 +1,36 @@
 package piuk.blockchain.androidcore.data.erc20.datastores
 
+import info.blockchain.balance.CryptoCurrency
 import piuk.blockchain.androidcore.data.datastores.SimpleDataStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
 import piuk.blockchain.androidcore.data.erc20.Erc20DataModel
+import piuk.blockchain.androidcore.data.erc20.Erc20Transfer
+import piuk.blockchain.androidcore.data.ethereum.datastores.EthTransferHistory
+import java.util.concurrent.ConcurrentHashMap
 
-class Erc20DataStore : SimpleDataStore {
+class Erc20DataStore(private val diskCache: EncryptedDiskCache) : SimpleDataStore {
 
     var erc20DataModel: Erc20DataModel? = null
 
+    private val histories = ConcurrentHashMap<CryptoCurrency, EthTransferHistory<Erc20Transfer>>()
+
+    /**
+     * Returns the transfers of [currency] kept on disk.
+     */
+    fun transferHistory(currency: CryptoCurrency): EthTransferHistory<Erc20Transfer> =
+        histories.getOrPut(currency) {
+            EthTransferHistory(
+                diskCache,
+                "erc20_transfers_${currency.networkTicker}",
+                Erc20Transfer.ListSerialiser,
+                // A transaction can make several transfers, one per log entry
+                idOf = { "${it.transactionHash}:${it.logIndex}" },
+                blockOf = { it.blockNumber.toLong() }
+            )
+        }
+
     override fun clearData() {
         erc20DataModel = null
+        CryptoCurrency.erc20Assets().forEach { transferHistory(it).clear() }
     }
-}
\ No newline at end of file
+}
@@ -16,6 +16,7 @@ import info.blockchain.wallet.ethereum.data.TransactionState
 import info.blockchain.wallet.exceptions.HDWalletException
 import info.blockchain.wallet.exceptions.InvalidCredentialsException
 import io.reactivex.Completable
+import io.reactivex.Maybe
 import io.reactivex.Observable
 import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
@@ -23,7 +24,9 @@ import org.bitcoinj.core.ECKey
 import org.spongycastle.util.encoders.Hex
 import org.web3j.crypto.RawTransaction
 import piuk.blockchain.androidcore.data.api.EnvironmentConfig
+import piuk.blockchain.androidcore.data.datastores.persistentstore.CacheThenNetworkFetchStrategy
 import piuk.blockchain.androidcore.data.ethereum.datastores.EthDataStore
+import piuk.blockchain.androidcore.data.ethereum.datastores.EthTransferHistory
 import piuk.blockchain.androidcore.data.ethereum.models.CombinedEthModel
 import piuk.blockchain.androidcore.data.metadata.MetadataManager
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
@@ -66,12 +69,32 @@ class EthDataManager(
             Observable.just(CombinedEthModel(EthAddressResponseMap()))
                 .doOnNext { ethDataStore.ethAddressResponse = null }
         } else {
-            rxPinning.call<CombinedEthModel> {
-                ethAccountApi.getEthAddress(listOf(ethDataStore.ethWallet!!.account.address))
-                    .map(::CombinedEthModel)
-                    .doOnNext { ethDataStore.ethAddressResponse = it }
-                    .subscribeOn(Schedulers.io())
-            }
+            ethAddressFromWeb().doOnNext { ethDataStore.ethAddressResponse = it }
+        }
+
+    /**
+     * Like [fetchEthAddress], but first emits the [CombinedEthModel] kept from the last fetch, if
+     * there is one, even from before a restart. The fresh model follows once it arrives; if that
+     * fails the stream completes with just the kept one.
+     *
+     * @return An [Observable] wrapping up to two [CombinedEthModel] objects
+     */
+    fun fetchEthAddressCacheThenNetwork(): Observable<CombinedEthModel> =
+        if (environmentSettings.environment == Environment.TESTNET) {
+            fetchEthAddress()
+        } else {
+            CacheThenNetworkFetchStrategy(
+                ethAddressFromWeb(),
+                ethDataStore.ethAddressStore.getCached(),
+                ethDataStore.ethAddressStore
+            ).fetch()
+        }
+
+    private fun ethAddressFromWeb(): Observable<CombinedEthModel> =
+        rxPinning.call<CombinedEthModel> {
+            ethAccountApi.getEthAddress(listOf(ethDataStore.ethWallet!!.account.address))
+                .map(::CombinedEthModel)
+                .subscribeOn(Schedulers.io())
         }
 
     fun getBalance(account: String): Single<BigInteger> =
@@ -113,16 +136,53 @@ class EthDataManager(
         Single.just(getEthWallet()?.account?.address)
 
     /**
-     * Returns a stream of [EthTransaction] objects associated with a user's ETH address specifically
-     * for displaying in the transaction list. These are cached and may be empty if the account
-     * hasn't previously been fetched.
+     * Returns the [EthTransaction] objects associated with a user's ETH address specifically
+     * for displaying in the transaction list, newest first. These are kept on disk, so only the
+     * transactions since the last sync are fetched, and the stored ones are returned if that fails.
      *
-     * @return An [Observable] stream of [EthTransaction] objects
+     * @return A [Single] wrapping a list of [EthTransaction] objects
      */
     fun getEthTransactions(): Single<List<EthTransaction>> =
-        ethDataStore.ethWallet?.account?.address?.let {
-            ethAccountApi.getEthTransactions(listOf(it)).applySchedulers()
-        } ?: Single.just(emptyList())
+        Single.defer {
+            ethDataStore.ethWallet?.account?.address?.let { address ->
+                ethDataStore.transactionHistory(address).load().flatMap { history ->
+                    syncEthTransactions(address, history)
+                        .onErrorResumeNext { e: Throwable ->
+                            if (history.isEmpty()) {
+                                Single.error(e)
+                            } else {
+                                Timber.e(e, "ETH transaction sync failed, showing stored transactions")
+                                Single.just(history.transfers())
+                            }
+                        }
+                }
+            } ?: Single.just(emptyList())
+        }.applySchedulers()
+
+    /**
+     * Brings the stored transactions of [address] up to date. The newest page is fetched first,
+     * and only if it doesn't reach back to the stored transactions is a full page fetched, which
+     * then replaces them.
+     */
+    private fun syncEthTransactions(
+        address: String,
+        history: EthTransferHistory<EthTransaction>
+    ): Single<List<EthTransaction>> = Single.defer {
+        if (history.isEmpty()) {
+            ethAccountApi.getEthTransactions(listOf(address), HISTORY_PAGE_SIZE)
+                .map { history.replace(it) }
+        } else {
+            ethAccountApi.getEthTransactions(listOf(address), SYNC_PAGE_SIZE)
+                .flatMap { page ->
+                    if (page.size < SYNC_PAGE_SIZE || history.isContinuedBy(page)) {
+                        Single.just(history.merge(page, isLatest = true))
+                    } else {
+                        ethAccountApi.getEthTransactions(listOf(address), HISTORY_PAGE_SIZE)
+                            .map { history.replace(it) }
+                    }
+                }
+        }
+    }
 
     /**
      * Returns whether or not the user's ETH account currently has unconfirmed transactions, and
@@ -264,11 +324,23 @@ class EthDataManager(
         weiValue
     )
 
+    /**
+     * Returns the transaction with the given hash. Mined transactions of the user's address
+     * are returned from the stored ones.
+     */
     fun getTransaction(hash: String): Observable<EthTransaction> =
-        rxPinning.call<EthTransaction> {
-            ethAccountApi.getTransaction(hash)
-                .applySchedulers()
-        }
+        Observable.defer {
+            (ethDataStore.ethWallet?.account?.address
+                ?.let { ethDataStore.transactionHistory(it).load().toMaybe() }
+                ?: Maybe.empty())
+                .flatMap { history ->
+                    history[hash]?.takeIf { (it.blockNumber ?: 0L) > 0L }
+                        ?.let { Maybe.just(it) }
+                        ?: Maybe.empty()
+                }
+                .toObservable()
+                .switchIfEmpty(rxPinning.call<EthTransaction> { ethAccountApi.getTransaction(hash) })
+        }.applySchedulers()
 
     fun getNonce(): Single<BigInteger> =
         fetchEthAddress()
@@ -385,4 +457,10 @@ class EthDataManager(
 
     val requireSecondPassword: Boolean
         get() = payloadDataManager.isDoubleEncrypted
+
+    companion object {
+        // Enough to reach back to the stored transactions unless the app was away for a while
+        private const val SYNC_PAGE_SIZE = 10
+        private const val HISTORY_PAGE_SIZE = 50
+    }
 }
\ No newline at end of file
@@ -1,19 +1,76 @@
 package piuk.blockchain.androidcore.data.ethereum.datastores
 
+import com.fasterxml.jackson.databind.ObjectMapper
 import info.blockchain.wallet.ethereum.EthereumWallet
+import info.blockchain.wallet.ethereum.data.EthTransaction
 import piuk.blockchain.androidcore.data.datastores.SimpleDataStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
+import piuk.blockchain.androidcore.data.datastores.persistentstore.TwoTierStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.VersionedSerialiser
 import piuk.blockchain.androidcore.data.ethereum.models.CombinedEthModel
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
 
 /**
- * A simple data store class to cache the Ethereum Wallet
+ * A simple data store class to cache the Ethereum Wallet. The account response is also kept on
+ * disk, so the balance is available straight away after a restart.
+ *
+ * Transaction histories are kept in [historyCache], which holds nothing else, so clearing the
+ * store also removes the histories written in earlier sessions.
  */
-class EthDataStore : SimpleDataStore {
+class EthDataStore(
+    private val diskCache: EncryptedDiskCache,
+    private val historyCache: EncryptedDiskCache
+) : SimpleDataStore {
 
     var ethWallet: EthereumWallet? = null
-    var ethAddressResponse: CombinedEthModel? = null
+
+    /**
+     * Holds [ethAddressResponse], which only reads memory. The copy on disk is loaded by
+     * [TwoTierStore.getCached].
+     */
+    val ethAddressStore = TwoTierStore(
+        diskCache,
+        "eth_address_response",
+        CombinedEthModel.Serialiser
+    )
+    var ethAddressResponse: CombinedEthModel? by ethAddressStore
+
+    private val histories = ConcurrentHashMap<String, EthTransferHistory<EthTransaction>>()
+
+    /**
+     * Returns the transactions of [address] kept on disk.
+     */
+    fun transactionHistory(address: String): EthTransferHistory<EthTransaction> =
+        address.toLowerCase(Locale.US).let { key ->
+            histories.getOrPut(key) {
+                EthTransferHistory(
+                    historyCache,
+                    "eth_transactions_$key",
+                    TransactionsSerialiser,
+                    idOf = { it.hash },
+                    blockOf = { it.blockNumber }
+                )
+            }
+        }
 
     override fun clearData() {
+        histories.values.forEach { it.clear() }
+        historyCache.clear()
         ethWallet = null
         ethAddressResponse = null
     }
-}
\ No newline at end of file
+
+    private object TransactionsSerialiser : VersionedSerialiser<List<EthTransaction>> {
+
+        private val mapper = ObjectMapper()
+
+        override val version = 1
+
+        override fun serialise(value: List<EthTransaction>): String =
+            mapper.writeValueAsString(value)
+
+        override fun deserialise(serialised: String): List<EthTransaction> =
+            mapper.readValue(serialised, Array<EthTransaction>::class.java).toList()
+    }
+}
@@ -0,0 +1,85 @@
+package piuk.blockchain.androidcore.data.ethereum.datastores
+
+import io.reactivex.Single
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
+import piuk.blockchain.androidcore.data.datastores.persistentstore.TwoTierStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.VersionedSerialiser
+
+/**
+ * The transfers of one address, kept on disk newest first and keyed by [idOf]. Pages from the
+ * server are merged into what is stored rather than replacing it, so a sync only has to fetch the
+ * newest page as long as it reaches back to a stored transfer, see [isContinuedBy].
+ *
+ * [blockOf] returns the block a transfer was mined in, or null or zero while it is pending.
+ *
+ * The stored transfers are read from disk by [load], which waits for the disk cache's key. Until
+ * it has emitted the history is empty, so [load] it before reading or merging.
+ */
+class EthTransferHistory<T : Any>(
+    diskCache: EncryptedDiskCache,
+    key: String,
+    serialiser: VersionedSerialiser<List<T>>,
+    private val idOf: (T) -> String,
+    private val blockOf: (T) -> Long?
+) {
+    // Merging into a history that hasn't been read yet would drop what's on disk, so wait for it
+    private val store = TwoTierStore(diskCache, key, serialiser, waitForKey = true)
+
+    /**
+     * Reads the stored transfers on the io scheduler, then emits this history.
+     */
+    fun load(): Single<EthTransferHistory<T>> =
+        store.getCached().firstOrError().map { this }
+
+    fun transfers(): List<T> = store.get().orEmpty()
+
+    fun isEmpty(): Boolean = transfers().isEmpty()
+
+    operator fun get(id: String): T? = transfers().firstOrNull { idOf(it) == id }
+
+    fun isMined(id: String): Boolean = get(id)?.let { isMined(it) } ?: false
+
+    fun hasPending(): Boolean = transfers().any { !isMined(it) }
+
+    /**
+     * True if [page], which is sorted newest first, reaches back to a transfer already stored as
+     * mined, so nothing newer can be missing once it is merged.
+     */
+    fun isContinuedBy(page: List<T>): Boolean =
+        page.any { isMined(idOf(it)) }
+
+    /**
+     * Adds the transfers in [page], replacing any stored ones with the same id. If [isLatest],
+     * the page is the newest one the server has, so stored transfers that are still pending but
+     * missing from it were dropped or replaced and are removed.
+     */
+    @Synchronized
+    fun merge(page: List<T>, isLatest: Boolean = false): List<T> {
+        val ids = page.map(idOf).toSet()
+        val kept = transfers().filter { idOf(it) !in ids && (!isLatest || isMined(it)) }
+        return save(page + kept)
+    }
+
+    /**
+     * Replaces the stored transfers, for when [page] doesn't join up with them.
+     */
+    @Synchronized
+    fun replace(page: List<T>): List<T> = save(page)
+
+    fun clear() = store.invalidate()
+
+    private fun save(transfers: List<T>): List<T> {
+        val sorted = transfers.distinctBy(idOf)
+            .sortedByDescending { if (isMined(it)) blockOf(it)!! else Long.MAX_VALUE }
+            .take(MAX_TRANSFERS)
+        store.store(sorted)
+        return sorted
+    }
+
+    private fun isMined(transfer: T): Boolean = (blockOf(transfer) ?: 0L) > 0L
+
+    companion object {
+        // Keeps the disk entry small, this is far more than the activity list shows
+        const val MAX_TRANSFERS = 500
+    }
+}
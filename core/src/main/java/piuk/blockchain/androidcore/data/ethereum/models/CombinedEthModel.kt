@@ -1,8 +1,10 @@
 package piuk.blockchain.androidcore.data.ethereum.models
 
+import com.fasterxml.jackson.databind.ObjectMapper
 import info.blockchain.wallet.ethereum.data.EthAddressResponse
 import info.blockchain.wallet.ethereum.data.EthAddressResponseMap
 import info.blockchain.wallet.ethereum.data.EthTransaction
+import piuk.blockchain.androidcore.data.datastores.persistentstore.VersionedSerialiser
 import java.math.BigInteger
 
 /**
@@ -37,4 +39,17 @@ class CombinedEthModel(private val ethAddressResponseMap: EthAddressResponseMap)
     fun getNonce(): BigInteger {
         return BigInteger.valueOf(getAddressResponse()!!.nonce.toLong())
     }
-}
\ No newline at end of file
+
+    object Serialiser : VersionedSerialiser<CombinedEthModel> {
+
+        private val mapper = ObjectMapper()
+
+        override val version = 1
+
+        override fun serialise(value: CombinedEthModel): String =
+            mapper.writeValueAsString(value.ethAddressResponseMap)
+
+        override fun deserialise(serialised: String): CombinedEthModel =
+            CombinedEthModel(mapper.readValue(serialised, EthAddressResponseMap::class.java))
+    }
+}
@@ -9,6 +9,7 @@ import io.reactivex.Completable
 import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
 import piuk.blockchain.androidcore.data.exchangerate.datastore.ExchangeRateDataStore
+import piuk.blockchain.androidcore.data.exchangerate.datastore.ExchangeRateSnapshot
 import piuk.blockchain.androidcore.data.rxjava.RxBus
 import piuk.blockchain.androidcore.data.rxjava.RxPinning
 import java.lang.IllegalStateException
@@ -29,6 +30,12 @@ class ExchangeRateDataManager(
         rxPinning.call { exchangeRateDataStore.updateExchangeRates() }
             .subscribeOn(Schedulers.io())
 
+    /**
+     * The latest prices, and when they were fetched.
+     */
+    val ratesSnapshot: ExchangeRateSnapshot
+        get() = exchangeRateDataStore.snapshot
+
     override fun getLastPrice(cryptoCurrency: CryptoCurrency, currencyName: String) =
             exchangeRateDataStore.getLastPrice(cryptoCurrency, currencyName)
 
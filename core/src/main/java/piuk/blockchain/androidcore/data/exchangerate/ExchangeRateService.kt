@@ -6,6 +6,7 @@ import info.blockchain.wallet.prices.TimeInterval
 import info.blockchain.wallet.prices.data.PriceDatum
 import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
+import piuk.blockchain.androidcore.data.exchangerate.datastore.HistoricPriceStore
 import piuk.blockchain.androidcore.data.rxjava.RxBus
 import piuk.blockchain.androidcore.data.rxjava.RxPinning
 import java.util.Calendar
@@ -24,7 +25,12 @@ enum class TimeSpan {
 
 typealias PriceSeries = List<PriceDatum>
 
-class ExchangeRateService(private val priceApi: PriceApi, rxBus: RxBus) {
+class ExchangeRateService(
+    private val priceApi: PriceApi,
+    rxBus: RxBus,
+    private val historicPriceStore: HistoricPriceStore,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
     private val rxPinning = RxPinning(rxBus)
 
     fun getExchangeRateMap(cryptoCurrency: CryptoCurrency): Single<Map<String, PriceDatum>> =
@@ -51,15 +57,44 @@ class ExchangeRateService(private val priceApi: PriceApi, rxBus: RxBus) {
             proposedStartTime = getStartTimeForTimeSpan(TimeSpan.ALL_TIME, cryptoCurrency)
         }
 
-        return rxPinning.callSingle<PriceSeries> {
+        return getHistoricPriceSeries(cryptoCurrency, fiatCurrency, proposedStartTime, timeInterval)
+    }
+
+    /**
+     * Prices from [startTime] up to now. Prices already in the [HistoricPriceStore] from an
+     * earlier download at the same interval aren't fetched again, and if the network can't be
+     * reached the stored prices are returned as they are.
+     */
+    fun getHistoricPriceSeries(
+        cryptoCurrency: CryptoCurrency,
+        fiatCurrency: String,
+        startTime: Long,
+        timeInterval: TimeInterval
+    ): Single<PriceSeries> = Single.defer {
+        val interval = timeInterval.intervalSeconds
+        val stored = historicPriceStore.getSeries(cryptoCurrency, fiatCurrency, interval)
+            ?.takeIf { it.syncedFrom <= startTime }
+
+        // There can't be a newer price in the series yet
+        if (stored != null && clock() / 1000 - stored.syncedTo < interval) {
+            return@defer Single.just(stored.pricesFrom(startTime))
+        }
+
+        val fetchFrom = stored?.syncedTo ?: startTime
+        rxPinning.callSingle<PriceSeries> {
             priceApi.getHistoricPriceSeries(
                 cryptoCurrency.networkTicker,
                 fiatCurrency,
-                proposedStartTime,
-                timeInterval.intervalSeconds
+                fetchFrom,
+                interval
             ).subscribeOn(Schedulers.io())
+        }.map { prices ->
+            historicPriceStore.putSeries(cryptoCurrency, fiatCurrency, interval, fetchFrom, prices)
+                .pricesFrom(startTime)
+        }.onErrorResumeNext { e: Throwable ->
+            stored?.let { Single.just(it.pricesFrom(startTime)) } ?: Single.error(e)
         }
-    }
+    }.subscribeOn(Schedulers.io()) // The stored series may have to be read from disk
 
     private fun getStartTimeForTimeSpan(
         timeSpan: TimeSpan,
@@ -1,104 +1,122 @@
 package piuk.blockchain.androidcore.data.exchangerate.datastore
 
 import info.blockchain.balance.CryptoCurrency
-import info.blockchain.wallet.prices.data.PriceDatum
 import io.reactivex.Completable
 import io.reactivex.Single
+import org.json.JSONException
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import timber.log.Timber
 import java.math.BigDecimal
+import java.util.concurrent.atomic.AtomicReference
 
 class ExchangeRateDataStore(
     private val exchangeRateService: ExchangeRateService,
-    private val prefs: PersistentPrefs
+    private val prefs: PersistentPrefs,
+    historicPriceStore: HistoricPriceStore
 ) {
 
-    // Ticker data
-    private var btcTickerData: Map<String, PriceDatum>? = null
-    private var ethTickerData: Map<String, PriceDatum>? = null
-    private var bchTickerData: Map<String, PriceDatum>? = null
-    private var xlmTickerData: Map<String, PriceDatum>? = null
-    private var paxTickerData: Map<String, PriceDatum>? = null
-    private var algTickerData: Map<String, PriceDatum>? = null
-    private var usdtTickerData: Map<String, PriceDatum>? = null
-    private var dgldTickerData: Map<String, PriceDatum>? = null
+    private val historicPrices = HistoricPriceBatcher(historicPriceStore, exchangeRateService)
 
-    fun updateExchangeRates(): Completable = Single.merge(
-        listOf(
-            exchangeRateService.getExchangeRateMap(CryptoCurrency.BTC)
-                .doOnSuccess { btcTickerData = it.toMap() },
-            exchangeRateService.getExchangeRateMap(CryptoCurrency.BCH)
-                .doOnSuccess { bchTickerData = it.toMap() },
-            exchangeRateService.getExchangeRateMap(CryptoCurrency.ETHER)
-                .doOnSuccess { ethTickerData = it.toMap() },
-            exchangeRateService.getExchangeRateMap(CryptoCurrency.XLM)
-                .doOnSuccess { xlmTickerData = it.toMap() },
-            exchangeRateService.getExchangeRateMap(CryptoCurrency.PAX)
-                .doOnSuccess { paxTickerData = it.toMap() },
-            exchangeRateService.getExchangeRateMap(CryptoCurrency.ALGO)
-                .doOnSuccess { algTickerData = it.toMap() },
-            exchangeRateService.getExchangeRateMap(CryptoCurrency.USDT)
-                .doOnSuccess { usdtTickerData = it.toMap() },
-            exchangeRateService.getExchangeRateMap(CryptoCurrency.DGLD)
-                .doOnSuccess { dgldTickerData = it.toMap() }
-        )
-    ).ignoreElements()
-
-    fun getCurrencyLabels(): Array<String> = btcTickerData!!.keys.toTypedArray()
+    private val rates = AtomicReference<ExchangeRateSnapshot>()
 
-    fun getLastPrice(cryptoCurrency: CryptoCurrency, fiatCurrency: String): Double {
-        if (fiatCurrency.isEmpty()) {
-            throw IllegalArgumentException("No currency supplied")
+    /**
+     * The latest prices. Until they've been fetched, these are the last prices fetched by a
+     * previous session, if any.
+     */
+    val snapshot: ExchangeRateSnapshot
+        get() = rates.get() ?: run {
+            rates.compareAndSet(null, loadLastKnown())
+            rates.get()
         }
 
-        val tickerData = cryptoCurrency.tickerData()
+    private class Ticker(
+        val asset: CryptoCurrency,
+        val prices: Map<String, Double?>? = null,
+        val error: Throwable? = null
+    )
 
-        val prefsKey = "LAST_KNOWN_${cryptoCurrency.networkTicker}_VALUE_FOR_CURRENCY_$fiatCurrency"
-
-        val lastKnown = try {
-            prefs.getValue(prefsKey, "0.0").toDouble()
-        } catch (e: NumberFormatException) {
-            Timber.e(e)
-            prefs.setValue(prefsKey, "0.0")
-            0.0
+    /**
+     * Fetches the latest prices of every asset. Assets that fail to update keep their previous
+     * prices, and the first failure is reported once the rest have been updated.
+     */
+    fun updateExchangeRates(): Completable = Single.merge(
+        TICKER_ASSETS.map { asset ->
+            exchangeRateService.getExchangeRateMap(asset)
+                .map { ticker -> Ticker(asset, prices = ticker.mapValues { it.value.price }) }
+                .onErrorReturn { Ticker(asset, error = it) }
+        }
+    ).toList()
+        .flatMapCompletable { tickers ->
+            val fetched = tickers.filter { it.prices != null }
+            if (fetched.isNotEmpty()) {
+                update(fetched.associate { it.asset to it.prices!! })
+            }
+            tickers.mapNotNull { it.error }
+                .firstOrNull()
+                ?.let { Completable.error(it) }
+                ?: Completable.complete()
         }
 
-        val lastPrice: Double? = tickerData?.get(fiatCurrency)?.price
+    @Synchronized
+    private fun update(tickers: Map<CryptoCurrency, Map<String, Double?>>) {
+        val updated = snapshot.update(System.currentTimeMillis(), tickers)
+        rates.set(updated)
+        prefs.setValue(LAST_KNOWN_RATES, updated.toJson())
+    }
 
-        if (lastPrice != null) {
-            prefs.setValue("$prefsKey$fiatCurrency", lastPrice.toString())
-        }
+    private fun loadLastKnown(): ExchangeRateSnapshot =
+        prefs.getValue(LAST_KNOWN_RATES)?.let {
+            try {
+                ExchangeRateSnapshot.fromJson(it)
+            } catch (e: JSONException) {
+                Timber.e(e)
+                prefs.removeValue(LAST_KNOWN_RATES)
+                null
+            }
+        } ?: ExchangeRateSnapshot.EMPTY
 
-        return lastPrice ?: lastKnown
+    fun getCurrencyLabels(): Array<String> {
+        val current = snapshot
+        return current.fiatCurrencies
+            .filter { current.price(CryptoCurrency.BTC, it) != null }
+            .toTypedArray()
+    }
+
+    fun getLastPrice(cryptoCurrency: CryptoCurrency, fiatCurrency: String): Double {
+        if (fiatCurrency.isEmpty()) {
+            throw IllegalArgumentException("No currency supplied")
+        }
+        return snapshot.price(cryptoCurrency, fiatCurrency) ?: 0.0
     }
 
     fun getFiatLastPrice(targetFiat: String, sourceFiat: String): Double {
-        val targetCurrencyPrice =
-            CryptoCurrency.BTC.tickerData()?.get(targetFiat)?.price ?: return 0.0
-        val sourceCurrencyPrice =
-            CryptoCurrency.BTC.tickerData()?.get(sourceFiat)?.price ?: return 0.0
+        val current = snapshot
+        val targetCurrencyPrice = current.price(CryptoCurrency.BTC, targetFiat) ?: return 0.0
+        val sourceCurrencyPrice = current.price(CryptoCurrency.BTC, sourceFiat) ?: return 0.0
         return targetCurrencyPrice.div(sourceCurrencyPrice)
     }
 
-    private fun CryptoCurrency.tickerData() =
-        when (this) {
-            CryptoCurrency.BTC -> btcTickerData
-            CryptoCurrency.ETHER -> ethTickerData
-            CryptoCurrency.BCH -> bchTickerData
-            CryptoCurrency.XLM -> xlmTickerData
-            CryptoCurrency.PAX -> paxTickerData
-            CryptoCurrency.STX -> TODO("STUB: STX NOT IMPLEMENTED")
-            CryptoCurrency.ALGO -> algTickerData
-            CryptoCurrency.USDT -> usdtTickerData
-            CryptoCurrency.DGLD -> dgldTickerData
-        }
-
     fun getHistoricPrice(
         cryptoCurrency: CryptoCurrency,
         fiat: String,
         timeInSeconds: Long
     ): Single<BigDecimal> =
-        exchangeRateService.getHistoricPrice(cryptoCurrency, fiat, timeInSeconds)
+        historicPrices.getHistoricPrice(cryptoCurrency, fiat, timeInSeconds)
             .map { it.toBigDecimal() }
+
+    companion object {
+        private const val LAST_KNOWN_RATES = "LAST_KNOWN_EXCHANGE_RATES"
+
+        private val TICKER_ASSETS = listOf(
+            CryptoCurrency.BTC,
+            CryptoCurrency.BCH,
+            CryptoCurrency.ETHER,
+            CryptoCurrency.XLM,
+            CryptoCurrency.PAX,
+            CryptoCurrency.ALGO,
+            CryptoCurrency.USDT,
+            CryptoCurrency.DGLD
+        )
+    }
 }
@@ -0,0 +1,96 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import info.blockchain.balance.CryptoCurrency
+import org.json.JSONArray
+import org.json.JSONException
+import org.json.JSONObject
+
+/**
+ * The last prices of every asset in every fiat currency, as of [fetchedAt] (epoch millis, or 0 if
+ * prices have never been fetched). A snapshot is never changed once built, so it can be read from
+ * any thread while a newer one is being fetched. Prices are held in a single array, one row per
+ * asset and one column per fiat currency.
+ */
+class ExchangeRateSnapshot private constructor(
+    val fetchedAt: Long,
+    val fiatCurrencies: List<String>,
+    // NaN where there's no price
+    private val prices: DoubleArray
+) {
+    private val columns: Map<String, Int> =
+        fiatCurrencies.withIndex().associate { (index, fiat) -> fiat to index }
+
+    /**
+     * @return the last price of one unit of [asset] in [fiat], or null if there isn't one
+     */
+    fun price(asset: CryptoCurrency, fiat: String): Double? {
+        val column = columns[fiat] ?: return null
+        val price = prices[asset.ordinal * columns.size + column]
+        return if (price.isNaN()) null else price
+    }
+
+    /**
+     * Builds a new snapshot from [tickers], fetched at [fetchedAt]. Assets missing from [tickers]
+     * keep their prices from this snapshot.
+     */
+    fun update(fetchedAt: Long, tickers: Map<CryptoCurrency, Map<String, Double?>>): ExchangeRateSnapshot {
+        val fiats = LinkedHashSet(fiatCurrencies)
+        CryptoCurrency.values().forEach { asset -> tickers[asset]?.let { fiats += it.keys } }
+        val fiatList = fiats.toList()
+
+        val updated = DoubleArray(ASSETS.size * fiatList.size) { Double.NaN }
+        ASSETS.forEach { asset ->
+            val row = asset.ordinal * fiatList.size
+            val ticker = tickers[asset]
+            fiatList.forEachIndexed { column, fiat ->
+                val price = if (ticker != null) ticker[fiat] else price(asset, fiat)
+                updated[row + column] = price ?: Double.NaN
+            }
+        }
+        return ExchangeRateSnapshot(fetchedAt, fiatList, updated)
+    }
+
+    fun toJson(): String {
+        val assets = JSONObject()
+        ASSETS.forEach { asset ->
+            val row = JSONArray()
+            fiatCurrencies.forEach { fiat -> row.put(price(asset, fiat) ?: JSONObject.NULL) }
+            assets.put(asset.networkTicker, row)
+        }
+        return JSONObject()
+            .put(FETCHED_AT, fetchedAt)
+            .put(FIATS, JSONArray(fiatCurrencies))
+            .put(PRICES, assets)
+            .toString()
+    }
+
+    companion object {
+        private val ASSETS = CryptoCurrency.values()
+
+        private const val FETCHED_AT = "fetchedAt"
+        private const val FIATS = "fiats"
+        private const val PRICES = "prices"
+
+        val EMPTY = ExchangeRateSnapshot(0, emptyList(), DoubleArray(0))
+
+        /**
+         * @throws JSONException if [json] isn't a snapshot written by [toJson]
+         */
+        @Throws(JSONException::class)
+        fun fromJson(json: String): ExchangeRateSnapshot {
+            val snapshot = JSONObject(json)
+            val fiatArray = snapshot.getJSONArray(FIATS)
+            val fiats = (0 until fiatArray.length()).map { fiatArray.getString(it) }
+            val assets = snapshot.getJSONObject(PRICES)
+
+            val prices = DoubleArray(ASSETS.size * fiats.size) { Double.NaN }
+            ASSETS.forEach { asset ->
+                val row = assets.optJSONArray(asset.networkTicker) ?: return@forEach
+                fiats.indices.forEach { column ->
+                    prices[asset.ordinal * fiats.size + column] = row.optDouble(column)
+                }
+            }
+            return ExchangeRateSnapshot(snapshot.getLong(FETCHED_AT), fiats, prices)
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.prices.TimeInterval
+import info.blockchain.wallet.prices.data.PriceDatum
+import piuk.blockchain.androidcore.data.exchangerate.PriceSeries
+import timber.log.Timber
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.TreeMap
+
+/**
+ * [HistoricPriceStore] that keeps one file per asset, fiat currency and resolution in
+ * [directory]. Each file is read the first time it's needed and then kept in memory, and written
+ * again in full each time prices are put, so prices are put a batch or a series at a time.
+ */
+class FileHistoricPriceStore(private val directory: File) : HistoricPriceStore {
+
+    private class Entry(
+        var syncedFrom: Long = NOT_SYNCED,
+        var syncedTo: Long = NOT_SYNCED,
+        val prices: TreeMap<Long, Double> = TreeMap()
+    )
+
+    private val entries = HashMap<String, Entry>()
+
+    @Synchronized
+    override fun findPrice(
+        asset: CryptoCurrency,
+        fiat: String,
+        from: Long,
+        until: Long,
+        maxResolutionSeconds: Int
+    ): Double? {
+        var found: Map.Entry<Long, Double>? = null
+        RESOLUTIONS.filter { it <= maxResolutionSeconds }.forEach { resolution ->
+            entry(asset, fiat, resolution).prices.ceilingEntry(from)
+                ?.takeIf { it.key < until && (found == null || it.key < found!!.key) }
+                ?.let { found = it }
+        }
+        return found?.value
+    }
+
+    @Synchronized
+    override fun putPrices(
+        asset: CryptoCurrency,
+        fiat: String,
+        resolutionSeconds: Int,
+        prices: Map<Long, Double>
+    ) {
+        val key = key(asset, fiat, resolutionSeconds)
+        entry(key).prices.putAll(prices)
+        write(key)
+    }
+
+    @Synchronized
+    override fun getSeries(
+        asset: CryptoCurrency,
+        fiat: String,
+        resolutionSeconds: Int
+    ): StoredPriceSeries? =
+        entry(asset, fiat, resolutionSeconds).takeIf { it.syncedFrom != NOT_SYNCED }?.toSeries()
+
+    @Synchronized
+    override fun putSeries(
+        asset: CryptoCurrency,
+        fiat: String,
+        resolutionSeconds: Int,
+        from: Long,
+        prices: PriceSeries
+    ): StoredPriceSeries {
+        val key = key(asset, fiat, resolutionSeconds)
+        val entry = entry(key)
+
+        // Carry on from the existing series if this download picks up where it left off
+        if (entry.syncedFrom == NOT_SYNCED || from < entry.syncedFrom || from > entry.syncedTo) {
+            entry.syncedFrom = from
+        }
+        entry.prices.tailMap(from, true).clear()
+        prices.forEach { datum ->
+            datum.price?.let { entry.prices[datum.timestamp] = it }
+        }
+        entry.syncedTo = maxOf(from, prices.map { it.timestamp }.max() ?: from)
+
+        write(key)
+        return entry.toSeries()
+    }
+
+    @Synchronized
+    override fun clear() {
+        entries.clear()
+        if (!directory.deleteRecursively()) {
+            Timber.w("Unable to delete $directory")
+        }
+    }
+
+    private fun Entry.toSeries() =
+        StoredPriceSeries(
+            syncedFrom = syncedFrom,
+            syncedTo = syncedTo,
+            prices = prices.map { PriceDatum(timestamp = it.key, price = it.value) }
+        )
+
+    private fun entry(asset: CryptoCurrency, fiat: String, resolutionSeconds: Int) =
+        entry(key(asset, fiat, resolutionSeconds))
+
+    private fun entry(key: String): Entry = entries.getOrPut(key) { read(key) }
+
+    private fun key(asset: CryptoCurrency, fiat: String, resolutionSeconds: Int) =
+        "${asset.networkTicker}_${fiat}_$resolutionSeconds"
+
+    private fun read(key: String): Entry {
+        val file = File(directory, "$key.prices")
+        if (!file.exists()) return Entry()
+
+        return try {
+            DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                if (input.readInt() != FORMAT_VERSION) {
+                    throw IOException("Unknown format")
+                }
+                val entry = Entry(syncedFrom = input.readLong(), syncedTo = input.readLong())
+                repeat(input.readInt()) {
+                    entry.prices[input.readLong()] = input.readDouble()
+                }
+                entry
+            }
+        } catch (e: IOException) {
+            // Unreadable or from an older format, prices will be fetched again as needed
+            Timber.w(e, "Dropping unreadable historic prices")
+            file.delete()
+            Entry()
+        }
+    }
+
+    private fun write(key: String) {
+        val entry = entries[key] ?: return
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw IOException("Unable to create $directory")
+            }
+            // Write to a temporary file first so a crash can't leave a truncated file behind
+            val file = File(directory, "$key.prices")
+            val temp = File(directory, "$key.prices.tmp")
+            DataOutputStream(BufferedOutputStream(FileOutputStream(temp))).use { output ->
+                output.writeInt(FORMAT_VERSION)
+                output.writeLong(entry.syncedFrom)
+                output.writeLong(entry.syncedTo)
+                output.writeInt(entry.prices.size)
+                entry.prices.forEach { (time, price) ->
+                    output.writeLong(time)
+                    output.writeDouble(price)
+                }
+            }
+            if (!temp.renameTo(file)) {
+                file.delete()
+                temp.renameTo(file)
+            }
+        } catch (e: IOException) {
+            // The store is only an optimisation, anything missing is fetched again next time
+            Timber.w(e, "Unable to store historic prices")
+        }
+    }
+
+    companion object {
+        private const val FORMAT_VERSION = 1
+        private const val NOT_SYNCED = -1L
+
+        private val RESOLUTIONS =
+            (PriceBucket.values().map { it.seconds } + TimeInterval.values().map { it.intervalSeconds })
+                .distinct()
+                .sorted()
+    }
+}
@@ -0,0 +1,134 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import info.blockchain.balance.CryptoCurrency
+import io.reactivex.Completable
+import io.reactivex.Maybe
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.subjects.SingleSubject
+import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
+import timber.log.Timber
+import java.util.concurrent.TimeUnit
+
+/**
+ * Looks up historic prices, bucketed by [PriceBucket], from the [HistoricPriceStore] first.
+ *
+ * Prices that aren't stored yet are collected for [BATCH_WINDOW_MILLIS] before anything is
+ * fetched, since a list of transactions asks for all of its prices at once. Lookups for the same
+ * bucket share a request. When several hour or day buckets for the same asset and fiat are
+ * missing, one price series download fills all of them instead of a request per bucket. The
+ * prices fetched for a batch are stored together once all of them are in.
+ */
+internal class HistoricPriceBatcher(
+    private val store: HistoricPriceStore,
+    private val exchangeRateService: ExchangeRateService,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val scheduler: Scheduler = Schedulers.computation()
+) {
+    private data class Lookup(
+        val asset: CryptoCurrency,
+        val fiat: String,
+        val bucket: PriceBucket,
+        val start: Long
+    )
+
+    private val waiting = HashMap<Lookup, SingleSubject<Double>>()
+    private val unsent = ArrayList<Lookup>()
+
+    fun getHistoricPrice(asset: CryptoCurrency, fiat: String, timeInSeconds: Long): Single<Double> =
+        Single.defer {
+            val bucket = PriceBucket.forTime(timeInSeconds, nowInSeconds())
+            val lookup = Lookup(asset, fiat, bucket, bucket.start(timeInSeconds))
+            find(lookup)?.let { Single.just(it) } ?: enqueue(lookup)
+        }.subscribeOn(Schedulers.io())
+
+    @Synchronized
+    private fun enqueue(lookup: Lookup): Single<Double> =
+        waiting.getOrPut(lookup) {
+            if (unsent.isEmpty()) {
+                Completable.timer(BATCH_WINDOW_MILLIS, TimeUnit.MILLISECONDS, scheduler)
+                    .subscribe { send() }
+            }
+            unsent += lookup
+            SingleSubject.create()
+        }
+
+    private fun send() {
+        val batch = synchronized(this) {
+            unsent.toList().also { unsent.clear() }
+        }
+        batch.groupBy { Triple(it.asset, it.fiat, it.bucket) }
+            .values
+            .forEach { lookups ->
+                fetchSeries(lookups)
+                    .andThen(Maybe.merge(lookups.map { fetch(it) }).toList())
+                    .doOnSuccess { store(lookups.first(), it.toMap()) }
+                    .subscribeOn(Schedulers.io())
+                    .subscribe()
+            }
+    }
+
+    private fun fetchSeries(lookups: List<Lookup>): Completable {
+        val first = lookups.first()
+        val interval = first.bucket.seriesInterval
+        return if (interval != null && lookups.size >= MIN_SERIES_LOOKUPS) {
+            exchangeRateService.getHistoricPriceSeries(
+                first.asset,
+                first.fiat,
+                lookups.map { it.start }.min()!!,
+                interval
+            ).ignoreElement()
+                .doOnError { Timber.e(it) }
+                // Anything still missing is fetched on its own
+                .onErrorComplete()
+        } else {
+            Completable.complete()
+        }
+    }
+
+    /**
+     * @return the time and price fetched for [lookup], to be stored with the rest of the batch,
+     * or nothing if it was already stored or couldn't be fetched
+     */
+    private fun fetch(lookup: Lookup): Maybe<Pair<Long, Double>> =
+        Maybe.defer {
+            find(lookup)?.let { price ->
+                complete(lookup)?.onSuccess(price)
+                Maybe.empty<Pair<Long, Double>>()
+            } ?: exchangeRateService.getHistoricPrice(lookup.asset, lookup.fiat, lookup.start)
+                .doOnSuccess { price -> complete(lookup)?.onSuccess(price) }
+                .doOnError { e -> complete(lookup)?.onError(e) }
+                .map { price -> lookup.start to price }
+                .toMaybe()
+                .onErrorComplete()
+        }
+
+    private fun find(lookup: Lookup): Double? =
+        store.findPrice(
+            lookup.asset,
+            lookup.fiat,
+            lookup.start,
+            lookup.start + lookup.bucket.seconds,
+            lookup.bucket.seconds
+        )
+
+    // Lookups in a batch share an asset, fiat and bucket, so all their prices go in one write
+    private fun store(lookup: Lookup, prices: Map<Long, Double>) {
+        // Only past prices are final
+        val final = prices.filterKeys { it + lookup.bucket.seconds <= nowInSeconds() }
+        if (final.isNotEmpty()) {
+            store.putPrices(lookup.asset, lookup.fiat, lookup.bucket.seconds, final)
+        }
+    }
+
+    @Synchronized
+    private fun complete(lookup: Lookup): SingleSubject<Double>? = waiting.remove(lookup)
+
+    private fun nowInSeconds() = clock() / 1000
+
+    companion object {
+        private const val BATCH_WINDOW_MILLIS = 100L
+        private const val MIN_SERIES_LOOKUPS = 3
+    }
+}
@@ -0,0 +1,103 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.prices.TimeInterval
+import info.blockchain.wallet.prices.data.PriceDatum
+import piuk.blockchain.androidcore.data.exchangerate.PriceSeries
+
+/**
+ * Local copy of historic prices. Past prices never change, so anything stored here never needs
+ * fetching again. Prices are kept per asset, fiat currency and resolution, the number of seconds
+ * between the prices they were downloaded with. All times are in epoch-seconds.
+ *
+ * Implementations may read and write files, so the store is only used off the main thread.
+ */
+interface HistoricPriceStore {
+
+    /**
+     * @return the earliest stored price at or after [from] and before [until], at any resolution
+     * no coarser than [maxResolutionSeconds], or null if there isn't one
+     */
+    fun findPrice(
+        asset: CryptoCurrency,
+        fiat: String,
+        from: Long,
+        until: Long,
+        maxResolutionSeconds: Int
+    ): Double?
+
+    /**
+     * Stores [prices], keyed by their time, all at once.
+     */
+    fun putPrices(
+        asset: CryptoCurrency,
+        fiat: String,
+        resolutionSeconds: Int,
+        prices: Map<Long, Double>
+    )
+
+    /**
+     * @return the series downloaded at [resolutionSeconds], or null if none has been
+     */
+    fun getSeries(asset: CryptoCurrency, fiat: String, resolutionSeconds: Int): StoredPriceSeries?
+
+    /**
+     * Stores a series downloaded from [from] up to now, replacing any stored prices at the same
+     * resolution from [from] on.
+     */
+    fun putSeries(
+        asset: CryptoCurrency,
+        fiat: String,
+        resolutionSeconds: Int,
+        from: Long,
+        prices: PriceSeries
+    ): StoredPriceSeries
+
+    /**
+     * Removes every stored price, on logout or when the wallet is wiped. The times of the prices
+     * looked up would show when the wallet's transactions happened.
+     */
+    fun clear()
+}
+
+/**
+ * A series with no gaps between [syncedFrom] and [syncedTo], the time of the latest price
+ * downloaded. Prices missing from the download, and volumes, aren't stored.
+ */
+class StoredPriceSeries(
+    val syncedFrom: Long,
+    val syncedTo: Long,
+    private val prices: List<PriceDatum>
+) {
+    fun pricesFrom(timeInSeconds: Long): PriceSeries =
+        prices.dropWhile { it.timestamp < timeInSeconds }
+}
+
+/**
+ * How precisely the time of a single historic price lookup is taken. Lookups in the same bucket
+ * share a price, the one at the start of the bucket. Older lookups use wider buckets: a day's
+ * price is close enough for something that happened months ago, and lets many more lookups share
+ * one stored price.
+ *
+ * @param seriesInterval the price series interval that has one price per bucket, if any
+ */
+enum class PriceBucket(val seconds: Int, val seriesInterval: TimeInterval?) {
+    MINUTE(60, null),
+    HOUR(3600, TimeInterval.ONE_HOUR),
+    DAY(86400, TimeInterval.ONE_DAY);
+
+    fun start(timeInSeconds: Long): Long = timeInSeconds - timeInSeconds % seconds
+
+    companion object {
+        private const val HOUR_BUCKETS_MAX_AGE_SECONDS = 30L * 86400
+
+        fun forTime(timeInSeconds: Long, nowInSeconds: Long): PriceBucket {
+            val age = nowInSeconds - timeInSeconds
+            return when {
+                age < DAY.seconds -> MINUTE
+                age < HOUR_BUCKETS_MAX_AGE_SECONDS -> HOUR
+                else -> DAY
+            }
+        }
+    }
+}
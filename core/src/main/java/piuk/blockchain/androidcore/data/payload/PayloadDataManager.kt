@@ -16,6 +16,7 @@ import info.blockchain.wallet.payment.SpendableUnspentOutputs
 import info.blockchain.wallet.stx.STXAccount
 import info.blockchain.wallet.util.PrivateKeyFactory
 import io.reactivex.Completable
+import io.reactivex.Maybe
 import io.reactivex.Observable
 import io.reactivex.Single
 import io.reactivex.android.schedulers.AndroidSchedulers
@@ -277,6 +278,22 @@ class PayloadDataManager(
         rxPinning.call { payloadService.updateAllBalances() }
             .applySchedulers()
 
+    /**
+     * Updates all balances like [updateAllBalances], including the imported addresses it skips
+     * because their balance was checked recently. For refreshes the user asks for.
+     *
+     * @return A [Completable] object
+     */
+    fun refreshAllBalances(): Completable =
+        rxPinning.call { payloadService.refreshAllBalances() }
+            .applySchedulers()
+
+    /**
+     * Makes the next [updateAllBalances] fetch these addresses, eg. ones seen in a new transaction.
+     */
+    fun invalidateAddressBalances(addresses: Collection<String>) =
+        payloadManager.invalidateAddressBalances(addresses)
+
     /**
      * Update notes for a specific transaction hash and then sync the payload to the server
      *
@@ -508,6 +525,16 @@ class PayloadDataManager(
             force = forceRefresh
         )
 
+    /**
+     * Derives the receive and change addresses each account is about to need, so later lookups
+     * and pubkey syncs don't have to. Runs on the computation scheduler.
+     *
+     * @return A [Completable] object
+     */
+    fun prefillAddressCache(): Completable =
+        Completable.fromAction { payloadManager.prefillAddressCache() }
+            .subscribeOn(Schedulers.computation())
+
     /**
      * Allows you to generate a receive address at an arbitrary number of positions on the chain
      * from the next valid unused address. For example, the passing 5 as the position will generate
@@ -610,8 +637,30 @@ class PayloadDataManager(
             Single.fromCallable {
                 payloadManager.getAccountTransactions(xpub, limit, offset)
                     .filter { !it.isWatchOnly }
+            }.onErrorResumeNext { error ->
+                // Offline, show what we had as of the last sync
+                if (offset == 0) {
+                    getCachedAccountTransactions(xpub, limit).switchIfEmpty(Single.error(error))
+                } else {
+                    Single.error(error)
+                }
             }
 
+    /**
+     * Returns the first page of transactions as of the last sync, without any network calls, so
+     * it can be shown while [getAccountTransactions] brings it up to date. Completes without a
+     * value if nothing has been synced yet.
+     *
+     * @param xpub The xPub to get transactions from, or null for all accounts
+     * @param limit Amount of transactions per page
+     */
+    fun getCachedAccountTransactions(xpub: String?, limit: Int): Maybe<List<TransactionSummary>> =
+        Maybe.fromCallable {
+            payloadManager.getCachedAccountTransactions(xpub, limit)
+                .filter { !it.isWatchOnly }
+                .takeIf { it.isNotEmpty() }
+        }.subscribeOn(Schedulers.io())
+
     /**
      * Returns the transaction notes for a given transaction hash. May return null if not found.
      *
@@ -188,6 +188,17 @@ class PayloadService(private val payloadManager: PayloadManager) {
         payloadManager.updateAllBalances()
     }
 
+    /**
+     * Like [updateAllBalances], but also fetches the imported addresses that were skipped because
+     * their balance was checked recently.
+     *
+     * @return A [Completable] object
+     */
+    @WebRequest
+    internal fun refreshAllBalances(): Completable = Completable.fromCallable {
+        payloadManager.updateAllBalances(true)
+    }
+
     /**
      * Update notes for a specific transaction hash and then sync the payload to the server
      *
@@ -6,6 +6,7 @@ import info.blockchain.wallet.api.dust.DustService
 import info.blockchain.wallet.exceptions.ApiException
 import info.blockchain.wallet.exceptions.TransactionHashApiException
 import info.blockchain.wallet.payment.Payment
+import info.blockchain.wallet.payment.PreparedUnspentOutputs
 import info.blockchain.wallet.payment.SpendableUnspentOutputs
 import io.reactivex.Observable
 import io.reactivex.Single
@@ -139,7 +140,7 @@ class PaymentService(
      * Bitcoin address.
      *
      * @param address The BTC address you wish to query, as a String
-     * @return An [Observable] wrapping an [UnspentOutputs] object
+     * @return An [Observable] wrapping a [PreparedUnspentOutputs] object
      */
     @WebRequest
     internal fun getUnspentBtcOutputs(address: String): Observable<UnspentOutputs> {
@@ -151,7 +152,7 @@ class PaymentService(
                     UnspentOutputs.fromJson("{\"unspent_outputs\":[]}")
                 else -> throw ApiException(response.code().toString())
             }
-        }
+        }.map<UnspentOutputs> { PreparedUnspentOutputs.of(it) }
     }
 
     /**
@@ -160,7 +161,7 @@ class PaymentService(
      * BCH address. BECH32 is not accepted by the endpoint.
      *
      * @param address The BCH address you wish to query, as a Base58 address String
-     * @return An [Observable] wrapping an [UnspentOutputs] object
+     * @return An [Observable] wrapping a [PreparedUnspentOutputs] object
      */
     @WebRequest
     internal fun getUnspentBchOutputs(address: String): Observable<UnspentOutputs> {
@@ -173,7 +174,7 @@ class PaymentService(
                     UnspentOutputs.fromJson("{\"unspent_outputs\":[]}")
                 else -> throw ApiException(response.code().toString())
             }
-        }
+        }.map<UnspentOutputs> { PreparedUnspentOutputs.of(it) }
     }
 
     /**
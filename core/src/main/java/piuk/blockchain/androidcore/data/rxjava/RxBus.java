@@ -1,51 +1,57 @@
 package piuk.blockchain.androidcore.data.rxjava;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.VisibleForTesting;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.reactivex.Observable;
+import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.PublishSubject;
 import io.reactivex.subjects.Subject;
-import timber.log.Timber;
 
 /**
  * A class that allows callers to register {@link PublishSubject} objects by passing in the class
  * type that you wish to emit as an event. It is intended to be instantiated as a Singleton via
  * DI.
+ *
+ * Registering, unregistering and emitting are safe from any thread. Each event type has its own
+ * channel holding an array of subjects which is replaced, never changed, when someone registers or
+ * unregisters, so emitting only reads the current array and doesn't lock or allocate.
  */
 public class RxBus {
 
-    /**
-     * A map of lists of {@link PublishSubject} objects, where their type is used as the
-     * key for lookups. This holds weak references, in order to prevent potential memory leaks.
-     */
-    @SuppressWarnings("WeakerAccess")
-    @VisibleForTesting
-    WeakHashMap<Object, List<Subject>> subjectsMap = new WeakHashMap<>();
+    private static final Subject[] NO_SUBJECTS = new Subject[0];
+
+    private final ConcurrentMap<Class<?>, Channel> channels = new ConcurrentHashMap<>();
 
     /**
      * Registers a new {@link PublishSubject} whose type matches the class {@code type} passed to
      * the method. Returns the PublishSubject so it can be subscribed to, events acted upon and
-     * threading applied.
+     * threading applied. If {@code type} replays its latest event, the subject is a
+     * {@link BehaviorSubject} starting with that event instead.
      *
      * @param type The class type of the events you wish to emit
      * @return A {@link PublishSubject} with type {@code type}
      */
-    @SuppressWarnings("Java8MapApi")
+    @SuppressWarnings("unchecked")
     public <T> Observable<T> register(@NonNull Class<T> type) {
-        List<Subject> subjects = subjectsMap.get(type);
-        if (subjects == null) {
-            subjects = new ArrayList<>();
-            subjectsMap.put(type, subjects);
+        Channel channel = channel(type);
+        Subject<T> subject;
+        if (channel.replayLatest) {
+            // Keeps an event emitted at the same time from being missed, or replaced by an older one
+            synchronized (channel) {
+                T latest = (T) channel.latest;
+                subject = (latest != null ? BehaviorSubject.createDefault(latest) : BehaviorSubject.<T>create())
+                        .toSerialized();
+                channel.add(subject);
+            }
+        } else {
+            subject = PublishSubject.<T>create().toSerialized();
+            channel.add(subject);
         }
-
-        Subject<T> subject = PublishSubject.create();
-        subjects.add(subject);
-
         return subject;
     }
 
@@ -54,20 +60,12 @@ public class RxBus {
      * PublishSubjects.
      *
      * @param type       The class type of the {@link PublishSubject} to be removed
-     * @param observable An {@link Observable} of type {@code type} which is currently subscribed to
-     *                   it's associated {@link PublishSubject}
+     * @param observable An {@link Observable} of type {@code type} returned by {@link #register}
      */
-    @SuppressWarnings("SuspiciousMethodCalls")
-    public void unregister(@NonNull Class type, @NonNull Observable observable) {
-        List<Subject> subjects = subjectsMap.get(type);
-        if (subjects != null) {
-            subjects.remove(observable);
-
-            if (subjects.isEmpty()) {
-                subjectsMap.remove(type);
-            }
-        } else {
-            Timber.w("unregister of type " + type.getSimpleName() + " failed, as no PublishSubject with a matching type was found");
+    public void unregister(@NonNull Class<?> type, @NonNull Observable<?> observable) {
+        Channel channel = channels.get(type);
+        if (channel != null) {
+            channel.remove(observable);
         }
     }
 
@@ -80,14 +78,142 @@ public class RxBus {
      * @param content The actual object to be emitted
      */
     @SuppressWarnings("unchecked")
-    public void emitEvent(@NonNull Class type, @NonNull Object content) {
-        List<Subject> subjects = subjectsMap.get(type);
-        if (subjects != null && !subjects.isEmpty()) {
-            for (Subject subject : subjects) {
-                subject.onNext(content);
+    public <T> void emitEvent(@NonNull Class<T> type, @NonNull T content) {
+        Channel channel = channels.get(type);
+        if (channel == null) {
+            channel = channel(type);
+        }
+        long start = System.nanoTime();
+        Subject[] subjects;
+        if (channel.replayLatest) {
+            synchronized (channel) {
+                channel.latest = content;
+                subjects = channel.subjects.get();
             }
         } else {
-            Timber.i("emitEvent of type " + type.getSimpleName() + " failed, as no PublishSubject was registered");
+            subjects = channel.subjects.get();
+        }
+        for (Subject subject : subjects) {
+            subject.onNext(content);
+        }
+        channel.emitted.incrementAndGet();
+        if (subjects.length == 0) {
+            channel.undelivered.incrementAndGet();
+        }
+        channel.emitNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Makes subjects registered for {@code type} from now on start with the latest event emitted
+     * for {@code type}, if there has been one. Subjects already registered are unaffected.
+     */
+    public void replayLatest(@NonNull Class<?> type) {
+        Channel channel = channel(type);
+        synchronized (channel) {
+            channel.replayLatest = true;
+        }
+    }
+
+    public int getSubscriberCount(@NonNull Class<?> type) {
+        Channel channel = channels.get(type);
+        return channel != null ? channel.subjects.get().length : 0;
+    }
+
+    @NonNull
+    public Stats getStats(@NonNull Class<?> type) {
+        Channel channel = channels.get(type);
+        if (channel == null) {
+            return new Stats(0, 0, 0, 0);
+        }
+        return new Stats(
+                channel.subjects.get().length,
+                channel.emitted.get(),
+                channel.undelivered.get(),
+                channel.emitNanos.get()
+        );
+    }
+
+    private Channel channel(Class<?> type) {
+        Channel channel = channels.get(type);
+        if (channel == null) {
+            Channel created = new Channel();
+            channel = channels.putIfAbsent(type, created);
+            if (channel == null) {
+                channel = created;
+            }
+        }
+        return channel;
+    }
+
+    private static final class Channel {
+        final AtomicReference<Subject[]> subjects = new AtomicReference<>(NO_SUBJECTS);
+        final AtomicLong emitted = new AtomicLong();
+        final AtomicLong undelivered = new AtomicLong();
+        final AtomicLong emitNanos = new AtomicLong();
+        // Written with the channel locked, read without to avoid locking types that don't replay
+        volatile boolean replayLatest;
+        Object latest;
+
+        void add(Subject subject) {
+            while (true) {
+                Subject[] current = subjects.get();
+                Subject[] updated = new Subject[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, current.length);
+                updated[current.length] = subject;
+                if (subjects.compareAndSet(current, updated)) {
+                    return;
+                }
+            }
+        }
+
+        void remove(Observable<?> observable) {
+            while (true) {
+                Subject[] current = subjects.get();
+                int index = -1;
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i] == observable) {
+                        index = i;
+                        break;
+                    }
+                }
+                if (index == -1) {
+                    return;
+                }
+                Subject[] updated;
+                if (current.length == 1) {
+                    updated = NO_SUBJECTS;
+                } else {
+                    updated = new Subject[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, index);
+                    System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                }
+                if (subjects.compareAndSet(current, updated)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counters for one event type, since the bus was created.
+     */
+    public static final class Stats {
+        public final int subscribers;
+        public final long emitted;
+        /**
+         * Events emitted while nothing was registered for their type.
+         */
+        public final long undelivered;
+        /**
+         * The total time spent emitting events, including delivering them to subscribers.
+         */
+        public final long emitNanos;
+
+        Stats(int subscribers, long emitted, long undelivered, long emitNanos) {
+            this.subscribers = subscribers;
+            this.emitted = emitted;
+            this.undelivered = undelivered;
+            this.emitNanos = emitNanos;
         }
     }
 }
@@ -28,8 +28,9 @@ class SettingsDataManager(
         rxPinning.call<Settings> { attemptFetchSettingsFromMemory() }
 
     /**
-     * Updates the settings object by syncing it with the server. Must be called to set up the
-     * [SettingsManager] class before a fetch is called.
+     * Sets up the [SettingsManager] class before a fetch is called. Returns the settings stored on
+     * disk at once if there are some, and syncs them with the server in the background, otherwise
+     * fetches them from the server.
      *
      * @param guid The user's GUID
      * @param sharedKey The shared key
@@ -37,10 +38,16 @@ class SettingsDataManager(
      */
     fun initSettings(guid: String, sharedKey: String): Observable<Settings> {
         settingsService.initSettings(guid, sharedKey)
-        return rxPinning.call<Settings> { fetchSettings() }
+        return rxPinning.call<Settings> { Observable.defer { settingsDataStore.revalidateSettings(guid) } }
             .applySchedulers()
     }
 
+    /**
+     * Emits whether the [Settings] being served are a stale copy from disk, not yet synced with the
+     * server.
+     */
+    fun isStale(): Observable<Boolean> = settingsDataStore.isStale()
+
     /**
      * Fetches the latest user [Settings] object from the server
      *
@@ -1,18 +1,75 @@
 package piuk.blockchain.androidcore.data.settings.datastore
 
+import com.blockchain.utils.Optional
 import info.blockchain.wallet.api.data.Settings
 import io.reactivex.Observable
+import io.reactivex.subjects.BehaviorSubject
+import piuk.blockchain.androidcore.data.datastores.persistentstore.BackgroundRefresh
 import piuk.blockchain.androidcore.data.datastores.persistentstore.DefaultFetchStrategy
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedPersistentStore
 import piuk.blockchain.androidcore.data.datastores.persistentstore.FreshFetchStrategy
+import piuk.blockchain.androidcore.data.datastores.persistentstore.RevalidatingFetchStrategy
+import piuk.blockchain.androidcore.data.datastores.persistentstore.VersionedSerialiser
+import piuk.blockchain.androidcore.data.rxjava.RxPinning
 
 class SettingsDataStore(
     private val memoryStore: SettingsMemoryStore,
-    private val webSource: Observable<Settings>
+    webSource: Observable<Settings>,
+    private val diskStore: EncryptedPersistentStore<Settings>,
+    rxPinning: RxPinning
 ) {
+    private val stale = BehaviorSubject.createDefault(false).toSerialized()
+
+    private val storingWebSource = webSource.flatMap(diskStore::store)
+
+    // Shared by every read, so reads made while it runs don't request the settings again
+    private val refresh = BackgroundRefresh(
+        rxPinning.call {
+            FreshFetchStrategy(storingWebSource, memoryStore).fetch()
+                .doOnNext { stale.onNext(false) }
+                .ignoreElements()
+        }
+    )
 
     fun getSettings(): Observable<Settings> =
-        DefaultFetchStrategy(webSource, memoryStore.getSettings(), memoryStore).fetch()
+        DefaultFetchStrategy(storingWebSource, memoryStore.getSettings(), memoryStore).fetch()
 
     fun fetchSettings(): Observable<Settings> =
-        FreshFetchStrategy(webSource, memoryStore).fetch()
-}
\ No newline at end of file
+        FreshFetchStrategy(storingWebSource, memoryStore).fetch()
+            .doOnNext { stale.onNext(false) }
+
+    /**
+     * Returns the settings of [guid] stored on disk, if any, and refreshes them in the background.
+     * Reading the disk can wait for its key, so subscribe off the main thread.
+     */
+    fun revalidateSettings(guid: String): Observable<Settings> =
+        RevalidatingFetchStrategy(
+            FreshFetchStrategy(storingWebSource, memoryStore).fetch(),
+            Observable.fromCallable {
+                diskStore.read().takeIf { it is Optional.Some && it.element.value.guid == guid }
+                    ?: Optional.None
+            },
+            memoryStore,
+            stale,
+            refresh
+        ).fetch()
+
+    /**
+     * Emits whether the settings being served are a stale copy from disk.
+     */
+    fun isStale(): Observable<Boolean> = stale.distinctUntilChanged()
+
+    object Serialiser : VersionedSerialiser<Settings> {
+
+        override val version = 1
+
+        override fun serialise(value: Settings): String = value.toJson()
+
+        override fun deserialise(serialised: String): Settings = Settings.fromJson(serialised)
+    }
+
+    companion object {
+        const val DISK_KEY = "cached_settings"
+        const val MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L
+    }
+}
@@ -2,6 +2,8 @@ package piuk.blockchain.androidcore.data.walletoptions
 
 import com.blockchain.sunriver.XlmHorizonUrlFetcher
 import com.blockchain.sunriver.XlmTransactionTimeoutFetcher
+import com.blockchain.utils.Optional
+import com.fasterxml.jackson.databind.ObjectMapper
 import info.blockchain.wallet.api.data.UpdateType
 import info.blockchain.wallet.api.data.WalletOptions
 import io.reactivex.Observable
@@ -9,27 +11,98 @@ import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
 import piuk.blockchain.androidcore.data.appversion.SemanticVersion
 import piuk.blockchain.androidcore.data.auth.AuthService
+import piuk.blockchain.androidcore.data.datastores.persistentstore.CachedValue
+import piuk.blockchain.androidcore.data.datastores.persistentstore.PrefsPersistentStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.Validators
 import piuk.blockchain.androidcore.data.settings.SettingsDataManager
 import piuk.blockchain.androidcore.utils.helperfunctions.unsafeLazy
+import retrofit2.HttpException
+import timber.log.Timber
 import java.util.Locale
 
 class WalletOptionsDataManager(
-    authService: AuthService,
+    private val authService: AuthService,
     private val walletOptionsState: WalletOptionsState,
     private val settingsDataManager: SettingsDataManager,
-    private val explorerUrl: String
+    private val explorerUrl: String,
+    private val walletOptionsStore: PrefsPersistentStore<String>,
+    private val parse: (String) -> WalletOptions = { json ->
+        ObjectMapper().readValue(json, WalletOptions::class.java)
+    }
 ) : XlmTransactionTimeoutFetcher, XlmHorizonUrlFetcher {
 
     override fun xlmHorizonUrl(def: String): Single<String> =
         walletOptionsState.walletOptionsSource
             .map { it.stellarHorizonUrl }.first(def)
 
+    /**
+     * Emits the copy of wallet-options.json stored on disk, if there is one, and then the latest
+     * one if it has changed since. The copy is revalidated with its ETag and Last-Modified
+     * validators, so an unchanged file isn't downloaded again.
+     */
     private val walletOptionsService by unsafeLazy {
-        authService.getWalletOptions()
+        Observable.fromCallable { walletOptionsStore.read() }
+            .flatMap { cached ->
+                when (cached) {
+                    is Optional.Some -> revalidatedWalletOptions(cached.element)
+                    else -> latestWalletOptions(Validators.NONE)
+                }
+            }
             .subscribeOn(Schedulers.io())
             .cache()
     }
 
+    private fun revalidatedWalletOptions(cached: CachedValue<String>): Observable<WalletOptions> {
+        val stored = try {
+            parse(cached.value)
+        } catch (e: Exception) {
+            Timber.e(e, "Discarding unreadable wallet options")
+            walletOptionsStore.invalidate()
+            return latestWalletOptions(Validators.NONE)
+        }
+        walletOptionsState.walletOptionsStale.onNext(cached.isStale)
+        return Observable.just(stored)
+            .concatWith(
+                latestWalletOptions(cached.validators)
+                    .onErrorResumeNext { e: Throwable ->
+                        Timber.e(e, "Revalidation failed, keeping the stored wallet options")
+                        Observable.empty()
+                    }
+            )
+    }
+
+    private fun latestWalletOptions(validators: Validators): Observable<WalletOptions> =
+        authService.getWalletOptionsIfChanged(validators.eTag, validators.lastModified)
+            .flatMap { response ->
+                when {
+                    response.code() == HTTP_NOT_MODIFIED -> {
+                        walletOptionsStore.touch()
+                        walletOptionsState.walletOptionsStale.onNext(false)
+                        Observable.empty<WalletOptions>()
+                    }
+                    response.isSuccessful -> {
+                        val json = response.body()!!.string()
+                        val walletOptions = parse(json)
+                        walletOptionsStore.store(
+                            json,
+                            Validators(
+                                eTag = response.headers().get("ETag"),
+                                lastModified = response.headers().get("Last-Modified")
+                            )
+                        )
+                        walletOptionsState.walletOptionsStale.onNext(false)
+                        Observable.just(walletOptions)
+                    }
+                    else -> Observable.error(HttpException(response))
+                }
+            }
+
+    /**
+     * Emits whether the wallet options in use are a stale copy from disk, not yet revalidated.
+     */
+    fun isStale(): Observable<Boolean> =
+        walletOptionsState.walletOptionsStale.distinctUntilChanged()
+
     /**
      * ReplaySubjects will re-emit items it observed.
      * It is safe to assumed that walletOptions and
@@ -88,7 +161,7 @@ class WalletOptionsDataManager(
                 result = getLocalisedMessage(locale, this)
             }
             return@map result
-        }
+        }.distinctUntilChanged()
     }
 
     /**
@@ -111,7 +184,7 @@ class WalletOptionsDataManager(
             if (latestApiVersion > currentVersion) {
                 return@map it.androidUpdate.updateType
             } else return@map UpdateType.NONE
-        }
+        }.distinctUntilChanged()
     }
 
     fun getLocalisedMessage(locale: Locale, map: Map<String, String>): String {
@@ -144,4 +217,10 @@ class WalletOptionsDataManager(
             .first(WalletOptions.XLM_DEFAULT_TIMEOUT_SECS)
 
     fun isXlmAddressExchange(it: String): Boolean = xlmExchangeAddresses().contains(it.toUpperCase())
+
+    companion object {
+        const val DISK_KEY = "cached_wallet_options"
+        const val MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L
+        private const val HTTP_NOT_MODIFIED = 304
+    }
 }
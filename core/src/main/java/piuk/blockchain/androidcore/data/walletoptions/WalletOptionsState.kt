@@ -2,6 +2,7 @@ package piuk.blockchain.androidcore.data.walletoptions
 
 import info.blockchain.wallet.api.data.Settings
 import info.blockchain.wallet.api.data.WalletOptions
+import io.reactivex.subjects.BehaviorSubject
 import io.reactivex.subjects.ReplaySubject
 import piuk.blockchain.androidcore.utils.helperfunctions.InvalidatableLazy
 
@@ -9,12 +10,19 @@ class WalletOptionsState {
 
     private val optionsInitializer = InvalidatableLazy { ReplaySubject.create<WalletOptions>(1) }
     private val settingsInitializer = InvalidatableLazy { ReplaySubject.create<Settings>(1) }
+    private val staleInitializer = InvalidatableLazy { BehaviorSubject.createDefault(false) }
 
     val walletOptionsSource: ReplaySubject<WalletOptions> by optionsInitializer
     val walletSettingsSource: ReplaySubject<Settings>by settingsInitializer
 
+    /**
+     * Whether [walletOptionsSource] holds a stale copy from disk that hasn't been revalidated yet.
+     */
+    val walletOptionsStale: BehaviorSubject<Boolean> by staleInitializer
+
     fun wipe() {
         optionsInitializer.invalidate()
         settingsInitializer.invalidate()
+        staleInitializer.invalidate()
     }
 }
@@ -8,6 +8,7 @@ import info.blockchain.balance.CryptoCurrency
 import info.blockchain.balance.CryptoValue
 import info.blockchain.wallet.ethereum.data.EthAddressResponse
 import info.blockchain.wallet.ethereum.data.EthAddressResponseMap
+import io.reactivex.Observable
 import org.amshove.kluent.mock
 import org.junit.Before
 import org.junit.Rule
@@ -43,10 +44,30 @@ class BalanceCalculatorTest {
         subscriber.assertValue(CryptoValue(CryptoCurrency.ETHER, 100.toBigInteger()))
     }
 
-    private fun responseWithJustBalance(): EthAddressResponseMap =
+    @Test
+    fun `should emit the kept balance and then the fresh one, when no local model`() {
+        whenever(ethDataManager.getEthResponseModel()).thenReturn(null)
+        whenever(ethDataManager.fetchEthAddressCacheThenNetwork()).thenReturn(
+            Observable.just(
+                CombinedEthModel(responseWithJustBalance()),
+                CombinedEthModel(responseWithJustBalance(200))
+            )
+        )
+
+        val subscriber = balanceCalculator.balance(CryptoCurrency.ETHER).test()
+
+        subscriber.assertNoErrors()
+        subscriber.assertComplete()
+        subscriber.assertValues(
+            CryptoValue(CryptoCurrency.ETHER, 100.toBigInteger()),
+            CryptoValue(CryptoCurrency.ETHER, 200.toBigInteger())
+        )
+    }
+
+    private fun responseWithJustBalance(amount: Int = 100): EthAddressResponseMap =
         EthAddressResponseMap().apply {
             setEthAddressResponseMap("", EthAddressResponse().apply {
-                balance = 100.toBigInteger()
+                balance = amount.toBigInteger()
             })
         }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package piuk.blockchain.android.data.stores
+
+import com.blockchain.data.datastores.PersistentStore
+import com.blockchain.utils.Optional
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
+import io.reactivex.Observable
+import org.amshove.kluent.mock
+import org.junit.Test
+import piuk.blockchain.android.testutils.RxTest
+import piuk.blockchain.androidcore.data.datastores.persistentstore.CacheThenNetworkFetchStrategy
+
+class CacheThenNetworkFetchStrategyTest : RxTest() {
+
+    private val store: PersistentStore<String> = mock()
+
+    @Test
+    fun `fetch should emit the cached value and then the fresh one`() {
+        // Arrange
+        whenever(store.store("FRESH")).thenReturn(Observable.just("FRESH"))
+        val subject = CacheThenNetworkFetchStrategy(
+            Observable.just("FRESH"),
+            Observable.just<Optional<String>>(Optional.Some("CACHED")),
+            store
+        )
+        // Act
+        val testObserver = subject.fetch().test()
+        // Assert
+        verify(store).store("FRESH")
+        testObserver.assertValues("CACHED", "FRESH")
+        testObserver.assertComplete()
+    }
+
+    @Test
+    fun `fetch should only emit the fresh value when nothing is cached`() {
+        // Arrange
+        whenever(store.store("FRESH")).thenReturn(Observable.just("FRESH"))
+        val subject = CacheThenNetworkFetchStrategy(
+            Observable.just("FRESH"),
+            Observable.just<Optional<String>>(Optional.None),
+            store
+        )
+        // Act
+        val testObserver = subject.fetch().test()
+        // Assert
+        testObserver.assertValues("FRESH")
+    }
+
+    @Test
+    fun `fetch should keep the cached value when the web source fails`() {
+        // Arrange
+        val subject = CacheThenNetworkFetchStrategy(
+            Observable.error<String>(Throwable()),
+            Observable.just<Optional<String>>(Optional.Some("CACHED")),
+            store
+        )
+        // Act
+        val testObserver = subject.fetch().test()
+        // Assert
+        testObserver.assertValues("CACHED")
+        testObserver.assertComplete()
+    }
+
+    @Test
+    fun `fetch should fail when the web source fails and nothing is cached`() {
+        // Arrange
+        val error = Throwable()
+        val subject = CacheThenNetworkFetchStrategy(
+            Observable.error<String>(error),
+            Observable.just<Optional<String>>(Optional.None),
+            store
+        )
+        // Act
+        val testObserver = subject.fetch().test()
+        // Assert
+        testObserver.assertError(error)
+    }
+}
@@ -14,6 +14,7 @@ import info.blockchain.api.data.Balance
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.wallet.coin.GenericMetadataAccount
 import info.blockchain.wallet.coin.GenericMetadataWallet
+import info.blockchain.wallet.multiaddress.TransactionStore
 import info.blockchain.wallet.payload.data.Account
 import info.blockchain.wallet.payload.data.HDWallet
 import info.blockchain.wallet.payload.data.Wallet
@@ -51,6 +52,7 @@ class BchDataManagerTest {
     private val blockExplorer: BlockExplorer = mock()
     private val defaultLabels: DefaultLabels = mock()
     private val metadataManager: MetadataManager = mock()
+    private val transactionStore: TransactionStore = mock()
     private val rxBus = RxBus()
 
     @Before
@@ -66,6 +68,7 @@ class BchDataManagerTest {
             blockExplorer,
             defaultLabels,
             metadataManager,
+            transactionStore,
             rxBus
         )
     }
@@ -464,6 +467,7 @@ class BchDataManagerTest {
             mock(),
             mock(),
             mock(),
+            mock(),
             mock()
         ).getBalance(address)
             .test()
@@ -484,6 +488,7 @@ class BchDataManagerTest {
             mock(),
             mock(),
             mock(),
+            mock(),
             mock()
         ).getBalance(address)
             .test()
@@ -0,0 +1,104 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import com.blockchain.android.testutils.rxInit
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.argThat
+import com.nhaarman.mockito_kotlin.doReturn
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.verify
+import info.blockchain.wallet.payload.data.HDWallet
+import info.blockchain.wallet.payload.data.Wallet
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should not be`
+import org.junit.Rule
+import org.junit.Test
+import piuk.blockchain.androidcore.utils.PersistentPrefs
+
+class DiskCacheKeyTest {
+
+    @get:Rule
+    val rxSchedulers = rxInit {
+        ioTrampoline()
+    }
+
+    private val wallet = Wallet().apply {
+        guid = "a09910d9-1906-4ea1-a956-2508c3fe0661"
+        sharedKey = "d14f3d2c-f883-40da-87e2-c8448521ee64"
+        hdWallets = listOf(HDWallet().apply { seedHex = SEED })
+    }
+
+    private fun prefs(salt: String?): PersistentPrefs = mock {
+        on { getValue(any<String>()) } doReturn salt
+    }
+
+    @Test
+    fun `there is no key without a wallet`() {
+        DiskCacheKey(prefs(SALT), { null }).get(wait = true) `should be` null
+    }
+
+    @Test
+    fun `there is no key without an HD seed`() {
+        val walletWithoutSeed = Wallet().apply {
+            guid = wallet.guid
+            sharedKey = wallet.sharedKey
+        }
+
+        DiskCacheKey(prefs(SALT), { walletWithoutSeed }).get(wait = true) `should be` null
+    }
+
+    @Test
+    fun `wallets with the same credentials but different seeds get different keys`() {
+        val key = DiskCacheKey(prefs(SALT), { wallet }).get(wait = true)!!
+        val otherWallet = Wallet().apply {
+            guid = wallet.guid
+            sharedKey = wallet.sharedKey
+            hdWallets = listOf(HDWallet().apply { seedHex = SEED.reversed() })
+        }
+
+        val otherKey = DiskCacheKey(prefs(SALT), { otherWallet }).get(wait = true)!!
+
+        key.contentEquals(otherKey) `should be` false
+    }
+
+    @Test
+    fun `the key is derived once per wallet`() {
+        val diskCacheKey = DiskCacheKey(prefs(SALT), { wallet })
+
+        val key = diskCacheKey.get(wait = true)
+
+        key `should not be` null
+        diskCacheKey.get(wait = true) `should be` key
+    }
+
+    @Test
+    fun `installs with different salts get different keys`() {
+        val key = DiskCacheKey(prefs(SALT), { wallet }).get(wait = true)!!
+
+        val otherKey = DiskCacheKey(prefs(SALT.reversed()), { wallet }).get(wait = true)!!
+
+        key.contentEquals(otherKey) `should be` false
+    }
+
+    @Test
+    fun `a salt is generated on first use`() {
+        val prefs = prefs(null)
+
+        DiskCacheKey(prefs, { wallet }).get(wait = true) `should not be` null
+
+        verify(prefs).setValue(any(), argThat<String> { length == 64 })
+    }
+
+    @Test
+    fun `without waiting the key is a miss until it has been derived`() {
+        val diskCacheKey = DiskCacheKey(prefs(SALT), { wallet })
+
+        diskCacheKey.get(wait = false) `should be` null
+
+        diskCacheKey.get(wait = false) `should not be` null
+    }
+
+    companion object {
+        private const val SEED = "0660cc198330660cc198330660cc1983"
+        private const val SALT = "5c2b7a6f0e1d43a89b7c6d5e4f3a2b1c0d9e8f7a6b5c4d3e2f1a0b9c8d7e6f5a"
+    }
+}
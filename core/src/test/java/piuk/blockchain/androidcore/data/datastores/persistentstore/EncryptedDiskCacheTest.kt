@@ -0,0 +1,98 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class EncryptedDiskCacheTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private var now = 1000L
+
+    private fun cache(secret: String = "secret", maxBytes: Long = 1024 * 1024) =
+        EncryptedDiskCache(
+            directory = folder.root,
+            encryptionKey = { secret.toByteArray().copyOf(32) },
+            maxBytes = maxBytes,
+            clock = { now }
+        )
+
+    @Test
+    fun `entries are read back after a restart`() {
+        cache().write("key", 3, "value")
+
+        val entry = cache().read("key")!!
+
+        entry.version `should equal` 3
+        entry.storedAt `should equal` 1000L
+        entry.data `should equal` "value"
+    }
+
+    @Test
+    fun `neither keys nor values are stored in the clear`() {
+        cache().write("my-xpub", 1, "my-balance")
+
+        folder.root.listFiles()!!.forEach { file ->
+            file.name.contains("my-xpub") `should be` false
+            String(file.readBytes()).contains("my-balance") `should be` false
+        }
+    }
+
+    @Test
+    fun `entries written with another key are dropped`() {
+        cache(secret = "wallet 1").write("key", 1, "value")
+
+        cache(secret = "wallet 2").read("key") `should be` null
+        folder.root.listFiles()!!.size `should equal` 0
+    }
+
+    @Test
+    fun `entries are kept while there is no key yet`() {
+        cache().write("key", 1, "value")
+
+        EncryptedDiskCache(folder.root, { null }).read("key") `should be` null
+
+        cache().read("key")!!.data `should equal` "value"
+    }
+
+    @Test
+    fun `removed entries are gone`() {
+        val cache = cache()
+        cache.write("key", 1, "value")
+
+        cache.remove("key")
+
+        cache.read("key") `should be` null
+    }
+
+    @Test
+    fun `least recently used entries are evicted over the budget`() {
+        val cache = cache(maxBytes = 1000)
+        val value = "x".repeat(300)
+        cache.write("a", 1, value)
+        now += 10_000
+        cache.write("b", 1, value)
+        now += 10_000
+        cache.read("a")
+        now += 10_000
+
+        cache.write("c", 1, value)
+
+        cache.read("a")!!.data `should equal` value
+        cache.read("b") `should be` null
+        cache.read("c")!!.data `should equal` value
+    }
+
+    @Test
+    fun `entries larger than the budget are not stored`() {
+        val cache = cache(maxBytes = 100)
+
+        cache.write("key", 1, "x".repeat(200))
+
+        cache.read("key") `should be` null
+    }
+}
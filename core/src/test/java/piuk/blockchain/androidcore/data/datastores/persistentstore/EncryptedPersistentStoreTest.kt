@@ -0,0 +1,75 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import com.blockchain.utils.Optional
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class EncryptedPersistentStoreTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private var now = 1000L
+
+    private object Serialiser : VersionedSerialiser<String> {
+
+        override val version = 1
+
+        override fun serialise(value: String): String = value
+
+        override fun deserialise(serialised: String): String = serialised
+    }
+
+    private fun store() =
+        EncryptedPersistentStore(
+            EncryptedDiskCache(folder.root, { ByteArray(32) }, clock = { now }),
+            "settings",
+            Serialiser,
+            maxAgeMillis = 100L,
+            clock = { now }
+        )
+
+    private fun EncryptedPersistentStore<String>.cached() =
+        (read() as Optional.Some<CachedValue<String>>).element
+
+    @Test
+    fun `stored values are read back with when they were stored`() {
+        store().store("hint").test()
+
+        val cached = store().cached()
+
+        cached.value `should equal` "hint"
+        cached.storedAt `should equal` 1000L
+        cached.isStale `should be` false
+    }
+
+    @Test
+    fun `values are stale once they are older than the max age`() {
+        store().store("hint").test()
+
+        now += 101L
+
+        store().cached().isStale `should be` true
+    }
+
+    @Test
+    fun `values are not stored in the clear`() {
+        store().store("my-password-hint").test()
+
+        folder.root.listFiles()!!.forEach { file ->
+            String(file.readBytes()).contains("my-password-hint") `should be` false
+        }
+    }
+
+    @Test
+    fun `invalidating removes the stored value`() {
+        store().store("hint").test()
+
+        store().invalidate()
+
+        store().read() `should equal` Optional.None
+    }
+}
@@ -0,0 +1,83 @@
+package piuk.blockchain.androidcore.data.datastores.persistentstore
+
+import com.blockchain.utils.Optional
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class TwoTierStoreTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private class Serialiser(override val version: Int = 1) : VersionedSerialiser<List<Int>> {
+
+        override fun serialise(value: List<Int>): String = value.joinToString(",")
+
+        override fun deserialise(serialised: String): List<Int> = serialised.split(",").map { it.toInt() }
+    }
+
+    private class DataStore(diskCache: EncryptedDiskCache, serialiser: Serialiser = Serialiser()) {
+        val store = TwoTierStore(diskCache, "numbers", serialiser)
+        var numbers: List<Int>? by store
+
+        fun load() = apply { store.getCached().blockingFirst() }
+    }
+
+    private fun diskCache() = EncryptedDiskCache(folder.root, { ByteArray(32) })
+
+    @Test
+    fun `values survive a restart`() {
+        DataStore(diskCache()).numbers = listOf(1, 2, 3)
+
+        DataStore(diskCache()).load().numbers `should equal` listOf(1, 2, 3)
+    }
+
+    @Test
+    fun `the property doesn't read the disk`() {
+        DataStore(diskCache()).numbers = listOf(1, 2, 3)
+
+        DataStore(diskCache()).numbers `should be` null
+    }
+
+    @Test
+    fun `clearing the property clears the disk`() {
+        DataStore(diskCache()).apply {
+            numbers = listOf(1, 2, 3)
+            numbers = null
+        }
+
+        DataStore(diskCache()).load().numbers `should be` null
+    }
+
+    @Test
+    fun `values written by another serialiser version are dropped`() {
+        DataStore(diskCache()).numbers = listOf(1, 2, 3)
+
+        DataStore(diskCache(), Serialiser(version = 2)).load().numbers `should be` null
+    }
+
+    @Test
+    fun `the disk is read once the key is ready`() {
+        DataStore(diskCache()).numbers = listOf(1, 2, 3)
+        var key: ByteArray? = null
+        val dataStore = DataStore(EncryptedDiskCache(folder.root, { key }))
+
+        dataStore.load().numbers `should be` null
+        key = ByteArray(32)
+
+        dataStore.load().numbers `should equal` listOf(1, 2, 3)
+    }
+
+    @Test
+    fun `getCached emits the stored value`() {
+        val diskCache = diskCache()
+        TwoTierStore(diskCache, "numbers", Serialiser()).store(listOf(4, 5)).test()
+
+        val cached = TwoTierStore(diskCache, "numbers", Serialiser()).getCached().blockingFirst()
+
+        (cached as Optional.Some).element `should equal` listOf(4, 5)
+    }
+}
@@ -11,14 +11,18 @@ import info.blockchain.wallet.ethereum.data.Erc20AddressResponse
 import info.blockchain.wallet.ethereum.data.Erc20TransferResponse
 import io.reactivex.Observable
 import junit.framework.Assert.assertEquals
+import org.amshove.kluent.`should equal`
 import org.amshove.kluent.any
 import org.amshove.kluent.mock
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.junit.rules.TemporaryFolder
 import piuk.blockchain.androidcore.data.api.EnvironmentConfig
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
 import piuk.blockchain.androidcore.data.erc20.datastores.Erc20DataStore
 import piuk.blockchain.androidcore.data.ethereum.EthDataManager
+import piuk.blockchain.androidcore.data.ethereum.datastores.EthTransferHistory
 
 class PaxAccountTest {
 
@@ -27,6 +31,9 @@ class PaxAccountTest {
     private val erc20DataStore: Erc20DataStore = mock()
     private val environmentSettings: EnvironmentConfig = mock()
 
+    @get:Rule
+    val folder = TemporaryFolder()
+
     @get:Rule
     val initSchedulers = rxInit {
         mainTrampoline()
@@ -40,6 +47,10 @@ class PaxAccountTest {
         transfers = listOf(Erc20TransferResponse(), Erc20TransferResponse())
     }
 
+    private fun storedTransfers(): EthTransferHistory<Erc20Transfer> =
+        Erc20DataStore(EncryptedDiskCache(folder.root, { ByteArray(32) })).transferHistory(CryptoCurrency.PAX)
+            .also { whenever(erc20DataStore.transferHistory(CryptoCurrency.PAX)).thenReturn(it) }
+
     @Before
     fun setUp() {
         paxAccount = PaxAccount(
@@ -64,6 +75,7 @@ class PaxAccountTest {
         whenever(environmentSettings.environment).thenReturn(Environment.PRODUCTION)
         whenever(ethDataManager.getErc20Address(CryptoCurrency.PAX)).thenReturn(Observable.just(
             erc20AddressResponse))
+        storedTransfers()
         // Act
         val testObserver = paxAccount.fetchErc20Address().test()
         // Assert
@@ -92,6 +104,48 @@ class PaxAccountTest {
         verifyZeroInteractions(ethDataManager)
     }
 
+    private fun transfer(hash: String, blockNumber: Long) =
+        Erc20Transfer(
+            logIndex = "0",
+            transactionHash = hash,
+            value = 1.toBigInteger(),
+            from = "FROM",
+            to = "TO",
+            blockNumber = blockNumber.toBigInteger(),
+            timestamp = 0
+        )
+
+    @Test
+    fun `fetchErc20Address keeps transfers seen before`() {
+        // Arrange
+        whenever(environmentSettings.environment).thenReturn(Environment.PRODUCTION)
+        val response = Erc20AddressResponse().apply {
+            transfers = listOf(Erc20TransferResponse().apply {
+                transactionHash = "B"
+                logIndex = "0"
+                blockNumber = 2.toBigInteger()
+            })
+        }
+        whenever(ethDataManager.getErc20Address(CryptoCurrency.PAX)).thenReturn(Observable.just(response))
+        storedTransfers().merge(listOf(transfer("A", 1)))
+        // Act
+        val testObserver = paxAccount.fetchErc20Address().test()
+        // Assert
+        testObserver.assertValue { model -> model.transfers.map { it.transactionHash } == listOf("B", "A") }
+    }
+
+    @Test
+    fun `addTransfer stores the transfer without fetching`() {
+        // Arrange
+        val stored = storedTransfers()
+        // Act
+        val testObserver = paxAccount.addTransfer(transfer("A", 1)).test()
+        // Assert
+        testObserver.assertComplete()
+        stored.transfers() `should equal` listOf(transfer("A", 1))
+        verifyZeroInteractions(ethDataManager)
+    }
+
     @Test
     fun `no transactions should be returned from empty model`() {
         // Act
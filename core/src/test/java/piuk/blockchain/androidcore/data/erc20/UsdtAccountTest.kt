@@ -16,9 +16,12 @@ import org.amshove.kluent.mock
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.junit.rules.TemporaryFolder
 import piuk.blockchain.androidcore.data.api.EnvironmentConfig
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
 import piuk.blockchain.androidcore.data.erc20.datastores.Erc20DataStore
 import piuk.blockchain.androidcore.data.ethereum.EthDataManager
+import piuk.blockchain.androidcore.data.ethereum.datastores.EthTransferHistory
 
 class UsdtAccountTest {
 
@@ -27,6 +30,9 @@ class UsdtAccountTest {
     private val erc20DataStore: Erc20DataStore = mock()
     private val environmentSettings: EnvironmentConfig = mock()
 
+    @get:Rule
+    val folder = TemporaryFolder()
+
     @get:Rule
     val initSchedulers = rxInit {
         mainTrampoline()
@@ -40,6 +46,10 @@ class UsdtAccountTest {
         transfers = listOf(Erc20TransferResponse(), Erc20TransferResponse())
     }
 
+    private fun storedTransfers(): EthTransferHistory<Erc20Transfer> =
+        Erc20DataStore(EncryptedDiskCache(folder.root, { ByteArray(32) })).transferHistory(CryptoCurrency.USDT)
+            .also { whenever(erc20DataStore.transferHistory(CryptoCurrency.USDT)).thenReturn(it) }
+
     @Before
     fun setUp() {
         usdtAccount = UsdtAccount(
@@ -64,6 +74,7 @@ class UsdtAccountTest {
         whenever(environmentSettings.environment).thenReturn(Environment.PRODUCTION)
         whenever(ethDataManager.getErc20Address(CryptoCurrency.USDT)).thenReturn(Observable.just(
             erc20AddressResponse))
+        storedTransfers()
         // Act
         val testObserver = usdtAccount.fetchErc20Address().test()
         // Assert
@@ -19,8 +19,6 @@ import io.reactivex.Completable
 import io.reactivex.Maybe
 import io.reactivex.Observable
 import io.reactivex.Single
-import org.amshove.kluent.`should contain`
-import org.amshove.kluent.`should equal to`
 import org.amshove.kluent.`should equal`
 import org.amshove.kluent.any
 import org.amshove.kluent.mock
@@ -28,10 +26,14 @@ import org.bitcoinj.core.ECKey
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.junit.rules.TemporaryFolder
 import org.mockito.Mockito
 import org.web3j.crypto.RawTransaction
 import piuk.blockchain.androidcore.data.api.EnvironmentConfig
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
+import piuk.blockchain.androidcore.data.datastores.persistentstore.TwoTierStore
 import piuk.blockchain.androidcore.data.ethereum.datastores.EthDataStore
+import piuk.blockchain.androidcore.data.ethereum.datastores.EthTransferHistory
 import piuk.blockchain.androidcore.data.ethereum.models.CombinedEthModel
 import piuk.blockchain.androidcore.data.metadata.MetadataManager
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
@@ -51,6 +53,9 @@ class EthDataManagerTest {
     private val lastTxUpdater: LastTxUpdater = mock()
     private val rxBus = RxBus()
 
+    @get:Rule
+    val folder = TemporaryFolder()
+
     @get:Rule
     val initSchedulers = rxInit {
         mainTrampoline()
@@ -117,6 +122,39 @@ class EthDataManagerTest {
         verifyNoMoreInteractions(ethAccountApi)
     }
 
+    @Test
+    fun `fetchEthAddressCacheThenNetwork emits the stored model and then the fresh one`() {
+        // Arrange
+        val ethAddress = "ADDRESS"
+        whenever(environmentSettings.environment).thenReturn(Environment.PRODUCTION)
+        whenever(ethDataStore.ethWallet!!.account.address).thenReturn(ethAddress)
+        addressStore().store(CombinedEthModel(responseWithBalance(1)))
+        val store = addressStore()
+        whenever(ethDataStore.ethAddressStore).thenReturn(store)
+        whenever(ethAccountApi.getEthAddress(listOf(ethAddress)))
+            .thenReturn(Observable.just(responseWithBalance(2)))
+        // Act
+        val testObserver = subject.fetchEthAddressCacheThenNetwork().test()
+        // Assert
+        testObserver.assertComplete()
+        testObserver.values().map { it.getTotalBalance() } `should equal` listOf(1.toBigInteger(), 2.toBigInteger())
+        store.get()!!.getTotalBalance() `should equal` 2.toBigInteger()
+    }
+
+    private fun addressStore() =
+        TwoTierStore(
+            EncryptedDiskCache(folder.root, { ByteArray(32) }),
+            "eth_address_response",
+            CombinedEthModel.Serialiser
+        )
+
+    private fun responseWithBalance(balance: Int) =
+        EthAddressResponseMap().apply {
+            setEthAddressResponseMap("", EthAddressResponse().apply {
+                this.balance = balance.toBigInteger()
+            })
+        }
+
     @Test
     fun `get balance found`() {
         // Arrange
@@ -174,23 +212,78 @@ class EthDataManagerTest {
         verifyNoMoreInteractions(ethDataStore)
     }
 
+    private fun storedTransactions(address: String): EthTransferHistory<EthTransaction> =
+        EncryptedDiskCache(folder.root, { ByteArray(32) }).let { EthDataStore(it, it) }.transactionHistory(address)
+            .also { whenever(ethDataStore.transactionHistory(address)).thenReturn(it) }
+
+    private fun transaction(hash: String, blockNumber: Long?, state: String = "CONFIRMED") =
+        EthTransaction(hash = hash, blockNumber = blockNumber, state = state)
+
     @Test
-    fun `getEthTransactions response found with 3 transactions`() {
+    fun `getEthTransactions fetches a full page when nothing is stored`() {
         // Arrange
         val ethAddress = "ADDRESS"
-        val ethTransaction: EthTransaction = mock()
+        val stored = storedTransactions(ethAddress)
         whenever(ethDataStore.ethWallet!!.account.address).thenReturn(ethAddress)
-        whenever(ethAccountApi.getEthTransactions(any()))
-            .thenReturn(Single.just(listOf(ethTransaction, ethTransaction, ethTransaction)))
+        whenever(ethAccountApi.getEthTransactions(listOf(ethAddress), 50))
+            .thenReturn(Single.just(listOf(transaction("C", 3), transaction("B", 2), transaction("A", 1))))
         // Act
         val testObserver = subject.getEthTransactions().test()
         // Assert
         testObserver.assertComplete()
         testObserver.assertNoErrors()
-        val values = testObserver.values()
-        values[0] `should contain` ethTransaction
+        testObserver.values().single().map { it.hash } `should equal` listOf("C", "B", "A")
+        stored.transfers().map { it.hash } `should equal` listOf("C", "B", "A")
+    }
+
+    @Test
+    fun `getEthTransactions only merges the newest page into the stored transactions`() {
+        // Arrange
+        val ethAddress = "ADDRESS"
+        storedTransactions(ethAddress).replace(listOf(transaction("B", 2), transaction("A", 1)))
+        whenever(ethDataStore.ethWallet!!.account.address).thenReturn(ethAddress)
+        whenever(ethAccountApi.getEthTransactions(listOf(ethAddress), 10))
+            .thenReturn(Single.just(listOf(transaction("C", 3), transaction("B", 2))))
+        // Act
+        val testObserver = subject.getEthTransactions().test()
+        // Assert
+        testObserver.assertComplete()
+        testObserver.values().single().map { it.hash } `should equal` listOf("C", "B", "A")
+        verify(ethAccountApi).getEthTransactions(listOf(ethAddress), 10)
+        verifyNoMoreInteractions(ethAccountApi)
+    }
+
+    @Test
+    fun `getEthTransactions replaces the stored transactions when the newest page doesn't reach them`() {
+        // Arrange
+        val ethAddress = "ADDRESS"
+        storedTransactions(ethAddress).replace(listOf(transaction("A", 1)))
+        val newest = (20L downTo 11L).map { transaction("T$it", it) }
+        whenever(ethDataStore.ethWallet!!.account.address).thenReturn(ethAddress)
+        whenever(ethAccountApi.getEthTransactions(listOf(ethAddress), 10))
+            .thenReturn(Single.just(newest))
+        whenever(ethAccountApi.getEthTransactions(listOf(ethAddress), 50))
+            .thenReturn(Single.just(newest + transaction("T10", 10)))
+        // Act
+        val testObserver = subject.getEthTransactions().test()
+        // Assert
+        testObserver.assertComplete()
+        testObserver.values().single().map { it.hash } `should equal` newest.map { it.hash } + "T10"
+    }
 
-        values.size `should equal to` 1
+    @Test
+    fun `getEthTransactions returns the stored transactions when the sync fails`() {
+        // Arrange
+        val ethAddress = "ADDRESS"
+        storedTransactions(ethAddress).replace(listOf(transaction("A", 1)))
+        whenever(ethDataStore.ethWallet!!.account.address).thenReturn(ethAddress)
+        whenever(ethAccountApi.getEthTransactions(listOf(ethAddress), 10))
+            .thenReturn(Single.error(Throwable()))
+        // Act
+        val testObserver = subject.getEthTransactions().test()
+        // Assert
+        testObserver.assertComplete()
+        testObserver.values().single().map { it.hash } `should equal` listOf("A")
     }
 
     @Test
@@ -0,0 +1,45 @@
+package piuk.blockchain.androidcore.data.ethereum.datastores
+
+import info.blockchain.wallet.ethereum.data.EthTransaction
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
+import java.io.File
+
+class EthDataStoreTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private fun dataStore() =
+        EthDataStore(
+            EncryptedDiskCache(File(folder.root, "store"), { ByteArray(32) }),
+            EncryptedDiskCache(File(folder.root, "eth_transactions"), { ByteArray(32) })
+        )
+
+    private fun EthDataStore.loadedHistory(address: String) =
+        transactionHistory(address).load().blockingGet()
+
+    @Test
+    fun `transaction histories survive a restart`() {
+        dataStore().loadedHistory("0xABC").merge(listOf(EthTransaction(hash = "A", blockNumber = 1L)))
+
+        dataStore().loadedHistory("0xabc").transfers().map { it.hash } `should equal` listOf("A")
+    }
+
+    @Test
+    fun `clearing removes the histories of every address, including earlier sessions'`() {
+        dataStore().loadedHistory("0xOLD").merge(listOf(EthTransaction(hash = "A", blockNumber = 1L)))
+        val dataStore = dataStore()
+        dataStore.transactionHistory("0xNEW").merge(listOf(EthTransaction(hash = "B", blockNumber = 2L)))
+
+        dataStore.clearData()
+
+        dataStore.transactionHistory("0xNEW").isEmpty() `should be` true
+        dataStore().loadedHistory("0xOLD").isEmpty() `should be` true
+        File(folder.root, "eth_transactions").listFiles()!!.isEmpty() `should be` true
+    }
+}
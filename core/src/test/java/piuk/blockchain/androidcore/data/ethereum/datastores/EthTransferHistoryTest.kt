@@ -0,0 +1,82 @@
+package piuk.blockchain.androidcore.data.ethereum.datastores
+
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedDiskCache
+import piuk.blockchain.androidcore.data.datastores.persistentstore.VersionedSerialiser
+
+class EthTransferHistoryTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    // A transfer is "id@block", with a block of 0 while it is pending
+    private object Serialiser : VersionedSerialiser<List<String>> {
+
+        override val version = 1
+
+        override fun serialise(value: List<String>): String = value.joinToString(",")
+
+        override fun deserialise(serialised: String): List<String> = serialised.split(",")
+    }
+
+    private fun history() =
+        EthTransferHistory(
+            EncryptedDiskCache(folder.root, { ByteArray(32) }),
+            "transfers",
+            Serialiser,
+            idOf = { it.substringBefore("@") },
+            blockOf = { it.substringAfter("@").toLong() }
+        ).load().blockingGet()
+
+    @Test
+    fun `transfers are kept newest first with pending ones on top`() {
+        history().merge(listOf("a@1", "c@0", "b@2"))
+
+        history().transfers() `should equal` listOf("c@0", "b@2", "a@1")
+    }
+
+    @Test
+    fun `merging replaces transfers with the same id`() {
+        history().merge(listOf("b@0", "a@1"))
+
+        history().merge(listOf("b@2"))
+
+        history().transfers() `should equal` listOf("b@2", "a@1")
+        history().isMined("b") `should be` true
+    }
+
+    @Test
+    fun `the latest page drops pending transfers it no longer has`() {
+        history().merge(listOf("c@0", "b@2", "a@1"))
+
+        history().merge(listOf("b@2"), isLatest = true)
+
+        history().transfers() `should equal` listOf("b@2", "a@1")
+        history().hasPending() `should be` false
+    }
+
+    @Test
+    fun `the history is empty until it is loaded`() {
+        history().merge(listOf("a@1"))
+
+        EthTransferHistory(
+            EncryptedDiskCache(folder.root, { ByteArray(32) }),
+            "transfers",
+            Serialiser,
+            idOf = { it.substringBefore("@") },
+            blockOf = { it.substringAfter("@").toLong() }
+        ).isEmpty() `should be` true
+    }
+
+    @Test
+    fun `a page continues the stored transfers once it reaches a mined one`() {
+        history().merge(listOf("b@2", "a@1"))
+
+        history().isContinuedBy(listOf("d@4", "c@3")) `should be` false
+        history().isContinuedBy(listOf("c@3", "b@2")) `should be` true
+    }
+}
@@ -18,6 +18,8 @@ import org.amshove.kluent.any
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import piuk.blockchain.androidcore.data.exchangerate.datastore.FileHistoricPriceStore
 import piuk.blockchain.androidcore.data.rxjava.RxBus
 
 class ExchangeRateServiceTest {
@@ -26,6 +28,7 @@ class ExchangeRateServiceTest {
 
     private val historicPriceApi: PriceApi = org.amshove.kluent.mock()
     private val rxBus = RxBus()
+    private var now = 0L
 
     @get:Rule
     val initSchedulers = rxInit {
@@ -33,9 +36,17 @@ class ExchangeRateServiceTest {
         ioTrampoline()
     }
 
+    @get:Rule
+    val folder = TemporaryFolder()
+
     @Before
     fun setUp() {
-        subject = ExchangeRateService(historicPriceApi, rxBus)
+        subject = ExchangeRateService(
+            historicPriceApi,
+            rxBus,
+            FileHistoricPriceStore(folder.root),
+            clock = { now * 1000 }
+        )
     }
 
     @Test
@@ -237,4 +248,75 @@ class ExchangeRateServiceTest {
                 this `should equal` 500.0
             }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `stored series is only topped up`() {
+        val btc = CryptoCurrency.BTC
+        val hour = TimeInterval.ONE_HOUR
+        whenever(historicPriceApi.getHistoricPriceSeries("BTC", "USD", 3600, 3600))
+            .thenReturn(Single.just(listOf(PriceDatum(3600, 1.0), PriceDatum(7200, 2.0))))
+        whenever(historicPriceApi.getHistoricPriceSeries("BTC", "USD", 7200, 3600))
+            .thenReturn(Single.just(listOf(PriceDatum(7200, 2.0), PriceDatum(10800, 3.0))))
+
+        now = 7200
+        subject.getHistoricPriceSeries(btc, "USD", 3600, hour).test()
+            .assertValue(listOf(PriceDatum(3600, 1.0), PriceDatum(7200, 2.0)))
+
+        now = 10800
+        subject.getHistoricPriceSeries(btc, "USD", 3600, hour).test()
+            .assertValue(listOf(PriceDatum(3600, 1.0), PriceDatum(7200, 2.0), PriceDatum(10800, 3.0)))
+        subject.getHistoricPriceSeries(btc, "USD", 7200, hour).test()
+            .assertValue(listOf(PriceDatum(7200, 2.0), PriceDatum(10800, 3.0)))
+
+        verify(historicPriceApi).getHistoricPriceSeries("BTC", "USD", 3600, 3600)
+        verify(historicPriceApi).getHistoricPriceSeries("BTC", "USD", 7200, 3600)
+        verifyNoMoreInteractions(historicPriceApi)
+    }
+
+    @Test
+    fun `series starting before the stored one is fetched in full`() {
+        val btc = CryptoCurrency.BTC
+        val hour = TimeInterval.ONE_HOUR
+        whenever(historicPriceApi.getHistoricPriceSeries(eq("BTC"), eq("USD"), any(), eq(3600)))
+            .thenReturn(Single.just(listOf(PriceDatum(7200, 2.0))))
+
+        now = 7200
+        subject.getHistoricPriceSeries(btc, "USD", 7200, hour).test()
+        subject.getHistoricPriceSeries(btc, "USD", 3600, hour).test()
+
+        verify(historicPriceApi).getHistoricPriceSeries("BTC", "USD", 3600, 3600)
+    }
+
+    @Test
+    fun `stored series is returned when offline`() {
+        val btc = CryptoCurrency.BTC
+        val hour = TimeInterval.ONE_HOUR
+        whenever(historicPriceApi.getHistoricPriceSeries("BTC", "USD", 3600, 3600))
+            .thenReturn(Single.just(listOf(PriceDatum(3600, 1.0))))
+
+        now = 3600
+        subject.getHistoricPriceSeries(btc, "USD", 3600, hour).test()
+
+        whenever(historicPriceApi.getHistoricPriceSeries("BTC", "USD", 3600, 3600))
+            .thenReturn(Single.error(Exception()))
+        now = 7200
+        subject.getHistoricPriceSeries(btc, "USD", 3600, hour).test()
+            .assertValue(listOf(PriceDatum(3600, 1.0)))
+    }
+
+    @Test
+    fun `no request is made until a newer price is due`() {
+        val btc = CryptoCurrency.BTC
+        whenever(historicPriceApi.getHistoricPriceSeries("BTC", "USD", 3600, 3600))
+            .thenReturn(Single.just(listOf(PriceDatum(3600, 1.0))))
+
+        now = 3600
+        subject.getHistoricPriceSeries(btc, "USD", 3600, TimeInterval.ONE_HOUR).test()
+        now = 7199
+        subject.getHistoricPriceSeries(btc, "USD", 3600, TimeInterval.ONE_HOUR).test()
+            .assertValue(listOf(PriceDatum(3600, 1.0)))
+
+        verify(historicPriceApi).getHistoricPriceSeries("BTC", "USD", 3600, 3600)
+        verifyNoMoreInteractions(historicPriceApi)
+    }
+}
@@ -0,0 +1,93 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.argumentCaptor
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.prices.data.PriceDatum
+import io.reactivex.Single
+import org.amshove.kluent.`should equal`
+import org.junit.Before
+import org.junit.Test
+import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
+import piuk.blockchain.androidcore.utils.PersistentPrefs
+
+class ExchangeRateDataStoreTest {
+
+    private val exchangeRateService: ExchangeRateService = mock()
+    private val prefs: PersistentPrefs = mock()
+
+    private lateinit var subject: ExchangeRateDataStore
+
+    @Before
+    fun setUp() {
+        whenever(exchangeRateService.getExchangeRateMap(any()))
+            .thenReturn(Single.just(emptyMap()))
+        subject = ExchangeRateDataStore(exchangeRateService, prefs, mock())
+    }
+
+    @Test
+    fun `prices are available once updated`() {
+        givenTicker(CryptoCurrency.BTC, "USD" to 10000.0, "GBP" to 8000.0)
+        givenTicker(CryptoCurrency.ETHER, "USD" to 400.0)
+
+        subject.updateExchangeRates().test().assertComplete()
+
+        subject.getLastPrice(CryptoCurrency.BTC, "GBP") `should equal` 8000.0
+        subject.getLastPrice(CryptoCurrency.ETHER, "USD") `should equal` 400.0
+        subject.getLastPrice(CryptoCurrency.ETHER, "GBP") `should equal` 0.0
+        subject.getLastPrice(CryptoCurrency.BTC, "JPY") `should equal` 0.0
+        subject.getCurrencyLabels().toList() `should equal` listOf("USD", "GBP")
+        subject.getFiatLastPrice("GBP", "USD") `should equal` 0.8
+    }
+
+    @Test
+    fun `asset that fails to update keeps its previous prices`() {
+        givenTicker(CryptoCurrency.BTC, "USD" to 10000.0)
+        givenTicker(CryptoCurrency.XLM, "USD" to 0.1)
+        subject.updateExchangeRates().test()
+
+        val error = Exception()
+        whenever(exchangeRateService.getExchangeRateMap(CryptoCurrency.XLM))
+            .thenReturn(Single.error(error))
+        givenTicker(CryptoCurrency.BTC, "USD" to 11000.0)
+
+        subject.updateExchangeRates().test().assertError(error)
+
+        subject.getLastPrice(CryptoCurrency.BTC, "USD") `should equal` 11000.0
+        subject.getLastPrice(CryptoCurrency.XLM, "USD") `should equal` 0.1
+    }
+
+    @Test
+    fun `prices are persisted once per update and restored next session`() {
+        givenTicker(CryptoCurrency.BTC, "USD" to 10000.0)
+        subject.updateExchangeRates().test()
+        subject.getLastPrice(CryptoCurrency.BTC, "USD")
+        subject.getLastPrice(CryptoCurrency.BTC, "USD")
+
+        val saved = argumentCaptor<String>()
+        verify(prefs, times(1)).setValue(any(), saved.capture())
+        whenever(prefs.getValue(any<String>())).thenReturn(saved.firstValue)
+
+        val next = ExchangeRateDataStore(exchangeRateService, prefs, mock())
+
+        next.getLastPrice(CryptoCurrency.BTC, "USD") `should equal` 10000.0
+        (next.snapshot.fetchedAt > 0) `should equal` true
+    }
+
+    @Test
+    fun `unreadable persisted prices are dropped`() {
+        whenever(prefs.getValue(any<String>())).thenReturn("{")
+
+        subject.getLastPrice(CryptoCurrency.BTC, "USD") `should equal` 0.0
+        subject.snapshot.fetchedAt `should equal` 0L
+    }
+
+    private fun givenTicker(asset: CryptoCurrency, vararg prices: Pair<String, Double>) {
+        whenever(exchangeRateService.getExchangeRateMap(asset))
+            .thenReturn(Single.just(prices.associate { (fiat, price) -> fiat to PriceDatum(price = price) }))
+    }
+}
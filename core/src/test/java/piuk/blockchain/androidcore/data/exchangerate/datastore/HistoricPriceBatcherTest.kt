@@ -0,0 +1,207 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import com.blockchain.android.testutils.rxInit
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.eq
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.verifyNoMoreInteractions
+import com.nhaarman.mockito_kotlin.whenever
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.prices.PriceApi
+import info.blockchain.wallet.prices.data.PriceDatum
+import io.reactivex.Single
+import io.reactivex.schedulers.TestScheduler
+import org.amshove.kluent.`should equal`
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
+import piuk.blockchain.androidcore.data.rxjava.RxBus
+import java.util.concurrent.TimeUnit
+
+class HistoricPriceBatcherTest {
+
+    private val scheduler = TestScheduler()
+
+    @get:Rule
+    val initSchedulers = rxInit {
+        ioTrampoline()
+    }
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val priceApi: PriceApi = mock()
+    private val now = 100 * DAY
+
+    private var writes = 0
+    private lateinit var store: HistoricPriceStore
+    private lateinit var subject: HistoricPriceBatcher
+
+    @Before
+    fun setUp() {
+        val files = FileHistoricPriceStore(folder.root)
+        store = object : HistoricPriceStore by files {
+            override fun putPrices(
+                asset: CryptoCurrency,
+                fiat: String,
+                resolutionSeconds: Int,
+                prices: Map<Long, Double>
+            ) {
+                writes++
+                files.putPrices(asset, fiat, resolutionSeconds, prices)
+            }
+        }
+        val clock = { now * 1000 }
+        subject = HistoricPriceBatcher(
+            store = store,
+            exchangeRateService = ExchangeRateService(priceApi, RxBus(), store, clock),
+            clock = clock,
+            scheduler = scheduler
+        )
+    }
+
+    @Test
+    fun `lookups in the same bucket share one request`() {
+        whenever(priceApi.getHistoricPrice("BTC", "USD", now - 2 * DAY))
+            .thenReturn(Single.just(5.0))
+
+        val first = subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 2 * DAY + 10).test()
+        val second = subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 2 * DAY + 20).test()
+        waitForBatch()
+
+        first.assertValue(5.0)
+        second.assertValue(5.0)
+        verify(priceApi).getHistoricPrice("BTC", "USD", now - 2 * DAY)
+        verifyNoMoreInteractions(priceApi)
+    }
+
+    @Test
+    fun `stored prices need no request`() {
+        whenever(priceApi.getHistoricPrice("BTC", "USD", now - 2 * DAY))
+            .thenReturn(Single.just(5.0))
+        subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 2 * DAY).test()
+        waitForBatch()
+
+        // Read back from disk
+        setUp()
+        subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 2 * DAY + 30).test()
+            .assertValue(5.0)
+
+        verify(priceApi).getHistoricPrice("BTC", "USD", now - 2 * DAY)
+        verifyNoMoreInteractions(priceApi)
+    }
+
+    @Test
+    fun `many missing buckets are filled from one series`() {
+        val start = now - 3 * DAY
+        whenever(priceApi.getHistoricPriceSeries("BTC", "USD", start, HOUR.toInt()))
+            .thenReturn(
+                Single.just(
+                    (0 until 72).map { PriceDatum(start + it * HOUR, it.toDouble()) }
+                )
+            )
+
+        val tests = listOf(0, 5, 30).map {
+            subject.getHistoricPrice(CryptoCurrency.BTC, "USD", start + it * HOUR + 60).test()
+        }
+        waitForBatch()
+
+        tests[0].assertValue(0.0)
+        tests[1].assertValue(5.0)
+        tests[2].assertValue(30.0)
+        verify(priceApi).getHistoricPriceSeries("BTC", "USD", start, HOUR.toInt())
+        verifyNoMoreInteractions(priceApi)
+    }
+
+    @Test
+    fun `buckets missing from the series are fetched on their own`() {
+        val start = now - 3 * DAY
+        whenever(priceApi.getHistoricPriceSeries("BTC", "USD", start, HOUR.toInt()))
+            .thenReturn(Single.just(listOf(PriceDatum(start, 1.0))))
+        whenever(priceApi.getHistoricPrice(eq("BTC"), eq("USD"), any()))
+            .thenReturn(Single.just(2.0))
+
+        val tests = listOf(0, 5, 30).map {
+            subject.getHistoricPrice(CryptoCurrency.BTC, "USD", start + it * HOUR).test()
+        }
+        waitForBatch()
+
+        tests.map { it.values().single() } `should equal` listOf(1.0, 2.0, 2.0)
+        verify(priceApi).getHistoricPrice("BTC", "USD", start + 5 * HOUR)
+        verify(priceApi).getHistoricPrice("BTC", "USD", start + 30 * HOUR)
+    }
+
+    @Test
+    fun `prices fetched in one batch are stored in one write`() {
+        whenever(priceApi.getHistoricPrice(eq("BTC"), eq("USD"), any()))
+            .thenReturn(Single.just(5.0))
+
+        val tests = listOf(2, 3).map {
+            subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - it * DAY).test()
+        }
+        waitForBatch()
+
+        tests.forEach { it.assertValue(5.0) }
+        writes `should equal` 1
+        setUp()
+        subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 3 * DAY).test()
+            .assertValue(5.0)
+        verify(priceApi).getHistoricPrice("BTC", "USD", now - 3 * DAY)
+    }
+
+    @Test
+    fun `cleared prices are fetched again`() {
+        whenever(priceApi.getHistoricPrice("BTC", "USD", now - 2 * DAY))
+            .thenReturn(Single.just(5.0))
+            .thenReturn(Single.just(6.0))
+        subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 2 * DAY).test()
+        waitForBatch()
+
+        store.clear()
+        val second = subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 2 * DAY).test()
+        waitForBatch()
+
+        second.assertValue(6.0)
+    }
+
+    @Test
+    fun `failed lookup is tried again next time`() {
+        whenever(priceApi.getHistoricPrice("BTC", "USD", now - 2 * DAY))
+            .thenReturn(Single.error(Exception()))
+            .thenReturn(Single.just(5.0))
+
+        val first = subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 2 * DAY).test()
+        waitForBatch()
+        val second = subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now - 2 * DAY).test()
+        waitForBatch()
+
+        first.assertError(Exception::class.java)
+        second.assertValue(5.0)
+    }
+
+    @Test
+    fun `prices for the current minute are not stored`() {
+        whenever(priceApi.getHistoricPrice("BTC", "USD", now))
+            .thenReturn(Single.just(5.0))
+            .thenReturn(Single.just(6.0))
+
+        subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now).test()
+        waitForBatch()
+        val second = subject.getHistoricPrice(CryptoCurrency.BTC, "USD", now).test()
+        waitForBatch()
+
+        second.assertValue(6.0)
+    }
+
+    private fun waitForBatch() {
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS)
+    }
+
+    companion object {
+        private const val HOUR = 3600L
+        private const val DAY = 24 * HOUR
+    }
+}
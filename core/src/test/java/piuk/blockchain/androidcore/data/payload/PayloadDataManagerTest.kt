@@ -218,6 +218,18 @@ class PayloadDataManagerTest {
         testObserver.assertComplete()
     }
 
+    @Test
+    fun refreshAllBalances() {
+        // Arrange
+        whenever(payloadService.refreshAllBalances()).thenReturn(Completable.complete())
+        // Act
+        val testObserver = subject.refreshAllBalances().test()
+        // Assert
+        verify(payloadService).refreshAllBalances()
+        verifyNoMoreInteractions(payloadService)
+        testObserver.assertComplete()
+    }
+
     @Test
     fun updateTransactionNotes() {
         // Arrange
@@ -539,6 +551,19 @@ class PayloadDataManagerTest {
         result shouldEqual CryptoValue.fromMinor(CryptoCurrency.BTC, balance)
     }
 
+    @Test
+    fun prefillAddressCache() {
+        // Arrange
+
+        // Act
+        val testObserver = subject.prefillAddressCache().test()
+        testScheduler.triggerActions()
+        // Assert
+        verify(payloadManager).prefillAddressCache()
+        verifyNoMoreInteractions(payloadManager)
+        testObserver.assertComplete()
+    }
+
     @Test
     fun getReceiveAddressAtPosition() {
         // Arrange
@@ -231,6 +231,18 @@ class PayloadServiceTest {
         testObserver.assertComplete()
     }
 
+    @Test
+    fun refreshAllBalances() {
+        // Arrange
+
+        // Act
+        val testObserver = subject.refreshAllBalances().test()
+        // Assert
+        verify(mockPayloadManager).updateAllBalances(true)
+        verifyNoMoreInteractions(mockPayloadManager)
+        testObserver.assertComplete()
+    }
+
     @Test
     fun getBalanceOfAddresses() {
         // Arrange
@@ -13,12 +13,14 @@ import info.blockchain.wallet.exceptions.ApiException
 import info.blockchain.wallet.exceptions.TransactionHashApiException
 import info.blockchain.wallet.payment.InsufficientMoneyException
 import info.blockchain.wallet.payment.Payment
+import info.blockchain.wallet.payment.PreparedUnspentOutputs
 import info.blockchain.wallet.payment.SpendableUnspentOutputs
 import io.reactivex.Single
 import junit.framework.Assert.assertEquals
 import junit.framework.Assert.assertTrue
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import okhttp3.ResponseBody
+import org.amshove.kluent.`should be`
 import org.amshove.kluent.`should be instance of`
 import org.amshove.kluent.`should equal`
 import org.apache.commons.lang3.tuple.Pair
@@ -448,7 +450,7 @@ class PaymentServiceTest {
         // Arrange
         val address = "ADDRESS"
         val mockCall = mock<Call<UnspentOutputs>>()
-        val mockOutputs = mock(UnspentOutputs::class.java)
+        val mockOutputs = UnspentOutputs().apply { unspentOutputs = arrayListOf() }
         val response = Response.success(mockOutputs)
         whenever(mockCall.execute()).thenReturn(response)
         whenever(payment.getUnspentCoins(listOf(address))).thenReturn(mockCall)
@@ -457,7 +459,8 @@ class PaymentServiceTest {
         // Assert
         testObserver.assertComplete()
         testObserver.assertNoErrors()
-        assertEquals(mockOutputs, testObserver.values()[0])
+        testObserver.values()[0] `should be instance of` PreparedUnspentOutputs::class
+        testObserver.values()[0].unspentOutputs `should be` mockOutputs.unspentOutputs
         verify(payment).getUnspentCoins(listOf(address))
         verifyNoMoreInteractions(payment)
     }
@@ -504,7 +507,7 @@ class PaymentServiceTest {
         // Arrange
         val address = "ADDRESS"
         val mockCall = mock<Call<UnspentOutputs>>()
-        val mockOutputs = mock(UnspentOutputs::class.java)
+        val mockOutputs = UnspentOutputs().apply { unspentOutputs = arrayListOf() }
         val response = Response.success(mockOutputs)
         whenever(mockCall.execute()).thenReturn(response)
         whenever(payment.getUnspentBchCoins(listOf(address))).thenReturn(mockCall)
@@ -513,7 +516,8 @@ class PaymentServiceTest {
         // Assert
         testObserver.assertComplete()
         testObserver.assertNoErrors()
-        assertEquals(mockOutputs, testObserver.values()[0])
+        testObserver.values()[0] `should be instance of` PreparedUnspentOutputs::class
+        testObserver.values()[0].unspentOutputs `should be` mockOutputs.unspentOutputs
         verify(payment).getUnspentBchCoins(listOf(address))
         verifyNoMoreInteractions(payment)
     }
@@ -3,8 +3,6 @@ package piuk.blockchain.androidcore.data.rxjava
 import com.nhaarman.mockito_kotlin.mock
 import io.reactivex.Observable
 import org.amshove.kluent.shouldEqual
-import org.amshove.kluent.shouldHaveKey
-import org.amshove.kluent.shouldNotHaveKey
 import org.junit.Before
 import org.junit.Test
 import piuk.blockchain.android.testutils.RxTest
@@ -25,9 +23,7 @@ class RxBusTest : RxTest() {
         // Act
         subject.register(type)
         // Assert
-        subject.subjectsMap shouldHaveKey type
-        subject.subjectsMap.size shouldEqual 1
-        subject.subjectsMap[type]!!.size shouldEqual 1
+        subject.getSubscriberCount(type) shouldEqual 1
     }
 
     @Test
@@ -39,9 +35,7 @@ class RxBusTest : RxTest() {
         subject.register(type)
         subject.register(type)
         // Assert
-        subject.subjectsMap shouldHaveKey type
-        subject.subjectsMap.size shouldEqual 1
-        subject.subjectsMap[type]!!.size shouldEqual 3
+        subject.getSubscriberCount(type) shouldEqual 3
     }
 
     @Test
@@ -55,13 +49,9 @@ class RxBusTest : RxTest() {
         subject.register(type1)
         subject.register(type2)
         // Assert
-        subject.subjectsMap shouldHaveKey type0
-        subject.subjectsMap shouldHaveKey type1
-        subject.subjectsMap shouldHaveKey type2
-        subject.subjectsMap.size shouldEqual 3
-        subject.subjectsMap[type0]!!.size shouldEqual 1
-        subject.subjectsMap[type1]!!.size shouldEqual 1
-        subject.subjectsMap[type2]!!.size shouldEqual 1
+        subject.getSubscriberCount(type0) shouldEqual 1
+        subject.getSubscriberCount(type1) shouldEqual 1
+        subject.getSubscriberCount(type2) shouldEqual 1
     }
 
     @Test
@@ -72,8 +62,7 @@ class RxBusTest : RxTest() {
         val observable = subject.register(type)
         subject.unregister(type, observable)
         // Assert
-        subject.subjectsMap shouldNotHaveKey type
-        subject.subjectsMap.size shouldEqual 0
+        subject.getSubscriberCount(type) shouldEqual 0
     }
 
     @Test
@@ -85,10 +74,10 @@ class RxBusTest : RxTest() {
         val observableToBeUnregistered = subject.register(type)
         subject.unregister(type, observableToBeUnregistered)
         // Assert
-        subject.subjectsMap shouldHaveKey type
-        subject.subjectsMap.size shouldEqual 1
-        subject.subjectsMap[type]!!.size shouldEqual 1
-        subject.subjectsMap[type]!![0] shouldEqual observableToBeLeftRegistered
+        subject.getSubscriberCount(type) shouldEqual 1
+        val testObserver = observableToBeLeftRegistered.test()
+        subject.emitEvent(type, "VALUE")
+        testObserver.assertValue("VALUE")
     }
 
     @Test
@@ -99,8 +88,7 @@ class RxBusTest : RxTest() {
         val observable: Observable<String> = mock()
         subject.unregister(type, observable)
         // Assert
-        subject.subjectsMap shouldNotHaveKey type
-        subject.subjectsMap.size shouldEqual 0
+        subject.getSubscriberCount(type) shouldEqual 0
     }
 
     @Test
@@ -130,4 +118,57 @@ class RxBusTest : RxTest() {
         testObserver.assertNoErrors()
         testObserver.assertNoValues()
     }
-}
\ No newline at end of file
+
+    @Test
+    fun emitEventCountsUndeliveredEvents() {
+        // Arrange
+        val type = String::class.java
+        // Act
+        subject.emitEvent(type, "VALUE")
+        subject.register(type)
+        subject.emitEvent(type, "VALUE")
+        // Assert
+        val stats = subject.getStats(type)
+        stats.subscribers shouldEqual 1
+        stats.emitted shouldEqual 2L
+        stats.undelivered shouldEqual 1L
+    }
+
+    @Test
+    fun replayLatestStartsNewSubscribersWithLatestEvent() {
+        // Arrange
+        val type = String::class.java
+        subject.replayLatest(type)
+        // Act
+        subject.emitEvent(type, "FIRST")
+        subject.emitEvent(type, "SECOND")
+        val testObserver = subject.register(type).test()
+        subject.emitEvent(type, "THIRD")
+        // Assert
+        testObserver.assertValues("SECOND", "THIRD")
+    }
+
+    @Test
+    fun replayLatestUnregister() {
+        // Arrange
+        val type = String::class.java
+        subject.replayLatest(type)
+        subject.emitEvent(type, "VALUE")
+        // Act
+        val observable = subject.register(type)
+        subject.unregister(type, observable)
+        // Assert
+        subject.getSubscriberCount(type) shouldEqual 0
+    }
+
+    @Test
+    fun typesWithoutReplayDoNotReplay() {
+        // Arrange
+        val type = String::class.java
+        subject.emitEvent(type, "VALUE")
+        // Act
+        val testObserver = subject.register(type).test()
+        // Assert
+        testObserver.assertNoValues()
+    }
+}
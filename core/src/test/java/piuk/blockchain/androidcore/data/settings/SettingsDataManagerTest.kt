@@ -37,13 +37,13 @@ class SettingsDataManagerTest : RxTest() {
         val mockSettings = mock(Settings::class.java)
         val guid = "GUID"
         val sharedKey = "SHARED_KEY"
-        whenever(settingsDataStore.fetchSettings()).thenReturn(Observable.just(mockSettings))
+        whenever(settingsDataStore.revalidateSettings(guid)).thenReturn(Observable.just(mockSettings))
         // Act
         val testObserver = subject.initSettings(guid, sharedKey).test()
         // Assert
         verify(settingsService).initSettings(guid, sharedKey)
         verifyNoMoreInteractions(settingsService)
-        verify(settingsDataStore).fetchSettings()
+        verify(settingsDataStore).revalidateSettings(guid)
         verifyNoMoreInteractions(settingsDataStore)
         testObserver.assertComplete()
         testObserver.assertNoErrors()
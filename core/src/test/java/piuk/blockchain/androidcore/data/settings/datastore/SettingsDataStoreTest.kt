@@ -1,19 +1,27 @@
 package piuk.blockchain.androidcore.data.settings.datastore
 
+import com.nhaarman.mockito_kotlin.never
 import com.nhaarman.mockito_kotlin.verify
 import com.nhaarman.mockito_kotlin.whenever
 import info.blockchain.wallet.api.data.Settings
 import io.reactivex.Observable
+import org.amshove.kluent.`should equal`
 import org.amshove.kluent.mock
 import org.junit.Test
 import piuk.blockchain.android.testutils.RxTest
 import com.blockchain.utils.Optional
+import piuk.blockchain.androidcore.data.datastores.persistentstore.CachedValue
+import piuk.blockchain.androidcore.data.datastores.persistentstore.EncryptedPersistentStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.Validators
+import piuk.blockchain.androidcore.data.rxjava.RxPinning
 
 class SettingsDataStoreTest : RxTest() {
 
     private lateinit var subject: SettingsDataStore
     private lateinit var webSource: Observable<Settings>
     private val memoryStore: SettingsMemoryStore = mock()
+    private val diskStore: EncryptedPersistentStore<Settings> = mock()
+    private val rxPinning = RxPinning(mock())
 
     @Test
     fun `getSettings using DefaultFetchStrategy from websource`() {
@@ -22,11 +30,13 @@ class SettingsDataStoreTest : RxTest() {
         webSource = Observable.just(mockSettings)
         whenever(memoryStore.getSettings()).thenReturn(Observable.just(Optional.None))
         whenever(memoryStore.store(mockSettings)).thenReturn(Observable.just(mockSettings))
-        subject = SettingsDataStore(memoryStore, webSource)
+        whenever(diskStore.store(mockSettings)).thenReturn(Observable.just(mockSettings))
+        subject = SettingsDataStore(memoryStore, webSource, diskStore, rxPinning)
         // Act
         val testObserver = subject.getSettings().test()
         // Assert
         verify(memoryStore).getSettings()
+        verify(diskStore).store(mockSettings)
         testObserver.assertValue { it == mockSettings }
     }
 
@@ -36,11 +46,80 @@ class SettingsDataStoreTest : RxTest() {
         val mockSettings: Settings = mock()
         webSource = Observable.just(mockSettings)
         whenever(memoryStore.store(mockSettings)).thenReturn(Observable.just(mockSettings))
-        subject = SettingsDataStore(memoryStore, webSource)
+        whenever(diskStore.store(mockSettings)).thenReturn(Observable.just(mockSettings))
+        subject = SettingsDataStore(memoryStore, webSource, diskStore, rxPinning)
         // Act
         val testObserver = subject.fetchSettings().test()
         // Assert
         verify(memoryStore).store(mockSettings)
+        verify(diskStore).store(mockSettings)
         testObserver.assertValue { it == mockSettings }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `revalidateSettings returns stored settings and refreshes them`() {
+        // Arrange
+        val storedSettings: Settings = mock()
+        val latestSettings: Settings = mock()
+        whenever(storedSettings.guid).thenReturn(GUID)
+        webSource = Observable.just(latestSettings)
+        whenever(diskStore.read()).thenReturn(
+            Optional.Some(CachedValue(storedSettings, 0L, Validators.NONE, isStale = true))
+        )
+        whenever(memoryStore.store(storedSettings)).thenReturn(Observable.just(storedSettings))
+        whenever(memoryStore.store(latestSettings)).thenReturn(Observable.just(latestSettings))
+        whenever(diskStore.store(latestSettings)).thenReturn(Observable.just(latestSettings))
+        subject = SettingsDataStore(memoryStore, webSource, diskStore, rxPinning)
+        val staleObserver = subject.isStale().test()
+        // Act
+        val testObserver = subject.revalidateSettings(GUID).test()
+        // Assert
+        testObserver.assertValue(storedSettings)
+        verify(memoryStore).store(latestSettings)
+        verify(diskStore).store(latestSettings)
+        staleObserver.assertValues(false, true, false)
+    }
+
+    @Test
+    fun `revalidateSettings ignores stored settings of another wallet`() {
+        // Arrange
+        val storedSettings: Settings = mock()
+        val latestSettings: Settings = mock()
+        whenever(storedSettings.guid).thenReturn("OTHER_GUID")
+        webSource = Observable.just(latestSettings)
+        whenever(diskStore.read()).thenReturn(
+            Optional.Some(CachedValue(storedSettings, 0L, Validators.NONE, isStale = false))
+        )
+        whenever(memoryStore.store(latestSettings)).thenReturn(Observable.just(latestSettings))
+        whenever(diskStore.store(latestSettings)).thenReturn(Observable.just(latestSettings))
+        subject = SettingsDataStore(memoryStore, webSource, diskStore, rxPinning)
+        // Act
+        val testObserver = subject.revalidateSettings(GUID).test()
+        // Assert
+        testObserver.assertValue(latestSettings)
+        verify(memoryStore, never()).store(storedSettings)
+    }
+
+    @Test
+    fun `revalidateSettings doesn't refresh again while a refresh is running`() {
+        // Arrange
+        val storedSettings: Settings = mock()
+        whenever(storedSettings.guid).thenReturn(GUID)
+        var requests = 0
+        webSource = Observable.never<Settings>().doOnSubscribe { requests++ }
+        whenever(diskStore.read()).thenReturn(
+            Optional.Some(CachedValue(storedSettings, 0L, Validators.NONE, isStale = true))
+        )
+        whenever(memoryStore.store(storedSettings)).thenReturn(Observable.just(storedSettings))
+        subject = SettingsDataStore(memoryStore, webSource, diskStore, rxPinning)
+        // Act
+        subject.revalidateSettings(GUID).test()
+        subject.revalidateSettings(GUID).test()
+        // Assert
+        requests `should equal` 1
+    }
+
+    companion object {
+        private const val GUID = "GUID"
+    }
+}
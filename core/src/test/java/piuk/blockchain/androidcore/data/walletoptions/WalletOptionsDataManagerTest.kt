@@ -1,18 +1,29 @@
 package piuk.blockchain.androidcore.data.walletoptions
 
 import com.blockchain.android.testutils.rxInit
+import com.blockchain.utils.Optional
 import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.verify
 import com.nhaarman.mockito_kotlin.whenever
 import info.blockchain.wallet.api.data.AndroidUpgrade
 import info.blockchain.wallet.api.data.UpdateType
 import info.blockchain.wallet.api.data.WalletOptions
 import io.reactivex.Observable
+import okhttp3.Headers.Companion.headersOf
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.ResponseBody
+import okhttp3.ResponseBody.Companion.toResponseBody
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.mockito.Mockito
 import piuk.blockchain.androidcore.data.auth.AuthService
+import piuk.blockchain.androidcore.data.datastores.persistentstore.CachedValue
+import piuk.blockchain.androidcore.data.datastores.persistentstore.PrefsPersistentStore
+import piuk.blockchain.androidcore.data.datastores.persistentstore.Validators
 import piuk.blockchain.androidcore.data.settings.SettingsDataManager
+import retrofit2.Response
 import kotlin.test.assertEquals
 
 class WalletOptionsDataManagerTest {
@@ -24,6 +35,8 @@ class WalletOptionsDataManagerTest {
     private val mockSettingsDataManager: SettingsDataManager =
         mock(defaultAnswer = Mockito.RETURNS_DEEP_STUBS)
     private val explorerUrl: String = "https://blockchain.info/"
+    private val walletOptionsStore: PrefsPersistentStore<String> = mock()
+    private val walletOptionsByJson = mutableMapOf<String, WalletOptions>()
 
     @Suppress("unused")
     @get:Rule
@@ -34,21 +47,51 @@ class WalletOptionsDataManagerTest {
     @Before
     fun setUp() {
         walletOptionsState.wipe()
+        whenever(walletOptionsStore.read()).thenReturn(Optional.None)
         subject = WalletOptionsDataManager(
             authService,
             walletOptionsState,
             mockSettingsDataManager,
-            explorerUrl
+            explorerUrl,
+            walletOptionsStore,
+            walletOptionsByJson::getValue
         )
     }
 
+    private fun givenLatestWalletOptions(walletOptions: WalletOptions, eTag: String? = null) {
+        val json = jsonOf(walletOptions)
+        whenever(authService.getWalletOptionsIfChanged(eTag, null)).thenReturn(
+            Observable.just(Response.success(json.toResponseBody(null), headersOf("ETag", LATEST_ETAG)))
+        )
+    }
+
+    private fun givenStoredWalletOptions(walletOptions: WalletOptions, isStale: Boolean) {
+        whenever(walletOptionsStore.read()).thenReturn(
+            Optional.Some(CachedValue(jsonOf(walletOptions), 0L, Validators(eTag = STORED_ETAG), isStale))
+        )
+    }
+
+    private fun notModified(): Response<ResponseBody> =
+        Response.error(
+            "".toResponseBody(null),
+            okhttp3.Response.Builder()
+                .code(304)
+                .message("Not Modified")
+                .protocol(Protocol.HTTP_1_1)
+                .request(Request.Builder().url(explorerUrl).build())
+                .build()
+        )
+
+    private fun jsonOf(walletOptions: WalletOptions): String =
+        "wallet-options-${walletOptionsByJson.size}".also { walletOptionsByJson[it] = walletOptions }
+
     @Test
     fun `checkForceUpgrade missing androidUpgrade JSON object`() {
         // Arrange
         val walletOptions: WalletOptions = mock()
         val versionName = "360.0.1"
         whenever(walletOptions.androidUpdate).thenReturn(AndroidUpgrade())
-        whenever(authService.getWalletOptions()).thenReturn(Observable.just(walletOptions))
+        givenLatestWalletOptions(walletOptions)
         // Act
         val testObserver = subject.checkForceUpgrade(versionName).test()
         // Assert
@@ -63,7 +106,7 @@ class WalletOptionsDataManagerTest {
         val walletOptions: WalletOptions = mock()
         whenever(walletOptions.androidUpdate).thenReturn(AndroidUpgrade())
         val versionName = "360.0.1"
-        whenever(authService.getWalletOptions()).thenReturn(Observable.just(walletOptions))
+        givenLatestWalletOptions(walletOptions)
         // Act
         val testObserver = subject.checkForceUpgrade(versionName).test()
         // Assert
@@ -80,7 +123,7 @@ class WalletOptionsDataManagerTest {
             AndroidUpgrade("361.0.1", UpdateType.RECOMMENDED)
         )
         val versionName = "360.0.1"
-        whenever(authService.getWalletOptions()).thenReturn(Observable.just(walletOptions))
+        givenLatestWalletOptions(walletOptions)
         // Act
         val testObserver = subject.checkForceUpgrade(versionName).test()
         // Assert
@@ -97,7 +140,7 @@ class WalletOptionsDataManagerTest {
             AndroidUpgrade("361.0.1", UpdateType.FORCE)
         )
         val versionName = "360.0.1"
-        whenever(authService.getWalletOptions()).thenReturn(Observable.just(walletOptions))
+        givenLatestWalletOptions(walletOptions)
         // Act
         val testObserver = subject.checkForceUpgrade(versionName).test()
         // Assert
@@ -112,7 +155,7 @@ class WalletOptionsDataManagerTest {
         val walletOptionsRoot = "https://blockchain.com/wallet"
         val mockOptions: WalletOptions = mock()
         whenever(mockOptions.buyWebviewWalletLink).thenReturn(walletOptionsRoot)
-        whenever(authService.getWalletOptions()).thenReturn(Observable.just(mockOptions))
+        givenLatestWalletOptions(mockOptions)
         // Act
         val result = subject.getBuyWebviewWalletLink()
         // Assert
@@ -125,10 +168,77 @@ class WalletOptionsDataManagerTest {
         val walletOptionsRoot = null
         val mockOptions: WalletOptions = mock()
         whenever(mockOptions.buyWebviewWalletLink).thenReturn(walletOptionsRoot)
-        whenever(authService.getWalletOptions()).thenReturn(Observable.just(mockOptions))
+        givenLatestWalletOptions(mockOptions)
         // Act
         val result = subject.getBuyWebviewWalletLink()
         // Assert
         assertEquals("https://blockchain.info/wallet/#/intermediate", result)
     }
+
+    @Test
+    fun `latest wallet options are stored with their validators`() {
+        // Arrange
+        val mockOptions: WalletOptions = mock()
+        whenever(mockOptions.stellarHorizonUrl).thenReturn("https://horizon.stellar.org")
+        givenLatestWalletOptions(mockOptions)
+        // Act
+        val testObserver = subject.xlmHorizonUrl("default").test()
+        // Assert
+        testObserver.assertValue("https://horizon.stellar.org")
+        verify(walletOptionsStore).store("wallet-options-0", Validators(eTag = LATEST_ETAG))
+    }
+
+    @Test
+    fun `stored wallet options are served and kept when not modified`() {
+        // Arrange
+        val storedOptions: WalletOptions = mock()
+        whenever(storedOptions.androidUpdate).thenReturn(AndroidUpgrade("361.0.1", UpdateType.FORCE))
+        givenStoredWalletOptions(storedOptions, isStale = true)
+        whenever(authService.getWalletOptionsIfChanged(STORED_ETAG, null)).thenReturn(
+            Observable.just(notModified())
+        )
+        val staleObserver = subject.isStale().test()
+        // Act
+        val testObserver = subject.checkForceUpgrade("360.0.1").test()
+        // Assert
+        testObserver.assertComplete()
+        testObserver.assertValue(UpdateType.FORCE)
+        verify(walletOptionsStore).touch()
+        staleObserver.assertValues(false, true, false)
+    }
+
+    @Test
+    fun `stored wallet options are replaced when modified`() {
+        // Arrange
+        val storedOptions: WalletOptions = mock()
+        whenever(storedOptions.buyWebviewWalletLink).thenReturn("https://blockchain.com/stored")
+        givenStoredWalletOptions(storedOptions, isStale = false)
+        val latestOptions: WalletOptions = mock()
+        whenever(latestOptions.buyWebviewWalletLink).thenReturn("https://blockchain.com/latest")
+        givenLatestWalletOptions(latestOptions, eTag = STORED_ETAG)
+        // Act
+        val result = subject.getBuyWebviewWalletLink()
+        // Assert
+        assertEquals("https://blockchain.com/latest/#/intermediate", result)
+        verify(walletOptionsStore).store("wallet-options-1", Validators(eTag = LATEST_ETAG))
+    }
+
+    @Test
+    fun `stored wallet options are kept when revalidation fails`() {
+        // Arrange
+        val storedOptions: WalletOptions = mock()
+        whenever(storedOptions.buyWebviewWalletLink).thenReturn("https://blockchain.com/stored")
+        givenStoredWalletOptions(storedOptions, isStale = true)
+        whenever(authService.getWalletOptionsIfChanged(STORED_ETAG, null))
+            .thenReturn(Observable.error(Throwable()))
+        // Act
+        val result = subject.getBuyWebviewWalletLink()
+        // Assert
+        assertEquals("https://blockchain.com/stored/#/intermediate", result)
+    }
+
+    companion object {
+        private const val STORED_ETAG = "\"stored\""
+        private const val LATEST_ETAG = "\"latest\""
+    }
 }
@@ -39,6 +39,9 @@ import com.blockchain.swap.nabu.datamanagers.repositories.interest.InterestEligi
 import com.blockchain.swap.nabu.datamanagers.repositories.interest.InterestLimitsProvider
 import com.blockchain.swap.nabu.datamanagers.repositories.interest.InterestLimitsProviderImpl
 import com.blockchain.swap.nabu.datamanagers.repositories.interest.InterestRepository
+import com.blockchain.swap.nabu.datamanagers.repositories.orders.BuySellOrdersProvider
+import com.blockchain.swap.nabu.datamanagers.repositories.orders.BuySellOrdersProviderImpl
+import com.blockchain.swap.nabu.datamanagers.repositories.orders.BuySellOrdersRepository
 import com.blockchain.swap.nabu.datamanagers.repositories.serialization.InterestEligibilityMapAdapter
 import com.blockchain.swap.nabu.datamanagers.repositories.serialization.InterestLimitsMapAdapter
 import com.blockchain.swap.nabu.datamanagers.repositories.swap.SwapActivityProvider
@@ -112,7 +115,8 @@ val nabuModule = module {
                 kycFeatureEligibility = get(),
                 assetBalancesRepository = get(),
                 interestRepository = get(),
-                swapRepository = get()
+                swapRepository = get(),
+                buySellOrdersRepository = get()
             )
         }.bind(CustodialWalletManager::class)
 
@@ -170,6 +174,13 @@ val nabuModule = module {
             )
         }.bind(SwapActivityProvider::class)
 
+        factory {
+            BuySellOrdersProviderImpl(
+                authenticator = get(),
+                nabuService = get()
+            )
+        }.bind(BuySellOrdersProvider::class)
+
         factory(uniqueUserAnalytics) {
             UniqueAnalyticsNabuUserReporter(
                 nabuUserReporter = get(userAnalytics),
@@ -228,6 +239,10 @@ val nabuModule = module {
             )
         }
 
+        scoped {
+            BuySellOrdersRepository(ordersProvider = get())
+        }
+
         scoped {
             InterestRepository(
                 interestAvailabilityProvider = get(),
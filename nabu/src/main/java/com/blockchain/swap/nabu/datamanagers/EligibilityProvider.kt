@@ -31,6 +31,7 @@ class NabuCachedEligibilityProvider(
 
     private val cache = ParameteredTimedCacheRequest(
         cacheLifetimeSeconds = 20L,
+        staleLifetimeSeconds = 100L,
         refreshFn = refresh
     )
 
@@ -37,6 +37,7 @@ import com.blockchain.swap.nabu.datamanagers.repositories.AssetBalancesRepositor
 import com.blockchain.swap.nabu.datamanagers.repositories.interest.Eligibility
 import com.blockchain.swap.nabu.datamanagers.repositories.interest.InterestLimits
 import com.blockchain.swap.nabu.datamanagers.repositories.interest.InterestRepository
+import com.blockchain.swap.nabu.datamanagers.repositories.orders.BuySellOrdersRepository
 import com.blockchain.swap.nabu.datamanagers.repositories.swap.SwapRepository
 import com.blockchain.swap.nabu.datamanagers.repositories.swap.SwapTransactionItem
 import com.blockchain.swap.nabu.extensions.fromIso8601ToUtc
@@ -52,7 +53,6 @@ import com.blockchain.swap.nabu.models.nabu.State
 import com.blockchain.swap.nabu.models.simplebuy.AddNewCardBodyRequest
 import com.blockchain.swap.nabu.models.simplebuy.AmountResponse
 import com.blockchain.swap.nabu.models.simplebuy.BankAccountResponse
-import com.blockchain.swap.nabu.models.simplebuy.BuyOrderListResponse
 import com.blockchain.swap.nabu.models.simplebuy.BuySellOrderResponse
 import com.blockchain.swap.nabu.models.simplebuy.CardPartnerAttributes
 import com.blockchain.swap.nabu.models.simplebuy.ConfirmOrderRequestBody
@@ -89,7 +89,8 @@ class LiveCustodialWalletManager(
     private val kycFeatureEligibility: FeatureEligibility,
     private val assetBalancesRepository: AssetBalancesRepository,
     private val interestRepository: InterestRepository,
-    private val swapRepository: SwapRepository
+    private val swapRepository: SwapRepository,
+    private val buySellOrdersRepository: BuySellOrdersRepository
 ) : CustodialWalletManager {
 
     override fun getQuote(
@@ -130,6 +131,7 @@ class LiveCustodialWalletManager(
                 stateAction
             )
         }.map { response -> response.toBuySellOrder() }
+            .doFinally { buySellOrdersRepository.invalidate() }
 
     override fun createWithdrawOrder(amount: FiatValue, bankId: String): Completable =
         authenticator.authenticateCompletable {
@@ -241,53 +243,16 @@ class LiveCustodialWalletManager(
         }.onErrorReturn { false }
 
     override fun getOutstandingBuyOrders(crypto: CryptoCurrency): Single<BuyOrderList> =
-        authenticator.authenticate {
-            nabuService.getOutstandingOrders(
-                sessionToken = it,
-                pendingOnly = true
-            )
-        }.map {
-            it.filterAndMapToOrder(crypto)
-        }
+        buySellOrdersRepository.getPendingOrdersFor(crypto)
 
     override fun getAllOutstandingBuyOrders(): Single<BuyOrderList> =
-        authenticator.authenticate {
-            nabuService.getOutstandingOrders(
-                sessionToken = it,
-                pendingOnly = true
-            )
-        }.map {
-            it.filter { order -> order.type() == OrderType.BUY }.map { order -> order.toBuySellOrder() }
-                .filter { order -> order.state != OrderState.UNKNOWN }
-        }
+        buySellOrdersRepository.getAllPendingBuyOrders()
 
     override fun getAllOutstandingOrders(): Single<BuyOrderList> =
-        authenticator.authenticate {
-            nabuService.getOutstandingOrders(
-                sessionToken = it,
-                pendingOnly = true
-            )
-        }.map {
-            it.map { order -> order.toBuySellOrder() }
-                .filter { order -> order.state != OrderState.UNKNOWN }
-        }
+        buySellOrdersRepository.getAllPendingOrders()
 
     override fun getAllOrdersFor(crypto: CryptoCurrency): Single<BuyOrderList> =
-        authenticator.authenticate {
-            nabuService.getOutstandingOrders(
-                sessionToken = it,
-                pendingOnly = false
-            )
-        }.map {
-            it.filterAndMapToOrder(crypto)
-        }
-
-    private fun BuyOrderListResponse.filterAndMapToOrder(crypto: CryptoCurrency): List<BuySellOrder> =
-        this.filter { order ->
-            order.outputCurrency == crypto.networkTicker ||
-                    order.inputCurrency == crypto.networkTicker
-        }
-            .map { order -> order.toBuySellOrder() }
+        buySellOrdersRepository.getAllOrdersFor(crypto)
 
     override fun getBuyOrder(orderId: String): Single<BuySellOrder> =
         authenticator.authenticate {
@@ -297,7 +262,7 @@ class LiveCustodialWalletManager(
     override fun deleteBuyOrder(orderId: String): Completable =
         authenticator.authenticateCompletable {
             nabuService.deleteBuyOrder(it, orderId)
-        }
+        }.doFinally { buySellOrdersRepository.invalidate() }
 
     override fun deleteCard(cardId: String): Completable =
         authenticator.authenticateCompletable {
@@ -519,7 +484,7 @@ class LiveCustodialWalletManager(
                 ))
         }.map {
             it.toBuySellOrder()
-        }
+        }.doFinally { buySellOrdersRepository.invalidate() }
 
     override fun getInterestAccountRates(crypto: CryptoCurrency): Single<Double> =
         authenticator.authenticate { sessionToken ->
@@ -877,7 +842,7 @@ enum class OrderType {
     SELL
 }
 
-private fun BuySellOrderResponse.toBuySellOrder(): BuySellOrder {
+internal fun BuySellOrderResponse.toBuySellOrder(): BuySellOrder {
     val fiatCurrency = if (type() == OrderType.BUY) inputCurrency else outputCurrency
     val cryptoCurrency =
         CryptoCurrency.fromNetworkTicker(if (type() == OrderType.BUY) outputCurrency else inputCurrency)
@@ -8,6 +8,8 @@ class InterestLimitsRepository(interestLimitsProvider: InterestLimitsProvider) {
 
     private val cache = TimedCacheRequest(
         cacheLifetimeSeconds = CACHE_LIFETIME,
+        // Limits rarely change, so showing the last ones while they're refreshed is fine
+        staleLifetimeSeconds = STALE_LIFETIME,
         refreshFn = { interestLimitsProvider.getLimitsForAllAssets() }
     )
 
@@ -21,5 +23,6 @@ class InterestLimitsRepository(interestLimitsProvider: InterestLimitsProvider) {
 
     companion object {
         private const val CACHE_LIFETIME = 240L
+        private const val STALE_LIFETIME = 3600L
     }
 }
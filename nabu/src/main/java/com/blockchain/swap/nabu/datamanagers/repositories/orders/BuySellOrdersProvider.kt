@@ -0,0 +1,35 @@
+package com.blockchain.swap.nabu.datamanagers.repositories.orders
+
+import com.blockchain.swap.nabu.Authenticator
+import com.blockchain.swap.nabu.datamanagers.BuyOrderList
+import com.blockchain.swap.nabu.datamanagers.custodialwalletimpl.toBuySellOrder
+import com.blockchain.swap.nabu.service.NabuService
+import io.reactivex.Single
+import timber.log.Timber
+
+interface BuySellOrdersProvider {
+    fun getAllOrders(): Single<BuyOrderList>
+}
+
+class BuySellOrdersProviderImpl(
+    private val authenticator: Authenticator,
+    private val nabuService: NabuService
+) : BuySellOrdersProvider {
+    override fun getAllOrders(): Single<BuyOrderList> =
+        authenticator.authenticate {
+            nabuService.getOutstandingOrders(
+                sessionToken = it,
+                pendingOnly = false
+            )
+        }.map { response ->
+            response.mapNotNull { order ->
+                // One order we can't read, eg. for an unsupported currency, shouldn't hide the rest
+                try {
+                    order.toBuySellOrder()
+                } catch (e: RuntimeException) {
+                    Timber.e(e, "Skipping order ${order.id}")
+                    null
+                }
+            }
+        }
+}
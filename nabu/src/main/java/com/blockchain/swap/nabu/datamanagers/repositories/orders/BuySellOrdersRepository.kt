@@ -0,0 +1,61 @@
+package com.blockchain.swap.nabu.datamanagers.repositories.orders
+
+import com.blockchain.rx.TimedCacheRequest
+import com.blockchain.swap.nabu.datamanagers.BuyOrderList
+import com.blockchain.swap.nabu.datamanagers.OrderState
+import com.blockchain.swap.nabu.datamanagers.custodialwalletimpl.OrderType
+import info.blockchain.balance.CryptoCurrency
+import io.reactivex.Single
+
+/**
+ * Fetches every buy and sell order at most once per [CACHE_LIFETIME], for all assets, and serves
+ * the per asset and pending order queries from an index of it. Call [invalidate] after changing
+ * an order.
+ */
+class BuySellOrdersRepository(ordersProvider: BuySellOrdersProvider) {
+
+    private val cache = TimedCacheRequest(
+        cacheLifetimeSeconds = CACHE_LIFETIME,
+        refreshFn = {
+            ordersProvider.getAllOrders().map { OrderSnapshot(it) }
+        }
+    )
+
+    fun getAllOrdersFor(crypto: CryptoCurrency): Single<BuyOrderList> =
+        cache.getCachedSingle().map { it.ordersFor(crypto) }
+
+    fun getPendingOrdersFor(crypto: CryptoCurrency): Single<BuyOrderList> =
+        cache.getCachedSingle().map { it.pendingFor(crypto) }
+
+    fun getAllPendingOrders(): Single<BuyOrderList> =
+        cache.getCachedSingle().map { it.pending }
+
+    fun getAllPendingBuyOrders(): Single<BuyOrderList> =
+        cache.getCachedSingle().map { it.pendingBuys }
+
+    fun invalidate() = cache.invalidate()
+
+    private class OrderSnapshot(orders: BuyOrderList) {
+        private val byCurrency = orders.groupBy { it.crypto.currency }
+
+        val pending = orders.filter { it.state in PENDING_STATES }
+
+        private val pendingByCurrency = pending.groupBy { it.crypto.currency }
+
+        val pendingBuys = pending.filter { it.type == OrderType.BUY }
+
+        fun ordersFor(crypto: CryptoCurrency): BuyOrderList = byCurrency[crypto].orEmpty()
+
+        fun pendingFor(crypto: CryptoCurrency): BuyOrderList = pendingByCurrency[crypto].orEmpty()
+    }
+
+    companion object {
+        const val CACHE_LIFETIME = 30L
+
+        private val PENDING_STATES = setOf(
+            OrderState.PENDING_CONFIRMATION,
+            OrderState.AWAITING_FUNDS,
+            OrderState.PENDING_EXECUTION
+        )
+    }
+}
@@ -0,0 +1,84 @@
+package com.blockchain.swap.nabu.datamanagers.repositories.orders
+
+import com.blockchain.swap.nabu.datamanagers.BuyOrderList
+import com.blockchain.swap.nabu.datamanagers.BuySellOrder
+import com.blockchain.swap.nabu.datamanagers.OrderState
+import com.blockchain.swap.nabu.datamanagers.PaymentMethod
+import com.blockchain.swap.nabu.datamanagers.custodialwalletimpl.OrderType
+import com.blockchain.swap.nabu.datamanagers.custodialwalletimpl.PaymentMethodType
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.balance.CryptoValue
+import info.blockchain.balance.FiatValue
+import io.reactivex.Single
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class BuySellOrdersRepositoryTest {
+
+    private var fetches = 0
+
+    private var orders: BuyOrderList = emptyList()
+
+    private val repository = BuySellOrdersRepository(object : BuySellOrdersProvider {
+        override fun getAllOrders(): Single<BuyOrderList> = Single.fromCallable {
+            fetches++
+            orders
+        }
+    })
+
+    private fun order(
+        id: String,
+        crypto: CryptoCurrency,
+        state: OrderState,
+        type: OrderType = OrderType.BUY
+    ) = BuySellOrder(
+        id = id,
+        pair = "${crypto.networkTicker}-USD",
+        fiat = FiatValue.zero("USD"),
+        crypto = CryptoValue.zero(crypto),
+        paymentMethodId = PaymentMethod.BANK_PAYMENT_ID,
+        paymentMethodType = PaymentMethodType.BANK_ACCOUNT,
+        state = state,
+        type = type
+    )
+
+    private val btcFinished = order("1", CryptoCurrency.BTC, OrderState.FINISHED)
+    private val btcPending = order("2", CryptoCurrency.BTC, OrderState.AWAITING_FUNDS)
+    private val ethPendingSell = order("3", CryptoCurrency.ETHER, OrderState.PENDING_EXECUTION, OrderType.SELL)
+    private val ethUnknown = order("4", CryptoCurrency.ETHER, OrderState.UNKNOWN)
+
+    @Test
+    fun `queries for every asset share one fetch`() {
+        orders = listOf(btcFinished, btcPending, ethPendingSell, ethUnknown)
+
+        repository.getAllOrdersFor(CryptoCurrency.BTC).test().assertValue(listOf(btcFinished, btcPending))
+        repository.getAllOrdersFor(CryptoCurrency.ETHER).test().assertValue(listOf(ethPendingSell, ethUnknown))
+        repository.getAllOrdersFor(CryptoCurrency.XLM).test().assertValue(emptyList())
+
+        fetches `should equal` 1
+    }
+
+    @Test
+    fun `pending orders are indexed by asset and type`() {
+        orders = listOf(btcFinished, btcPending, ethPendingSell, ethUnknown)
+
+        repository.getPendingOrdersFor(CryptoCurrency.BTC).test().assertValue(listOf(btcPending))
+        repository.getPendingOrdersFor(CryptoCurrency.ETHER).test().assertValue(listOf(ethPendingSell))
+        repository.getAllPendingOrders().test().assertValue(listOf(btcPending, ethPendingSell))
+        repository.getAllPendingBuyOrders().test().assertValue(listOf(btcPending))
+
+        fetches `should equal` 1
+    }
+
+    @Test
+    fun `orders are fetched again once invalidated`() {
+        orders = listOf(btcPending)
+        repository.getAllPendingOrders().test().assertValue(listOf(btcPending))
+
+        orders = listOf(btcFinished)
+        repository.invalidate()
+
+        repository.getAllPendingOrders().test().assertValue(emptyList())
+        fetches `should equal` 2
+    }
+}
@@ -0,0 +1,113 @@
+package info.blockchain.balance
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Threads
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import java.math.RoundingMode
+import java.text.DecimalFormat
+import java.text.NumberFormat
+import java.util.Currency
+import java.util.Locale
+import java.util.Random
+import java.util.concurrent.TimeUnit
+
+/**
+ * Formats a batch of crypto and fiat amounts, as a transaction list does, from four threads at
+ * once. The legacy benchmarks use [DecimalFormat] through a double the way the formatters did
+ * before they worked on the amounts' digits, with a format per thread since a shared one isn't
+ * safe. The others go through [Money], sharing one formatter per locale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+open class MoneyFormattingBenchmark {
+
+    @Param("BTC", "ETHER")
+    var asset: CryptoCurrency = CryptoCurrency.BTC
+
+    @Param("en_US", "fr_FR")
+    var locale: String = "en_US"
+
+    private lateinit var cryptoValues: List<CryptoValue>
+
+    private lateinit var fiatValues: List<FiatValue>
+
+    private lateinit var legacyCryptoFormat: ThreadLocal<DecimalFormat>
+
+    private lateinit var legacyFiatFormat: ThreadLocal<DecimalFormat>
+
+    @Setup
+    fun setUp() {
+        val parts = locale.split('_')
+        Locale.setDefault(Locale(parts[0], parts[1]))
+
+        val random = Random(AMOUNTS.toLong())
+        cryptoValues = List(AMOUNTS) {
+            CryptoValue(asset, random.nextLong().let { if (it < 0) -it else it }.toBigInteger())
+        }
+        fiatValues = List(AMOUNTS) {
+            FiatValue.fromMinor("USD", random.nextInt(10_000_000).toLong())
+        }
+
+        legacyCryptoFormat = ThreadLocal.withInitial {
+            (NumberFormat.getInstance(Locale.getDefault()) as DecimalFormat).apply {
+                minimumFractionDigits = 1
+                maximumFractionDigits = asset.userDp
+                roundingMode = RoundingMode.DOWN
+            }
+        }
+        legacyFiatFormat = ThreadLocal.withInitial {
+            (NumberFormat.getCurrencyInstance(Locale.getDefault()) as DecimalFormat).apply {
+                currency = Currency.getInstance("USD")
+                roundingMode = RoundingMode.DOWN
+            }
+        }
+    }
+
+    @Benchmark
+    fun cryptoWithSymbol(blackhole: Blackhole) {
+        cryptoValues.forEach { blackhole.consume(it.toStringWithSymbol()) }
+    }
+
+    @Benchmark
+    fun cryptoWithSymbolLegacy(blackhole: Blackhole) {
+        val format = legacyCryptoFormat.get()
+        cryptoValues.forEach {
+            blackhole.consume("${format.format(it.toBigDecimal().toDouble())} ${it.symbol}")
+        }
+    }
+
+    @Benchmark
+    fun fiatWithSymbol(blackhole: Blackhole) {
+        fiatValues.forEach { blackhole.consume(it.toStringWithSymbol()) }
+    }
+
+    @Benchmark
+    fun fiatWithSymbolLegacy(blackhole: Blackhole) {
+        val format = legacyFiatFormat.get()
+        fiatValues.forEach { blackhole.consume(format.format(it.toBigDecimal())) }
+    }
+
+    @Benchmark
+    fun cryptoParts(blackhole: Blackhole) {
+        cryptoValues.forEach { blackhole.consume(it.toStringParts()) }
+    }
+
+    companion object {
+        private const val AMOUNTS = 100
+    }
+}
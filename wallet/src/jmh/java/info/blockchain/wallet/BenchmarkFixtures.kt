@@ -0,0 +1,177 @@
+package info.blockchain.wallet
+
+import info.blockchain.api.data.AddressSummary
+import info.blockchain.api.data.Info
+import info.blockchain.api.data.Input
+import info.blockchain.api.data.MultiAddress
+import info.blockchain.api.data.Output
+import info.blockchain.api.data.RawBlock
+import info.blockchain.api.data.Transaction
+import info.blockchain.api.data.UnspentOutput
+import info.blockchain.api.data.Xpub
+import info.blockchain.wallet.bip44.HDAccount
+import org.bitcoinj.crypto.ChildNumber
+import org.bitcoinj.crypto.HDKeyDerivation
+import org.bitcoinj.params.BitcoinMainNetParams
+import org.spongycastle.util.encoders.Hex
+import java.math.BigInteger
+import java.util.Random
+
+/**
+ * Deterministic, realistically shaped fixtures for the wallet benchmarks. Everything is derived
+ * from a fixed seed so that runs are comparable against a stored baseline.
+ */
+object BenchmarkFixtures {
+
+    private const val SEED = 0x5eed_b10cL
+
+    private const val LATEST_BLOCK = 650_000L
+
+    private val masterSeed = "15e23aa73d25994f1921a1256f93f72c".toByteArray()
+
+    /**
+     * Builds [count] P2PKH unspent outputs with values spread log-uniformly between dust and
+     * 10 BTC, which roughly matches the distribution seen in heavily used wallets.
+     */
+    fun unspentOutputs(count: Int, replayable: Boolean = false): List<UnspentOutput> {
+        val random = Random(SEED)
+        return (0 until count).map { i ->
+            UnspentOutput().apply {
+                txHash = randomHex(random, 32)
+                txOutputCount = i % 4
+                script = p2pkhScript(random)
+                value = logUniform(random, 546L, 1_000_000_000L).toBigInteger()
+                confirmations = (random.nextInt(1000) + 1).toLong()
+                isReplayable = replayable
+            }
+        }
+    }
+
+    /**
+     * Derives [count] BIP44 accounts from a fixed master key.
+     */
+    fun hdAccounts(count: Int): List<HDAccount> {
+        val params = BitcoinMainNetParams.get()
+        val masterKey = HDKeyDerivation.createMasterPrivateKey(masterSeed)
+        val purpose = HDKeyDerivation.deriveChildKey(masterKey, 44 or ChildNumber.HARDENED_BIT)
+        val coin = HDKeyDerivation.deriveChildKey(purpose, ChildNumber.HARDENED_BIT)
+        return (0 until count).map { HDAccount(params, coin, it) }
+    }
+
+    /**
+     * A multiaddress page of [txCount] transactions for a wallet with [xpubCount] accounts and
+     * [legacyCount] imported addresses. The mix of received, sent and transferred transactions
+     * (including change outputs and imported address activity) exercises every branch of
+     * MultiAddressFactory.summarize.
+     */
+    fun multiAddressPage(txCount: Int, xpubCount: Int = 20, legacyCount: Int = 50): MultiAddressPage {
+        val random = Random(SEED)
+        val xpubs = (0 until xpubCount).map { "xpub${randomHex(random, 48)}" }
+        val legacy = (0 until legacyCount).map { "1Legacy${randomHex(random, 13)}" }
+
+        val txs = (0 until txCount).map { i ->
+            val xpub = xpubs[random.nextInt(xpubs.size)]
+            val fee = (random.nextInt(50_000) + 1_000).toBigInteger()
+            val amount = logUniform(random, 10_000L, 100_000_000L).toBigInteger()
+            val foreign = { "1Foreign${randomHex(random, 13)}" }
+
+            Transaction().apply {
+                hash = randomHex(random, 32)
+                time = 1_600_000_000L - i * 600L
+                blockHeight = if (i < 3) 0 else LATEST_BLOCK - i
+                this.fee = fee
+                when (i % 4) {
+                    // Received into an HD account from a foreign address
+                    0 -> {
+                        inputs = arrayListOf(input(foreign(), amount + fee + 5_000.toBigInteger(), null))
+                        out = arrayListOf(
+                            output(ownAddress(xpub, 0, i), amount, xpubBody(xpub, 0, i)),
+                            output(foreign(), 5_000.toBigInteger(), null)
+                        )
+                        result = amount
+                    }
+                    // Sent from an HD account with change going back to the change chain
+                    1 -> {
+                        val change = 20_000.toBigInteger()
+                        inputs = arrayListOf(
+                            input(ownAddress(xpub, 0, i), amount, xpubBody(xpub, 0, i)),
+                            input(ownAddress(xpub, 1, i), change + fee, xpubBody(xpub, 1, i))
+                        )
+                        out = arrayListOf(
+                            output(foreign(), amount, null),
+                            output(ownAddress(xpub, 1, i + 1), change, xpubBody(xpub, 1, i + 1))
+                        )
+                        result = -(amount + fee)
+                    }
+                    // Transferred between two HD accounts
+                    2 -> {
+                        val other = xpubs[(xpubs.indexOf(xpub) + 1) % xpubs.size]
+                        inputs = arrayListOf(input(ownAddress(xpub, 0, i), amount + fee, xpubBody(xpub, 0, i)))
+                        out = arrayListOf(output(ownAddress(other, 0, i), amount, xpubBody(other, 0, i)))
+                        result = -fee
+                    }
+                    // Sent from an imported address
+                    else -> {
+                        val address = legacy[random.nextInt(legacy.size)]
+                        inputs = arrayListOf(input(address, amount + fee, null))
+                        out = arrayListOf(output(foreign(), amount, null))
+                        result = -(amount + fee)
+                    }
+                }
+            }
+        }
+
+        val multiAddress = MultiAddress().apply {
+            addresses = ArrayList(xpubs.map { xpub ->
+                AddressSummary().apply {
+                    address = xpub
+                    accountIndex = txCount
+                    changeIndex = txCount
+                }
+            })
+            this.txs = ArrayList(txs)
+            info = Info().apply {
+                latestBlock = RawBlock().apply { height = LATEST_BLOCK }
+            }
+        }
+
+        return MultiAddressPage(xpubs + legacy, legacy, multiAddress)
+    }
+
+    class MultiAddressPage(
+        val ownAddressesAndXpubs: List<String>,
+        val legacy: List<String>,
+        val multiAddress: MultiAddress
+    )
+
+    private fun ownAddress(xpub: String, chain: Int, index: Int) = "1${xpub.substring(4, 20)}$chain$index"
+
+    private fun xpubBody(xpub: String, chain: Int, index: Int) = Xpub().apply {
+        m = xpub
+        path = "M/$chain/$index"
+    }
+
+    private fun input(address: String, value: BigInteger, xpub: Xpub?) = Input().apply {
+        prevOut = output(address, value, xpub)
+    }
+
+    private fun output(address: String, value: BigInteger, xpub: Xpub?) = Output().apply {
+        addr = address
+        this.value = value
+        this.xpub = xpub
+    }
+
+    private fun p2pkhScript(random: Random) = "76a914${randomHex(random, 20)}88ac"
+
+    private fun randomHex(random: Random, bytes: Int): String {
+        val buffer = ByteArray(bytes)
+        random.nextBytes(buffer)
+        return Hex.toHexString(buffer)
+    }
+
+    private fun logUniform(random: Random, min: Long, max: Long): Long {
+        val logMin = Math.log(min.toDouble())
+        val logMax = Math.log(max.toDouble())
+        return Math.exp(logMin + random.nextDouble() * (logMax - logMin)).toLong()
+    }
+}
@@ -0,0 +1,62 @@
+package info.blockchain.wallet.bip44
+
+import info.blockchain.wallet.BenchmarkFixtures
+import info.blockchain.wallet.util.Tools
+import org.bitcoinj.params.BitcoinMainNetParams
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures HD address lookups. [receiveAddressesForAllAccounts] mirrors the work done by
+ * PayloadManager.save(true), which derives the next 20 receive addresses of every account.
+ * After the first invocation these are served from each chain's DerivedAddressCache, so
+ * [coldReceiveAddressesForAllAccounts] rebuilds the accounts to measure the derivation itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class HDChainBenchmark {
+
+    @Param("20", "200")
+    var accountCount: Int = 0
+
+    private lateinit var accounts: List<HDAccount>
+
+    @Setup
+    fun setUp() {
+        accounts = BenchmarkFixtures.hdAccounts(accountCount)
+    }
+
+    @Benchmark
+    fun receiveAddressesForAllAccounts(blackhole: Blackhole) {
+        for (account in accounts) {
+            blackhole.consume(Tools.getReceiveAddressList(account, 0, 20))
+        }
+    }
+
+    @Benchmark
+    fun coldReceiveAddressesForAllAccounts(blackhole: Blackhole) {
+        for (account in accounts) {
+            val uncached = HDAccount(BitcoinMainNetParams.get(), account.xpub, account.id)
+            blackhole.consume(Tools.getReceiveAddressList(uncached, 0, 20))
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    fun singleAddress(): String = accounts[0].receive.getAddressAt(0).addressBase58
+}
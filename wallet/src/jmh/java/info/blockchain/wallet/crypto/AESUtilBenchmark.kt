@@ -0,0 +1,65 @@
+package info.blockchain.wallet.crypto
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the cost of encrypting and decrypting a wallet payload, which happens on every
+ * PayloadManager save and login. [payloadSize] approximates wallets with 20 to 200 accounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class AESUtilBenchmark {
+
+    @Param("5000")
+    var iterations: Int = 0
+
+    @Param("10000", "100000")
+    var payloadSize: Int = 0
+
+    private val password = "MyTestWallet"
+
+    private lateinit var payload: String
+
+    private lateinit var encrypted: String
+
+    @Setup
+    fun setUp() {
+        payload = buildString {
+            append("{\"guid\":\"524b5e9f-72ea-4690-b28c-8c1cfce65ca0\",\"keys\":[")
+            while (length < payloadSize) {
+                append("{\"addr\":\"1JXmD5gPTTnR7EjbDEhd6xLbTwLNvhH2EU\",\"priv\":\"")
+                append("8jXDBdKo2FJwH6EuaSpanKcXJpG5bXJLGx2ajBrvTWHQ\"},")
+            }
+            append("{}]}")
+        }
+        encrypted = AESUtil.encrypt(payload, password, iterations)
+    }
+
+    @Benchmark
+    fun encrypt(): String = AESUtil.encrypt(payload, password, iterations)
+
+    @Benchmark
+    fun decrypt(): String = AESUtil.decrypt(encrypted, password, iterations)
+
+    /**
+     * A full save cycle: decrypt the stored payload and encrypt the updated one.
+     */
+    @Benchmark
+    fun decryptThenEncrypt(): String =
+        AESUtil.encrypt(AESUtil.decrypt(encrypted, password, iterations), password, iterations)
+}
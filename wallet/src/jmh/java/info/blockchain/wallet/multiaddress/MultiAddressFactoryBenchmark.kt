@@ -0,0 +1,52 @@
+package info.blockchain.wallet.multiaddress
+
+import info.blockchain.wallet.BenchmarkFixtures
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures [MultiAddressFactory.summarize] over multiaddress pages of 50 to 5000 transactions.
+ * summarize appends to the address list it is given, so each invocation works on a fresh copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class MultiAddressFactoryBenchmark {
+
+    @Param("50", "500", "5000")
+    var txCount: Int = 0
+
+    @Param("20", "200")
+    var accountCount: Int = 0
+
+    private lateinit var page: BenchmarkFixtures.MultiAddressPage
+
+    private lateinit var factory: MultiAddressFactory
+
+    @Setup
+    fun setUp() {
+        page = BenchmarkFixtures.multiAddressPage(txCount, accountCount)
+        factory = MultiAddressFactory(null)
+    }
+
+    @Benchmark
+    fun summarizeAllAccounts(): List<TransactionSummary> =
+        factory.summarize(ArrayList(page.ownAddressesAndXpubs), page.multiAddress, null, 0)
+
+    @Benchmark
+    fun summarizeImportedAddresses(): List<TransactionSummary> =
+        factory.summarize(ArrayList(page.ownAddressesAndXpubs), page.multiAddress, page.legacy, 0)
+}
@@ -0,0 +1,64 @@
+package info.blockchain.wallet.payment
+
+import info.blockchain.api.data.UnspentOutput
+import info.blockchain.wallet.BenchmarkFixtures
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.math.BigInteger
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures [CoinSelection] over wallets with 1k to 50k UTXOs. The payment amount is a fixed
+ * fraction of the total balance so that selection has to walk a meaningful part of the set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class CoinSelectionBenchmark {
+
+    @Param("1000", "10000", "50000")
+    var utxoCount: Int = 0
+
+    @Param("0.01", "0.5")
+    var paymentFraction: Double = 0.0
+
+    private val feePerByte = 55.toBigInteger()
+
+    private lateinit var coins: List<UnspentOutput>
+
+    private lateinit var paymentAmount: BigInteger
+
+    @Setup
+    fun setUp() {
+        coins = BenchmarkFixtures.unspentOutputs(utxoCount)
+        paymentAmount = (coins.sum().toDouble() * paymentFraction).toLong().toBigInteger()
+    }
+
+    @Benchmark
+    fun selectAscentDraw(): SpendableUnspentOutputs =
+        CoinSelection(coins, feePerByte).select(paymentAmount, AscentDraw)
+
+    @Benchmark
+    fun selectDescentDraw(): SpendableUnspentOutputs =
+        CoinSelection(coins, feePerByte).select(paymentAmount, DescentDraw)
+
+    @Benchmark
+    fun selectChangeless(): SpendableUnspentOutputs =
+        CoinSelection(coins, feePerByte).selectChangeless(paymentAmount, DescentDraw)
+
+    @Benchmark
+    fun selectAll(): SpendableUnspentOutputs =
+        CoinSelection(coins, feePerByte).selectAll()
+}
@@ -0,0 +1,73 @@
+package info.blockchain.wallet.payment
+
+import info.blockchain.api.data.UnspentOutput
+import info.blockchain.api.data.UnspentOutputs
+import info.blockchain.wallet.BenchmarkFixtures
+import org.apache.commons.lang3.tuple.Pair
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.math.BigInteger
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the legacy [Coins] selection paths, including the replay protected sort used for BCH.
+ * The plain benchmarks prepare a fresh copy of the coins on every invocation, as a caller
+ * without [PreparedUnspentOutputs] would. The prepared ones reuse coins prepared once, as
+ * happens when the amount or fee changes on the send screen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class CoinsBenchmark {
+
+    @Param("1000", "10000", "50000")
+    var utxoCount: Int = 0
+
+    @Param("true", "false")
+    var replayable: Boolean = false
+
+    private val feePerKb = 55_000.toBigInteger()
+
+    private lateinit var coins: List<UnspentOutput>
+
+    private lateinit var paymentAmount: BigInteger
+
+    private lateinit var preparedCoins: PreparedUnspentOutputs
+
+    @Setup
+    fun setUp() {
+        coins = BenchmarkFixtures.unspentOutputs(utxoCount, replayable)
+        paymentAmount = coins.sum().divide(100.toBigInteger())
+        preparedCoins = PreparedUnspentOutputs.of(unspentOutputs())
+    }
+
+    @Benchmark
+    fun maximumAvailable(): Pair<BigInteger, BigInteger> =
+        Coins.getMaximumAvailable(unspentOutputs(), feePerKb, replayable, false)
+
+    @Benchmark
+    fun minimumCoinsForPayment(): SpendableUnspentOutputs =
+        Coins.getMinimumCoinsForPayment(unspentOutputs(), paymentAmount, feePerKb, replayable, false)
+
+    @Benchmark
+    fun maximumAvailablePrepared(): Pair<BigInteger, BigInteger> =
+        Coins.getMaximumAvailable(preparedCoins, feePerKb, replayable, false)
+
+    @Benchmark
+    fun minimumCoinsForPaymentPrepared(): SpendableUnspentOutputs =
+        Coins.getMinimumCoinsForPayment(preparedCoins, paymentAmount, feePerKb, replayable, false)
+
+    private fun unspentOutputs() = UnspentOutputs().apply { unspentOutputs = ArrayList(coins) }
+}
@@ -3,9 +3,11 @@ package com.blockchain.koin
 import info.blockchain.wallet.api.dust.BchDustService
 import info.blockchain.wallet.api.dust.DustApi
 import info.blockchain.wallet.api.dust.DustService
+import info.blockchain.wallet.crypto.AESUtil
 import info.blockchain.wallet.metadata.MetadataService
 import info.blockchain.wallet.metadata.MetadataInteractor
 import info.blockchain.wallet.multiaddress.MultiAddressFactory
+import info.blockchain.wallet.multiaddress.TransactionStore
 import info.blockchain.wallet.payload.BalanceManagerBch
 import info.blockchain.wallet.payload.BalanceManagerBtc
 import info.blockchain.wallet.payload.PayloadManager
@@ -24,7 +26,7 @@ val walletModule = module {
 
         scoped { PayloadManager(get(), get(), get(), get()) }
 
-        factory { MultiAddressFactory(get()) }
+        factory { MultiAddressFactory(get(), get()) }
 
         factory { BalanceManagerBtc(get()) }
 
@@ -56,8 +58,10 @@ val walletModule = module {
         object : PayloadManagerWiper {
             override fun wipe() {
                 if (!payloadScope.closed) {
+                    payloadScope.get<TransactionStore>().clear()
                     payloadScope.close()
                 }
+                AESUtil.clearDerivedKeyCache()
             }
         }
     }.bind(PayloadManagerWiper::class)
@@ -6,6 +6,7 @@ import info.blockchain.wallet.crypto.DeterministicAccount
 import info.blockchain.wallet.crypto.DeterministicWallet
 import info.blockchain.wallet.exceptions.HDWalletException
 import info.blockchain.wallet.multiaddress.MultiAddressFactoryBch
+import info.blockchain.wallet.multiaddress.TransactionStore
 import info.blockchain.wallet.multiaddress.TransactionSummary
 import info.blockchain.wallet.payload.BalanceManagerBch
 import info.blockchain.wallet.payload.data.LegacyAddress
@@ -62,6 +63,13 @@ open class BitcoinCashWallet : DeterministicWallet {
         this.multiAddressFactory = MultiAddressFactoryBch(blockExplorer)
     }
 
+    /**
+     * Sets the local store used to only fetch new transactions. See [TransactionStore].
+     */
+    fun setTransactionStore(transactionStore: TransactionStore?) {
+        multiAddressFactory.setTransactionStore(transactionStore)
+    }
+
     /**
      * Updates the state of the [BalanceManagerBch], which ingests the balances for each address or
      * xPub.
@@ -83,6 +91,12 @@ open class BitcoinCashWallet : DeterministicWallet {
             }.subscribeOn(Schedulers.io())
         }
 
+    /**
+     * Makes the next [updateAllBalances] fetch these addresses, eg. ones seen in a new transaction.
+     */
+    fun invalidateAddressBalances(addresses: Collection<String>) =
+        balanceManager.invalidateAddressBalances(addresses)
+
     /**
      * Returns the balance of all imported addresses, excluding those belonging to
      * archived addresses.
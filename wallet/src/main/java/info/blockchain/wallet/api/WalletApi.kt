@@ -163,6 +163,13 @@ class WalletApi(private val explorerInstance: WalletExplorerEndpoints, private v
     val walletOptions: Observable<WalletOptions>
         get() = explorerInstance.getWalletOptions(getApiCode())
 
+    /**
+     * Fetches the raw wallet-options.json, or a 304 Not Modified response if it matches the
+     * validators of the copy already held.
+     */
+    fun getWalletOptionsIfChanged(eTag: String?, lastModified: String?): Observable<Response<ResponseBody>> =
+        explorerInstance.getWalletOptionsIfChanged(eTag, lastModified, getApiCode())
+
     fun getSignedJsonToken(guid: String?, sharedKey: String?, partner: String?): Single<String> {
         return explorerInstance.getSignedJsonToken(guid,
             sharedKey,
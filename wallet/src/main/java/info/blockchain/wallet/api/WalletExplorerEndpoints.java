@@ -133,6 +133,12 @@ public interface WalletExplorerEndpoints {
     @GET("Resources/wallet-options.json")
     Observable<WalletOptions> getWalletOptions(@Query("api_code") String apiCode);
 
+    @GET("Resources/wallet-options.json")
+    Observable<Response<ResponseBody>> getWalletOptionsIfChanged(
+            @Header("If-None-Match") String eTag,
+            @Header("If-Modified-Since") String lastModified,
+            @Query("api_code") String apiCode);
+
     @GET("wallet/signed-token")
     Single<SignedToken> getSignedJsonToken(
             @Query("guid") String guid,
@@ -0,0 +1,72 @@
+package info.blockchain.wallet.bip44;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AccountDiscovery.java : finds how many accounts of a restored BIP44 wallet have been used
+ *
+ * Candidate account xpubs are derived in parallel and probed in batches, starting with
+ * {@link #FIRST_BATCH_SIZE} and doubling, until {@link #GAP_LIMIT} unused accounts in a row
+ * have been seen. Most wallets need one or two requests.
+ */
+public class AccountDiscovery {
+
+    public static final int GAP_LIMIT = 10;
+    public static final int FIRST_BATCH_SIZE = 5;
+
+    public interface TransactionCounts {
+
+        /**
+         * @return the number of transactions of each of {@code xpubs}
+         */
+        Map<String, Long> getTransactionCounts(List<String> xpubs) throws Exception;
+    }
+
+    private final TransactionCounts transactionCounts;
+    private final int gapLimit;
+    private final int firstBatchSize;
+
+    public AccountDiscovery(TransactionCounts transactionCounts) {
+        this(transactionCounts, GAP_LIMIT, FIRST_BATCH_SIZE);
+    }
+
+    public AccountDiscovery(TransactionCounts transactionCounts, int gapLimit, int firstBatchSize) {
+        this.transactionCounts = transactionCounts;
+        this.gapLimit = gapLimit;
+        this.firstBatchSize = firstBatchSize;
+    }
+
+    /**
+     * Probes the accounts after those already in {@code wallet}, which are kept whether used or
+     * not.
+     *
+     * @return the number of accounts to restore, up to and including the last one used
+     */
+    public int discover(HDWallet wallet) throws Exception {
+        int size = wallet.getAccounts().size();
+        int next = size;
+        int gap = 0;
+        int batchSize = firstBatchSize;
+
+        while (true) {
+            List<String> xpubs = wallet.deriveAccountXpubs(next, batchSize);
+            Map<String, Long> counts = transactionCounts.getTransactionCounts(xpubs);
+
+            for (String xpub : xpubs) {
+                Long count = counts.get(xpub);
+                if (count == null) {
+                    throw new Exception("No transaction count returned for account " + next);
+                }
+                next++;
+                if (count > 0L) {
+                    size = next;
+                    gap = 0;
+                } else if (++gap >= gapLimit) {
+                    return size;
+                }
+            }
+            batchSize *= 2;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package info.blockchain.wallet.bip44;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DerivedAddressCache.java : index to {@link HDAddress} cache for a single chain
+ *
+ * Deriving an address costs an EC point multiplication plus hashing, and the same indexes are
+ * derived over and over (pubkey sync on every save, next receive address, swipe to receive). The
+ * cache lives and dies with its {@link HDChain}, so it's only invalidated when the wallet is
+ * replaced.
+ */
+public class DerivedAddressCache {
+
+    // Comfortably more than the gap limit plus lookahead of any real account
+    static final int MAX_ENTRIES = 2000;
+
+    private final ConcurrentMap<Integer, HDAddress> addresses = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    interface Deriver {
+        HDAddress derive(int index);
+    }
+
+    HDAddress get(int index, Deriver deriver) {
+        HDAddress address = addresses.get(index);
+        if (address != null) {
+            hits.incrementAndGet();
+            return address;
+        }
+
+        misses.incrementAndGet();
+        address = deriver.derive(index);
+        if (addresses.size() < MAX_ENTRIES) {
+            HDAddress existing = addresses.putIfAbsent(index, address);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return address;
+    }
+
+    /**
+     * Derives any addresses in [startIndex, endIndex) that aren't cached yet. Doesn't affect the
+     * hit and miss counts.
+     */
+    void prefill(int startIndex, int endIndex, Deriver deriver) {
+        for (int i = startIndex; i < endIndex && addresses.size() < MAX_ENTRIES; i++) {
+            if (!addresses.containsKey(i)) {
+                addresses.putIfAbsent(i, deriver.derive(i));
+            }
+        }
+    }
+
+    /**
+     * Return the number of lookups that were served from the cache.
+     *
+     * @return long
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Return the number of lookups that had to derive the address.
+     *
+     * @return long
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return addresses.size();
+    }
+
+}
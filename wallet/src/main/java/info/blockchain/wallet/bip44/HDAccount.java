@@ -193,6 +193,24 @@ public class HDAccount {
         return chains.get(idx);
     }
 
+    /**
+     * Return the number of address lookups on either chain that were served from the cache.
+     *
+     * @return long
+     */
+    public long getAddressCacheHits() {
+        return getReceive().getAddressCache().getHits() + getChange().getAddressCache().getHits();
+    }
+
+    /**
+     * Return the number of address lookups on either chain that had to derive the address.
+     *
+     * @return long
+     */
+    public long getAddressCacheMisses() {
+        return getReceive().getAddressCache().getMisses() + getChange().getAddressCache().getMisses();
+    }
+
     /**
      * Return BIP44 path for this account (m / purpose' / coin_type' / account').
      *
@@ -21,6 +21,7 @@ public class HDAddress {
     private ECKey ecKey;
     private byte[] pubKey;
     private byte[] pubKeyHash;
+    private volatile String addressBase58;
 
     private NetworkParameters params;
 
@@ -86,7 +87,11 @@ public class HDAddress {
     }
 
     public String getAddressBase58() {
-        return ecKey.toAddress(params).toBase58();
+        // HDAddresses are cached by their chain, so only encode the address once
+        if (addressBase58 == null) {
+            addressBase58 = ecKey.toAddress(params).toBase58();
+        }
+        return addressBase58;
     }
 
     /**
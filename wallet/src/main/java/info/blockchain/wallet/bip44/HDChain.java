@@ -19,6 +19,14 @@ public class HDChain {
 
     private NetworkParameters params;
 
+    private final DerivedAddressCache addressCache = new DerivedAddressCache();
+    private final DerivedAddressCache.Deriver deriver = new DerivedAddressCache.Deriver() {
+        @Override
+        public HDAddress derive(int index) {
+            return new HDAddress(params, cKey, index);
+        }
+    };
+
     public static final int RECEIVE_CHAIN = 0;
     public static final int CHANGE_CHAIN = 1;
 
@@ -48,12 +56,30 @@ public class HDChain {
     }
 
     /**
-     * Return HDAddress at provided index into chain.
+     * Return HDAddress at provided index into chain. Addresses are only derived the first time
+     * they're requested.
      *
      * @return HDAddress
      */
     public HDAddress getAddressAt(int addrIdx) {
-        return new HDAddress(params, cKey, addrIdx);
+        return addressCache.get(addrIdx, deriver);
+    }
+
+    /**
+     * Derive and cache the addresses in [startIndex, endIndex) ahead of time. Slow, so should be
+     * called off the main thread.
+     */
+    public void prefillAddresses(int startIndex, int endIndex) {
+        addressCache.prefill(startIndex, endIndex, deriver);
+    }
+
+    /**
+     * Return the derived address cache for this chain, eg. to read its hit and miss counts.
+     *
+     * @return DerivedAddressCache
+     */
+    public DerivedAddressCache getAddressCache() {
+        return addressCache;
     }
 
     /**
@@ -11,6 +11,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import info.blockchain.wallet.stx.STXAccount;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * HDWallet.java : BIP44 wallet
@@ -149,6 +151,22 @@ public class HDWallet {
         return account;
     }
 
+    /**
+     * Derive the XPUBs of accounts {@code from} to {@code from + count - 1} in parallel, without
+     * adding the accounts.
+     *
+     * @return List<String> in account order
+     */
+    public List<String> deriveAccountXpubs(int from, int count) {
+        return Observable.range(from, count)
+                .concatMapEager(child -> Observable.fromCallable(() ->
+                        HDKeyDerivation.deriveChildKey(dkRoot, child | ChildNumber.HARDENED_BIT)
+                                .serializePubB58(params)
+                ).subscribeOn(Schedulers.computation()))
+                .toList()
+                .blockingGet();
+    }
+
     /**
      * Return BIP44 path for this wallet (m / purpose').
      *
@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WalletFactory.java : Class for creating/restoring/reading BIP44 HD wallet
@@ -28,6 +30,9 @@ public class HDWalletFactory {
 
     private static final Logger log = LoggerFactory.getLogger(HDWalletFactory.class);
 
+    // Word lists are read once per language, a MnemonicCode doesn't change once created
+    private static final Map<Locale, MnemonicCode> mnemonicCodes = new ConcurrentHashMap<>();
+
     public enum Language {
         US, ES, FR, JP, CN, TW
     }
@@ -62,13 +67,9 @@ public class HDWalletFactory {
         byte seed[] = new byte[len];
         random.nextBytes(seed);
 
-        InputStream wis = HDWalletFactory.class
-                .getClassLoader()
-                .getResourceAsStream("wordlist/" + locale.toString() + ".txt");
-        if (wis != null) {
-            MnemonicCode mc = new MnemonicCode(wis, null);
+        MnemonicCode mc = getMnemonicCode(locale);
+        if (mc != null) {
             hdw = new HDWallet(mc, networkParameters, seed, passphrase, nbAccounts);
-            wis.close();
         } else {
             log.warn("cannot read BIP39 word list");
             return null;
@@ -101,18 +102,14 @@ public class HDWalletFactory {
             passphrase = "";
         }
 
-        InputStream wis = HDWalletFactory.class.getClassLoader()
-                .getResourceAsStream("wordlist/" + locale.toString() + ".txt");
+        MnemonicCode mc = getMnemonicCode(locale);
 
-        if (wis == null) {
+        if (mc == null) {
             throw new MnemonicException.MnemonicWordException("cannot read BIP39 word list");
         }
 
         List<String> words;
 
-        MnemonicCode mc;
-        mc = new MnemonicCode(wis, null);
-
         byte[] seed;
         if (data.length() % 4 == 0 && !data.contains(" ")) {
             //Hex seed
@@ -125,8 +122,6 @@ public class HDWalletFactory {
             hdw = new HDWallet(mc, networkParameters, seed, passphrase, nbAccounts);
         }
 
-        wis.close();
-
         return hdw;
     }
 
@@ -136,6 +131,24 @@ public class HDWalletFactory {
         return new HDWallet(networkParameters, xpubList);
     }
 
+    private static MnemonicCode getMnemonicCode(Locale locale) throws IOException {
+        MnemonicCode mc = mnemonicCodes.get(locale);
+        if (mc == null) {
+            InputStream wis = HDWalletFactory.class.getClassLoader()
+                    .getResourceAsStream("wordlist/" + locale.toString() + ".txt");
+            if (wis == null) {
+                return null;
+            }
+            try {
+                mc = new MnemonicCode(wis, null);
+            } finally {
+                wis.close();
+            }
+            mnemonicCodes.put(locale, mc);
+        }
+        return mc;
+    }
+
     private static Locale getLocale(Language language) {
         Locale locale = new Locale("en", "US");
         switch (language) {
@@ -4,6 +4,7 @@ import info.blockchain.wallet.exceptions.DecryptionException;
 import info.blockchain.wallet.exceptions.EncryptionException;
 import java.io.UnsupportedEncodingException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.binary.Base64;
 import org.spongycastle.crypto.BlockCipher;
@@ -40,6 +41,84 @@ public class AESUtil {
     private static final int AESBlockSize = 4;
     private static final int KEY_BIT_LEN = 256;
 
+    // Length of the IV prepended to the cipher data, which also serves as the PBKDF2 salt
+    public static final int IV_LENGTH = AESBlockSize * 4;
+
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    // PBKDF2 is by far the most expensive part of encrypting or decrypting, so keys derived for a
+    // given salt, iteration count and password are kept for the rest of the session.
+    private static final DerivedKeyCache derivedKeyCache = new DerivedKeyCache();
+
+    // The generator and cipher engines aren't thread safe but are fully reset when initialised,
+    // so each thread keeps its own set rather than allocating new ones on every call.
+    private static final ThreadLocal<CipherSet> cipherSets = new ThreadLocal<CipherSet>() {
+        @Override
+        protected CipherSet initialValue() {
+            return new CipherSet();
+        }
+    };
+
+    private static final class CipherSet {
+        final PBEParametersGenerator generator = new PKCS5S2ParametersGenerator();
+        final BlockCipher cbc = new CBCBlockCipher(new AESEngine());
+        final BlockCipher ofb = new OFBBlockCipher(new AESEngine(), 128);
+        final BlockCipher cbcFast = new CBCBlockCipher(new AESFastEngine());
+    }
+
+    /**
+     * Exposes the derived key cache, mainly so that its hit rate can be measured.
+     */
+    public static DerivedKeyCache getDerivedKeyCache() {
+        return derivedKeyCache;
+    }
+
+    /**
+     * Zeroes and drops every cached derived key. Must be called when the wallet is wiped.
+     */
+    public static void clearDerivedKeyCache() {
+        derivedKeyCache.clear();
+    }
+
+    /**
+     * Derives the PBKDF2 key for the given salt, reusing a previously derived key where possible.
+     */
+    public static KeyParameter deriveKey(String password, byte[] salt, int iterations) {
+        byte[] passwordBytes = PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(password.toCharArray());
+        try {
+            KeyParameter cachedKey = derivedKeyCache.get(passwordBytes, salt, iterations);
+            if (cachedKey != null) {
+                return cachedKey;
+            }
+
+            PBEParametersGenerator generator = cipherSets.get().generator;
+            generator.init(passwordBytes, salt, iterations);
+            KeyParameter keyParam = (KeyParameter) generator.generateDerivedParameters(KEY_BIT_LEN);
+
+            derivedKeyCache.put(passwordBytes, salt, iterations, keyParam);
+            return keyParam;
+        } finally {
+            Arrays.fill(passwordBytes, (byte) 0);
+        }
+    }
+
+    private static BufferedBlockCipher getCipher(int mode, @Nullable BlockCipherPadding padding) {
+        BlockCipher cipherMode;
+        if (mode == MODE_CBC) {
+            cipherMode = cipherSets.get().cbc;
+
+        } else {
+            //mode == MODE_OFB
+            cipherMode = cipherSets.get().ofb;
+        }
+
+        if (padding != null) {
+            return new PaddedBufferedBlockCipher(cipherMode, padding);
+        } else {
+            return new BufferedBlockCipher(cipherMode);
+        }
+    }
+
     private static byte[] copyOfRange(byte[] source, int from, int to) {
         byte[] range = new byte[to - from];
         System.arraycopy(source, from, range, 0, range.length);
@@ -58,31 +137,35 @@ public class AESUtil {
         byte[] cipherdata = Base64.decodeBase64(ciphertext.getBytes());
 
         //Separate the IV and cipher data
-        byte[] iv = copyOfRange(cipherdata, 0, AESBlockSize * 4);
-        byte[] input = copyOfRange(cipherdata, AESBlockSize * 4, cipherdata.length);
+        byte[] iv = copyOfRange(cipherdata, 0, IV_LENGTH);
+        byte[] input = copyOfRange(cipherdata, IV_LENGTH, cipherdata.length);
 
-        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator();
-        generator.init(PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(password.toCharArray()), iv, iterations);
-        KeyParameter keyParam = (KeyParameter) generator.generateDerivedParameters(256);
+        KeyParameter keyParam = deriveKey(password, iv, iterations);
 
-        CipherParameters params = new ParametersWithIV(keyParam, iv);
+        byte[] out = decryptWithKeyAndMode(iv, input, keyParam, mode, padding);
 
-        BlockCipher cipherMode;
-        if (mode == MODE_CBC) {
-            cipherMode = new CBCBlockCipher(new AESEngine());
-
-        } else {
-            //mode == MODE_OFB
-            cipherMode = new OFBBlockCipher(new AESEngine(), 128);
+        // return string representation of decoded bytes
+        String result = new String(out, "UTF-8");
+        if (result.isEmpty()) {
+            throw new DecryptionException("Decrypted string is empty.");
         }
 
-        BufferedBlockCipher cipher;
-        if (padding != null) {
-            cipher = new PaddedBufferedBlockCipher(cipherMode, padding);
-        } else {
-            cipher = new BufferedBlockCipher(cipherMode);
-        }
+        return result;
+    }
 
+    /**
+     * Decrypts cipher data with an already derived key.
+     *
+     * @param iv    the 16 byte IV that was prepended to the cipher data
+     * @param input the cipher data, without the IV
+     * @return the decrypted bytes with any padding removed
+     */
+    public static byte[] decryptWithKeyAndMode(byte[] iv, byte[] input, KeyParameter key, int mode, @Nullable BlockCipherPadding padding)
+        throws InvalidCipherTextException {
+
+        CipherParameters params = new ParametersWithIV(key, iv);
+
+        BufferedBlockCipher cipher = getCipher(mode, padding);
         cipher.reset();
         cipher.init(false, params);
 
@@ -94,14 +177,25 @@ public class AESUtil {
         // remove padding
         byte[] out = new byte[len];
         System.arraycopy(buf, 0, out, 0, len);
+        return out;
+    }
 
-        // return string representation of decoded bytes
-        String result = new String(out, "UTF-8");
-        if (result.isEmpty()) {
-            throw new DecryptionException("Decrypted string is empty.");
-        }
-
-        return result;
+    /**
+     * Decrypts only the first block of the cipher data. Padding only affects the last block, so
+     * this is a cheap way of rejecting a wrong key or mode before decrypting a whole payload.
+     *
+     * @param iv    the 16 byte IV that was prepended to the cipher data
+     * @param input the cipher data, without the IV. Must be at least one block long
+     * @return the first 16 decrypted bytes
+     */
+    public static byte[] decryptFirstBlock(byte[] iv, byte[] input, KeyParameter key, int mode) {
+        BlockCipher cipherMode = mode == MODE_CBC ? cipherSets.get().cbc : cipherSets.get().ofb;
+        cipherMode.init(false, new ParametersWithIV(key, iv));
+
+        byte[] out = new byte[IV_LENGTH];
+        cipherMode.processBlock(input, 0, out, 0);
+        cipherMode.reset();
+        return out;
     }
 
     // AES 256 PBKDF2 CBC iso10126 encryption
@@ -119,34 +213,18 @@ public class AESUtil {
         }
 
         // Use secure random to generate a 16 byte iv
-        SecureRandom random = new SecureRandom();
-        byte iv[] = new byte[AESBlockSize * 4];
-        random.nextBytes(iv);
+        byte iv[] = getSalt();
 
         byte[] clearbytes = cleartext.getBytes("UTF-8");
 
-        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator();
-        generator.init(PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(password.toCharArray()), iv, iterations);
-        KeyParameter keyParam = (KeyParameter) generator.generateDerivedParameters(256);
+        // The iv doubles as the PBKDF2 salt, so a fresh key has to be derived for every
+        // encryption. Reusing one would mean reusing the iv under the same key. The derived key
+        // is still cached so that decrypting this ciphertext later in the session is cheap.
+        KeyParameter keyParam = deriveKey(password, iv, iterations);
 
         CipherParameters params = new ParametersWithIV(keyParam, iv);
 
-        BlockCipher cipherMode;
-        if (mode == MODE_CBC) {
-            cipherMode = new CBCBlockCipher(new AESEngine());
-
-        } else {
-            //mode == MODE_OFB
-            cipherMode = new OFBBlockCipher(new AESEngine(), 128);
-        }
-
-        BufferedBlockCipher cipher;
-        if (padding != null) {
-            cipher = new PaddedBufferedBlockCipher(cipherMode, padding);
-        } else {
-            cipher = new BufferedBlockCipher(cipherMode);
-        }
-
+        BufferedBlockCipher cipher = getCipher(mode, padding);
         cipher.reset();
         cipher.init(true, params);
 
@@ -187,9 +265,8 @@ public class AESUtil {
      */
     private static byte[] getSalt() {
 
-        SecureRandom random = new SecureRandom();
-        byte iv[] = new byte[AESBlockSize * 4];
-        random.nextBytes(iv);
+        byte iv[] = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
 
         return iv;
     }
@@ -209,8 +286,7 @@ public class AESUtil {
         KeyParameter keyParam = new KeyParameter(key);
         CipherParameters params = new ParametersWithIV(keyParam, iv);
 
-        BlockCipher cipherMode = new CBCBlockCipher(new AESFastEngine());
-        BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(cipherMode, new ISO10126d2Padding());
+        BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(cipherSets.get().cbcFast, new ISO10126d2Padding());
         cipher.reset();
         cipher.init(true, params);
 
@@ -239,14 +315,13 @@ public class AESUtil {
         byte[] dataBytesB64 = Base64.decodeBase64(ciphertext.getBytes("utf-8"));
 
         //Separate the IV and cipher data
-        byte[] iv = copyOfRange(dataBytesB64, 0, AESBlockSize * 4);
-        byte[] dataBytes = copyOfRange(dataBytesB64, AESBlockSize * 4, dataBytesB64.length);
+        byte[] iv = copyOfRange(dataBytesB64, 0, IV_LENGTH);
+        byte[] dataBytes = copyOfRange(dataBytesB64, IV_LENGTH, dataBytesB64.length);
 
         KeyParameter keyParam = new KeyParameter(key);
         CipherParameters params = new ParametersWithIV(keyParam, iv);
 
-        BlockCipher cipherMode = new CBCBlockCipher(new AESFastEngine());
-        BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(cipherMode, new ISO10126d2Padding());
+        BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(cipherSets.get().cbcFast, new ISO10126d2Padding());
         cipher.reset();
         cipher.init(false, params);
 
@@ -0,0 +1,92 @@
+package info.blockchain.wallet.crypto
+
+import org.spongycastle.crypto.digests.SHA256Digest
+import org.spongycastle.crypto.macs.HMac
+import org.spongycastle.crypto.params.KeyParameter
+import org.spongycastle.util.encoders.Hex
+import java.security.SecureRandom
+import java.util.Arrays
+import java.util.LinkedHashMap
+
+/**
+ * Bounded, in memory cache of PBKDF2 derived keys, keyed by salt, iteration count and a
+ * fingerprint of the password.
+ *
+ * The password itself is never stored. Its fingerprint is an HMAC keyed with a random per-instance
+ * secret, so a cache key can't be used to test password guesses outside of this process. Keys are
+ * zeroed when they are evicted or the cache is cleared.
+ */
+class DerivedKeyCache(private val maxEntries: Int = DEFAULT_MAX_ENTRIES) {
+
+    private val fingerprintSecret = ByteArray(32).also { SecureRandom().nextBytes(it) }
+
+    private val entries = object : LinkedHashMap<String, ByteArray>(maxEntries, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, ByteArray>): Boolean {
+            if (size > maxEntries) {
+                Arrays.fill(eldest.value, 0.toByte())
+                return true
+            }
+            return false
+        }
+    }
+
+    @Volatile
+    var hits = 0L
+        private set
+
+    @Volatile
+    var misses = 0L
+        private set
+
+    val size: Int
+        get() = synchronized(entries) { entries.size }
+
+    /**
+     * Returns the cached key for this combination of inputs, or null if it hasn't been derived yet.
+     */
+    fun get(password: ByteArray, salt: ByteArray, iterations: Int): KeyParameter? {
+        val cacheKey = cacheKey(password, salt, iterations)
+        return synchronized(entries) {
+            val key = entries[cacheKey]
+            if (key != null) {
+                hits++
+                KeyParameter(key)
+            } else {
+                misses++
+                null
+            }
+        }
+    }
+
+    fun put(password: ByteArray, salt: ByteArray, iterations: Int, key: KeyParameter) {
+        val cacheKey = cacheKey(password, salt, iterations)
+        synchronized(entries) {
+            entries.put(cacheKey, key.key.copyOf())?.let { Arrays.fill(it, 0.toByte()) }
+        }
+    }
+
+    /**
+     * Zeroes and drops every cached key. Should be called whenever the wallet is wiped.
+     */
+    fun clear() {
+        synchronized(entries) {
+            entries.values.forEach { Arrays.fill(it, 0.toByte()) }
+            entries.clear()
+            hits = 0
+            misses = 0
+        }
+    }
+
+    private fun cacheKey(password: ByteArray, salt: ByteArray, iterations: Int): String {
+        val mac = HMac(SHA256Digest())
+        mac.init(KeyParameter(fingerprintSecret))
+        mac.update(password, 0, password.size)
+        val fingerprint = ByteArray(mac.macSize)
+        mac.doFinal(fingerprint, 0)
+        return "${Hex.toHexString(salt)}:$iterations:${Hex.toHexString(fingerprint)}"
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 16
+    }
+}
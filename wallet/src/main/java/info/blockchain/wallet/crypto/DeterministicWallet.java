@@ -49,6 +49,8 @@ public abstract class DeterministicWallet implements DeterministicNode {
         }
     }
 
+    private static MnemonicCode mnemonicCode;
+
     protected NetworkParameters params;
 
     protected byte[] masterSeed;
@@ -111,10 +113,8 @@ public abstract class DeterministicWallet implements DeterministicNode {
     public DeterministicWallet(NetworkParameters params, String coinPath, List<String> mnemonic, String passphrase) {
 
         try {
-            MnemonicCode mc = new MnemonicCode();
-
-            this.masterSeed = MnemonicCode.toSeed(mnemonic, passphrase);
-            this.entropy = mc.toEntropy(mnemonic);
+            // The seed is derived from the entropy in init
+            this.entropy = getMnemonicCode().toEntropy(mnemonic);
         } catch (IOException | MnemonicException e) {
             throw new DeterministicWalletException("Unrecoverable mnemonic exception", e);
         }
@@ -137,6 +137,14 @@ public abstract class DeterministicWallet implements DeterministicNode {
         this.accounts = new ArrayList<>();
     }
 
+    private static synchronized MnemonicCode getMnemonicCode() throws IOException {
+        // Reading the word list is slow, and a MnemonicCode doesn't change once created
+        if (mnemonicCode == null) {
+            mnemonicCode = new MnemonicCode();
+        }
+        return mnemonicCode;
+    }
+
     private ImmutableList<ChildNumber> getRootPath(String coinPath) {
         return ImmutableList.<ChildNumber>builder().addAll(HDUtils.parsePath(coinPath)).build();
     }
@@ -157,7 +165,7 @@ public abstract class DeterministicWallet implements DeterministicNode {
         this.params = params;
 
         try {
-            MnemonicCode mc = new MnemonicCode();
+            MnemonicCode mc = getMnemonicCode();
             this.mnemonic = mc.toMnemonic(entropy);
             this.masterSeed = MnemonicCode.toSeed(mnemonic, passphrase);
             this.passphrase = passphrase;
@@ -0,0 +1,118 @@
+package info.blockchain.wallet.crypto
+
+import org.apache.commons.codec.binary.Base64
+import org.json.JSONObject
+import org.spongycastle.crypto.paddings.BlockCipherPadding
+import org.spongycastle.crypto.paddings.ISO10126d2Padding
+import org.spongycastle.crypto.paddings.ISO7816d4Padding
+import org.spongycastle.crypto.paddings.ZeroBytePadding
+import org.spongycastle.crypto.params.KeyParameter
+import java.util.Arrays
+
+/**
+ * Decrypts V1 wallet payloads, which don't record the iteration count, cipher mode or padding
+ * they were encrypted with, so every combination has to be tried.
+ *
+ * Each iteration count is only derived once and the key is shared across all modes and paddings.
+ * Before decrypting the whole payload for a key and mode, the first block is decrypted on its own
+ * and checked to look like the start of a JSON object, which rules out almost every wrong
+ * candidate without paying for a full decrypt and parse. Candidates are tried in the same order
+ * as they always have been, so the first combination that parses is still the one returned.
+ */
+class V1PayloadDecryptor(
+    private val iterations: IntArray = intArrayOf(ITERATIONS_V1_A, ITERATIONS_V1_B)
+) {
+
+    /**
+     * Counts the candidates that needed a full decrypt and parse. Exposed for tests.
+     */
+    @Volatile
+    var fullDecryptAttempts = 0
+        private set
+
+    /**
+     * @return the decrypted payload, or null if no combination of iterations, mode and padding
+     * produced valid JSON
+     */
+    fun decrypt(payload: String, password: String): String? {
+        val cipherData = try {
+            Base64.decodeBase64(payload.toByteArray(Charsets.UTF_8))
+        } catch (e: Exception) {
+            return null
+        }
+        if (cipherData.size <= AESUtil.IV_LENGTH) return null
+
+        val iv = Arrays.copyOfRange(cipherData, 0, AESUtil.IV_LENGTH)
+        val input = Arrays.copyOfRange(cipherData, AESUtil.IV_LENGTH, cipherData.size)
+        val canCheckFirstBlock = input.size >= AESUtil.IV_LENGTH
+
+        for (iteration in iterations) {
+            val key = AESUtil.deriveKey(password, iv, iteration)
+            for (mode in MODES) {
+                if (canCheckFirstBlock &&
+                    !looksLikeJsonStart(AESUtil.decryptFirstBlock(iv, input, key, mode))
+                ) {
+                    continue
+                }
+                for (padding in PADDINGS) {
+                    tryDecrypt(iv, input, key, mode, padding)?.let { return it }
+                }
+            }
+        }
+        return null
+    }
+
+    private fun tryDecrypt(
+        iv: ByteArray,
+        input: ByteArray,
+        key: KeyParameter,
+        mode: Int,
+        padding: BlockCipherPadding?
+    ): String? = try {
+        fullDecryptAttempts++
+        val decrypted = String(AESUtil.decryptWithKeyAndMode(iv, input, key, mode, padding), Charsets.UTF_8)
+        // Ensure it's parsable
+        JSONObject(decrypted)
+        decrypted
+    } catch (e: Exception) {
+        null
+    }
+
+    companion object {
+
+        const val ITERATIONS_V1_A = 1
+        const val ITERATIONS_V1_B = 10
+
+        private val MODES = intArrayOf(AESUtil.MODE_CBC, AESUtil.MODE_OFB)
+
+        private val PADDINGS: Array<BlockCipherPadding?> = arrayOf(
+            ISO10126d2Padding(),
+            ISO7816d4Padding(),
+            ZeroBytePadding(),
+            null // NoPadding
+        )
+
+        /**
+         * A decrypted JSON object starts with optional whitespace followed by '{', and the rest of
+         * the block can't contain any control characters. A wrong key produces random bytes, which
+         * pass this check with negligible probability.
+         */
+        internal fun looksLikeJsonStart(block: ByteArray): Boolean {
+            var seenBrace = false
+            for (byte in block) {
+                val c = byte.toInt() and 0xff
+                val whitespace = c == ' '.toInt() || c == '\t'.toInt() || c == '\r'.toInt() || c == '\n'.toInt()
+                if (!seenBrace) {
+                    if (c == '{'.toInt()) {
+                        seenBrace = true
+                    } else if (!whitespace) {
+                        return false
+                    }
+                } else if (c < 0x20 && !whitespace || c == 0x7f) {
+                    return false
+                }
+            }
+            return true
+        }
+    }
+}
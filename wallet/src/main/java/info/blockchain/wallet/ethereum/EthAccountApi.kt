@@ -44,8 +44,15 @@ class EthAccountApi(private val apiCode: ApiCode) {
         return apiInstance.getEthAccount(StringUtils.join(addresses, ","))
     }
 
-    fun getEthTransactions(addresses: List<String>): Single<List<EthTransaction>> {
-        return apiInstance.getTransactions(StringUtils.join(addresses, ",")).map { it.transactions }
+    /**
+     * Returns the most recent transactions of the given ETH addresses, newest first.
+     *
+     * @param addresses The ETH addresses to be queried
+     * @param size The number of transactions to return
+     * @return A [Single] wrapping the list of [EthTransaction]
+     */
+    fun getEthTransactions(addresses: List<String>, size: Int = 50): Single<List<EthTransaction>> {
+        return apiInstance.getTransactions(StringUtils.join(addresses, ","), size).map { it.transactions }
     }
 
     fun getLastEthTransaction(addresses: List<String>): Maybe<EthTransaction> {
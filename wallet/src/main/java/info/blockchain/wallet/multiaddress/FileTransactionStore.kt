@@ -0,0 +1,111 @@
+package info.blockchain.wallet.multiaddress
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import info.blockchain.api.data.MultiAddress
+import info.blockchain.wallet.crypto.AESUtil
+import org.slf4j.LoggerFactory
+import org.spongycastle.util.encoders.Hex
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+
+/**
+ * [TransactionStore] that keeps one encrypted file per key in [directory]. File names are hashes
+ * of the key and contents are encrypted with the key from [encryptionKey], so neither xpubs nor
+ * history can be read off the device storage.
+ *
+ * [encryptionKey] may block while the key is derived, so the store must not be used on the main
+ * thread. It returns null when there is no key, eg. no wallet is loaded, and the store then acts
+ * as if it were empty.
+ */
+class FileTransactionStore(
+    private val directory: File,
+    private val encryptionKey: () -> ByteArray?
+) : TransactionStore {
+
+    private val mapper = ObjectMapper()
+
+    @Volatile
+    private var droppedPlainEntries = false
+
+    override fun load(key: String): StoredTransactions? =
+        encryptionKey()?.let { load(key, it) }
+
+    override fun save(key: String, transactions: StoredTransactions) {
+        encryptionKey()?.let { save(key, transactions, it) }
+    }
+
+    @Synchronized
+    private fun load(key: String, secret: ByteArray): StoredTransactions? {
+        val file = fileFor(key)
+        if (!file.exists()) return null
+
+        return try {
+            val node = mapper.readTree(AESUtil.decryptWithKey(secret, file.readText(Charsets.UTF_8)))
+            StoredTransactions(
+                fingerprint = node.get(FINGERPRINT).asText(),
+                limit = node.get(LIMIT).asInt(),
+                multiAddress = MultiAddress.fromJson(node.get(MULTI_ADDRESS).asText())
+            )
+        } catch (e: Exception) {
+            // Unreadable or from an older format, start again from the network
+            log.warn("Dropping unreadable transaction store entry", e)
+            file.delete()
+            null
+        }
+    }
+
+    @Synchronized
+    private fun save(key: String, transactions: StoredTransactions, secret: ByteArray) {
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw IOException("Unable to create $directory")
+            }
+            dropPlainEntries()
+            val node = mapper.createObjectNode()
+                .put(FINGERPRINT, transactions.fingerprint)
+                .put(LIMIT, transactions.limit)
+                .put(MULTI_ADDRESS, transactions.multiAddress.toJson())
+
+            // Write to a temporary file first so a crash can't leave a truncated entry behind
+            val file = fileFor(key)
+            val temp = File(directory, "${file.name}.tmp")
+            temp.writeBytes(AESUtil.encryptWithKey(secret, mapper.writeValueAsString(node)))
+            if (!temp.renameTo(file)) {
+                file.delete()
+                temp.renameTo(file)
+            }
+        } catch (e: Exception) {
+            // The store is only an optimisation, history will be fetched in full next time
+            log.warn("Unable to store transactions", e)
+        }
+    }
+
+    @Synchronized
+    override fun clear() {
+        directory.listFiles()?.forEach { it.delete() }
+    }
+
+    // Entries written before the store was encrypted
+    private fun dropPlainEntries() {
+        if (droppedPlainEntries) return
+        directory.listFiles { file -> file.name.endsWith(PLAIN_EXTENSION) }?.forEach { it.delete() }
+        droppedPlainEntries = true
+    }
+
+    private fun fileFor(key: String): File {
+        val digest = MessageDigest.getInstance("SHA-256").digest(key.toByteArray(Charsets.UTF_8))
+        return File(directory, Hex.toHexString(digest) + EXTENSION)
+    }
+
+    companion object {
+        private val log = LoggerFactory.getLogger(FileTransactionStore::class.java)
+
+        private const val FINGERPRINT = "fingerprint"
+        private const val LIMIT = "limit"
+        private const val MULTI_ADDRESS = "multiaddress"
+
+        private const val EXTENSION = ".entry"
+        private const val PLAIN_EXTENSION = ".json"
+    }
+}
@@ -2,13 +2,19 @@ package info.blockchain.wallet.multiaddress;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 import info.blockchain.api.blockexplorer.BlockExplorer;
 import info.blockchain.api.blockexplorer.FilterType;
@@ -22,6 +28,7 @@ import info.blockchain.wallet.bip44.HDChain;
 import info.blockchain.wallet.exceptions.ApiException;
 import info.blockchain.wallet.multiaddress.TransactionSummary.TransactionType;
 import info.blockchain.wallet.payload.data.AddressLabel;
+import org.spongycastle.util.encoders.Hex;
 import retrofit2.Call;
 import retrofit2.Response;
 
@@ -29,6 +36,9 @@ public class MultiAddressFactory {
 
     private BlockExplorer blockExplorer;
 
+    @Nullable
+    private TransactionStore transactionStore;
+
     private HashMap<String, Integer> nextReceiveAddressMap;
     private HashMap<String, Integer> nextChangeAddressMap;
 
@@ -37,13 +47,31 @@ public class MultiAddressFactory {
 
     public static final String ADDRESS_DECODE_ERROR = "[--address_decode_error--]";
 
+    private static final String RECEIVE_CHAIN_PATH_PREFIX = "M/" + HDChain.RECEIVE_CHAIN + "/";
+
+    //Page size used when checking for activity newer than the stored history
+    static final int INCREMENTAL_PAGE_SIZE = 10;
+
     public MultiAddressFactory(BlockExplorer blockExplorer) {
+        this(blockExplorer, null);
+    }
+
+    public MultiAddressFactory(BlockExplorer blockExplorer, @Nullable TransactionStore transactionStore) {
         this.blockExplorer = blockExplorer;
+        this.transactionStore = transactionStore;
         this.addressToXpubMap = new HashMap<>();
         this.nextReceiveAddressMap = new HashMap<>();
         this.nextChangeAddressMap = new HashMap<>();
     }
 
+    /**
+     * Sets the local store used to only fetch new activity. Without one, every call fetches the
+     * requested page in full.
+     */
+    public void setTransactionStore(@Nullable TransactionStore transactionStore) {
+        this.transactionStore = transactionStore;
+    }
+
     public String getXpubFromAddress(String address) {
         return addressToXpubMap.get(address);
     }
@@ -71,6 +99,13 @@ public class MultiAddressFactory {
         return blockExplorer;
     }
 
+    /**
+     * Coin identifier used to keep stored history of different chains apart.
+     */
+    protected String getCoin() {
+        return "btc";
+    }
+
     /**
      * @param all          A list of all xpubs and legacy addresses whose transactions are to
      *                     be retrieved from API.
@@ -90,7 +125,12 @@ public class MultiAddressFactory {
         int offset,
         int startingBlockHeight) throws IOException, ApiException {
 
-        MultiAddress multiAddress = getMultiAddress(all, onlyShow, limit, offset);
+        MultiAddress multiAddress;
+        if (transactionStore != null && offset == 0) {
+            multiAddress = syncMultiAddress(all, onlyShow, activeLegacy != null, limit);
+        } else {
+            multiAddress = getMultiAddress(all, onlyShow, limit, offset);
+        }
         if (multiAddress == null || multiAddress.getTxs() == null) {
             return new ArrayList<>();
         }
@@ -98,6 +138,147 @@ public class MultiAddressFactory {
         return summarize(all, multiAddress, activeLegacy, startingBlockHeight);
     }
 
+    /**
+     * Returns the first page of transactions as of the last sync, without any network calls.
+     * Takes the same parameters as {@link #getAccountTransactions}. Returns an empty list if
+     * nothing has been stored for this combination of addresses yet.
+     */
+    public List<TransactionSummary> getCachedAccountTransactions(
+        List<String> all,
+        List<String> activeLegacy,
+        String onlyShow,
+        int limit,
+        int startingBlockHeight) {
+
+        if (transactionStore == null) {
+            return new ArrayList<>();
+        }
+
+        StoredTransactions stored = transactionStore.load(storeKey(onlyShow, activeLegacy != null));
+        if (stored == null
+            || !stored.getFingerprint().equals(fingerprint(all))
+            || stored.getMultiAddress().getTxs() == null) {
+            return new ArrayList<>();
+        }
+
+        //Read only, the stored page may be older than the indexes we already have
+        List<TransactionSummary> summaries =
+            toSummaries(all, stored.getMultiAddress(), activeLegacy, startingBlockHeight, false);
+        return summaries.size() > limit ? new ArrayList<>(summaries.subList(0, limit)) : summaries;
+    }
+
+    /**
+     * Brings the stored first page up to date. Pages through the newest transactions in small
+     * steps until it reaches a confirmed transaction we already have at the same block height,
+     * and has seen again every transaction that was still pending. Everything older than that
+     * is taken from the store. Falls back to fetching the full page if there's no usable stored
+     * history.
+     */
+    private MultiAddress syncMultiAddress(List<String> all, String onlyShow, boolean legacyOnly,
+                                          int limit) throws IOException, ApiException {
+
+        String key = storeKey(onlyShow, legacyOnly);
+        String fingerprint = fingerprint(all);
+
+        StoredTransactions stored = transactionStore.load(key);
+        if (stored == null
+            || !stored.getFingerprint().equals(fingerprint)
+            || stored.getMultiAddress().getTxs() == null
+            || (stored.getLimit() < limit
+                && stored.getMultiAddress().getTxs().size() >= stored.getLimit())) {
+
+            MultiAddress multiAddress = getMultiAddress(all, onlyShow, limit, 0);
+            if (multiAddress != null && multiAddress.getTxs() != null) {
+                transactionStore.save(key, new StoredTransactions(fingerprint, limit, multiAddress));
+            }
+            return multiAddress;
+        }
+
+        HashMap<String, Transaction> knownByHash = new HashMap<>();
+        HashSet<String> pending = new HashSet<>();
+        for (Transaction tx : stored.getMultiAddress().getTxs()) {
+            knownByHash.put(tx.getHash(), tx);
+            if (tx.getBlockHeight() == 0) {
+                pending.add(tx.getHash());
+            }
+        }
+
+        int pageSize = Math.min(limit, INCREMENTAL_PAGE_SIZE);
+        LinkedHashMap<String, Transaction> fetched = new LinkedHashMap<>();
+        MultiAddress latest = null;
+        boolean reachedKnownHistory = false;
+        int offset = 0;
+
+        while (true) {
+            MultiAddress page = getMultiAddress(all, onlyShow, pageSize, offset);
+            if (latest == null) {
+                latest = page;
+            }
+            if (page == null || page.getTxs() == null) {
+                break;
+            }
+
+            for (Transaction tx : page.getTxs()) {
+                fetched.put(tx.getHash(), tx);
+                pending.remove(tx.getHash());
+
+                Transaction known = knownByHash.get(tx.getHash());
+                if (known != null && known.getBlockHeight() != 0
+                    && known.getBlockHeight() == tx.getBlockHeight()) {
+                    reachedKnownHistory = true;
+                }
+            }
+            offset += page.getTxs().size();
+
+            if ((reachedKnownHistory && pending.isEmpty())
+                || page.getTxs().size() < pageSize
+                || fetched.size() >= limit) {
+                break;
+            }
+        }
+
+        if (latest == null || latest.getTxs() == null) {
+            return latest;
+        }
+
+        ArrayList<Transaction> merged = new ArrayList<>(fetched.values());
+        if (reachedKnownHistory) {
+            //Pending transactions that weren't seen again have been dropped
+            for (Transaction tx : stored.getMultiAddress().getTxs()) {
+                if (tx.getBlockHeight() != 0 && !fetched.containsKey(tx.getHash())) {
+                    merged.add(tx);
+                }
+            }
+            sort(merged);
+        }
+        if (merged.size() > limit) {
+            merged = new ArrayList<>(merged.subList(0, limit));
+        }
+
+        latest.setTxs(merged);
+        transactionStore.save(key, new StoredTransactions(fingerprint, limit, latest));
+        return latest;
+    }
+
+    private String storeKey(String onlyShow, boolean legacyOnly) {
+        return getCoin() + ":" + (onlyShow != null ? onlyShow : "") + ":" + (legacyOnly ? "imported" : "all");
+    }
+
+    private static String fingerprint(List<String> all) {
+        List<String> sorted = new ArrayList<>(all);
+        Collections.sort(sorted);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String address : sorted) {
+                digest.update(address.getBytes(Charset.forName("UTF-8")));
+                digest.update((byte) ',');
+            }
+            return Hex.toHexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public int getNextChangeAddressIndex(String xpub) {
         if (!nextChangeAddressMap.containsKey(xpub)) {
             return 0;
@@ -177,20 +358,45 @@ public class MultiAddressFactory {
                                               List<String> legacy,
                                               int startingBlockHeight) {
 
-        List<TransactionSummary> summaryList = new ArrayList<>();
-
         //Set next address indexes
         for (AddressSummary address : multiAddress.getAddresses()) {
             nextReceiveAddressMap.put(address.getAddress(), address.getAccountIndex());
             nextChangeAddressMap.put(address.getAddress(), address.getChangeIndex());
         }
 
+        return toSummaries(ownAddressesAndXpubs, multiAddress, legacy, startingBlockHeight, true);
+    }
+
+    /**
+     * Builds the summaries for a page of transactions.
+     *
+     * @param recordOwnership Whether to remember which xpub each HD address in the page belongs
+     *                        to. Only pages fresh from the API should update the factory's state.
+     */
+    private List<TransactionSummary> toSummaries(List<String> ownAddressesAndXpubs,
+                                                 MultiAddress multiAddress,
+                                                 List<String> legacy,
+                                                 int startingBlockHeight,
+                                                 boolean recordOwnership) {
+
+        List<TransactionSummary> summaryList = new ArrayList<>();
+
         List<Transaction> txs = multiAddress.getTxs();
         if (txs == null) {
             //Address might not contain transactions
             return summaryList;
         }
 
+        //Ownership index for this page. Starts with the addresses and xpubs we were asked about and
+        //picks up every HD address the API tags with an xpub as we go, in step with addressToXpubMap
+        HashSet<String> ownAddresses = new HashSet<>(ownAddressesAndXpubs);
+        HashSet<String> legacySet = legacy != null ? new HashSet<>(legacy) : null;
+
+        long latestBlock = multiAddress.getInfo().getLatestBlock().getHeight();
+
+        //Reused across transactions
+        HashMap<String, BigInteger> changeMap = new HashMap<>();
+
         for (Transaction tx : txs) {
 
             if (tx.getBlockHeight() != 0 && tx.getBlockHeight() < startingBlockHeight) {
@@ -202,12 +408,6 @@ public class MultiAddressFactory {
             boolean isLegacy = false;
 
             TransactionSummary txSummary = new TransactionSummary();
-            txSummary.inputsMap = new HashMap<>();
-            txSummary.outputsMap = new HashMap<>();
-
-            //Map which address belongs to which xpub.
-            txSummary.inputsXpubMap = new HashMap<>();
-            txSummary.outputsXpubMap = new HashMap<>();
 
             if (tx.getResult().add(tx.getFee()).signum() == 0) {
                 txSummary.setTransactionType(TransactionType.TRANSFERRED);
@@ -218,15 +418,13 @@ public class MultiAddressFactory {
             }
 
             //Inputs
-            String inputAddr;
-            BigInteger inputValue;
             for (Input input : tx.getInputs()) {
 
                 Output prevOut = input.getPrevOut();
                 if (prevOut != null) {
 
-                    inputAddr = prevOut.getAddr();
-                    inputValue = prevOut.getValue();
+                    String inputAddr = prevOut.getAddr();
+                    BigInteger inputValue = prevOut.getValue();
                     if (inputAddr != null) {
 
                         //Transaction from HD account
@@ -234,19 +432,17 @@ public class MultiAddressFactory {
                         if (xpubBody != null) {
                             //xpubBody will only show if it belongs to our account
                             //inputAddr belongs to our own account - add it, it's a transfer/send
-                            ownAddressesAndXpubs.add(inputAddr);
+                            ownAddresses.add(inputAddr);
                             txSummary.inputsXpubMap.put(inputAddr, xpubBody.getM());
                         }
 
                         //Flag as imported legacy address
-                        if (legacy != null && legacy.contains(inputAddr)) {
+                        if (legacySet != null && legacySet.contains(inputAddr)) {
                             isLegacy = true;
                         }
 
                         //Keep track of inputs
-                        BigInteger existingBalance = txSummary.inputsMap.containsKey(inputAddr)
-                            ? txSummary.inputsMap.get(inputAddr) : BigInteger.ZERO;
-                        txSummary.inputsMap.put(inputAddr, existingBalance.add(inputValue));
+                        addValue(txSummary.inputsMap, inputAddr, inputValue);
 
                     } else {
                         //No input address available
@@ -258,61 +454,42 @@ public class MultiAddressFactory {
                 }
             }
 
-            HashMap<String, BigInteger> changeMap = new HashMap<>();
-            String outputAddr;
-            BigInteger outputValue;
+            changeMap.clear();
             for (Output output : tx.getOut()) {
 
-                outputAddr = output.getAddr();
-                outputValue = output.getValue();
+                String outputAddr = output.getAddr();
+                BigInteger outputValue = output.getValue();
                 if (outputAddr != null) {
 
                     Xpub xpubBody = output.getXpub();
                     if (xpubBody != null) {
 
                         //inputAddr belongs to our own account - add it
-                        ownAddressesAndXpubs.add(outputAddr);
-                        if (xpubBody.getPath().startsWith("M/" + HDChain.RECEIVE_CHAIN + "/")) {
-                            BigInteger existingBalance = txSummary.outputsMap.containsKey(outputAddr)
-                                ? txSummary.outputsMap.get(outputAddr) : BigInteger.ZERO;
-                            txSummary.outputsMap.put(outputAddr, existingBalance.add(outputValue));
+                        ownAddresses.add(outputAddr);
+                        if (xpubBody.getPath().startsWith(RECEIVE_CHAIN_PATH_PREFIX)) {
+                            addValue(txSummary.outputsMap, outputAddr, outputValue);
                             txSummary.outputsXpubMap.put(outputAddr, xpubBody.getM());
                         } else {
                             //Change
                             changeMap.put(outputAddr, outputValue);
                         }
 
-                    } else {
+                    } else if (txSummary.inputsMap.containsKey(outputAddr)) {
+                        //Our change
+                        changeMap.put(outputAddr, outputValue);
+                    } else if (ownAddresses.contains(outputAddr)) {
                         //If we own this address and it's not change coming back, it's a transfer
-                        if (ownAddressesAndXpubs.contains(outputAddr)
-                            && !txSummary.inputsMap.keySet().contains(outputAddr)) {
-
-                            if (txSummary.getTransactionType() == TransactionType.SENT) {
-                                txSummary.setTransactionType(TransactionType.TRANSFERRED);
-                            }
-
-                            //Don't add change coming back
-                            if (!txSummary.inputsMap.containsKey(outputAddr)) {
-                                BigInteger existingBalance = txSummary.outputsMap.containsKey(outputAddr)
-                                    ? txSummary.outputsMap.get(outputAddr) : BigInteger.ZERO;
-                                txSummary.outputsMap.put(outputAddr, existingBalance.add(outputValue));
-                            } else {
-                                changeMap.put(outputAddr, outputValue);
-                            }
-
-                        } else if (txSummary.inputsMap.keySet().contains(outputAddr)) {
-                            //Our change
-                            changeMap.put(outputAddr, outputValue);
-                        } else {
-                            //Address does not belong to us
-                            BigInteger existingBalance = txSummary.outputsMap.containsKey(outputAddr)
-                                ? txSummary.outputsMap.get(outputAddr) : BigInteger.ZERO;
-                            txSummary.outputsMap.put(outputAddr, existingBalance.add(outputValue));
+                        if (txSummary.getTransactionType() == TransactionType.SENT) {
+                            txSummary.setTransactionType(TransactionType.TRANSFERRED);
                         }
+                        addValue(txSummary.outputsMap, outputAddr, outputValue);
+                    } else {
+                        //Address does not belong to us
+                        addValue(txSummary.outputsMap, outputAddr, outputValue);
                     }
 
                     //Flag as imported legacy address
-                    if (legacy != null && legacy.contains(outputAddr)) {
+                    if (legacySet != null && legacySet.contains(outputAddr)) {
                         isLegacy = true;
                     }
                 } else {
@@ -322,13 +499,13 @@ public class MultiAddressFactory {
             }
 
             //If we are filtering for legacy and nothing found
-            if (legacy != null && !isLegacy) {
+            if (legacySet != null && !isLegacy) {
                 continue;
             }
 
             //Remove input addresses not ours
             filterOwnedAddresses(
-                ownAddressesAndXpubs,
+                ownAddresses,
                 txSummary.inputsMap,
                 txSummary.outputsMap,
                 txSummary.getTransactionType());
@@ -351,7 +528,6 @@ public class MultiAddressFactory {
             }
 
             //Set confirmations
-            long latestBlock = multiAddress.getInfo().getLatestBlock().getHeight();
             long txBlockHeight = tx.getBlockHeight();
             if (latestBlock > 0 && txBlockHeight > 0) {
                 txSummary.setConfirmations((int) ((latestBlock - txBlockHeight) + 1));
@@ -359,8 +535,10 @@ public class MultiAddressFactory {
                 txSummary.setConfirmations(0);
             }
 
-            addressToXpubMap.putAll(txSummary.getInputsXpubMap());
-            addressToXpubMap.putAll(txSummary.getOutputsXpubMap());
+            if (recordOwnership) {
+                addressToXpubMap.putAll(txSummary.getInputsXpubMap());
+                addressToXpubMap.putAll(txSummary.getOutputsXpubMap());
+            }
 
             summaryList.add(txSummary);
         }
@@ -368,57 +546,53 @@ public class MultiAddressFactory {
         return summaryList;
     }
 
-    private void filterOwnedAddresses(List<String> ownAddressesAndXpubs,
+    private static void addValue(HashMap<String, BigInteger> map, String address, BigInteger value) {
+        BigInteger existingBalance = map.get(address);
+        map.put(address, existingBalance != null ? existingBalance.add(value) : value);
+    }
+
+    private void filterOwnedAddresses(Set<String> ownAddresses,
                                       HashMap<String, BigInteger> inputsMap,
                                       HashMap<String, BigInteger> outputsMap, TransactionType transactionType) {
 
-        Iterator<Entry<String, BigInteger>> iterator = inputsMap.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<String, BigInteger> item = iterator.next();
-            if (!ownAddressesAndXpubs.contains(item.getKey()) && transactionType.equals(TransactionType.SENT)) {
-                iterator.remove();
-            }
-        }
-
-        iterator = outputsMap.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<String, BigInteger> item = iterator.next();
-            if (!ownAddressesAndXpubs.contains(item.getKey()) && transactionType.equals(TransactionType.RECEIVED)) {
-                iterator.remove();
-            }
+        if (transactionType == TransactionType.SENT) {
+            inputsMap.keySet().retainAll(ownAddresses);
+        } else if (transactionType == TransactionType.RECEIVED) {
+            outputsMap.keySet().retainAll(ownAddresses);
         }
     }
 
+    //Amounts are satoshis, which always fit in a long
     private BigInteger calculateTotalReceived(HashMap<String, BigInteger> outputsMap) {
 
-        BigInteger total = BigInteger.ZERO;
+        long total = 0L;
 
         for (BigInteger output : outputsMap.values()) {
-            total = total.add(output);
+            total += output.longValue();
         }
 
-        return total;
+        return BigInteger.valueOf(total);
     }
 
     private BigInteger calculateTotalSent(HashMap<String, BigInteger> inputsMap,
                                           HashMap<String, BigInteger> changeMap,
                                           BigInteger fee, TransactionType transactionType) {
 
-        BigInteger total = BigInteger.ZERO;
+        long total = 0L;
 
         for (BigInteger input : inputsMap.values()) {
-            total = total.add(input);
+            total += input.longValue();
         }
 
         for (BigInteger change : changeMap.values()) {
-            total = total.subtract(change);
+            total -= change.longValue();
         }
 
         if (transactionType == TransactionType.TRANSFERRED) {
-            total = total.subtract(fee);
+            total -= fee.longValue();
         }
 
-        return total;
+        return BigInteger.valueOf(total);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package info.blockchain.wallet.multiaddress
+
+import info.blockchain.api.data.MultiAddress
+
+/**
+ * Local copy of the most recent page of multiaddress history, so that refreshes only need to
+ * fetch what changed since the last sync and the activity list can be shown without a network
+ * round trip.
+ */
+interface TransactionStore {
+
+    /**
+     * @return the last stored page for [key], or null if there isn't one
+     */
+    fun load(key: String): StoredTransactions?
+
+    fun save(key: String, transactions: StoredTransactions)
+
+    /**
+     * Drops all stored history. Must be called when the wallet is wiped.
+     */
+    fun clear()
+}
+
+/**
+ * @param fingerprint identifies the set of xpubs and addresses the page was fetched for. Stored
+ * history is ignored if the wallet's active addresses change.
+ * @param limit the page size the history was fetched with. If [multiAddress] holds fewer
+ * transactions than this, it's the wallet's complete history.
+ * @param multiAddress the merged response, including the address summaries and latest block
+ */
+class StoredTransactions(
+    val fingerprint: String,
+    val limit: Int,
+    val multiAddress: MultiAddress
+)
@@ -0,0 +1,98 @@
+package info.blockchain.wallet.payload
+
+import io.reactivex.Observable
+import io.reactivex.schedulers.Schedulers
+import java.math.BigInteger
+
+/**
+ * Fetches balances with [query] in chunks of at most [chunkSize] addresses, up to
+ * [maxParallelRequests] at a time, so wallets with hundreds of imported addresses don't send one
+ * huge request. The results are merged into the balances from earlier fetches.
+ *
+ * Imported addresses whose balance didn't change the last time they were queried, less than
+ * [recheckMillis] ago, are skipped and keep their known balance. Xpubs are always queried, as
+ * are addresses passed to [invalidate] since and every address when fetching with `refreshAll`.
+ */
+class BalanceFetcher @JvmOverloads constructor(
+    private val query: BalanceQuery,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE,
+    private val maxParallelRequests: Int = MAX_PARALLEL_REQUESTS,
+    private val recheckMillis: Long = UNCHANGED_RECHECK_MILLIS,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private class Known(
+        val balance: BigInteger,
+        val queriedAt: Long,
+        val unchanged: Boolean
+    )
+
+    private val known = HashMap<String, Known>()
+
+    /**
+     * @param refreshAll queries the unchanged addresses too, for refreshes the user asked for
+     * @return the balance of every xpub and address queried, now or recently
+     */
+    @JvmOverloads
+    @Synchronized
+    fun fetch(xpubs: Set<String>, legacy: Set<String>, refreshAll: Boolean = false): Map<String, BigInteger> {
+        val now = clock()
+        val skipped = if (refreshAll) emptySet() else legacy.filter { address ->
+            known[address]?.let { it.unchanged && now - it.queriedAt < recheckMillis } ?: false
+        }.toSet()
+        val queried = (xpubs + legacy) - skipped
+
+        val fetched = fetchInChunks(queried)
+
+        val balances = HashMap<String, BigInteger>(fetched.size + skipped.size)
+        skipped.forEach { address -> balances[address] = known.getValue(address).balance }
+        fetched.forEach { (address, balance) ->
+            balances[address] = balance
+            known[address] = Known(
+                balance = balance,
+                queriedAt = now,
+                unchanged = known[address]?.balance == balance
+            )
+        }
+        // Forget addresses no longer in the wallet
+        known.keys.retainAll(xpubs + legacy)
+        return balances
+    }
+
+    /**
+     * Makes the next [fetch] query [addresses], eg. after spending from them or seeing them in a
+     * new transaction.
+     */
+    @Synchronized
+    fun invalidate(addresses: Collection<String>) {
+        known.keys.removeAll(addresses)
+    }
+
+    private fun fetchInChunks(addresses: Set<String>): Map<String, BigInteger> {
+        if (addresses.size <= chunkSize) {
+            return if (addresses.isEmpty()) emptyMap() else query.getBalancesFor(addresses)
+        }
+        return try {
+            Observable.fromIterable(addresses.chunked(chunkSize))
+                .flatMap(
+                    { chunk: List<String> ->
+                        Observable.fromCallable { query.getBalancesFor(chunk.toSet()) }
+                            .subscribeOn(Schedulers.io())
+                    },
+                    maxParallelRequests
+                )
+                .reduce(HashMap<String, BigInteger>()) { merged, balances: Map<String, BigInteger> ->
+                    merged.apply { putAll(balances) }
+                }
+                .blockingGet()
+        } catch (e: RuntimeException) {
+            // Rx wraps checked exceptions, such as a ServerConnectionException, so unwrap them
+            throw e.cause?.takeIf { it !is RuntimeException && it !is Error } ?: e
+        }
+    }
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 50
+        const val MAX_PARALLEL_REQUESTS = 4
+        const val UNCHANGED_RECHECK_MILLIS = 30_000L
+    }
+}
@@ -1,6 +1,8 @@
 package info.blockchain.wallet.payload;
 
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
@@ -18,6 +20,7 @@ public abstract class BalanceManager {
 
     private BlockExplorer blockExplorer;
     private CryptoCurrency cryptoCurrency;
+    private BalanceFetcher balanceFetcher;
 
     @Nonnull
     private CryptoBalanceMap balanceMap;
@@ -25,11 +28,22 @@ public abstract class BalanceManager {
     BalanceManager(@Nonnull BlockExplorer blockExplorer, @Nonnull CryptoCurrency cryptoCurrency) {
         this.blockExplorer = blockExplorer;
         this.cryptoCurrency = cryptoCurrency;
+        this.balanceFetcher = new BalanceFetcher(new BalanceCall(blockExplorer, cryptoCurrency));
         balanceMap = CryptoBalanceMap.zero(cryptoCurrency);
     }
 
     public void subtractAmountFromAddressBalance(String address, BigInteger amount) {
         balanceMap = balanceMap.subtractAmountFromAddress(address, new CryptoValue(cryptoCurrency, amount));
+        // The next update has to fetch what's left
+        balanceFetcher.invalidate(Collections.singleton(address));
+    }
+
+    /**
+     * Makes the next update fetch the balances of these addresses, even if they were unchanged
+     * when last checked. Addresses that aren't in the wallet are ignored.
+     */
+    public void invalidateAddressBalances(Collection<String> addresses) {
+        balanceFetcher.invalidate(addresses);
     }
 
     @Nonnull
@@ -51,20 +65,28 @@ public abstract class BalanceManager {
             Set<String> xpubs,
             Set<String> legacyAddresses
     ) {
-        balanceMap = CryptoBalanceMapKt.calculateCryptoBalanceMap(
+        updateAllBalances(xpubs, legacyAddresses, false);
+    }
+
+    /**
+     * @param refreshAll fetches every address, including imported ones that were unchanged when
+     *                   last checked. Use it for refreshes the user asked for.
+     */
+    public void updateAllBalances(
+            Set<String> xpubs,
+            Set<String> legacyAddresses,
+            boolean refreshAll
+    ) {
+        balanceMap = new CryptoBalanceMap(
                 cryptoCurrency,
-                getBalanceQuery(),
                 xpubs,
-                legacyAddresses
+                legacyAddresses,
+                balanceFetcher.fetch(xpubs, legacyAddresses, refreshAll)
         );
     }
 
-    private BalanceCall getBalanceQuery() {
-        return new BalanceCall(blockExplorer, cryptoCurrency);
-    }
-
     /**
-     * @deprecated Use getBalanceQuery
+     * @deprecated Use updateAllBalances
      */
     @Deprecated // Used only in swipe to receive
     public Call<HashMap<String, Balance>> getBalanceOfAddresses(List<String> addresses) {
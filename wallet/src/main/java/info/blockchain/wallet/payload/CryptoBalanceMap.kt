@@ -4,27 +4,57 @@ import info.blockchain.balance.CryptoCurrency
 import info.blockchain.balance.CryptoValue
 import java.math.BigInteger
 
-data class CryptoBalanceMap(
+/**
+ * The balances of a wallet's xpubs and imported addresses, with its totals worked out once.
+ * Adjusting a balance shares the fetched balances with the original, rather than copying them,
+ * and updates the totals from the original's.
+ */
+class CryptoBalanceMap private constructor(
     private val cryptoCurrency: CryptoCurrency,
     private val xpubs: Set<String>,
     private val legacy: Set<String>,
-    private val balances: Map<String, BigInteger>
+    private val balances: Map<String, BigInteger>,
+    // Balances changed since they were fetched, usually only one or two
+    private val adjusted: Map<String, BigInteger>,
+    val totalSpendable: CryptoValue,
+    val totalSpendableLegacy: CryptoValue
 ) {
-    val totalSpendable = CryptoValue(cryptoCurrency, (xpubs + legacy).sum(balances))
-    val totalSpendableLegacy = CryptoValue(cryptoCurrency, (legacy).sum(balances))
+    constructor(
+        cryptoCurrency: CryptoCurrency,
+        xpubs: Set<String>,
+        legacy: Set<String>,
+        balances: Map<String, BigInteger>
+    ) : this(
+        cryptoCurrency,
+        xpubs,
+        legacy,
+        balances,
+        emptyMap(),
+        CryptoValue(cryptoCurrency, (xpubs + legacy).sum(balances)),
+        CryptoValue(cryptoCurrency, legacy.sum(balances))
+    )
 
     fun subtractAmountFromAddress(address: String, cryptoValue: CryptoValue): CryptoBalanceMap {
-        val value =
-            balances[address] ?: throw Exception("No info for this address. updateAllBalances should be called first.")
-        val newBalances = balances.toMutableMap()
-            .apply {
-                set(address, value - cryptoValue.toBigInteger())
-            }
-        return copy(balances = newBalances)
+        val value = balance(address)
+            ?: throw Exception("No info for this address. updateAllBalances should be called first.")
+        val amount = cryptoValue.toBigInteger()
+        return CryptoBalanceMap(
+            cryptoCurrency,
+            xpubs,
+            legacy,
+            balances,
+            adjusted + (address to value - amount),
+            if (address in xpubs || address in legacy) totalSpendable.less(amount) else totalSpendable,
+            if (address in legacy) totalSpendableLegacy.less(amount) else totalSpendableLegacy
+        )
     }
 
     operator fun get(address: String) =
-        CryptoValue(cryptoCurrency, balances[address] ?: BigInteger.ZERO)
+        CryptoValue(cryptoCurrency, balance(address) ?: BigInteger.ZERO)
+
+    private fun balance(address: String) = adjusted[address] ?: balances[address]
+
+    private fun CryptoValue.less(amount: BigInteger) = CryptoValue(currency, toBigInteger() - amount)
 
     companion object {
         @JvmStatic
@@ -54,5 +84,4 @@ fun calculateCryptoBalanceMap(
 }
 
 private fun <T> Iterable<T>.sum(balances: Map<T, BigInteger>) =
-    map { balances[it] ?: BigInteger.ZERO }
-        .foldRight(BigInteger.ZERO, BigInteger::add)
+    fold(BigInteger.ZERO) { total, key -> balances[key]?.let { total + it } ?: total }
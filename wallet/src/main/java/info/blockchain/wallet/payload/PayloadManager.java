@@ -18,6 +18,7 @@ import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -695,6 +696,24 @@ public class PayloadManager {
         return multiAddressFactory.getAccountTransactions(all, null, xpub, limit, offset, 0);
     }
 
+    /**
+     * Gets the BTC transaction list for an {@link Account} as of the last sync, without any
+     * network calls.
+     *
+     * @param xpub  The xPub to get transactions from, or null for all accounts
+     * @param limit Amount of transactions per page
+     * @return List of BTC tx summaries, which is empty if nothing has been synced yet
+     */
+    public List<TransactionSummary> getCachedAccountTransactions(String xpub, int limit) {
+        List<String> activeXpubs = getPayload().getHdWallets().get(0).getActiveXpubs();
+        List<String> activeLegacy = getPayload().getLegacyAddressStringList(LegacyAddress.NORMAL_ADDRESS);
+
+        ArrayList<String> all = new ArrayList<>(activeXpubs);
+        all.addAll(activeLegacy);
+
+        return multiAddressFactory.getCachedAccountTransactions(all, null, xpub, limit, 0);
+    }
+
     /**
      * Calculates if an address belongs to any xpubs in wallet. Accepts both BTC and BCH addresses.
      * Make sure multi address is up to date before executing this method.
@@ -767,6 +786,30 @@ public class PayloadManager {
         return getReceiveAddressAtArbitraryPosition(account, nextIndex + position);
     }
 
+    /**
+     * Derives and caches the receive addresses that will be needed for the next pubkey sync, along
+     * with the next change address, for every active account. Deriving is slow, so this should be
+     * called on a background thread; later lookups of these addresses are then served from each
+     * chain's {@link info.blockchain.wallet.bip44.DerivedAddressCache}.
+     */
+    public void prefillAddressCache() throws HDWalletException {
+        if (getPayload() == null || !getPayload().isUpgraded()) {
+            return;
+        }
+
+        HDWallet hdWallet = getPayload().getHdWallets().get(0);
+        for (Account account : hdWallet.getAccounts()) {
+            if (!account.isArchived()) {
+                HDAccount hdAccount = hdWallet.getHDAccountFromAccountBody(account);
+                int nextReceiveIndex = getNextReceiveAddressIndexBtc(account);
+                int nextChangeIndex = getNextChangeAddressIndexBtc(account);
+
+                hdAccount.getReceive().prefillAddresses(nextReceiveIndex, nextReceiveIndex + 20);
+                hdAccount.getChange().prefillAddresses(nextChangeIndex, nextChangeIndex + 1);
+            }
+        }
+    }
+
     /**
      * Returns the position on the receive chain of the next available receive address.
      *
@@ -896,11 +939,26 @@ public class PayloadManager {
      * when the limit is reached.
      */
     public void updateAllBalances() throws ServerConnectionException, IOException {
+        updateAllBalances(false);
+    }
+
+    /**
+     * As {@link #updateAllBalances()}, but if refreshAll is true imported addresses whose balance
+     * was unchanged when last checked are fetched too. Use it for refreshes the user asked for.
+     */
+    public void updateAllBalances(boolean refreshAll) throws ServerConnectionException, IOException {
         Wallet wallet = getPayload();
         Set<String> xpubs = WalletExtensionsKt.activeXpubs(wallet);
         Set<String> allLegacy = WalletExtensionsKt.nonArchivedLegacyAddressStrings(wallet);
 
-        balanceManagerBtc.updateAllBalances(xpubs, allLegacy);
+        balanceManagerBtc.updateAllBalances(xpubs, allLegacy, refreshAll);
+    }
+
+    /**
+     * Makes the next balance update fetch these addresses, eg. ones seen in a new transaction.
+     */
+    public void invalidateAddressBalances(Collection<String> addresses) {
+        balanceManagerBtc.invalidateAddressBalances(addresses);
     }
 
     /**
@@ -15,6 +15,7 @@ import info.blockchain.api.data.Balance;
 import info.blockchain.api.data.UnspentOutput;
 import info.blockchain.wallet.BlockchainFramework;
 import info.blockchain.wallet.api.PersistentUrls;
+import info.blockchain.wallet.bip44.AccountDiscovery;
 import info.blockchain.wallet.bip44.HDAccount;
 import info.blockchain.wallet.bip44.HDAddress;
 import info.blockchain.wallet.bip44.HDWalletFactory;
@@ -322,21 +323,23 @@ public class HDWallet {
             .restoreWallet(PersistentUrls.getInstance().getBitcoinParams(), Language.US,
                 mnemonic, passphrase, DEFAULT_NEW_WALLET_SIZE);
 
-        BlockExplorer blockExplorer = new BlockExplorer(
-            BlockchainFramework.getRetrofitExplorerInstance(),
-            BlockchainFramework.getRetrofitApiInstance(),
-            BlockchainFramework.getApiCode());
-
         HDWallet hdWalletBody = new HDWallet();
         hdWalletBody.setAccounts(new ArrayList<Account>());
 
         if(walletSize <= 0) {
-            walletSize = getDeterminedSize(1, 5, 0, blockExplorer, bip44Wallet);
+            BlockExplorer blockExplorer = new BlockExplorer(
+                BlockchainFramework.getRetrofitExplorerInstance(),
+                BlockchainFramework.getRetrofitApiInstance(),
+                BlockchainFramework.getApiCode());
+
+            walletSize = new AccountDiscovery(xpubs -> getTransactionCounts(blockExplorer, xpubs))
+                .discover(bip44Wallet);
         }
 
-        bip44Wallet = HDWalletFactory
-            .restoreWallet(PersistentUrls.getInstance().getBitcoinParams(), Language.US,
-                mnemonic, passphrase, walletSize);
+        //Add the rest of the accounts to the same wallet, so the seed is only stretched once
+        while (bip44Wallet.getAccounts().size() < walletSize) {
+            bip44Wallet.addAccount();
+        }
 
         //Set accounts
         int accountNumber = 1;
@@ -360,14 +363,8 @@ public class HDWallet {
         return hdWalletBody;
     }
 
-    private static int getDeterminedSize(int walletSize, int trySize, int currentGap, BlockExplorer blockExplorer, info.blockchain.wallet.bip44.HDWallet bip44Wallet) throws Exception {
-
-        LinkedList<String> xpubs = new LinkedList<>();
-
-        for(int i = 0; i < trySize; i++) {
-            HDAccount account = bip44Wallet.addAccount();
-            xpubs.add(account.getXpub());
-        }
+    private static Map<String, Long> getTransactionCounts(BlockExplorer blockExplorer, List<String> xpubs)
+        throws Exception {
 
         Response<HashMap<String, Balance>> exe = blockExplorer
             .getBalance(xpubs, FilterType.RemoveUnspendable).execute();
@@ -376,25 +373,11 @@ public class HDWallet {
             throw new Exception(exe.code() + " " + exe.errorBody().string());
         }
 
-        HashMap<String, Balance> map = exe.body();
-
-        final int lookAheadTotal = 10;
-        for (String xpub : xpubs) {
-
-            //If account has txs
-            if(map.get(xpub).getTxCount() > 0L) {
-                walletSize++;
-                currentGap = 0;
-            } else {
-                currentGap++;
-            }
-
-            if(currentGap >= lookAheadTotal) {
-                return walletSize;
-            }
+        Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, Balance> entry : exe.body().entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().getTxCount());
         }
-
-        return getDeterminedSize(walletSize, trySize*2, currentGap, blockExplorer, bip44Wallet);
+        return counts;
     }
 
     public static boolean hasTransactions(BlockExplorer blockExplorer, String xpub)
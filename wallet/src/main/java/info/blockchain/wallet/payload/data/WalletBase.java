@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import info.blockchain.wallet.crypto.AESUtil;
+import info.blockchain.wallet.crypto.V1PayloadDecryptor;
 import info.blockchain.wallet.exceptions.DecryptionException;
 import info.blockchain.wallet.exceptions.EncryptionException;
 import info.blockchain.wallet.exceptions.HDWalletException;
@@ -24,12 +25,7 @@ import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.crypto.MnemonicException.MnemonicChecksumException;
 import org.bitcoinj.crypto.MnemonicException.MnemonicLengthException;
 import org.bitcoinj.crypto.MnemonicException.MnemonicWordException;
-import org.json.JSONObject;
 import org.spongycastle.crypto.InvalidCipherTextException;
-import org.spongycastle.crypto.paddings.BlockCipherPadding;
-import org.spongycastle.crypto.paddings.ISO10126d2Padding;
-import org.spongycastle.crypto.paddings.ISO7816d4Padding;
-import org.spongycastle.crypto.paddings.ZeroBytePadding;
 import org.spongycastle.util.encoders.Hex;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -41,9 +37,6 @@ import org.spongycastle.util.encoders.Hex;
     isGetterVisibility = Visibility.NONE)
 public class WalletBase {
 
-    private static final int DEFAULT_PBKDF2_ITERATIONS_V1_A = 1;
-    private static final int DEFAULT_PBKDF2_ITERATIONS_V1_B = 10;
-
     //payload could be string in V1
     //V2 and up is WalletWrapper
     @JsonProperty("payload")
@@ -111,39 +104,9 @@ public class WalletBase {
     private Wallet decryptV1Wallet(NetworkParameters networkParameters, String password)
         throws DecryptionException, IOException, HDWalletException {
 
-        String decrypted = null;
-        int succeededIterations = -1000;
-
-        int iterations[] = {DEFAULT_PBKDF2_ITERATIONS_V1_A, DEFAULT_PBKDF2_ITERATIONS_V1_B};
-        int modes[] = {AESUtil.MODE_CBC, AESUtil.MODE_OFB};
-        BlockCipherPadding[] paddings = {
-            new ISO10126d2Padding(),
-            new ISO7816d4Padding(),
-            new ZeroBytePadding(),
-            null};//NoPadding
-
-        outerloop:
-        for (int iteration : iterations) {
-            for (int mode : modes) {
-                for (BlockCipherPadding padding : paddings) {
-                    try {
-                        decrypted = AESUtil
-                            .decryptWithSetMode(payload, password, iteration, mode,
-                                padding);
-                        //Ensure it's parsable
-                        new JSONObject(decrypted);
-
-                        succeededIterations = iteration;
-                        break outerloop;
-
-                    } catch (Exception e) {
-//                        e.printStackTrace();
-                    }
-                }
-            }
-        }
+        String decrypted = new V1PayloadDecryptor().decrypt(payload, password);
 
-        if (decrypted == null || succeededIterations < 0) {
+        if (decrypted == null) {
             throw new DecryptionException("Failed to decrypt");
         }
 
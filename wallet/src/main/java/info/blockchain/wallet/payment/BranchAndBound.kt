@@ -0,0 +1,100 @@
+package info.blockchain.wallet.payment
+
+import info.blockchain.api.data.UnspentOutput
+import java.math.BigInteger
+
+/**
+ * Depth first search for a changeless input set, after the branch and bound selection used by
+ * Bitcoin Core. Coins are explored largest effective value first, and a branch is cut as soon as
+ * it overshoots the target by the dust threshold, can no longer reach the target, or already
+ * spends more than the best set found so far. The search gives up after [maxTries] steps, so it
+ * stays bounded on wallets with thousands of coins.
+ *
+ * All amounts are kept as running totals in satoshis.
+ */
+internal class BranchAndBound(
+    coins: List<UnspentOutput>,
+    private val feePerByte: Long,
+    private val maxTries: Int = MAX_TRIES
+) {
+    private val coins = coins.sortedByDescending { effectiveValue(it, feePerByte) }
+    private val effective = LongArray(this.coins.size) { effectiveValue(this.coins[it], feePerByte) }
+    private val values = LongArray(this.coins.size) { this.coins[it].value.toLong() }
+
+    /**
+     * @param spendLimit the most the selected coins may add up to, so a known selection can
+     * bound the search
+     * @return the changeless set that spends the least, or null if none was found
+     */
+    fun search(outputAmount: Long, spendLimit: Long = Long.MAX_VALUE): SpendableUnspentOutputs? {
+        // Input costs are already deducted from the effective values
+        val target = outputAmount + (COST_BASE + COST_PER_OUTPUT) * feePerByte
+        val upperBound = target + dustThreshold(feePerByte)
+
+        val count = coins.size
+        val selected = BooleanArray(count)
+        var available = effective.sum()
+        var currentEffective = 0L
+        var currentValue = 0L
+
+        var best: BooleanArray? = null
+        var bestValue = if (spendLimit == Long.MAX_VALUE) spendLimit else spendLimit + 1
+        var bestEffective = 0L
+
+        var index = 0
+        var tries = 0
+        while (tries++ < maxTries) {
+            var backtrack = false
+            if (currentEffective + available < target ||
+                currentEffective >= upperBound ||
+                currentValue >= bestValue
+            ) {
+                backtrack = true
+            } else if (currentEffective >= target) {
+                best = selected.copyOf()
+                bestValue = currentValue
+                bestEffective = currentEffective
+                backtrack = true
+            }
+
+            if (backtrack) {
+                // Step back to the last included coin and try the branch without it
+                while (index > 0 && !selected[index - 1]) {
+                    index--
+                    available += effective[index]
+                }
+                if (index == 0) {
+                    break
+                }
+                selected[index - 1] = false
+                currentEffective -= effective[index - 1]
+                currentValue -= values[index - 1]
+            } else {
+                available -= effective[index]
+                // Including a coin equal to one that was just excluded repeats an explored branch
+                val isDuplicate = index > 0 &&
+                        !selected[index - 1] &&
+                        effective[index] == effective[index - 1]
+                if (!isDuplicate) {
+                    selected[index] = true
+                    currentEffective += effective[index]
+                    currentValue += values[index]
+                }
+                index++
+            }
+        }
+
+        val bestSelection = best ?: return null
+        val spent = coins.filterIndexed { i, _ -> bestSelection[i] }
+        return SpendableUnspentOutputs(
+            spendableOutputs = spent,
+            absoluteFee = BigInteger.valueOf(bestValue - outputAmount),
+            consumedAmount = BigInteger.valueOf(bestEffective - target),
+            isReplayProtected = spent.replayProtected
+        )
+    }
+
+    companion object {
+        const val MAX_TRIES = 100_000
+    }
+}
@@ -3,9 +3,9 @@ package info.blockchain.wallet.payment
 import info.blockchain.api.data.UnspentOutput
 import java.math.BigInteger
 
-private val COST_BASE: BigInteger = BigInteger.valueOf(10)
-private val COST_PER_INPUT: BigInteger = BigInteger.valueOf(149)
-private val COST_PER_OUTPUT: BigInteger = BigInteger.valueOf(34)
+internal const val COST_BASE = 10L
+internal const val COST_PER_INPUT = 149L
+internal const val COST_PER_OUTPUT = 34L
 
 class CoinSelection(
     private val coins: List<UnspentOutput>,
@@ -15,43 +15,81 @@ class CoinSelection(
         outputAmount: BigInteger,
         coinSortingMethod: CoinSortingMethod
     ): SpendableUnspentOutputs {
+        val feePerByte = feePerByte.toLong()
         val effectiveCoins = coinSortingMethod.sort(coins).effective(feePerByte)
+        val target = outputAmount.toLong()
 
         val selected = mutableListOf<UnspentOutput>()
-        var accumulatedValue = BigInteger.ZERO
-        var accumulatedFee = BigInteger.ZERO
+        var accumulatedValue = 0L
+        var accumulatedFee = 0L
 
         for (coin in effectiveCoins) {
-            if (!coin.isForceInclude && accumulatedValue >= outputAmount + accumulatedFee) {
+            if (!coin.isForceInclude && accumulatedValue >= target + accumulatedFee) {
                 continue
             }
             selected += coin
-            accumulatedValue = selected.sum()
+            accumulatedValue += coin.value.toLong()
             accumulatedFee = transactionBytes(selected.size, outputs = 1) * feePerByte
         }
 
         val dust = dustThreshold(feePerByte)
-        val remainingValue = accumulatedValue - (outputAmount + accumulatedFee)
+        val remainingValue = accumulatedValue - (target + accumulatedFee)
         val isReplayProtected = selected.replayProtected
 
         return when {
             // Either there were no effective coins or we were not able to meet the target value
-            selected.isEmpty() || remainingValue < BigInteger.ZERO -> {
+            selected.isEmpty() || remainingValue < 0 -> {
                 SpendableUnspentOutputs(isReplayProtected = isReplayProtected)
             }
             // Remaining value is worth keeping, add change output
             remainingValue >= dust -> {
                 accumulatedFee = transactionBytes(selected.size, outputs = 2) * feePerByte
-                SpendableUnspentOutputs(selected, accumulatedFee, isReplayProtected = isReplayProtected)
+                SpendableUnspentOutputs(
+                    selected,
+                    accumulatedFee.toBigInteger(),
+                    isReplayProtected = isReplayProtected
+                )
             }
             // Remaining value is not worth keeping, consume it as part of the fee
             else -> {
-                SpendableUnspentOutputs(selected, accumulatedFee + remainingValue, remainingValue, isReplayProtected)
+                SpendableUnspentOutputs(
+                    selected,
+                    (accumulatedFee + remainingValue).toBigInteger(),
+                    remainingValue.toBigInteger(),
+                    isReplayProtected
+                )
             }
         }
     }
 
+    /**
+     * Selects coins with [fallback] ordering, then searches for a set that pays [outputAmount]
+     * without a change output, leaving less than the dust threshold to the miners. The changeless
+     * set is used when it doesn't cost more in fees than the ordered selection.
+     */
+    fun selectChangeless(
+        outputAmount: BigInteger,
+        fallback: CoinSortingMethod = DescentDraw
+    ): SpendableUnspentOutputs {
+        val ordered = select(outputAmount, fallback)
+        if (coins.any { it.isForceInclude }) {
+            return ordered
+        }
+
+        val target = outputAmount.toLong()
+        val spendLimit = if (ordered.spendableOutputs.isEmpty()) {
+            Long.MAX_VALUE
+        } else {
+            target + ordered.absoluteFee.toLong()
+        }
+
+        val feePerByte = feePerByte.toLong()
+        return BranchAndBound(coins.effective(feePerByte), feePerByte)
+            .search(target, spendLimit) ?: ordered
+    }
+
     fun selectAll(coinSortingMethod: CoinSortingMethod? = null): SpendableUnspentOutputs {
+        val feePerByte = feePerByte.toLong()
         val effectiveCoins = (coinSortingMethod?.sort(coins) ?: coins).effective(feePerByte)
         val effectiveValue = effectiveCoins.sum()
         val effectiveBalance = effectiveCoins.balance(feePerByte, outputs = 1).max(BigInteger.ZERO)
@@ -65,34 +103,35 @@ class CoinSelection(
 }
 
 fun List<UnspentOutput>.sum(): BigInteger {
-    if (isEmpty()) {
-        return BigInteger.ZERO
+    var total = 0L
+    for (coin in this) {
+        total += coin.value.toLong()
     }
-    return this.map { it.value }.reduce { value, acc -> value + acc }
+    return BigInteger.valueOf(total)
 }
 
-private fun List<UnspentOutput>.effective(feePerByte: BigInteger): List<UnspentOutput> {
-    return this.filter { it.isForceInclude || effectiveValue(it, feePerByte) > BigInteger.ZERO }
+private fun List<UnspentOutput>.effective(feePerByte: Long): List<UnspentOutput> {
+    return this.filter { it.isForceInclude || effectiveValue(it, feePerByte) > 0 }
 }
 
-private fun List<UnspentOutput>.balance(feePerByte: BigInteger, outputs: Int): BigInteger {
-    return this.sum() - transactionBytes(this.size, outputs) * feePerByte
+private fun List<UnspentOutput>.balance(feePerByte: Long, outputs: Int): BigInteger {
+    return this.sum() - (transactionBytes(this.size, outputs) * feePerByte).toBigInteger()
 }
 
-private val List<UnspentOutput>.replayProtected get(): Boolean {
+internal val List<UnspentOutput>.replayProtected get(): Boolean {
     return this.firstOrNull()?.isReplayable != true
 }
 
-private fun dustThreshold(feePerByte: BigInteger): BigInteger {
+internal fun dustThreshold(feePerByte: Long): Long {
     return (COST_PER_INPUT + COST_PER_OUTPUT) * feePerByte
 }
 
-private fun transactionBytes(inputs: Int, outputs: Int): BigInteger {
+internal fun transactionBytes(inputs: Int, outputs: Int): Long {
     return COST_BASE +
-            COST_PER_INPUT.multiply(inputs.toBigInteger()) +
-            COST_PER_OUTPUT.multiply(outputs.toBigInteger())
+            COST_PER_INPUT * inputs +
+            COST_PER_OUTPUT * outputs
 }
 
-private fun effectiveValue(coin: UnspentOutput, feePerByte: BigInteger): BigInteger {
-    return (coin.value - feePerByte.multiply(COST_PER_INPUT)).max(BigInteger.ZERO)
+internal fun effectiveValue(coin: UnspentOutput, feePerByte: Long): Long {
+    return maxOf(coin.value.toLong() - feePerByte * COST_PER_INPUT, 0L)
 }
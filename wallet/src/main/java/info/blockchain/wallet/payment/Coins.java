@@ -4,12 +4,11 @@ import info.blockchain.api.blockexplorer.BlockExplorer;
 import info.blockchain.api.data.UnspentOutput;
 import info.blockchain.api.data.UnspentOutputs;
 import info.blockchain.wallet.BlockchainFramework;
+import info.blockchain.wallet.payment.PreparedUnspentOutputs.PreparedCoin;
 
 import org.apache.commons.lang3.tuple.Pair;
-import org.bitcoinj.script.Script;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.spongycastle.util.encoders.Hex;
 
 import retrofit2.Call;
 
@@ -18,8 +17,6 @@ import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 class Coins {
@@ -53,6 +50,8 @@ class Coins {
                                                                    BigInteger feePerKb,
                                                                    boolean addReplayProtection,
                                                                    boolean useNewCoinSelection) {
+        PreparedUnspentOutputs preparedCoins = PreparedUnspentOutputs.of(coins);
+
         if (useNewCoinSelection) {
             CoinSortingMethod coinSortingMethod = null;
 
@@ -61,24 +60,16 @@ class Coins {
             }
 
             SpendableUnspentOutputs selection =
-                    new CoinSelection(coins.getUnspentOutputs(), feePerKbToFeePerByte(feePerKb))
+                    new CoinSelection(preparedCoins.getUnspentOutputs(), feePerKbToFeePerByte(feePerKb))
                             .selectAll(coinSortingMethod);
 
             return Pair.of(selection.getSpendableBalance(), selection.getAbsoluteFee());
         }
 
-        BigInteger sweepBalance = BigInteger.ZERO;
-
-        ArrayList<UnspentOutput> usableCoins = new ArrayList<>();
-        ArrayList<UnspentOutput> unspentOutputs;
+        long sweepBalance = 0L;
+        int usableCoinCount = 0;
 
-        // Sort inputs
-        if (addReplayProtection) {
-            unspentOutputs = getSortedCoins(coins.getUnspentOutputs());
-        } else {
-            unspentOutputs = coins.getUnspentOutputs();
-            Collections.sort(unspentOutputs, new UnspentOutputAmountComparatorDesc());
-        }
+        List<PreparedCoin> unspentOutputs = sortedCoins(preparedCoins, addReplayProtection);
 
         double inputCost = inputCost(feePerKb);
 
@@ -86,67 +77,49 @@ class Coins {
 
         if (includesReplayDust) {
             log.info("Calculating maximum available with non-replayable dust included.");
-            unspentOutputs.add(0, getPlaceholderDustInput());
+            unspentOutputs = withPlaceholderDustInput(unspentOutputs);
         }
 
-        for (int i = 0; i < unspentOutputs.size(); i++) {
-            UnspentOutput output = unspentOutputs.get(i);
+        for (PreparedCoin output : unspentOutputs) {
             // Filter usable coins
-            if (output.isForceInclude() || output.getValue().doubleValue() > inputCost) {
-                usableCoins.add(output);
-                sweepBalance = sweepBalance.add(output.getValue());
+            if (output.isForceInclude() || output.getValue() > inputCost) {
+                usableCoinCount++;
+                sweepBalance += output.getValue();
             }
         }
 
         // All inputs, 1 output = no change. (Correct way)
         int outputCount = 1;
 
-        BigInteger sweepFee = calculateFee(usableCoins.size(),
+        BigInteger sweepFee = calculateFee(usableCoinCount,
                 outputCount,
                 feePerKb,
                 includesReplayDust);
 
-        sweepBalance = sweepBalance.subtract(sweepFee);
-
-        sweepBalance = BigInteger.valueOf(Math.max(sweepBalance.longValue(), 0));
+        sweepBalance = Math.max(sweepBalance - sweepFee.longValue(), 0);
 
         log.info("Filtering sweepable coins. Sweepable Balance = {}, Fee required for sweep = {}", sweepBalance, sweepFee);
-        return Pair.of(sweepBalance, sweepFee);
+        return Pair.of(BigInteger.valueOf(sweepBalance), sweepFee);
     }
 
     /**
-     * Sort in order - 1 smallest non-replayable coin, descending replayable, descending
-     * non-replayable
+     * Returns the prepared coins in selection order, without modifying the caller's outputs.
+     * Replay protection orders them as 1 smallest non-replayable coin (force included),
+     * descending replayable, descending non-replayable. Otherwise they're in descending order.
      */
-    private static ArrayList<UnspentOutput> getSortedCoins(ArrayList<UnspentOutput> unspentOutputs) {
-        ArrayList<UnspentOutput> sortedCoins = new ArrayList<>();
-
-        // Select 1 smallest non-replayable coin
-        Collections.sort(unspentOutputs, new UnspentOutputAmountComparatorAsc());
-        for (UnspentOutput coin : unspentOutputs) {
-            if (!coin.isReplayable()) {
-                coin.setForceInclude(true);
-                sortedCoins.add(coin);
-                break;
-            }
-        }
-
-        // Descending value. Add all replayable coins.
-        Collections.reverse(unspentOutputs);
-        for (UnspentOutput coin : unspentOutputs) {
-            if (!sortedCoins.contains(coin) && coin.isReplayable()) {
-                sortedCoins.add(coin);
-            }
-        }
-
-        // Still descending. Add all non-replayable coins.
-        for (UnspentOutput coin : unspentOutputs) {
-            if (!sortedCoins.contains(coin) && !coin.isReplayable()) {
-                sortedCoins.add(coin);
-            }
+    private static List<PreparedCoin> sortedCoins(PreparedUnspentOutputs coins, boolean addReplayProtection) {
+        if (addReplayProtection) {
+            return coins.getReplayProtectionOrder();
+        } else {
+            return coins.getDescendingOrder();
         }
+    }
 
-        return sortedCoins;
+    private static List<PreparedCoin> withPlaceholderDustInput(List<PreparedCoin> coins) {
+        List<PreparedCoin> withDust = new ArrayList<>(coins.size() + 1);
+        withDust.add(new PreparedCoin(getPlaceholderDustInput()));
+        withDust.addAll(coins);
+        return withDust;
     }
 
     /**
@@ -163,65 +136,55 @@ class Coins {
                                                                     BigInteger feePerKb,
                                                                     boolean addReplayProtection,
                                                                     boolean useNewCoinSelection) {
+        PreparedUnspentOutputs preparedCoins = PreparedUnspentOutputs.of(coins);
+
         if (useNewCoinSelection) {
-            CoinSortingMethod coinSortingMethod;
+            CoinSelection coinSelection =
+                    new CoinSelection(preparedCoins.getUnspentOutputs(), feePerKbToFeePerByte(feePerKb));
 
             if (addReplayProtection) {
-                coinSortingMethod = new ReplayProtection(getPlaceholderDustInput());
+                return coinSelection.select(paymentAmount, new ReplayProtection(getPlaceholderDustInput()));
             } else {
-                coinSortingMethod = DescentDraw.INSTANCE;
+                // Replay protection fixes the input order, so only look for changeless sets without it
+                return coinSelection.selectChangeless(paymentAmount, DescentDraw.INSTANCE);
             }
-
-            return new CoinSelection(coins.getUnspentOutputs(), feePerKbToFeePerByte(feePerKb))
-                    .select(paymentAmount, coinSortingMethod);
         }
 
         log.info("Select the minimum number of outputs necessary for payment");
         List<UnspentOutput> spendWorthyList = new ArrayList<>();
 
-        ArrayList<UnspentOutput> unspentOutputs;
-
-        // Sort inputs
-        if (addReplayProtection) {
-            unspentOutputs = getSortedCoins(coins.getUnspentOutputs());
-        } else {
-            unspentOutputs = coins.getUnspentOutputs();
-            Collections.sort(unspentOutputs, new UnspentOutputAmountComparatorDesc());
-        }
+        List<PreparedCoin> unspentOutputs = sortedCoins(preparedCoins, addReplayProtection);
 
         BigInteger collectedAmount = BigInteger.ZERO;
         BigInteger consumedAmount = BigInteger.ZERO;
 
         double inputCost = inputCost(feePerKb);
 
-
         final boolean requiresReplayProtection = requiresReplayProtection(unspentOutputs);
         final boolean includesReplayDust = addReplayProtection && requiresReplayProtection;
         if (includesReplayDust) {
             log.info("Adding non-replayable dust to selected coins.");
-            unspentOutputs.add(0, getPlaceholderDustInput());
+            unspentOutputs = withPlaceholderDustInput(unspentOutputs);
         }
 
         // initially assume change
         int outputCount = 2;
-        for (int i = 0; i < unspentOutputs.size(); i++) {
-            UnspentOutput output = unspentOutputs.get(i);
+        for (PreparedCoin output : unspentOutputs) {
 
             // Filter coins not worth spending
-            if (output.getValue().doubleValue() < inputCost && !output.isForceInclude()) {
+            if (output.getValue() < inputCost && !output.isForceInclude()) {
                 continue;
             }
 
             // Skip script with no type
-            if (!output.isForceInclude() &&
-                    new Script(Hex.decode(output.getScript().getBytes())).getScriptType() == Script.ScriptType.NO_TYPE) {
+            if (!output.isForceInclude() && !output.hasScriptType()) {
                 continue;
             }
 
             // Collect coin
-            spendWorthyList.add(output);
+            spendWorthyList.add(output.getOutput());
 
-            collectedAmount = collectedAmount.add(output.getValue());
+            collectedAmount = collectedAmount.add(BigInteger.valueOf(output.getValue()));
 
             // Fee
             int coinCount = spendWorthyList.size();
@@ -287,29 +250,10 @@ class Coins {
         return Math.ceil(d);
     }
 
-    private static boolean requiresReplayProtection(final List<UnspentOutput> unspentOutputs) {
+    private static boolean requiresReplayProtection(final List<PreparedCoin> unspentOutputs) {
         return !unspentOutputs.isEmpty() && unspentOutputs.get(0).isReplayable();
     }
 
-    /**
-     * Sort unspent outputs by amount in descending order.
-     */
-    private static class UnspentOutputAmountComparatorDesc implements Comparator<UnspentOutput> {
-
-        @Override
-        public int compare(UnspentOutput o1, UnspentOutput o2) {
-            return o2.getValue().compareTo(o1.getValue());
-        }
-    }
-
-    private static class UnspentOutputAmountComparatorAsc implements Comparator<UnspentOutput> {
-
-        @Override
-        public int compare(UnspentOutput o1, UnspentOutput o2) {
-            return o1.getValue().compareTo(o2.getValue());
-        }
-    }
-
     private static UnspentOutput getPlaceholderDustInput() {
         UnspentOutput dust = new UnspentOutput();
         dust.setValue(Payment.DUST);
@@ -0,0 +1,215 @@
+package info.blockchain.wallet.payment;
+
+import info.blockchain.api.data.UnspentOutput;
+import info.blockchain.api.data.UnspentOutputs;
+
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spongycastle.util.encoders.DecoderException;
+import org.spongycastle.util.encoders.Hex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * PreparedUnspentOutputs.java : {@link UnspentOutputs} with the work coin selection needs done up
+ * front
+ *
+ * The same coins are run through selection every time the amount or fee changes. Each output's
+ * value, its script type and the two orderings used by the legacy selection are worked out at
+ * most once, when first needed, and selection never sorts or modifies the caller's outputs. The
+ * prepared state is rebuilt if the outputs are replaced or their count changes.
+ */
+public class PreparedUnspentOutputs extends UnspentOutputs {
+
+    private static final Logger log = LoggerFactory.getLogger(PreparedUnspentOutputs.class);
+
+    private ArrayList<UnspentOutput> preparedFrom;
+    private int preparedSize;
+    private List<PreparedCoin> coins;
+    private List<PreparedCoin> descendingOrder;
+    private List<PreparedCoin> replayProtectionOrder;
+
+    private PreparedUnspentOutputs(UnspentOutputs coins) {
+        setNotice(coins.getNotice());
+        setUnspentOutputs(coins.getUnspentOutputs());
+    }
+
+    /**
+     * Returns the given coins prepared for selection. Coins that are already prepared are
+     * returned as they are.
+     */
+    public static PreparedUnspentOutputs of(UnspentOutputs coins) {
+        if (coins instanceof PreparedUnspentOutputs) {
+            return (PreparedUnspentOutputs) coins;
+        }
+        return new PreparedUnspentOutputs(coins);
+    }
+
+    @Override
+    public synchronized void setUnspentOutputs(ArrayList<UnspentOutput> unspentOutputs) {
+        super.setUnspentOutputs(unspentOutputs);
+        prepare();
+    }
+
+    /**
+     * All coins, largest value first. Coins of equal value keep their original order.
+     */
+    synchronized List<PreparedCoin> getDescendingOrder() {
+        refreshIfChanged();
+        if (descendingOrder == null) {
+            List<PreparedCoin> descending = new ArrayList<>(coins);
+            // Stable, so equal values keep the order the API returned them in
+            Collections.sort(descending, new Comparator<PreparedCoin>() {
+                @Override
+                public int compare(PreparedCoin o1, PreparedCoin o2) {
+                    return compareValues(o2.getValue(), o1.getValue());
+                }
+            });
+            descendingOrder = Collections.unmodifiableList(descending);
+        }
+        return descendingOrder;
+    }
+
+    /**
+     * The smallest non-replayable coin, force included, followed by all replayable coins (largest
+     * to smallest), followed by all remaining non-replayable coins (also largest to smallest).
+     * Coins of equal value are in reverse of their original order.
+     */
+    synchronized List<PreparedCoin> getReplayProtectionOrder() {
+        refreshIfChanged();
+        if (replayProtectionOrder == null) {
+            replayProtectionOrder = Collections.unmodifiableList(replayProtectionOrder(coins));
+        }
+        return replayProtectionOrder;
+    }
+
+    private void refreshIfChanged() {
+        ArrayList<UnspentOutput> outputs = getUnspentOutputs();
+        if (outputs != preparedFrom || (outputs != null && outputs.size() != preparedSize)) {
+            prepare();
+        }
+    }
+
+    private void prepare() {
+        ArrayList<UnspentOutput> outputs = getUnspentOutputs();
+        preparedFrom = outputs;
+        preparedSize = outputs != null ? outputs.size() : 0;
+        descendingOrder = null;
+        replayProtectionOrder = null;
+
+        coins = new ArrayList<>(preparedSize);
+        if (outputs != null) {
+            for (UnspentOutput output : outputs) {
+                coins.add(new PreparedCoin(output));
+            }
+        }
+    }
+
+    private static List<PreparedCoin> replayProtectionOrder(List<PreparedCoin> coins) {
+        List<PreparedCoin> ascending = new ArrayList<>(coins);
+        Collections.sort(ascending, new Comparator<PreparedCoin>() {
+            @Override
+            public int compare(PreparedCoin o1, PreparedCoin o2) {
+                return compareValues(o1.getValue(), o2.getValue());
+            }
+        });
+
+        int smallestNonReplayable = -1;
+        for (int i = 0; i < ascending.size(); i++) {
+            if (!ascending.get(i).isReplayable()) {
+                smallestNonReplayable = i;
+                break;
+            }
+        }
+
+        List<PreparedCoin> replayProtection = new ArrayList<>(ascending.size());
+        if (smallestNonReplayable >= 0) {
+            replayProtection.add(ascending.get(smallestNonReplayable).forceIncluded());
+        }
+        for (int i = ascending.size() - 1; i >= 0; i--) {
+            if (ascending.get(i).isReplayable()) {
+                replayProtection.add(ascending.get(i));
+            }
+        }
+        for (int i = ascending.size() - 1; i >= 0; i--) {
+            if (i != smallestNonReplayable && !ascending.get(i).isReplayable()) {
+                replayProtection.add(ascending.get(i));
+            }
+        }
+        return replayProtection;
+    }
+
+    private static int compareValues(long value1, long value2) {
+        return value1 < value2 ? -1 : (value1 == value2 ? 0 : 1);
+    }
+
+    /**
+     * An {@link UnspentOutput} with its value worked out. The script is parsed the first time its
+     * type is needed, and never again.
+     */
+    static final class PreparedCoin {
+
+        private final UnspentOutput output;
+        private final long value;
+        private final boolean forceInclude;
+        private volatile Boolean hasScriptType;
+
+        PreparedCoin(UnspentOutput output) {
+            this(output, output.isForceInclude());
+        }
+
+        private PreparedCoin(UnspentOutput output, boolean forceInclude) {
+            this.output = output;
+            this.value = output.getValue().longValue();
+            this.forceInclude = forceInclude;
+        }
+
+        PreparedCoin forceIncluded() {
+            return new PreparedCoin(output, true);
+        }
+
+        UnspentOutput getOutput() {
+            return output;
+        }
+
+        long getValue() {
+            return value;
+        }
+
+        boolean isReplayable() {
+            return output.isReplayable();
+        }
+
+        boolean isForceInclude() {
+            return forceInclude;
+        }
+
+        boolean hasScriptType() {
+            Boolean result = hasScriptType;
+            if (result == null) {
+                result = parseScriptType(output);
+                hasScriptType = result;
+            }
+            return result;
+        }
+
+        private static boolean parseScriptType(UnspentOutput output) {
+            if (output.getScript() == null) {
+                return false;
+            }
+            try {
+                return new Script(Hex.decode(output.getScript().getBytes())).getScriptType()
+                        != Script.ScriptType.NO_TYPE;
+            } catch (ScriptException | DecoderException e) {
+                log.warn("Unable to parse the script of output {}:{}",
+                        output.getTxHash(), output.getTxOutputCount(), e);
+                return false;
+            }
+        }
+    }
+}
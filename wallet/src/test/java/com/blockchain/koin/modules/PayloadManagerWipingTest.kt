@@ -5,6 +5,7 @@ import com.blockchain.koin.walletModule
 import com.nhaarman.mockito_kotlin.mock
 import info.blockchain.api.blockexplorer.BlockExplorer
 import info.blockchain.wallet.api.WalletApi
+import info.blockchain.wallet.multiaddress.TransactionStore
 import info.blockchain.wallet.payload.PayloadManager
 import info.blockchain.wallet.payload.PayloadManagerWiper
 import org.amshove.kluent.`should be`
@@ -24,6 +25,7 @@ class PayloadManagerWipingTest : AutoCloseKoinTest() {
                 module {
                     single { mock<WalletApi>() }
                     single { mock<BlockExplorer>() }
+                    single { mock<TransactionStore>() }
                 }
             ))
         }
@@ -0,0 +1,92 @@
+package info.blockchain.wallet.bip44;
+
+import info.blockchain.wallet.bip44.HDWalletFactory.Language;
+
+import org.bitcoinj.params.BitcoinMainNetParams;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class AccountDiscoveryTest {
+
+    private HDWallet wallet;
+
+    private final Set<Integer> usedAccounts = new HashSet<>();
+
+    private final List<Integer> requestSizes = new ArrayList<>();
+
+    private final AccountDiscovery.TransactionCounts transactionCounts = xpubs -> {
+        requestSizes.add(xpubs.size());
+        Map<String, Long> counts = new HashMap<>();
+        for (String xpub : xpubs) {
+            counts.put(xpub, usedAccounts.contains(indexOf(xpub)) ? 3L : 0L);
+        }
+        return counts;
+    };
+
+    private final List<String> knownXpubs = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        wallet = HDWalletFactory.restoreWallet(BitcoinMainNetParams.get(), Language.US,
+                "all all all all all all all all all all all all", "", 1);
+        HDWallet reference = HDWalletFactory.restoreWallet(BitcoinMainNetParams.get(), Language.US,
+                "all all all all all all all all all all all all", "", 40);
+        for (HDAccount account : reference.getAccounts()) {
+            knownXpubs.add(account.getXpub());
+        }
+    }
+
+    private int indexOf(String xpub) {
+        int index = knownXpubs.indexOf(xpub);
+        Assert.assertTrue("Unexpected xpub " + xpub, index >= 0);
+        return index;
+    }
+
+    @Test
+    public void deriveAccountXpubs() {
+        Assert.assertEquals(knownXpubs.subList(3, 13), wallet.deriveAccountXpubs(3, 10));
+        Assert.assertEquals(1, wallet.getAccounts().size());
+    }
+
+    @Test
+    public void discover_noUsedAccounts() throws Exception {
+        int size = new AccountDiscovery(transactionCounts).discover(wallet);
+
+        Assert.assertEquals(1, size);
+        Assert.assertEquals(Arrays.asList(5, 10), requestSizes);
+    }
+
+    @Test
+    public void discover_keepsAccountsAfterAGap() throws Exception {
+        usedAccounts.addAll(Arrays.asList(1, 2, 4));
+
+        int size = new AccountDiscovery(transactionCounts).discover(wallet);
+
+        Assert.assertEquals(5, size);
+        Assert.assertEquals(Arrays.asList(5, 10), requestSizes);
+    }
+
+    @Test
+    public void discover_probesUntilTheGapLimit() throws Exception {
+        usedAccounts.addAll(Arrays.asList(1, 2, 3, 4, 5, 10, 20));
+
+        int size = new AccountDiscovery(transactionCounts).discover(wallet);
+
+        Assert.assertEquals(21, size);
+        Assert.assertEquals(Arrays.asList(5, 10, 20), requestSizes);
+    }
+
+    @Test(expected = Exception.class)
+    public void discover_missingCount() throws Exception {
+        new AccountDiscovery(xpubs -> new HashMap<>()).discover(wallet);
+    }
+}
@@ -36,6 +36,29 @@ public class HDChainTest {
         Assert.assertEquals("1HxBEXhu5LPibpTAQ1EoNTJavDSbwajJTg", chain.getAddressAt(0).getAddressString());
     }
 
+    @Test
+    public void getAddressAt_cachesDerivedAddresses() throws Exception {
+        HDChain chain = new HDChain(BitcoinMainNetParams.get(), key, true);
+
+        HDAddress first = chain.getAddressAt(5);
+        HDAddress second = chain.getAddressAt(5);
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, chain.getAddressCache().getHits());
+        Assert.assertEquals(1, chain.getAddressCache().getMisses());
+    }
+
+    @Test
+    public void prefillAddresses() throws Exception {
+        HDChain chain = new HDChain(BitcoinMainNetParams.get(), key, true);
+        chain.prefillAddresses(0, 20);
+
+        Assert.assertEquals(20, chain.getAddressCache().size());
+        Assert.assertEquals("1HxBEXhu5LPibpTAQ1EoNTJavDSbwajJTg", chain.getAddressAt(0).getAddressString());
+        Assert.assertEquals(1, chain.getAddressCache().getHits());
+        Assert.assertEquals(0, chain.getAddressCache().getMisses());
+    }
+
     @Test
     public void getPath() throws Exception {
         HDChain chain = new HDChain(BitcoinMainNetParams.get(), key, true);
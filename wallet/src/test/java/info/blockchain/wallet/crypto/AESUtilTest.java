@@ -184,4 +184,24 @@ public class AESUtilTest {
 
         Assert.assertTrue("Decryption", decrypted.equals(data));
     }
+
+    @Test
+    public void decryptingTwice_reusesDerivedKey() throws Exception {
+        String encrypted = AESUtil.encrypt(cleartext, pw, iterations);
+        long hits = AESUtil.getDerivedKeyCache().getHits();
+
+        Assert.assertEquals(cleartext, AESUtil.decrypt(encrypted, pw, iterations));
+        Assert.assertEquals(cleartext, AESUtil.decrypt(encrypted, pw, iterations));
+
+        Assert.assertEquals(hits + 2, AESUtil.getDerivedKeyCache().getHits());
+    }
+
+    @Test
+    public void clearDerivedKeyCache_dropsKeys() throws Exception {
+        AESUtil.encrypt(cleartext, pw, iterations);
+
+        AESUtil.clearDerivedKeyCache();
+
+        Assert.assertEquals(0, AESUtil.getDerivedKeyCache().getSize());
+    }
 }
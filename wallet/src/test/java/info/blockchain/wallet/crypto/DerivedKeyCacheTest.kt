@@ -0,0 +1,67 @@
+package info.blockchain.wallet.crypto
+
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+import org.spongycastle.crypto.params.KeyParameter
+
+class DerivedKeyCacheTest {
+
+    private val password = "password".toByteArray()
+    private val salt = ByteArray(16) { it.toByte() }
+    private val key = KeyParameter(ByteArray(32) { 7 })
+
+    @Test
+    fun `returns a cached key for the same password, salt and iterations`() {
+        val cache = DerivedKeyCache()
+        cache.put(password, salt, 5000, key)
+
+        cache.get(password, salt, 5000)!!.key.toList() `should equal` key.key.toList()
+        cache.hits `should equal` 1L
+    }
+
+    @Test
+    fun `misses when any of the inputs differ`() {
+        val cache = DerivedKeyCache()
+        cache.put(password, salt, 5000, key)
+
+        cache.get("other".toByteArray(), salt, 5000) `should be` null
+        cache.get(password, ByteArray(16), 5000) `should be` null
+        cache.get(password, salt, 5001) `should be` null
+        cache.misses `should equal` 3L
+    }
+
+    @Test
+    fun `evicts the least recently used key when full`() {
+        val cache = DerivedKeyCache(maxEntries = 2)
+        cache.put(password, salt, 1, key)
+        cache.put(password, salt, 2, key)
+        cache.get(password, salt, 1)
+        cache.put(password, salt, 3, key)
+
+        cache.size `should equal` 2
+        cache.get(password, salt, 2) `should be` null
+        (cache.get(password, salt, 1) != null) `should be` true
+    }
+
+    @Test
+    fun `clear drops every key`() {
+        val cache = DerivedKeyCache()
+        cache.put(password, salt, 5000, key)
+
+        cache.clear()
+
+        cache.size `should equal` 0
+        cache.get(password, salt, 5000) `should be` null
+    }
+
+    @Test
+    fun `returned keys are copies`() {
+        val cache = DerivedKeyCache()
+        cache.put(password, salt, 5000, key)
+
+        cache.get(password, salt, 5000)!!.key.fill(0)
+
+        cache.get(password, salt, 5000)!!.key.toList() `should equal` key.key.toList()
+    }
+}
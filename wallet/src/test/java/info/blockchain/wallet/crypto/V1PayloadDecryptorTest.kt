@@ -0,0 +1,76 @@
+package info.blockchain.wallet.crypto
+
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+import org.spongycastle.crypto.paddings.ISO10126d2Padding
+
+class V1PayloadDecryptorTest {
+
+    private val json = "{\"guid\":\"9ebb4d4f-f36e-40d6-9a3e-5a3cca5f83d6\",\"keys\":[]}"
+
+    @Test
+    fun `decrypts a payload encrypted with either iteration count and mode`() {
+        listOf(AESUtil.MODE_CBC, AESUtil.MODE_OFB).forEach { mode ->
+            listOf(1, 10).forEach { iterations ->
+                V1PayloadDecryptor().decrypt(encrypt(mode, iterations), "mypassword") `should equal` json
+            }
+        }
+    }
+
+    @Test
+    fun `decrypting the same payload again reuses the derived keys`() {
+        val payload = encrypt(AESUtil.MODE_OFB, 10)
+        AESUtil.clearDerivedKeyCache()
+        V1PayloadDecryptor().decrypt(payload, "mypassword") `should equal` json
+        val misses = AESUtil.getDerivedKeyCache().misses
+
+        V1PayloadDecryptor().decrypt(payload, "mypassword") `should equal` json
+
+        AESUtil.getDerivedKeyCache().misses `should equal` misses
+        (AESUtil.getDerivedKeyCache().hits > 0) `should be` true
+    }
+
+    @Test
+    fun `only fully decrypts candidates that pass the first block check`() {
+        val decryptor = V1PayloadDecryptor()
+
+        decryptor.decrypt(OFB_10_ITERATIONS, "mypassword") `should equal` json
+        // None of the candidates tried before the right one get past the first block check
+        decryptor.fullDecryptAttempts `should equal` 1
+    }
+
+    @Test
+    fun `returns null for the wrong password`() {
+        val decryptor = V1PayloadDecryptor()
+
+        decryptor.decrypt(CBC_1_ITERATION, "wrongpassword") `should be` null
+        decryptor.fullDecryptAttempts `should equal` 0
+    }
+
+    @Test
+    fun `returns null for a payload that isn't base64 cipher data`() {
+        V1PayloadDecryptor().decrypt("not a payload", "mypassword") `should be` null
+    }
+
+    @Test
+    fun `first block check accepts leading whitespace and rejects control characters`() {
+        V1PayloadDecryptor.looksLikeJsonStart("  \n{\"guid\":\"9eb".toByteArray()) `should be` true
+        V1PayloadDecryptor.looksLikeJsonStart("[\"guid\":\"9ebb4d".toByteArray()) `should be` false
+        V1PayloadDecryptor.looksLikeJsonStart("{\"guid\u0001:\"9ebb4d".toByteArray()) `should be` false
+    }
+
+    private fun encrypt(mode: Int, iterations: Int): String =
+        AESUtil.encryptWithSetMode(json, "mypassword", iterations, mode, ISO10126d2Padding())
+
+    companion object {
+        // [json] encrypted with "mypassword". The IV is fixed rather than random, so the first
+        // block check sees the same bytes for every wrong candidate on every run.
+        private const val OFB_10_ITERATIONS =
+            "cNsML/f3EYB93Sp4oiThdSVlwXUhDK1aXnc0LD6k5ifNpHoOZ14MYhMa" +
+                "S1YRZCt55bARXMqVHfuynyzf3I/A/qwE7eg5qJODS/B4mX/UkOA="
+        private const val CBC_1_ITERATION =
+            "4HA6SF/E41Dj5Cw/IMmno67B6qnLTCZFcz0Uph+CGmEmq1juinM7eaj+" +
+                "f304hzDKPzqLgBxSXVq1lA6OQKFYzGRtrNI26g7DHLnlIjcZcIM="
+    }
+}
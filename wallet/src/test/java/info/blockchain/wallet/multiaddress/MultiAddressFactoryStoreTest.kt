@@ -0,0 +1,233 @@
+package info.blockchain.wallet.multiaddress
+
+import com.nhaarman.mockito_kotlin.doReturn
+import com.nhaarman.mockito_kotlin.mock
+import info.blockchain.api.data.AddressSummary
+import info.blockchain.api.data.Info
+import info.blockchain.api.data.Input
+import info.blockchain.api.data.MultiAddress
+import info.blockchain.api.data.Output
+import info.blockchain.api.data.RawBlock
+import info.blockchain.api.data.Transaction
+import info.blockchain.api.data.Xpub
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import retrofit2.Call
+import retrofit2.Response
+import java.math.BigInteger
+
+class MultiAddressFactoryStoreTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val xpub = "xpub6CFgfYG9chNp7rzZ7ByXyAJruku5JSVhtGmGqR9tmeLRwu3jtioyBZpXC6GAnpMQPBQg5rviqTwMN4EwgMCZNVT3N22sSnM1yEfBQzjHXJt"
+
+    private val server = FakeExplorer()
+
+    private val directory by lazy { folder.newFolder() }
+
+    private val store by lazy { FileTransactionStore(directory, { ByteArray(32) }) }
+
+    private fun factory() = TestMultiAddressFactory(server, store)
+
+    @Test
+    fun `first sync fetches the full page`() {
+        server.history = (0 until 30).map { received(it, height = 1000L - it) }
+
+        val summaries = factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        summaries.map { it.hash } `should equal` (0 until 20).map { "tx$it" }
+        server.requests `should equal` listOf(20 to 0)
+    }
+
+    @Test
+    fun `refresh without new activity only fetches one small page`() {
+        server.history = (0 until 30).map { received(it, height = 1000L - it) }
+        val first = factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+        server.requests.clear()
+
+        val second = factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        second.map { it.hash } `should equal` first.map { it.hash }
+        second.map { it.total } `should equal` first.map { it.total }
+        server.requests `should equal` listOf(MultiAddressFactory.INCREMENTAL_PAGE_SIZE to 0)
+    }
+
+    @Test
+    fun `new transactions are merged on top of stored history`() {
+        server.history = (1 until 30).map { received(it, height = 1000L - it) }
+        factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+        server.requests.clear()
+
+        server.history = listOf(received(0, height = 0)) + server.history
+        server.latestBlock = 1001
+        val summaries = factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        summaries.map { it.hash } `should equal` (0 until 20).map { "tx$it" }
+        summaries[0].confirmations `should equal` 0
+        summaries[19].confirmations `should equal` 21
+        server.requests `should equal` listOf(MultiAddressFactory.INCREMENTAL_PAGE_SIZE to 0)
+    }
+
+    @Test
+    fun `pages until pending transactions are seen again`() {
+        server.history = listOf(received(0, height = 0)) + (1 until 30).map { received(it, height = 1000L - it) }
+        factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+        server.requests.clear()
+
+        // The pending transaction was confirmed
+        server.history = listOf(received(0, height = 1001)) + server.history.drop(1)
+        server.latestBlock = 1001
+        val summaries = factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        summaries[0].hash `should equal` "tx0"
+        summaries[0].confirmations `should equal` 1
+        summaries.size `should equal` 20
+    }
+
+    @Test
+    fun `dropped pending transactions are removed`() {
+        server.history = listOf(received(0, height = 0)) + (1 until 5).map { received(it, height = 1000L - it) }
+        factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        server.history = server.history.drop(1)
+        val summaries = factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        summaries.map { it.hash } `should equal` (1 until 5).map { "tx$it" }
+    }
+
+    @Test
+    fun `cached transactions are served without network calls`() {
+        server.history = (0 until 30).map { received(it, height = 1000L - it) }
+        val synced = factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+        server.requests.clear()
+
+        val cached = factory().getCachedAccountTransactions(listOf(xpub), null, null, 20, 0)
+
+        cached.map { it.hash } `should equal` synced.map { it.hash }
+        cached.map { it.confirmations } `should equal` synced.map { it.confirmations }
+        server.requests `should equal` emptyList<Pair<Int, Int>>()
+    }
+
+    @Test
+    fun `reading cached transactions leaves the next address indexes alone`() {
+        server.history = (0 until 30).map { received(it, height = 1000L - it) }
+        val factory = factory()
+        factory.getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+        factory.incrementNextReceiveAddress(xpub, emptyList())
+
+        factory.getCachedAccountTransactions(listOf(xpub), null, null, 20, 0)
+
+        factory.getNextReceiveAddressIndex(xpub, emptyList()) `should equal` 31
+    }
+
+    @Test
+    fun `stored history is ignored when the active addresses change`() {
+        server.history = (0 until 30).map { received(it, height = 1000L - it) }
+        factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+        server.requests.clear()
+
+        factory().getAccountTransactions(listOf(xpub, "1Legacy"), null, null, 20, 0, 0)
+
+        server.requests `should equal` listOf(20 to 0)
+        factory().getCachedAccountTransactions(listOf(xpub), null, null, 20, 0) `should equal` emptyList<TransactionSummary>()
+    }
+
+    @Test
+    fun `stored history is not kept in the clear`() {
+        server.history = (0 until 30).map { received(it, height = 1000L - it) }
+        factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        directory.listFiles()!!.forEach { file ->
+            val contents = file.readText()
+            contents.contains(xpub) `should equal` false
+            contents.contains("tx0") `should equal` false
+        }
+    }
+
+    @Test
+    fun `nothing is stored without an encryption key`() {
+        server.history = (0 until 30).map { received(it, height = 1000L - it) }
+        val store = FileTransactionStore(directory, { null })
+        TestMultiAddressFactory(server, store).getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+        server.requests.clear()
+
+        TestMultiAddressFactory(server, store).getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        server.requests `should equal` listOf(20 to 0)
+        directory.listFiles()!!.size `should equal` 0
+    }
+
+    @Test
+    fun `clearing the store forces a full fetch`() {
+        server.history = (0 until 30).map { received(it, height = 1000L - it) }
+        factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+        server.requests.clear()
+
+        store.clear()
+        factory().getAccountTransactions(listOf(xpub), null, null, 20, 0, 0)
+
+        server.requests `should equal` listOf(20 to 0)
+    }
+
+    private fun received(index: Int, height: Long) = Transaction().apply {
+        hash = "tx$index"
+        time = 1_600_000_000L - index * 600L
+        blockHeight = height
+        fee = BigInteger.valueOf(1000)
+        result = BigInteger.valueOf(10_000L + index)
+        inputs = arrayListOf(Input().apply {
+            prevOut = Output().apply {
+                addr = "1Foreign$index"
+                value = BigInteger.valueOf(11_000L + index)
+            }
+        })
+        out = arrayListOf(Output().apply {
+            addr = "1Own$index"
+            value = BigInteger.valueOf(10_000L + index)
+            xpub = Xpub().apply {
+                m = this@MultiAddressFactoryStoreTest.xpub
+                path = "M/0/$index"
+            }
+        })
+    }
+
+    private inner class FakeExplorer {
+        var history: List<Transaction> = emptyList()
+        var latestBlock = 1000L
+        val requests = mutableListOf<Pair<Int, Int>>()
+
+        fun page(limit: Int, offset: Int): MultiAddress {
+            requests += limit to offset
+            return MultiAddress().apply {
+                addresses = arrayListOf(AddressSummary().apply {
+                    address = xpub
+                    accountIndex = history.size
+                })
+                txs = ArrayList(history.drop(offset).take(limit).map { Transaction.fromJson(it.toJson()) })
+                info = Info().apply {
+                    latestBlock = RawBlock().apply { height = this@FakeExplorer.latestBlock }
+                }
+            }
+        }
+    }
+
+    private class TestMultiAddressFactory(
+        private val server: FakeExplorer,
+        store: TransactionStore
+    ) : MultiAddressFactory(null, store) {
+
+        override fun getMultiAddress(
+            allActive: List<String>,
+            limit: Int,
+            offset: Int,
+            context: String?
+        ): Call<MultiAddress> {
+            val page = server.page(limit, offset)
+            return mock<Call<MultiAddress>> { on { execute() } doReturn Response.success(page) }
+        }
+    }
+}
@@ -84,6 +84,22 @@ public class MultiAddressFactoryTest extends MockedResponseTest {
         Assert.assertFalse(multiAddressFactory.isOwnHDAddress("1PPNN4psDFyAgdjQcKBJ8GSgE4ES4GHP9c"));
     }
 
+    @Test
+    public void getMultiAddress_doesNotModifyRequestedAddresses() throws Exception {
+
+        URI uri = getClass().getClassLoader().getResource("multiaddress/multi_address_xpub6CFg.txt").toURI();
+        String response = new String(Files.readAllBytes(Paths.get(uri)), Charset.forName("utf-8"));
+
+        mockInterceptor.setResponseString(response);
+
+        List<String> requested = Collections.singletonList(dormantXpub);
+        List<TransactionSummary> summary = multiAddressFactory.getAccountTransactions(
+            requested, null, dormantXpub, 100, 0, 0);
+
+        Assert.assertEquals(34, summary.size());
+        Assert.assertEquals(Collections.singletonList(dormantXpub), requested);
+    }
+
     @Test
     public void getMultiAddress_xpubAndLegacyAddress() throws Exception {
 
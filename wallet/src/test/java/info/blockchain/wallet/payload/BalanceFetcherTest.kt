@@ -0,0 +1,123 @@
+package info.blockchain.wallet.payload
+
+import info.blockchain.wallet.exceptions.ServerConnectionException
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+import java.math.BigInteger
+import java.util.Collections
+
+class BalanceFetcherTest {
+
+    private var now = 0L
+
+    private val balances = mutableMapOf<String, Long>()
+
+    private val queries: MutableList<Set<String>> = Collections.synchronizedList(mutableListOf())
+
+    private val query = object : BalanceQuery {
+        override fun getBalancesFor(addressesAndXpubs: Set<String>): Map<String, BigInteger> {
+            queries += addressesAndXpubs
+            return addressesAndXpubs.associateWith { (balances[it] ?: 0L).toBigInteger() }
+        }
+    }
+
+    private val fetcher = BalanceFetcher(query, chunkSize = 3, clock = { now })
+
+    @Test
+    fun `small wallets are fetched in one query`() {
+        balances += mapOf("xpub" to 10L, "A" to 20L)
+
+        fetcher.fetch(setOf("xpub"), setOf("A")) `should equal` mapOf(
+            "xpub" to 10.toBigInteger(),
+            "A" to 20.toBigInteger()
+        )
+        queries `should equal` listOf(setOf("xpub", "A"))
+    }
+
+    @Test
+    fun `large wallets are fetched in chunks and merged`() {
+        val legacy = (1..10).map { "address$it" }.toSet()
+        legacy.forEachIndexed { index, address -> balances[address] = index.toLong() }
+
+        val fetched = fetcher.fetch(setOf("xpub"), legacy)
+
+        fetched.size `should be` 11
+        legacy.forEachIndexed { index, address -> fetched[address] `should equal` index.toBigInteger() }
+        queries.size `should be` 4
+        queries.all { it.size <= 3 } `should be` true
+        queries.flatten().toSet() `should equal` legacy + "xpub"
+    }
+
+    @Test
+    fun `unchanged imported addresses are skipped until they are due a recheck`() {
+        balances += mapOf("xpub" to 10L, "A" to 20L)
+        fetcher.fetch(setOf("xpub"), setOf("A"))
+        // Unchanged since the first query
+        fetcher.fetch(setOf("xpub"), setOf("A"))
+        queries.clear()
+
+        now += 1000
+        fetcher.fetch(setOf("xpub"), setOf("A")) `should equal` mapOf(
+            "xpub" to 10.toBigInteger(),
+            "A" to 20.toBigInteger()
+        )
+        queries `should equal` listOf(setOf("xpub"))
+
+        now += BalanceFetcher.UNCHANGED_RECHECK_MILLIS
+        fetcher.fetch(setOf("xpub"), setOf("A"))
+        queries.last() `should equal` setOf("xpub", "A")
+    }
+
+    @Test
+    fun `imported addresses that changed are queried again`() {
+        balances["A"] = 20L
+        fetcher.fetch(emptySet(), setOf("A"))
+        balances["A"] = 30L
+        fetcher.fetch(emptySet(), setOf("A"))
+        queries.clear()
+
+        fetcher.fetch(emptySet(), setOf("A")) `should equal` mapOf("A" to 30.toBigInteger())
+        queries `should equal` listOf(setOf("A"))
+    }
+
+    @Test
+    fun `invalidated addresses are queried again`() {
+        balances["A"] = 20L
+        fetcher.fetch(emptySet(), setOf("A"))
+        fetcher.fetch(emptySet(), setOf("A"))
+        queries.clear()
+
+        fetcher.invalidate(listOf("A"))
+
+        fetcher.fetch(emptySet(), setOf("A"))
+        queries `should equal` listOf(setOf("A"))
+    }
+
+    @Test
+    fun `refreshing all queries unchanged addresses too`() {
+        balances["A"] = 20L
+        fetcher.fetch(emptySet(), setOf("A"))
+        fetcher.fetch(emptySet(), setOf("A"))
+        queries.clear()
+
+        balances["A"] = 30L
+
+        fetcher.fetch(emptySet(), setOf("A"), refreshAll = true) `should equal` mapOf("A" to 30.toBigInteger())
+        queries `should equal` listOf(setOf("A"))
+    }
+
+    @Test(expected = ServerConnectionException::class)
+    fun `a failed chunk fails the fetch`() {
+        val failing = object : BalanceQuery {
+            override fun getBalancesFor(addressesAndXpubs: Set<String>): Map<String, BigInteger> =
+                if ("address5" in addressesAndXpubs) {
+                    throw ServerConnectionException("Failed")
+                } else {
+                    addressesAndXpubs.associateWith { BigInteger.ZERO }
+                }
+        }
+
+        BalanceFetcher(failing, chunkSize = 3).fetch(emptySet(), (1..10).map { "address$it" }.toSet())
+    }
+}
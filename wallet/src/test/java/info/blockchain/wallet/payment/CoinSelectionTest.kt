@@ -97,4 +97,63 @@ class CoinSelectionTest {
             it.consumedAmount `should equal` BigInteger.ZERO
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `changeless selection finds an exact match`() {
+        val coins = unspents(100000, 90000, 60000)
+        val selected = unspents(90000, 60000)
+        val outputAmount = selected.sum() - 18810.toBigInteger()
+
+        CoinSelection(coins, feePerByte).selectChangeless(outputAmount).also {
+            it.spendableOutputs.values() `should equal` selected.values()
+            it.absoluteFee `should equal` 18810.toBigInteger()
+            it.consumedAmount `should equal` BigInteger.ZERO
+        }
+    }
+
+    @Test
+    fun `changeless selection falls back to ordered selection`() {
+        val coins = unspents(1, 20000, 0, 0, 300000, 50000, 30000)
+        val outputAmount = 100000.toBigInteger()
+
+        CoinSelection(coins, feePerByte).selectChangeless(outputAmount, AscentDraw).also {
+            it.spendableOutputs.values() `should equal` unspents(20000, 30000, 50000, 300000).values()
+            it.absoluteFee `should equal` 37070.toBigInteger()
+            it.consumedAmount `should equal` BigInteger.ZERO
+        }
+    }
+
+    @Test
+    fun `changeless selection is not used when it costs more`() {
+        val coins = unspents(200000, 60000, 50000, 40000)
+        val outputAmount = 140000.toBigInteger()
+
+        CoinSelection(coins, feePerByte).selectChangeless(outputAmount).also {
+            it.spendableOutputs.values() `should equal` unspents(200000).values()
+            it.absoluteFee `should equal` 12485.toBigInteger()
+            it.consumedAmount `should equal` BigInteger.ZERO
+        }
+    }
+
+    @Test
+    fun `changeless selection keeps force included coins`() {
+        val forced = unspent(10000).apply { isForceInclude = true }
+        val coins = listOf(forced) + unspents(90000, 60000)
+        val outputAmount = 60000.toBigInteger()
+
+        CoinSelection(coins, feePerByte).selectChangeless(outputAmount).also {
+            it.spendableOutputs.values() `should equal` unspents(90000, 10000).values()
+        }
+    }
+
+    @Test
+    fun `changeless selection with insufficient funds`() {
+        val coins = unspents(20000, 30000)
+        val outputAmount = 100000.toBigInteger()
+
+        CoinSelection(coins, feePerByte).selectChangeless(outputAmount).also {
+            it.spendableOutputs.values() `should equal` unspents().values()
+            it.absoluteFee `should equal` BigInteger.ZERO
+        }
+    }
+}
@@ -74,6 +74,48 @@ class CoinsTest {
             coinValue `should equal` 0.satoshi()
         }
     }
+
+    @Test
+    fun `legacy selection does not modify the outputs`() {
+        val unspentOutputs = unspentOutputs(1000.satoshi(), 30000.satoshi(), 20000.satoshi())
+            .apply { unspentOutputs.forEachIndexed { i, coin -> coin.isReplayable = i == 1 } }
+        val original = unspentOutputs.unspentOutputs.toList()
+
+        val first = Coins.getMinimumCoinsForPayment(
+            unspentOutputs, 25000.toBigInteger(), 1000.toBigInteger(), true, false)
+        val second = Coins.getMinimumCoinsForPayment(
+            unspentOutputs, 25000.toBigInteger(), 1000.toBigInteger(), true, false)
+        Coins.getMaximumAvailable(unspentOutputs, 1000.toBigInteger(), true, false)
+
+        unspentOutputs.unspentOutputs `should equal` original
+        unspentOutputs.unspentOutputs.none { it.isForceInclude } `should equal` true
+        first.spendableOutputs.map { it.value.toInt() } `should equal` listOf(1000, 30000)
+        second.spendableOutputs `should equal` first.spendableOutputs
+    }
+
+    @Test
+    fun `legacy selection skips outputs whose script can't be parsed`() {
+        val unspentOutputs = unspentOutputs(30000.satoshi(), 25000.satoshi(), 20000.satoshi())
+            .apply {
+                unspentOutputs[0].script = "not hex"
+                // OP_PUSHDATA1 with nothing after it
+                unspentOutputs[1].script = "4c"
+            }
+
+        Coins.getMinimumCoinsForPayment(
+            unspentOutputs, 15000.toBigInteger(), 1000.toBigInteger(), false, false
+        ).spendableOutputs.map { it.value.toInt() } `should equal` listOf(20000)
+    }
+
+    @Test
+    fun `prepared outputs are refreshed when the outputs change`() {
+        val unspentOutputs = PreparedUnspentOutputs.of(unspentOutputs(10000.satoshi()))
+        maximumSpendable(unspentOutputs, 100).first `should equal` 9807.satoshi()
+
+        unspentOutputs.unspentOutputs.add(UnspentOutput().apply { value = 1000.toBigInteger() })
+
+        maximumSpendable(unspentOutputs, 100).first `should equal` 10658.satoshi()
+    }
 }
 
 private fun maximumSpendable(
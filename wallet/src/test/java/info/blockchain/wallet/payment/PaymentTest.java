@@ -237,31 +237,36 @@ public class PaymentTest extends MockedResponseTest {
     }
 
     @Test
-    public void spendFirstThreeCoins_plusSome_minusFee_shouldExpectChange() throws IOException {
+    public void spendFirstThreeCoins_plusSome_minusFee_shouldAvoidChange() throws IOException {
         // 8 available Payment. [80200,70000,60000,50000,40000,30000,20000,10000]
         UnspentOutputs unspentOutputs = UnspentOutputs.fromJson(UnspentTestData.apiResponseString);
 
+        // Greedy selection takes [80200,70000,60000,50000] and adds change. The same fee spends
+        // [80200,70000,60000,30000] without change, leaving what's left over to the miners.
         long spendAmount = 80200L + 70000L + 60000L + 30000L;
         int inputs = 4; // Coins
-        int outputs = 2; // Change
-        long feeManual = calculateFee(outputs, inputs, BigInteger.valueOf(30000L));
+        long feeManual = calculateFee(2, inputs, BigInteger.valueOf(30000L));
+        long feeWithoutChange = calculateFee(1, inputs, BigInteger.valueOf(30000L));
         BigInteger spendAmountMinusFee = BigInteger.valueOf(spendAmount - feeManual);
         SpendableUnspentOutputs paymentBundle = subject
                 .getSpendableCoins(unspentOutputs, spendAmountMinusFee, BigInteger.valueOf(30000L), false, useNewCoinSelection);
 
         assertEquals(inputs, paymentBundle.getSpendableOutputs().size());
+        assertEquals(spendAmount, CoinSelectionKt.sum(paymentBundle.getSpendableOutputs()).longValue());
         assertEquals(feeManual, paymentBundle.getAbsoluteFee().longValue());
-        assertEquals(0L, Math.abs(paymentBundle.getConsumedAmount().longValue()));
+        assertEquals(feeManual - feeWithoutChange, paymentBundle.getConsumedAmount().longValue());
     }
 
     @Test
-    public void spendFirstThreeCoins_plusFee_shouldUse4Inputs_AndExpectChange() throws IOException {
+    public void spendFirstThreeCoins_plusFee_shouldUse4Inputs_AndAvoidChange() throws IOException {
         // 8 available Payment. [80200,70000,60000,50000,40000,30000,20000,10000]
         UnspentOutputs unspentOutputs = UnspentOutputs.fromJson(UnspentTestData.apiResponseString);
 
+        // [80200,70000,60000,20000] pays for itself without change, and costs less than adding
+        // the 50000 coin and a change output
         long spendAmount = 80200L + 70000L + 60000L;
         int inputs = 4; // Coins
-        int outputs = 2; // Change
+        int outputs = 1; // No change
         SpendableUnspentOutputs paymentBundle = subject
                 .getSpendableCoins(unspentOutputs,
                         BigInteger.valueOf(spendAmount),
@@ -269,9 +274,12 @@ public class PaymentTest extends MockedResponseTest {
                         false,
                         useNewCoinSelection);
         long feeManual = calculateFee(outputs, inputs, BigInteger.valueOf(30000L));
+        long expectedFee = 80200L + 70000L + 60000L + 20000L - spendAmount;
+        long consumedAmount = expectedFee - feeManual;
         assertEquals(inputs, paymentBundle.getSpendableOutputs().size());
-        assertEquals(feeManual, paymentBundle.getAbsoluteFee().longValue());
-        assertEquals(0L, Math.abs(paymentBundle.getConsumedAmount().longValue()));
+        assertEquals(expectedFee, paymentBundle.getAbsoluteFee().longValue());
+        assertTrue(paymentBundle.getAbsoluteFee().longValue() < calculateFee(2, inputs, BigInteger.valueOf(30000L)));
+        assertEquals(consumedAmount, paymentBundle.getConsumedAmount().longValue());
     }
 
     @Test